@@ -0,0 +1,135 @@
+package com.softwaremill.jox.flows;
+
+import static com.softwaremill.jox.structured.Scopes.supervised;
+
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.softwaremill.jox.Channel;
+import com.softwaremill.jox.ChannelDone;
+import com.softwaremill.jox.ChannelError;
+import com.softwaremill.jox.structured.ThrowingFunction;
+
+/**
+ * Compares {@link Flow#mapPar(int, ThrowingFunction)}, which uses long-lived workers, with the
+ * previous implementation, which started a fork for each element (reproduced in {@link
+ * #mapParForkPerElement}), for a cheap mapping function.
+ */
+@Warmup(iterations = 3, time = 4000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 4000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MapParBenchmark {
+    @Param({"4", "16", "64", "256"})
+    public int parallelism;
+
+    /** The amount of work done by the mapping function, see {@link Blackhole#consumeCPU(long)}. */
+    @Param({"0", "100"})
+    public long tokens;
+
+    private static final int OPERATIONS_PER_INVOCATION = 100_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void mapPar() throws Exception {
+        Flows.range(1, OPERATIONS_PER_INVOCATION, 1).mapPar(parallelism, this::work).runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void forkPerElement() throws Exception {
+        mapParForkPerElement(Flows.range(1, OPERATIONS_PER_INVOCATION, 1), parallelism, this::work)
+                .runDrain();
+    }
+
+    private Integer work(Integer i) {
+        Blackhole.consumeCPU(tokens);
+        return i;
+    }
+
+    /** The implementation of {@code mapPar} before it used long-lived workers. */
+    static <T, U> Flow<U> mapParForkPerElement(
+            Flow<T> flow, int parallelism, ThrowingFunction<T, U> f) {
+        return Flows.usingEmit(
+                emit -> {
+                    Semaphore semaphore = new Semaphore(parallelism);
+                    Channel<com.softwaremill.jox.structured.Fork<Optional<U>>> inProgress =
+                            Channel.newBufferedChannel(parallelism);
+                    Channel<U> results = Channel.newBufferedChannel(Channel.DEFAULT_BUFFER_SIZE);
+
+                    supervised(
+                            scope -> {
+                                scope.forkUnsupervised(
+                                        () -> {
+                                            try {
+                                                flow.runForeach(
+                                                        value -> {
+                                                            semaphore.acquire();
+                                                            inProgress.sendOrClosed(
+                                                                    forkMapping(
+                                                                            scope, f, semaphore,
+                                                                            value, results));
+                                                        });
+                                                inProgress.doneOrClosed();
+                                            } catch (Exception e) {
+                                                results.errorOrClosed(e);
+                                            }
+                                            return null;
+                                        });
+
+                                scope.forkUnsupervised(
+                                        () -> {
+                                            while (true) {
+                                                var r = inProgress.receiveOrClosed();
+                                                if (r instanceof ChannelDone) {
+                                                    results.done();
+                                                    return null;
+                                                } else if (r instanceof ChannelError e) {
+                                                    throw new IllegalStateException(e.cause());
+                                                }
+                                                //noinspection unchecked
+                                                Optional<U> result =
+                                                        ((com.softwaremill.jox.structured.Fork<
+                                                                                Optional<U>>)
+                                                                        r)
+                                                                .join();
+                                                if (result.isPresent()) {
+                                                    results.sendOrClosed(result.get());
+                                                } else {
+                                                    return null;
+                                                }
+                                            }
+                                        });
+
+                                FlowEmit.channelToEmit(results, emit);
+                                return null;
+                            });
+                });
+    }
+
+    private static <T, U> com.softwaremill.jox.structured.Fork<Optional<U>> forkMapping(
+            com.softwaremill.jox.structured.Scope scope,
+            ThrowingFunction<T, U> f,
+            Semaphore semaphore,
+            T value,
+            Channel<U> results)
+            throws InterruptedException {
+        return scope.forkUnsupervised(
+                () -> {
+                    try {
+                        U u = f.apply(value);
+                        semaphore.release();
+                        return Optional.of(u);
+                    } catch (Throwable t) {
+                        results.errorOrClosed(t);
+                        return Optional.empty();
+                    }
+                });
+    }
+}
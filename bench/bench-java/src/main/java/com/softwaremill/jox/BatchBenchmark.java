@@ -0,0 +1,98 @@
+package com.softwaremill.jox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares per-element {@link Channel#send(Object)}/{@link Channel#receive()} with the batched
+ * {@link Channel#sendAll(List)}/{@link Channel#receiveAtMost(int, java.util.Collection)}.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+    @Param({"16", "100"})
+    public int capacity;
+
+    @Param({"8", "64"})
+    public int batchSize;
+
+    // same as in BufferedBenchmark: the benchmarks are "iterative", not using groups
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void perElement() throws InterruptedException {
+        var ch = Channel.<Integer>newBufferedChannel(capacity);
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.send(63);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.receive();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void batched() throws InterruptedException {
+        var ch = Channel.<Integer>newBufferedChannel(capacity);
+        var batch = Collections.nCopies(batchSize, 63);
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i += batchSize) {
+                                try {
+                                    ch.sendAll(batch);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            var into = new ArrayList<Integer>(batchSize);
+                            var received = 0;
+                            while (received < OPERATIONS_PER_INVOCATION) {
+                                try {
+                                    into.clear();
+                                    received += ch.receiveAtMost(batchSize, into);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+    }
+}
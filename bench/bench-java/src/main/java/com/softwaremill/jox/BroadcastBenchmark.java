@@ -0,0 +1,79 @@
+package com.softwaremill.jox;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the time it takes to deliver a value to a number of subscribers. Compares sending each
+ * value to a buffered channel per subscriber ({@link Channel#newBufferedChannel(int)}), with
+ * sending it once to a {@link BroadcastChannel}, where the subscribers share the log of values.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class BroadcastBenchmark {
+    @Param({"channels", "broadcast"})
+    public String implementation;
+
+    @Param({"1", "4", "16"})
+    public int subscribers;
+
+    @Param({"16", "1024"})
+    public int capacity;
+
+    // same as in BufferedBenchmark: the benchmarks are "iterative", not using groups
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void fanOut() throws InterruptedException {
+        var ts = new ArrayList<Thread>();
+        if (implementation.equals("channels")) {
+            var chs = new ArrayList<Channel<Integer>>();
+            for (int s = 0; s < subscribers; s++) {
+                Channel<Integer> ch = Channel.newBufferedChannel(capacity);
+                chs.add(ch);
+                ts.add(startSubscriber(ch));
+            }
+            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                for (var ch : chs) {
+                    ch.send(i);
+                }
+            }
+        } else {
+            BroadcastChannel<Integer> ch = BroadcastChannel.newBroadcastChannel(capacity);
+            for (int s = 0; s < subscribers; s++) {
+                ts.add(startSubscriber(ch.subscribe()));
+            }
+            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                ch.send(i);
+            }
+        }
+
+        for (var t : ts) {
+            t.join();
+        }
+    }
+
+    private static Thread startSubscriber(Source<Integer> source) {
+        return Thread.startVirtualThread(
+                () -> {
+                    try {
+                        var batch = new ArrayList<Integer>();
+                        var received = 0;
+                        while (received < OPERATIONS_PER_INVOCATION) {
+                            batch.clear();
+                            received += (Integer) source.receiveAtMostOrClosed(64, batch);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+}
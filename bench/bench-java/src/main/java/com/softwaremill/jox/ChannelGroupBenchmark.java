@@ -0,0 +1,75 @@
+package com.softwaremill.jox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the time it takes to receive a value from one of many channels, as the number of
+ * channels grows. Compares {@link Select#select(SelectClause[])}-ing with a receive clause for each
+ * channel, with receiving from a {@link ChannelGroup}.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ChannelGroupBenchmark {
+    @Param({"select", "group"})
+    public String implementation;
+
+    @Param({"2", "10", "100", "1000"})
+    public int channels;
+
+    // selecting from 1000 channels is slow, hence fewer operations than in other benchmarks
+    private static final int OPERATIONS_PER_INVOCATION = 100_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void receiveFromMany() throws InterruptedException {
+        var chs = new ArrayList<Channel<Integer>>();
+        for (int c = 0; c < channels; c++) {
+            chs.add(Channel.newBufferedChannel(16));
+        }
+
+        var producer = startProducer(chs);
+
+        if (implementation.equals("select")) {
+            var clauses = new SelectClause<?>[channels];
+            for (int c = 0; c < channels; c++) {
+                clauses[c] = chs.get(c).receiveClause();
+            }
+            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                Select.select(clauses);
+            }
+        } else {
+            ChannelGroup<Integer> group = ChannelGroup.newChannelGroup();
+            for (var ch : chs) {
+                group.add(ch);
+            }
+            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                group.receive();
+            }
+        }
+
+        producer.join();
+    }
+
+    private static Thread startProducer(List<Channel<Integer>> chs) {
+        return Thread.startVirtualThread(
+                () -> {
+                    try {
+                        // sending to the channels in turns, so that values are usually available in
+                        // some, but not all channels
+                        for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                            chs.get(i % chs.size()).send(i);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+}
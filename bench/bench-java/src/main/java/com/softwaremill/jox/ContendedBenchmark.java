@@ -0,0 +1,71 @@
+package com.softwaremill.jox;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Many producers & consumers, sending to and receiving from a single channel, using platform
+ * threads. Measures how well the channel scales when its counters are contended by threads running
+ * on different cores.
+ *
+ * <p>The JVM doesn't allow pinning threads to cores; to get more stable results, run the benchmark
+ * on a machine with at least {@code 2 * pairs} cores, possibly restricting the JVM to a single NUMA
+ * node (e.g. using {@code numactl --cpunodebind=0}).
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ContendedBenchmark {
+    @Param({"0", "16", "1024"})
+    public int capacity;
+
+    /** The number of producers, and the number of consumers: 1P1C, 4P4C, 16P16C. */
+    @Param({"1", "4", "16"})
+    public int pairs;
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void sendReceive() throws InterruptedException {
+        Channel<Integer> ch = Channel.<Integer>builder().capacity(capacity).build();
+        var perThread = OPERATIONS_PER_INVOCATION / pairs;
+
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < pairs; t++) {
+            threads.add(
+                    Thread.ofPlatform()
+                            .start(
+                                    () -> {
+                                        for (int i = 0; i < perThread; i++) {
+                                            try {
+                                                ch.send(63);
+                                            } catch (InterruptedException e) {
+                                                throw new RuntimeException(e);
+                                            }
+                                        }
+                                    }));
+            threads.add(
+                    Thread.ofPlatform()
+                            .start(
+                                    () -> {
+                                        for (int i = 0; i < perThread; i++) {
+                                            try {
+                                                ch.receive();
+                                            } catch (InterruptedException e) {
+                                                throw new RuntimeException(e);
+                                            }
+                                        }
+                                    }));
+        }
+
+        for (var t : threads) {
+            t.join();
+        }
+    }
+}
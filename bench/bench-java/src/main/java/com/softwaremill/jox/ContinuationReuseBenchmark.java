@@ -0,0 +1,58 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the allocations of blocking operations on a rendezvous channel, where each operation
+ * blocks, depending on how many operations each (virtual) sender thread performs: blocked threads
+ * reuse their continuations across operations. Should be run with {@code -prof gc}, comparing
+ * {@code gc.alloc.rate.norm}.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ContinuationReuseBenchmark {
+    private static final int OPERATIONS_PER_INVOCATION = 100_000;
+
+    /** The number of values sent by each sender thread, before it completes. */
+    @Param({"1", "10", "100000"})
+    public int operationsPerThread;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void rendezvous() throws InterruptedException {
+        var ch = Channel.<Integer>newRendezvousChannel();
+        var receiver =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.receive();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        for (int t = 0; t < OPERATIONS_PER_INVOCATION / operationsPerThread; t++) {
+            var sender =
+                    Thread.startVirtualThread(
+                            () -> {
+                                for (int i = 0; i < operationsPerThread; i++) {
+                                    try {
+                                        ch.send(63);
+                                    } catch (InterruptedException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                }
+                            });
+            sender.join();
+        }
+        receiver.join();
+    }
+}
@@ -0,0 +1,72 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the overhead of {@link InstrumentedChannel}, compared to using the underlying {@link
+ * Channel} directly.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class InstrumentedChannelBenchmark {
+    @Param({"raw", "instrumented"})
+    public String implementation;
+
+    // 0 stands for a rendezvous channel
+    @Param({"0", "16"})
+    public int capacity;
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void sendReceive() throws InterruptedException {
+        Channel<Integer> ch =
+                capacity == 0
+                        ? Channel.newRendezvousChannel()
+                        : Channel.newBufferedChannel(capacity);
+        Source<Integer> source;
+        Sink<Integer> sink;
+        if (implementation.equals("raw")) {
+            source = ch;
+            sink = ch;
+        } else {
+            var instrumented = InstrumentedChannel.instrument(ch);
+            source = instrumented;
+            sink = instrumented;
+        }
+
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    sink.send(63);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    source.receive();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+    }
+}
@@ -0,0 +1,151 @@
+package com.softwaremill.jox;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the throughput of an actor's mailbox, with the same usage pattern as {@code
+ * ActorRef.tell}/{@code ActorRef.ask} in the {@code structured} module (which isn't a dependency of
+ * the benchmarks): a number of senders send invocations to a single actor thread, which runs them
+ * on the actor's state. Compares the general buffered channel ({@link
+ * Channel#newBufferedChannel(int)}, used by actors previously) with a multi-producer,
+ * single-consumer channel ({@link Channel#newMpscChannel(int)}), from which the invocations are
+ * received in batches.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MailboxBenchmark {
+    @Param({"buffered", "mpsc"})
+    public String mailbox;
+
+    @Param({"1", "4", "16"})
+    public int senders;
+
+    // same as in BufferedBenchmark: the benchmarks are "iterative", not using groups
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    private static final class Counter {
+        long value;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void tell() throws InterruptedException {
+        switch (mailbox) {
+            case "buffered" -> tell(Channel.newBufferedDefaultChannel());
+            case "mpsc" -> tell(Channel.newMpscChannel(Channel.DEFAULT_BUFFER_SIZE));
+            default -> throw new IllegalArgumentException(mailbox);
+        }
+    }
+
+    private <C extends Source<Consumer<Counter>> & Sink<Consumer<Counter>>> void tell(C ch)
+            throws InterruptedException {
+        var actor = startActor(ch);
+        var perSender = OPERATIONS_PER_INVOCATION / senders;
+
+        var ts = new ArrayList<Thread>();
+        for (int s = 0; s < senders; s++) {
+            ts.add(
+                    Thread.startVirtualThread(
+                            () -> {
+                                for (int i = 0; i < perSender; i++) {
+                                    try {
+                                        ch.send(c -> c.value += 1);
+                                    } catch (InterruptedException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                }
+                            }));
+        }
+
+        for (var t : ts) {
+            t.join();
+        }
+        ch.done();
+        actor.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void ask() throws InterruptedException {
+        switch (mailbox) {
+            case "buffered" -> ask(Channel.newBufferedDefaultChannel());
+            case "mpsc" -> ask(Channel.newMpscChannel(Channel.DEFAULT_BUFFER_SIZE));
+            default -> throw new IllegalArgumentException(mailbox);
+        }
+    }
+
+    private <C extends Source<Consumer<Counter>> & Sink<Consumer<Counter>>> void ask(C ch)
+            throws InterruptedException {
+        var actor = startActor(ch);
+        var perSender = OPERATIONS_PER_INVOCATION / senders;
+
+        var ts = new ArrayList<Thread>();
+        for (int s = 0; s < senders; s++) {
+            ts.add(
+                    Thread.startVirtualThread(
+                            () -> {
+                                for (int i = 0; i < perSender; i++) {
+                                    try {
+                                        var cf = new CompletableFuture<Long>();
+                                        ch.send(c -> cf.complete(c.value += 1));
+                                        cf.get();
+                                    } catch (InterruptedException | ExecutionException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                }
+                            }));
+        }
+
+        for (var t : ts) {
+            t.join();
+        }
+        ch.done();
+        actor.join();
+    }
+
+    /**
+     * Runs the actor's loop, in the same way as {@code ActorRef.create} (before & after switching
+     * to a multi-producer, single-consumer mailbox), until the mailbox is done.
+     */
+    private Thread startActor(Source<Consumer<Counter>> ch) {
+        return Thread.startVirtualThread(
+                () -> {
+                    var counter = new Counter();
+                    var batch = new ArrayList<Consumer<Counter>>(Channel.DEFAULT_BUFFER_SIZE);
+                    try {
+                        if (mailbox.equals("buffered")) {
+                            // receiving invocations one-by-one, as done previously
+                            Object r;
+                            while (!((r = ch.receiveOrClosed()) instanceof ChannelClosed)) {
+                                //noinspection unchecked
+                                ((Consumer<Counter>) r).accept(counter);
+                            }
+                            return;
+                        }
+                        while (true) {
+                            batch.clear();
+                            var r = ch.receiveAtMostOrClosed(Channel.DEFAULT_BUFFER_SIZE, batch);
+                            if (r instanceof ChannelClosed) {
+                                return;
+                            }
+                            for (var m : batch) {
+                                m.accept(counter);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+}
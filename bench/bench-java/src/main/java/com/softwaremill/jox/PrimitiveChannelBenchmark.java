@@ -0,0 +1,92 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares a {@code Channel<Long>} with a {@link LongChannel}. The sent values are outside of the
+ * {@link Long} cache, so that each send to the boxed channel allocates. Run with {@code -prof gc}
+ * to compare the allocation rates.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PrimitiveChannelBenchmark {
+    // 0: rendezvous, -1: unlimited
+    @Param({"0", "16", "-1"})
+    public int capacity;
+
+    // same as in BufferedBenchmark: the benchmarks are "iterative", not using groups
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    private static final long BASE_VALUE = 1_000L;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void boxed() throws InterruptedException {
+        var ch = Channel.<Long>newBufferedChannel(capacity);
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.send(BASE_VALUE + i);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.receive();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void primitive() throws InterruptedException {
+        var ch = LongChannel.newBufferedChannel(capacity);
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.send(BASE_VALUE + i);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.receive();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+    }
+}
@@ -0,0 +1,58 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Sweeps the segment sizes, configured using {@link Channel#builder()}, for rendezvous and large
+ * buffered channels. Best run with {@code -prof gc}, to compare the allocation rates.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SegmentSizeBenchmark {
+    @Param({"0", "100000"})
+    public int capacity;
+
+    @Param({"4", "32", "256", "4096"})
+    public int segmentSize;
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void sendReceive() throws InterruptedException {
+        Channel<Integer> ch =
+                Channel.<Integer>builder().capacity(capacity).segmentSize(segmentSize).build();
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.send(63);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.receive();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+    }
+}
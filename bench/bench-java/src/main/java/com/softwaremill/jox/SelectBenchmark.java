@@ -1,12 +1,19 @@
 package com.softwaremill.jox;
 
+import static com.softwaremill.jox.Select.prepare;
 import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.Select.selectOrClosedWithin;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 import org.openjdk.jmh.annotations.*;
 
-/** Tests for {@link Select#select(SelectClause[])}. */
+/**
+ * Tests for {@link Select#select(SelectClause[])}, {@link Select#selectOrClosedWithin(Duration,
+ * Object, SelectClause[])} and {@link PreparedSelect}. Run with {@code -prof gc} to compare the
+ * allocation rates.
+ */
 @Warmup(iterations = 3, time = 4000, timeUnit = TimeUnit.MILLISECONDS)
 @Measurement(iterations = 10, time = 4000, timeUnit = TimeUnit.MILLISECONDS)
 @Fork(value = 2)
@@ -92,4 +99,137 @@ public class SelectBenchmark {
         t2.join();
         t3.join();
     }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void selectWithinWithTwoClauses() throws InterruptedException {
+        var ch1 = Channel.newRendezvousChannel();
+        var ch2 = Channel.newRendezvousChannel();
+        var timeout = Duration.ofSeconds(1);
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION / 2; i++) {
+                                try {
+                                    ch1.send(63);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION / 2; i++) {
+                                try {
+                                    ch2.send(63);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t3 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    selectOrClosedWithin(
+                                            timeout,
+                                            null,
+                                            ch1.receiveClause(),
+                                            ch2.receiveClause());
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+        t3.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void selectWithinTimingOut() throws InterruptedException {
+        var ch = Channel.newRendezvousChannel();
+        var timeout = Duration.ofNanos(1);
+        for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+            selectOrClosedWithin(timeout, null, ch.receiveClause());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void preparedSelectWithTwoClauses() throws InterruptedException {
+        var ch1 = Channel.newRendezvousChannel();
+        var ch2 = Channel.newRendezvousChannel();
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION / 2; i++) {
+                                try {
+                                    ch1.send(63);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION / 2; i++) {
+                                try {
+                                    ch2.send(63);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t3 =
+                Thread.startVirtualThread(
+                        () -> {
+                            var select = prepare(ch1.receiveClause(), ch2.receiveClause());
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    select.select();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+        t3.join();
+    }
+
+    // selecting when a value is already available, in a single thread
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void selectAvailable() throws InterruptedException {
+        var ch1 = Channel.<Integer>newBufferedChannel(16);
+        var ch2 = Channel.<Integer>newBufferedChannel(16);
+        for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+            ch1.send(63);
+            select(ch1.receiveClause(), ch2.receiveClause());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void preparedSelectAvailable() throws InterruptedException {
+        var ch1 = Channel.<Integer>newBufferedChannel(16);
+        var ch2 = Channel.<Integer>newBufferedChannel(16);
+        var select = prepare(ch1.receiveClause(), ch2.receiveClause());
+        for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+            ch1.send(63);
+            select.select();
+        }
+    }
 }
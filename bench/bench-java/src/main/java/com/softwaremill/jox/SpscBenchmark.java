@@ -0,0 +1,67 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares a single-producer, single-consumer channel ({@link Channel#newSpscChannel(int)}) with a
+ * general buffered channel ({@link Channel#newBufferedChannel(int)}), with one sender and one
+ * receiver.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SpscBenchmark {
+    @Param({"16", "100"})
+    public int capacity;
+
+    // same as in BufferedBenchmark: the benchmarks are "iterative", not using groups
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void buffered() throws InterruptedException {
+        sendReceive(Channel.newBufferedChannel(capacity));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void spsc() throws InterruptedException {
+        sendReceive(Channel.newSpscChannel(capacity));
+    }
+
+    private <C extends Source<Integer> & Sink<Integer>> void sendReceive(C ch)
+            throws InterruptedException {
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.send(63);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.receive();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+    }
+}
@@ -0,0 +1,78 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the {@link WaitStrategy}s, for rendezvous & buffered channels, with a varying number of
+ * sender-receiver pairs sharing a single channel.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class WaitStrategyBenchmark {
+    @Param({"park", "spin", "spinYield", "adaptive"})
+    public String strategy;
+
+    @Param({"0", "16"})
+    public int capacity;
+
+    @Param({"1", "4", "16"})
+    public int pairs;
+
+    // same as in BufferedBenchmark: the benchmarks are "iterative", not using groups
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    private WaitStrategy createWaitStrategy() {
+        return switch (strategy) {
+            case "park" -> WaitStrategy.parkImmediately();
+            case "spin" -> WaitStrategy.spinThenPark(1 << 10);
+            case "spinYield" -> WaitStrategy.spinYieldThenPark(1 << 7, 8);
+            case "adaptive" -> WaitStrategy.adaptive();
+            default -> throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void sendReceive() throws InterruptedException {
+        var ch = Channel.<Integer>newBufferedChannel(capacity, createWaitStrategy());
+        var perThread = OPERATIONS_PER_INVOCATION / pairs;
+
+        var threads = new Thread[pairs * 2];
+        for (int t = 0; t < pairs; t++) {
+            threads[2 * t] =
+                    Thread.startVirtualThread(
+                            () -> {
+                                for (int i = 0; i < perThread; i++) {
+                                    try {
+                                        ch.send(63);
+                                    } catch (InterruptedException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                }
+                            });
+
+            threads[2 * t + 1] =
+                    Thread.startVirtualThread(
+                            () -> {
+                                for (int i = 0; i < perThread; i++) {
+                                    try {
+                                        ch.receive();
+                                    } catch (InterruptedException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                }
+                            });
+        }
+
+        for (var t : threads) {
+            t.join();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.softwaremill.jox.latency;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An open-loop latency benchmark: a producer sends timestamps at a fixed rate through a pipeline
+ * (see {@link Scenario}), and a consumer records the handoff latency of each one. Unlike the JMH
+ * benchmarks, which measure the average time per operation, this reports the latency distribution
+ * under a given load.
+ *
+ * <p>The producer sends the {@code i}-th value at {@code start + i * interval}. If it falls behind
+ * (because the pipeline applied backpressure, or the thread wasn't scheduled), it sends the delayed
+ * values as fast as possible. Two latencies are recorded for each value:
+ *
+ * <ul>
+ *   <li><b>corrected</b>: from the time at which the value should have been sent, according to the
+ *       schedule. This corrects the coordinated omission: a stall of the pipeline is included in
+ *       the latencies of all the values which should have been sent in the meantime.
+ *   <li><b>uncorrected</b>: from the time at which the value was actually sent, as measured by a
+ *       closed-loop benchmark.
+ * </ul>
+ *
+ * <p>Usage (all options are optional, lists are comma-separated):
+ *
+ * <pre>
+ * java --enable-preview -jar bench/bench-latency/target/latency.jar \
+ *   --scenarios rendezvous,buffered,select,flow_buffer \
+ *   --rates 10000,100000 \
+ *   --threads virtual,platform \
+ *   --cores 1,2,4 \
+ *   --capacity 16 --warmup 2 --duration 10
+ * </pre>
+ *
+ * <p>When {@code --cores} is given, each core count is measured in a separate JVM, started with
+ * {@code -XX:ActiveProcessorCount} and the virtual thread scheduler's parallelism set to that
+ * count. Otherwise, the benchmark runs in the current JVM. The warmup and duration are in seconds.
+ */
+public class LatencyBenchmark {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    /** Below this, the producer spins instead of parking, when waiting for the next send time. */
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    enum Threads {
+        VIRTUAL,
+        PLATFORM;
+
+        Thread start(Runnable r) {
+            return switch (this) {
+                case VIRTUAL -> Thread.ofVirtual().start(r);
+                case PLATFORM -> Thread.ofPlatform().start(r);
+            };
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = parseOptions(args);
+        var cores = options.remove("cores");
+        if (cores != null) {
+            for (var c : cores.split(",")) {
+                runInChildJvm(Integer.parseInt(c.trim()), options);
+            }
+        } else {
+            run(options);
+        }
+    }
+
+    private static void run(Map<String, String> options) throws Exception {
+        var scenarios =
+                list(options, "scenarios", "rendezvous,buffered,select,flow_buffer").stream()
+                        .map(s -> Scenario.valueOf(s.toUpperCase(Locale.ROOT)))
+                        .toList();
+        var rates = list(options, "rates", "10000,100000").stream().map(Long::parseLong).toList();
+        var threads =
+                list(options, "threads", "virtual,platform").stream()
+                        .map(s -> Threads.valueOf(s.toUpperCase(Locale.ROOT)))
+                        .toList();
+        var capacity = Integer.parseInt(options.getOrDefault("capacity", "16"));
+        var warmupSeconds = Long.parseLong(options.getOrDefault("warmup", "2"));
+        var durationSeconds = Long.parseLong(options.getOrDefault("duration", "10"));
+
+        System.out.printf(
+                "# cores: %d, virtual thread scheduler parallelism: %s, capacity: %d, warmup: %ds,"
+                        + " duration: %ds, latencies in us%n",
+                Runtime.getRuntime().availableProcessors(),
+                System.getProperty(
+                        "jdk.virtualThreadScheduler.parallelism",
+                        String.valueOf(Runtime.getRuntime().availableProcessors())),
+                capacity,
+                warmupSeconds,
+                durationSeconds);
+        printHeader();
+        for (var scenario : scenarios) {
+            for (var t : threads) {
+                for (var rate : rates) {
+                    var result =
+                            measure(
+                                    scenario,
+                                    t,
+                                    rate,
+                                    capacity,
+                                    TimeUnit.SECONDS.toNanos(warmupSeconds),
+                                    TimeUnit.SECONDS.toNanos(durationSeconds));
+                    print(scenario, t, rate, "corrected", result.corrected());
+                    print(scenario, t, rate, "uncorrected", result.uncorrected());
+                }
+            }
+        }
+    }
+
+    record Result(LatencyHistogram corrected, LatencyHistogram uncorrected) {}
+
+    static Result measure(
+            Scenario scenario,
+            Threads threads,
+            long rate,
+            int capacity,
+            long warmupNanos,
+            long durationNanos)
+            throws Exception {
+        var pipeline = scenario.create(capacity);
+        var interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        var count = (warmupNanos + durationNanos) / interval;
+        var start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        var measureFrom = start + warmupNanos;
+
+        var corrected = new LatencyHistogram();
+        var uncorrected = new LatencyHistogram();
+        var failure = new AtomicReference<Throwable>();
+
+        var consumer =
+                threads.start(
+                        () -> {
+                            try {
+                                pipeline.consume(
+                                        stamp -> {
+                                            var now = System.nanoTime();
+                                            if (stamp.intended() >= measureFrom) {
+                                                corrected.record(now - stamp.intended());
+                                                uncorrected.record(now - stamp.sent());
+                                            }
+                                        });
+                            } catch (Throwable e) {
+                                failure.compareAndSet(null, e);
+                            }
+                        });
+        var producer =
+                threads.start(
+                        () -> {
+                            try {
+                                for (long i = 0; i < count; i++) {
+                                    var intended = start + i * interval;
+                                    waitUntil(intended);
+                                    pipeline.send(new Scenario.Stamp(intended, System.nanoTime()));
+                                }
+                                pipeline.done();
+                            } catch (Throwable e) {
+                                failure.compareAndSet(null, e);
+                            }
+                        });
+
+        producer.join();
+        consumer.join();
+        if (failure.get() != null) {
+            throw new IllegalStateException("Benchmark failed", failure.get());
+        }
+        return new Result(corrected, uncorrected);
+    }
+
+    private static void waitUntil(long time) {
+        long remaining;
+        while ((remaining = time - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // *********
+    // Reporting
+    // *********
+
+    private static void printHeader() {
+        var sb = new StringBuilder();
+        sb.append(
+                String.format(
+                        "%-12s %-9s %9s %-12s %10s",
+                        "scenario", "threads", "rate/s", "", "samples"));
+        for (var p : PERCENTILES) {
+            sb.append(String.format(" %10s", "p" + format(p)));
+        }
+        sb.append(String.format(" %10s %10s", "max", "mean"));
+        System.out.println(sb);
+    }
+
+    private static void print(
+            Scenario scenario,
+            Threads threads,
+            long rate,
+            String kind,
+            LatencyHistogram histogram) {
+        var sb = new StringBuilder();
+        sb.append(
+                String.format(
+                        "%-12s %-9s %9d %-12s %10d",
+                        scenario.name().toLowerCase(Locale.ROOT),
+                        threads.name().toLowerCase(Locale.ROOT),
+                        rate,
+                        kind,
+                        histogram.count()));
+        for (var p : PERCENTILES) {
+            sb.append(String.format(" %10.1f", histogram.valueAtPercentile(p) / 1000.0));
+        }
+        sb.append(
+                String.format(
+                        " %10.1f %10.1f", histogram.max() / 1000.0, histogram.mean() / 1000.0));
+        System.out.println(sb);
+    }
+
+    private static String format(double p) {
+        return p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p);
+    }
+
+    // *******
+    // Options
+    // *******
+
+    private static Map<String, String> parseOptions(String[] args) {
+        var options = new HashMap<String, String>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException(
+                        "Expected options in the form: --name value, got: "
+                                + Arrays.toString(args));
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static List<String> list(Map<String, String> options, String name, String defaults) {
+        return Arrays.stream(options.getOrDefault(name, defaults).split(","))
+                .map(String::trim)
+                .toList();
+    }
+
+    private static void runInChildJvm(int cores, Map<String, String> options)
+            throws IOException, InterruptedException {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("--enable-preview");
+        command.add("-XX:ActiveProcessorCount=" + cores);
+        command.add("-Djdk.virtualThreadScheduler.parallelism=" + cores);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LatencyBenchmark.class.getName());
+        options.forEach(
+                (name, value) -> {
+                    command.add("--" + name);
+                    command.add(value);
+                });
+        var exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException(
+                    "Benchmark for " + cores + " cores failed with exit code: " + exitCode);
+        }
+    }
+}
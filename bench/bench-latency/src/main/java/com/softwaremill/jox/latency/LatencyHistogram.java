@@ -0,0 +1,97 @@
+package com.softwaremill.jox.latency;
+
+/**
+ * A histogram of latencies in nanoseconds, with log-linear buckets, as in HdrHistogram: values are
+ * recorded exactly up to {@code 1024}, and with a relative error of at most {@code 1/512} above
+ * that. Recording is allocation-free and takes constant time.
+ *
+ * <p>Not thread-safe: each recording thread should use its own histogram, which can then be merged
+ * using {@link #add(LatencyHistogram)}.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 10;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_SHIFT = 63 - (SUB_BUCKET_BITS - 1);
+
+    private final long[] counts = new long[(MAX_SHIFT + 2) * SUB_BUCKET_HALF_COUNT];
+    private long totalCount;
+    private long max;
+    private double sum;
+
+    void record(long value) {
+        if (value < 0) {
+            // clock skew between the threads; treating as no latency
+            value = 0;
+        }
+        counts[indexOf(value)] += 1;
+        totalCount += 1;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return totalCount;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * @param percentile Between {@code 0} and {@code 100}.
+     * @return The highest value which is equivalent (up to the histogram's precision) to the value
+     *     at the given percentile.
+     */
+    long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        var countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        var seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    // values below SUB_BUCKET_COUNT are stored at their index; above, each power of 2 is split into
+    // SUB_BUCKET_HALF_COUNT buckets
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        var shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        // between SUB_BUCKET_HALF_COUNT and SUB_BUCKET_COUNT
+        var subBucket = (int) (value >>> shift);
+        return shift * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        var shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        var subBucket = index - shift * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1L) << shift) - 1;
+    }
+}
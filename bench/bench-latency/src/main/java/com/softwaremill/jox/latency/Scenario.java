@@ -0,0 +1,144 @@
+package com.softwaremill.jox.latency;
+
+import static com.softwaremill.jox.Select.selectOrClosed;
+
+import java.util.function.Consumer;
+
+import com.softwaremill.jox.Channel;
+import com.softwaremill.jox.ChannelClosed;
+import com.softwaremill.jox.ChannelError;
+import com.softwaremill.jox.flows.Flows;
+
+/** The pipelines, through which the timestamps are handed off from the producer to the consumer. */
+enum Scenario {
+    /** A single rendezvous channel. */
+    RENDEZVOUS {
+        @Override
+        Pipeline create(int capacity) {
+            return new SingleChannel(Channel.newRendezvousChannel());
+        }
+    },
+    /** A single buffered channel. */
+    BUFFERED {
+        @Override
+        Pipeline create(int capacity) {
+            return new SingleChannel(Channel.newBufferedChannel(capacity));
+        }
+    },
+    /**
+     * Two buffered channels, to which the producer sends alternately, and from which the consumer
+     * selects.
+     */
+    SELECT {
+        @Override
+        Pipeline create(int capacity) {
+            return new TwoChannelsSelect(
+                    Channel.newBufferedChannel(capacity), Channel.newBufferedChannel(capacity));
+        }
+    },
+    /**
+     * A buffered channel, consumed by a flow, which includes a {@code buffer} stage. The buffer
+     * stage runs the upstream in a virtual thread, regardless of the threads used by the producer
+     * and the consumer.
+     */
+    FLOW_BUFFER {
+        @Override
+        Pipeline create(int capacity) {
+            return new FlowBuffer(Channel.newBufferedChannel(capacity), capacity);
+        }
+    };
+
+    abstract Pipeline create(int capacity);
+
+    /**
+     * @param intended The time, at which the value should have been sent, according to the target
+     *     rate.
+     * @param sent The time, at which the value was actually sent.
+     */
+    record Stamp(long intended, long sent) {}
+
+    interface Pipeline {
+        /** Called by the producer. */
+        void send(Stamp stamp) throws InterruptedException;
+
+        /** Called by the producer, once all stamps are sent. */
+        void done();
+
+        /** Called by the consumer, returns once all stamps are received. */
+        void consume(Consumer<Stamp> consumer) throws Exception;
+    }
+
+    private record SingleChannel(Channel<Stamp> ch) implements Pipeline {
+        @Override
+        public void send(Stamp stamp) throws InterruptedException {
+            ch.send(stamp);
+        }
+
+        @Override
+        public void done() {
+            ch.done();
+        }
+
+        @Override
+        public void consume(Consumer<Stamp> consumer) throws InterruptedException {
+            ch.forEach(consumer);
+        }
+    }
+
+    private static final class TwoChannelsSelect implements Pipeline {
+        private final Channel<Stamp> ch1;
+        private final Channel<Stamp> ch2;
+        private boolean first = true;
+
+        TwoChannelsSelect(Channel<Stamp> ch1, Channel<Stamp> ch2) {
+            this.ch1 = ch1;
+            this.ch2 = ch2;
+        }
+
+        @Override
+        public void send(Stamp stamp) throws InterruptedException {
+            (first ? ch1 : ch2).send(stamp);
+            first = !first;
+        }
+
+        @Override
+        public void done() {
+            ch1.done();
+            ch2.done();
+        }
+
+        @Override
+        public void consume(Consumer<Stamp> consumer) throws InterruptedException {
+            while (true) {
+                var r = selectOrClosed(ch1.receiveClause(), ch2.receiveClause());
+                if (r instanceof ChannelError e) {
+                    throw e.toException();
+                } else if (r instanceof ChannelClosed) {
+                    // one of the channels is done; the other one might still have values
+                    ch1.forEach(consumer);
+                    ch2.forEach(consumer);
+                    return;
+                } else {
+                    consumer.accept((Stamp) r);
+                }
+            }
+        }
+    }
+
+    private record FlowBuffer(Channel<Stamp> ch, int capacity) implements Pipeline {
+        @Override
+        public void send(Stamp stamp) throws InterruptedException {
+            ch.send(stamp);
+        }
+
+        @Override
+        public void done() {
+            ch.done();
+        }
+
+        @Override
+        public void consume(Consumer<Stamp> consumer) throws Exception {
+            Flows.fromSource(ch).buffer(capacity).runForeach(consumer::accept);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.softwaremill.jox.fray;
+
+import static com.softwaremill.jox.fray.Config.CHANNEL_SIZE;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.pastalab.fray.junit.junit5.FrayTestExtension;
+import org.pastalab.fray.junit.junit5.annotations.ConcurrencyTest;
+
+import com.softwaremill.jox.Channel;
+import com.softwaremill.jox.ChannelDone;
+import com.softwaremill.jox.ChannelDoneException;
+
+@ExtendWith(FrayTestExtension.class)
+public class FrayAsyncTest {
+    // sendAsync | receive
+
+    @ConcurrencyTest
+    public void sendAsyncReceive() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(CHANNEL_SIZE);
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            var s1 = ch.sendAsync(10);
+                            var s2 = ch.sendAsync(11);
+                            s1.get();
+                            s2.get();
+                        });
+        var f2 =
+                Fork.newNoResult(
+                        () -> {
+                            assert (ch.receive() == 10);
+                            assert (ch.receive() == 11);
+                        });
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+
+    // send | receiveAsync
+
+    @ConcurrencyTest
+    public void sendReceiveAsync_rendezvous() throws InterruptedException {
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+
+        var f1 = Fork.newNoResult(() -> ch.send(10));
+        var f2 = Fork.newWithResult(() -> ch.receiveAsync().get());
+
+        Fork.startAll(f1, f2);
+        f1.join();
+        assert (f2.join() == 10);
+    }
+
+    // sendAsync | receiveAsync
+
+    @ConcurrencyTest
+    public void sendAsyncReceiveAsync() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(CHANNEL_SIZE);
+
+        var f1 = Fork.newWithResult(() -> ch.sendAsync(10));
+        var f2 = Fork.newWithResult(ch::receiveAsync);
+
+        Fork.startAll(f1, f2);
+        var sent = f1.join();
+        var received = f2.join();
+        try {
+            assert (received.get() == 10);
+            sent.get();
+        } catch (ExecutionException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // receiveAsync + cancel | send
+
+    @ConcurrencyTest
+    public void cancelReceiveAsyncSend() throws InterruptedException {
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            var r = ch.receiveAsync();
+                            if (r.cancel(false)) {
+                                // the value should still be receivable
+                                assert (ch.receive() == 10);
+                            } else {
+                                assert (r.get() == 10);
+                            }
+                        });
+        var f2 = Fork.newNoResult(() -> ch.send(10));
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+
+    // sendAsync + cancel | receive
+
+    @ConcurrencyTest
+    public void cancelSendAsyncReceive() throws InterruptedException {
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            var s = ch.sendAsync(10);
+                            if (s.cancel(false)) {
+                                ch.send(11);
+                            }
+                        });
+        var f2 =
+                Fork.newNoResult(
+                        () -> {
+                            var r = ch.receive();
+                            assert (r == 10 || r == 11);
+                        });
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+
+    // receiveAsync + complete | send
+
+    @ConcurrencyTest
+    public void completeReceiveAsyncSend() throws InterruptedException {
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            var r = ch.receiveAsync();
+                            if (r.complete(-1)) {
+                                // the receive is withdrawn, the value should still be receivable
+                                assert (r.get() == -1);
+                                assert (ch.receive() == 10);
+                            } else {
+                                assert (r.get() == 10);
+                            }
+                        });
+        var f2 = Fork.newNoResult(() -> ch.send(10));
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+
+    // sendAsync + completeExceptionally | receive
+
+    @ConcurrencyTest
+    public void completeExceptionallySendAsyncReceive() throws InterruptedException {
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            var s = ch.sendAsync(10);
+                            if (s.completeExceptionally(new TimeoutException())) {
+                                ch.send(11);
+                            } else {
+                                s.get();
+                            }
+                        });
+        var f2 =
+                Fork.newNoResult(
+                        () -> {
+                            var r = ch.receive();
+                            assert (r == 10 || r == 11);
+                        });
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+
+    // receiveAsync; cancel | complete | send
+
+    @ConcurrencyTest
+    public void cancelCompleteReceiveAsyncSend() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(CHANNEL_SIZE);
+        var r = ch.receiveAsync();
+
+        var f1 = Fork.newWithResult(() -> r.cancel(false));
+        var f2 = Fork.newWithResult(() -> r.complete(-1));
+        var f3 = Fork.newNoResult(() -> ch.send(10));
+
+        Fork.startAll(f1, f2, f3);
+        var cancelled = f1.join();
+        var completed = f2.join();
+        f3.join();
+
+        // at most one party might withdraw the receive
+        assert (!(cancelled && completed));
+        if (cancelled || completed) {
+            assert (ch.receive() == 10);
+        } else {
+            try {
+                assert (r.get() == 10);
+            } catch (ExecutionException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    // sendAsync + cancel | receive, which expands the buffer
+
+    @ConcurrencyTest
+    public void cancelSendAsyncReceive_expandBuffer() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(1);
+        ch.send(1);
+        // the buffer is full, so the send is suspended
+        var s = ch.sendAsync(2);
+
+        var f1 = Fork.newWithResult(() -> s.cancel(false));
+        var f2 = Fork.newWithResult(ch::receive);
+
+        Fork.startAll(f1, f2);
+        var cancelled = f1.join();
+        assert (f2.join() == 1);
+
+        if (cancelled) {
+            assert (ch.tryReceiveOrClosed() == null);
+        } else {
+            try {
+                s.get();
+            } catch (ExecutionException e) {
+                throw new AssertionError(e);
+            }
+            assert (ch.receive() == 2);
+        }
+    }
+
+    // receiveAsync + cancel | done
+
+    @ConcurrencyTest
+    public void cancelReceiveAsyncDone() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(CHANNEL_SIZE);
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            var r = ch.receiveAsync();
+                            if (r.cancel(false)) {
+                                assert (ch.receiveOrClosed() instanceof ChannelDone);
+                            } else {
+                                try {
+                                    r.get();
+                                    assert false;
+                                } catch (ExecutionException e) {
+                                    assert (e.getCause() instanceof ChannelDoneException);
+                                }
+                            }
+                        });
+        var f2 = Fork.newNoResult(ch::done);
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+
+    // receiveAsync | done
+
+    @ConcurrencyTest
+    public void receiveAsyncDone() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(CHANNEL_SIZE);
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            try {
+                                ch.receiveAsync().get();
+                                assert false;
+                            } catch (ExecutionException e) {
+                                assert (e.getCause() instanceof ChannelDoneException);
+                            }
+                        });
+        var f2 = Fork.newNoResult(ch::done);
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+
+    // sendAsync + done | receiveAsync + cancel
+
+    @ConcurrencyTest
+    public void sendAsyncDoneCancelReceiveAsync() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(CHANNEL_SIZE);
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            ch.sendAsync(10).get();
+                            ch.done();
+                        });
+        var f2 =
+                Fork.newNoResult(
+                        () -> {
+                            var r = ch.receiveAsync();
+                            try {
+                                if (!r.cancel(false)) {
+                                    assert (r.get() == 10);
+                                    assert (ch.receiveOrClosed() instanceof ChannelDone);
+                                    return;
+                                }
+                                r.get();
+                                assert false;
+                            } catch (CancellationException e) {
+                                // the value should still be receivable
+                                assert (ch.receive() == 10);
+                                assert (ch.receiveOrClosed() instanceof ChannelDone);
+                            }
+                        });
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+}
@@ -0,0 +1,79 @@
+package com.softwaremill.jox.fray;
+
+import static com.softwaremill.jox.fray.Config.CHANNEL_SIZE;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.pastalab.fray.junit.junit5.FrayTestExtension;
+import org.pastalab.fray.junit.junit5.annotations.ConcurrencyTest;
+
+import com.softwaremill.jox.Channel;
+import com.softwaremill.jox.ChannelDone;
+import com.softwaremill.jox.ChannelGroup;
+
+@ExtendWith(FrayTestExtension.class)
+public class FrayChannelGroupTest {
+    // send | send | group receive
+
+    @ConcurrencyTest
+    public void sendSendGroupReceive() throws InterruptedException {
+        Channel<Integer> ch1 = Channel.newBufferedChannel(CHANNEL_SIZE);
+        Channel<Integer> ch2 = Channel.newRendezvousChannel();
+        ChannelGroup<Integer> group = ChannelGroup.newChannelGroup();
+        group.add(ch1);
+        group.add(ch2);
+
+        var f1 = Fork.newNoResult(() -> ch1.send(10));
+        var f2 = Fork.newNoResult(() -> ch2.send(20));
+        var f3 = Fork.newWithResult(() -> group.receive() + group.receive());
+
+        Fork.startAll(f1, f2, f3);
+        f1.join();
+        f2.join();
+        assert (f3.join() == 30);
+    }
+
+    // send + done | group receive
+
+    @ConcurrencyTest
+    public void sendDoneGroupReceive() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(CHANNEL_SIZE);
+        ChannelGroup<Integer> group = ChannelGroup.newChannelGroup();
+        group.add(ch);
+
+        var f1 =
+                Fork.newNoResult(
+                        () -> {
+                            ch.send(10);
+                            ch.done();
+                        });
+        var f2 =
+                Fork.newNoResult(
+                        () -> {
+                            assert (group.receive() == 10);
+                            assert (group.receiveOrClosed() instanceof ChannelDone);
+                        });
+
+        Fork.startAll(f1, f2);
+        Fork.joinAll(f1, f2);
+    }
+
+    // send | add + group receive
+
+    @ConcurrencyTest
+    public void sendAddGroupReceive() throws InterruptedException {
+        Channel<Integer> ch = Channel.newBufferedChannel(CHANNEL_SIZE);
+        ChannelGroup<Integer> group = ChannelGroup.newChannelGroup();
+
+        var f1 = Fork.newNoResult(() -> ch.send(10));
+        var f2 =
+                Fork.newWithResult(
+                        () -> {
+                            group.add(ch);
+                            return group.receive();
+                        });
+
+        Fork.startAll(f1, f2);
+        f1.join();
+        assert (f2.join() == 10);
+    }
+}
@@ -76,4 +76,41 @@ public class FrayCompleteTest {
         Fork.startAll(f1, f2);
         Fork.joinAll(f1, f2);
     }
+
+    // send | receive | error (blocked threads reuse their continuations, racing with closing)
+
+    @ConcurrencyTest
+    public void sendReceiveConcurrentErrorTest_rendezvous() throws InterruptedException {
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+
+        var f1 =
+                Fork.newWithResult(
+                        () -> {
+                            var sent = 0;
+                            for (int i = 0; i < 3; i++) {
+                                if (ch.sendOrClosed(i) instanceof ChannelError) {
+                                    break;
+                                }
+                                sent += 1;
+                            }
+                            return sent;
+                        });
+        var f2 =
+                Fork.newWithResult(
+                        () -> {
+                            var received = 0;
+                            while (!(ch.receiveOrClosed() instanceof ChannelError)) {
+                                received += 1;
+                            }
+                            return received;
+                        });
+        var f3 = Fork.newNoResult(() -> ch.error(new RuntimeException("boom!")));
+
+        Fork.startAll(f1, f2, f3);
+        f3.join();
+        var sent = f1.join();
+        var received = f2.join();
+        // closing with an error might discard the value, which has been sent, but not yet received
+        assert (sent == received || sent == received + 1);
+    }
 }
@@ -0,0 +1,198 @@
+package com.softwaremill.jox;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A channel, which delivers each sent value to all of its subscribers. Subscribers are created
+ * using {@link #subscribe()}, and receive the values sent after subscribing, in the order in which
+ * they are sent. Values can be sent by any number of threads concurrently.
+ *
+ * <p>Instead of copying each value to a channel per subscriber, the values are stored once, in a
+ * shared log of segments, and each subscription maintains its own cursor into that log. Segments
+ * are reclaimed once all cursors move past them.
+ *
+ * <p>The {@code capacity} is the maximum number of values that a subscriber might lag behind the
+ * producers. What happens when a subscriber lags behind more, is determined by the {@link
+ * SlowSubscriberPolicy}.
+ *
+ * <p>Each subscription is a {@link Source}, and is consumed by a single thread at a time. It can be
+ * used in {@link Select#select(SelectClause[])}, and is closed when the broadcast channel is closed
+ * (once all values are received, if the channel is done). Closing a subscription unsubscribes it,
+ * without affecting the broadcast channel and other subscribers.
+ *
+ * <p>The {@link ChannelClosed} values returned by the or-closed sending operations refer to the
+ * channel's internal storage, not to the {@link BroadcastChannel} instance itself. The values
+ * returned when receiving refer to the subscription.
+ */
+public final class BroadcastChannel<T> implements Sink<T> {
+    /**
+     * Determines what happens when a subscriber lags behind the producers more than the capacity.
+     */
+    public enum SlowSubscriberPolicy {
+        /** The producers wait until the slowest subscriber receives a value. */
+        BLOCK,
+        /**
+         * The subscription is closed with an error, with a {@link SlowSubscriberException} as the
+         * cause. Producers never wait.
+         */
+        DROP,
+        /**
+         * The subscriber skips the oldest values, so that it lags behind by half of the capacity.
+         * Producers never wait.
+         */
+        SKIP
+    }
+
+    private final WaitStrategy waitStrategy;
+    private final BroadcastLog<T> log;
+    private final RingChannel<T> delegate;
+
+    private BroadcastChannel(int capacity, SlowSubscriberPolicy policy, WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        this.log = new BroadcastLog<>(capacity, policy);
+        this.delegate = new RingChannel<>(w -> log, waitStrategy);
+    }
+
+    /**
+     * Creates a new broadcast channel, where the producers wait if any subscriber lags behind by
+     * more than {@code capacity} values.
+     *
+     * @param capacity The maximum number of values that a subscriber might lag behind, must be
+     *     positive.
+     */
+    public static <T> BroadcastChannel<T> newBroadcastChannel(int capacity) {
+        return newBroadcastChannel(capacity, SlowSubscriberPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a new broadcast channel, where subscribers which lag behind by more than {@code
+     * capacity} values are handled according to the given policy.
+     *
+     * @param capacity The maximum number of values that a subscriber might lag behind, must be
+     *     positive.
+     */
+    public static <T> BroadcastChannel<T> newBroadcastChannel(
+            int capacity, SlowSubscriberPolicy policy) {
+        return new BroadcastChannel<>(capacity, policy, WaitStrategy.parkImmediately());
+    }
+
+    /**
+     * Same as {@link #newBroadcastChannel(int, SlowSubscriberPolicy)}, using the given strategy
+     * when the subscribers wait for values. See {@link WaitStrategy}.
+     */
+    public static <T> BroadcastChannel<T> newBroadcastChannel(
+            int capacity, SlowSubscriberPolicy policy, WaitStrategy waitStrategy) {
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy");
+        }
+        return new BroadcastChannel<>(capacity, policy, waitStrategy);
+    }
+
+    // ***********
+    // Subscribing
+    // ***********
+
+    /**
+     * Creates a new subscription, which receives the values sent after this method returns. When
+     * the channel is already closed, the subscription is closed as well.
+     *
+     * @return A source, which should be consumed by a single thread at a time. Closing the source
+     *     unsubscribes it.
+     */
+    public Source<T> subscribe() {
+        var subscription = new BroadcastSubscription<>(log, waitStrategy);
+        var ch = new RingChannel<>(w -> subscription, waitStrategy);
+        subscription.subscribe(ch);
+        return ch;
+    }
+
+    /**
+     * @return The current number of subscriptions, which aren't closed.
+     */
+    public int subscriberCount() {
+        return log.subscriptions.size();
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    @Override
+    public void send(T value) throws InterruptedException {
+        delegate.send(value);
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        return delegate.sendOrClosed(value);
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        return delegate.trySendOrClosed(value);
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        return delegate.sendAllOrClosed(values);
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        return delegate.trySendAllOrClosed(values);
+    }
+
+    @Override
+    public SelectClause<Void> sendClause(T value) {
+        return delegate.sendClause(value);
+    }
+
+    @Override
+    public <U> SelectClause<U> sendClause(T value, Supplier<U> callback) {
+        return delegate.sendClause(value, callback);
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public void done() {
+        delegate.done();
+    }
+
+    @Override
+    public Object doneOrClosed() {
+        return delegate.doneOrClosed();
+    }
+
+    @Override
+    public void error(Throwable reason) {
+        delegate.error(reason);
+    }
+
+    @Override
+    public Object errorOrClosed(Throwable reason) {
+        return delegate.errorOrClosed(reason);
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return delegate.closedForSend();
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return delegate.closedForReceive();
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return log.toString();
+    }
+}
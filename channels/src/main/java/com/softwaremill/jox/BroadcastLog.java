@@ -0,0 +1,488 @@
+package com.softwaremill.jox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.softwaremill.jox.BroadcastChannel.SlowSubscriberPolicy;
+
+/**
+ * The sending side of a {@link BroadcastChannel}: a log of elements, stored in a linked list of
+ * {@link BroadcastSegment}s, which is read by each subscription ({@link BroadcastSubscription})
+ * using its own cursor.
+ *
+ * <p>Appending elements, as well as closing, is done while holding a lock, which serializes the
+ * producers. Hence, each element is written to the log exactly once, and becomes available to the
+ * subscribers in the order of sending; a non-{@code null} value in a segment's slot means that the
+ * element has been written. New segments are linked before any elements are written to them.
+ *
+ * <p>Only the last segment is referenced by the log; other segments are referenced by the
+ * subscriptions, which are positioned in them (and by the preceding segments). Once all cursors
+ * move past a segment, it becomes unreachable, and is reclaimed by the garbage collector.
+ *
+ * <p>The {@code capacity} is the maximum number of elements that a subscriber might lag behind.
+ * What happens when it's exceeded depends on the {@link SlowSubscriberPolicy}: with {@link
+ * SlowSubscriberPolicy#BLOCK}, the producers wait until the slowest subscriber receives an element.
+ * Otherwise, the lagging subscribers are handled when appending. To avoid computing the minimum
+ * cursor for each element, its last computed value is cached (it's a lower bound, as cursors only
+ * increase, and new subscriptions start at the end of the log).
+ *
+ * <p>Waiting producers use a {@link Condition}, while waiting send clauses are stored in a queue. A
+ * subscriber, after moving its cursor, checks if there are any waiting producers, and if so, wakes
+ * them up. Similarly, a producer, after appending an element, wakes up the waiting subscribers, if
+ * there are any. In both cases, the side that waits first registers itself, and then re-checks the
+ * condition.
+ */
+final class BroadcastLog<T> implements RingBuffer<T> {
+    private final int capacity;
+    private final SlowSubscriberPolicy policy;
+
+    final CopyOnWriteArrayList<BroadcastSubscription<T>> subscriptions =
+            new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition spaceAvailable = lock.newCondition();
+
+    /** Send clauses waiting for space, with the value to send as the payload. Guarded by lock. */
+    private final ArrayDeque<StoredSelectClause> waitingSendClauses = new ArrayDeque<>();
+
+    // guarded by lock
+    private BroadcastSegment tailSegment = new BroadcastSegment(0);
+    private long cachedMinCursor = 0;
+
+    /** The index of the next element to append. Written only while holding the lock. */
+    private volatile long tail;
+
+    /** The number of producers (threads & send clauses) waiting for space. */
+    private volatile int waitingProducers;
+
+    /** The number of subscribers waiting for elements. */
+    final AtomicInteger waitingSubscribers = new AtomicInteger();
+
+    private volatile ChannelClosed closedReason;
+
+    BroadcastLog(int capacity, SlowSubscriberPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity of a broadcast channel must be positive.");
+        }
+        if (policy == null) {
+            throw new NullPointerException("policy");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    long tail() {
+        return tail;
+    }
+
+    ChannelClosed closedReason() {
+        return closedReason;
+    }
+
+    SlowSubscriberPolicy policy() {
+        return policy;
+    }
+
+    boolean hasWaitingProducers() {
+        return waitingProducers != 0;
+    }
+
+    /** Registers a subscription, which starts at the end of the log. */
+    void subscribe(BroadcastSubscription<T> subscription) {
+        lock.lock();
+        try {
+            var t = tail;
+            subscription.start(t, tailSegment);
+            subscriptions.add(subscription);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Called after a subscription is closed, as the minimum cursor might have increased. */
+    void unsubscribe(BroadcastSubscription<T> subscription) {
+        subscriptions.remove(subscription);
+        if (waitingProducers != 0) {
+            wakeProducers();
+        }
+    }
+
+    // *********
+    // Appending
+    // *********
+
+    /**
+     * Appends the value, if the subscribers don't lag behind too much. Must be called while holding
+     * the lock.
+     *
+     * @return {@code true}, if the value has been appended.
+     */
+    private boolean append(T value) {
+        var t = tail;
+        if (policy == SlowSubscriberPolicy.BLOCK) {
+            if (!hasSpace()) {
+                return false;
+            }
+        } else if (t - cachedMinCursor >= capacity) {
+            handleLaggingSubscribers(t);
+        }
+
+        var segmentId = t / BroadcastSegment.SIZE;
+        if (tailSegment.id != segmentId) {
+            // linking the new segment before writing the element, so that it's reachable by the
+            // subscribers, which observe the element
+            var s = new BroadcastSegment(segmentId);
+            tailSegment.next = s;
+            tailSegment = s;
+        }
+        // publishing the element; the volatile write guarantees that the read of the number of
+        // waiting subscribers below is not reordered before the write
+        BroadcastSegment.ELEMENTS.setVolatile(
+                tailSegment.elements, (int) (t % BroadcastSegment.SIZE), value);
+        tail = t + 1;
+
+        if (waitingSubscribers.get() != 0) {
+            for (var subscription : subscriptions) {
+                subscription.wake();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true}, if an element can be appended, without exceeding the capacity (always
+     *     the case, if the policy isn't {@link SlowSubscriberPolicy#BLOCK}). Must be called while
+     *     holding the lock.
+     */
+    private boolean hasSpace() {
+        if (policy != SlowSubscriberPolicy.BLOCK) {
+            return true;
+        }
+        var t = tail;
+        return t - cachedMinCursor < capacity || t - (cachedMinCursor = minCursor(t)) < capacity;
+    }
+
+    /**
+     * @return The smallest cursor of all the subscriptions; {@code t} if there are none.
+     */
+    private long minCursor(long t) {
+        var min = t;
+        for (var subscription : subscriptions) {
+            min = Math.min(min, subscription.cursor());
+        }
+        return min;
+    }
+
+    /**
+     * Drops, or moves forward, the subscriptions, which would lag behind more than the capacity,
+     * after appending the element at {@code t}. In the latter case, the cursors are moved so that
+     * they lag by half of the capacity, so that this doesn't need to be done for every element.
+     */
+    private void handleLaggingSubscribers(long t) {
+        var min = t;
+        for (var subscription : subscriptions) {
+            var cursor = subscription.cursor();
+            if (t - cursor >= capacity) {
+                if (policy == SlowSubscriberPolicy.DROP) {
+                    subscription.drop();
+                    continue;
+                } else {
+                    cursor = subscription.skipTo(t + 1 - Math.max(1, capacity / 2));
+                }
+            }
+            min = Math.min(min, cursor);
+        }
+        cachedMinCursor = min;
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                var closed = closedReason;
+                if (closed != null) {
+                    return closed;
+                }
+                if (append(value)) {
+                    return null;
+                }
+
+                waitingProducers += 1;
+                try {
+                    // re-checking after registering as a waiting producer: either we observe the
+                    // subscriber's cursor, or the subscriber will observe the waiting producer
+                    if (!hasSpace()) {
+                        spaceAvailable.await();
+                    }
+                } finally {
+                    waitingProducers -= 1;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            var closed = closedReason;
+            if (closed != null) {
+                return closed;
+            }
+            return append(value) ? null : Channel.TRY_SEND_NOT_SENT;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        Channel.requireNoNulls(values);
+        for (T value : values) {
+            var r = sendOrClosed(value);
+            if (r != null) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        Channel.requireNoNulls(values);
+        lock.lock();
+        try {
+            var closed = closedReason;
+            if (closed != null) {
+                return closed;
+            }
+            var sent = 0;
+            while (sent < values.size() && append(values.get(sent))) {
+                sent += 1;
+            }
+            return sent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called by subscribers, after moving their cursor, when there are waiting producers. Wakes up
+     * the waiting threads, and sends the values of the waiting send clauses, for which there's
+     * space.
+     */
+    void wakeProducers() {
+        lock.lock();
+        try {
+            spaceAvailable.signalAll();
+            while (!waitingSendClauses.isEmpty()) {
+                var ss = waitingSendClauses.peekFirst();
+                //noinspection unchecked
+                var value = (T) ss.getPayload();
+                // checking if there's space, without appending yet: the clause might not be
+                // selected
+                if (closedReason != null || !hasSpace()) {
+                    break;
+                }
+                waitingSendClauses.pollFirst();
+                waitingProducers -= 1;
+                ss.setPayload(SentClauseMarker.SENT);
+                if (ss.getSelect().trySelect(ss)) {
+                    // we hold the lock, so there's still space
+                    append(value);
+                }
+                // otherwise, the select won't send the value (or will re-register the clause)
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public Object closeOrClosed(ChannelClosed channelClosed) {
+        lock.lock();
+        try {
+            if (closedReason != null) {
+                return closedReason; // already closed
+            }
+            closedReason = channelClosed;
+
+            spaceAvailable.signalAll();
+            for (var ss : waitingSendClauses) {
+                ss.getSelect().channelClosed(channelClosed);
+            }
+            waitingProducers -= waitingSendClauses.size();
+            waitingSendClauses.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        for (var subscription : subscriptions) {
+            subscription.wakeOnClose();
+        }
+        return null;
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return closedReason;
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return closedReason;
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Override
+    public Object registerSend(SelectInstance select, SelectClause<?> clause, T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            var closed = closedReason;
+            if (closed != null) {
+                return closed;
+            }
+            if (append(value)) {
+                return SentClauseMarker.SENT;
+            }
+
+            var ss = new StoredSelectClause(select, null, 0, true, clause, value);
+            waitingSendClauses.addLast(ss);
+            waitingProducers += 1;
+            // re-checking after registering, as in sendOrClosed
+            if (hasSpace()) {
+                waitingSendClauses.removeLast();
+                waitingProducers -= 1;
+                append(value);
+                return SentClauseMarker.SENT;
+            }
+            return ss;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sendSelected(T value) {
+        // the payload of selected clauses is always SENT, the value is sent in wakeProducers()
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public void cleanupStoredSelectClause(StoredSelectClause ss) {
+        lock.lock();
+        try {
+            if (waitingSendClauses.remove(ss)) {
+                waitingProducers -= 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    // values are received using subscriptions
+
+    @Override
+    public Object receiveOrClosed() {
+        throw receiveNotSupported();
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        throw receiveNotSupported();
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into) {
+        throw receiveNotSupported();
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        throw receiveNotSupported();
+    }
+
+    @Override
+    public Object registerReceive(SelectInstance select, SelectClause<?> clause) {
+        throw receiveNotSupported();
+    }
+
+    @Override
+    public Object receiveSelected() {
+        throw receiveNotSupported();
+    }
+
+    private static UnsupportedOperationException receiveNotSupported() {
+        return new UnsupportedOperationException(
+                "Values can only be received from a subscription of a broadcast channel.");
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return "BroadcastChannel(capacity="
+                + capacity
+                + ", policy="
+                + policy
+                + ", closed="
+                + (closedReason != null)
+                + ", tail="
+                + tail
+                + ", subscriptions="
+                + subscriptions.size()
+                + ")";
+    }
+}
+
+/**
+ * A fragment of the log of a {@link BroadcastChannel}, holding {@link #SIZE} elements, starting at
+ * index {@code id * SIZE}.
+ */
+final class BroadcastSegment {
+    static final int SIZE = Segment.SEGMENT_SIZE;
+
+    static final VarHandle ELEMENTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    final long id;
+    final Object[] elements = new Object[SIZE];
+
+    /** Set by the producer, before any elements are written to the next segment. */
+    volatile BroadcastSegment next;
+
+    BroadcastSegment(long id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,586 @@
+package com.softwaremill.jox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import com.softwaremill.jox.BroadcastChannel.SlowSubscriberPolicy;
+
+/**
+ * The receiving side of a {@link BroadcastChannel}: a cursor into the {@link BroadcastLog}, used by
+ * a single subscriber. Wrapped in a {@link Channel}, to which all operations are delegated, so that
+ * it can be used as a {@link Source} and in {@link Select#select(SelectClause[])}.
+ *
+ * <p>The cursor is the index of the next element to receive; {@code segment} is the segment in
+ * which the subscriber was last positioned (the segment of the cursor, or a preceding one). Only
+ * the subscriber moves the cursor forward by receiving elements, unless the policy is {@link
+ * SlowSubscriberPolicy#SKIP}: then, the producer might move the cursor (and the segment) forward as
+ * well, hence the subscriber uses CAS to receive an element.
+ *
+ * <p>When no element is available, the subscriber waits in the same way as the consumer in {@link
+ * SpscRing}, additionally incrementing the log's number of waiting subscribers.
+ */
+final class BroadcastSubscription<T> implements RingBuffer<T> {
+    private final BroadcastLog<T> log;
+    private final WaitStrategy waitStrategy;
+    private final SlowSubscriberPolicy policy;
+
+    /** The channel wrapping this subscription, used in the closed values. */
+    private RingChannel<T> channel;
+
+    @SuppressWarnings("unused")
+    private volatile long cursor;
+
+    /** {@code null} after the subscription is closed. */
+    @SuppressWarnings("unused")
+    private volatile BroadcastSegment segment;
+
+    /** {@code null}, {@link Thread} or {@link StoredSelectClause} of the waiting subscriber. */
+    @SuppressWarnings("unused")
+    private volatile Object waiter;
+
+    /** Set when the subscription is closed, or dropped; closing the log doesn't set this field. */
+    @SuppressWarnings("unused")
+    private volatile ChannelClosed closedReason;
+
+    private static final VarHandle CURSOR;
+    private static final VarHandle WAITER;
+    private static final VarHandle CLOSED_REASON;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            CURSOR = l.findVarHandle(BroadcastSubscription.class, "cursor", long.class);
+            WAITER = l.findVarHandle(BroadcastSubscription.class, "waiter", Object.class);
+            CLOSED_REASON =
+                    l.findVarHandle(
+                            BroadcastSubscription.class, "closedReason", ChannelClosed.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    BroadcastSubscription(BroadcastLog<T> log, WaitStrategy waitStrategy) {
+        this.log = log;
+        this.waitStrategy = waitStrategy;
+        this.policy = log.policy();
+    }
+
+    /** Sets the channel wrapping this subscription, and registers it in the log. */
+    void subscribe(RingChannel<T> channel) {
+        this.channel = channel;
+        log.subscribe(this);
+    }
+
+    /** Called by the log, while holding its lock, before the subscription is registered. */
+    void start(long cursor, BroadcastSegment segment) {
+        this.cursor = cursor;
+        this.segment = segment;
+    }
+
+    long cursor() {
+        return cursor;
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    /**
+     * Receives the next element, if one is available, without waking up waiting producers.
+     *
+     * @return The element, or {@code null}, if no element is available, or the subscription is
+     *     closed.
+     */
+    private Object take() {
+        while (true) {
+            var c = cursor;
+            var s = segment;
+            if (s == null) {
+                return null;
+            }
+            var segmentId = c / BroadcastSegment.SIZE;
+            while (s.id < segmentId) {
+                s = s.next;
+                if (s == null) {
+                    return null;
+                }
+            }
+            if (s.id > segmentId) {
+                // the cursor has been moved forward by the producer concurrently, re-reading
+                continue;
+            }
+
+            var value =
+                    BroadcastSegment.ELEMENTS.getAcquire(
+                            s.elements, (int) (c % BroadcastSegment.SIZE));
+            if (value == null) {
+                return null;
+            }
+
+            switch (policy) {
+                case BLOCK ->
+                        // the volatile write guarantees that the read of the number of waiting
+                        // producers, done by the caller, is not reordered before the write
+                        CURSOR.setVolatile(this, c + 1);
+                case DROP -> CURSOR.setRelease(this, c + 1);
+                case SKIP -> {
+                    if (!CURSOR.compareAndSet(this, c, c + 1)) {
+                        // skipped by the producer, the element might no longer be available
+                        continue;
+                    }
+                }
+            }
+            // moving forward, so that the previous segments can be reclaimed
+            if (s != segment && closedReason == null) {
+                segment = s;
+            }
+            return value;
+        }
+    }
+
+    private Object poll() {
+        var value = take();
+        if (value != null && log.hasWaitingProducers()) {
+            log.wakeProducers();
+        }
+        return value;
+    }
+
+    /**
+     * @return {@code true}, if there's an element to receive at the cursor.
+     */
+    private boolean isElementAvailable() {
+        var c = cursor;
+        var s = segment;
+        if (s == null) {
+            return false;
+        }
+        while (s.id < c / BroadcastSegment.SIZE) {
+            s = s.next;
+            if (s == null) {
+                return false;
+            }
+        }
+        // if the segment is after the cursor's one, the cursor has been moved concurrently, and
+        // there's an element to receive
+        return s.id > c / BroadcastSegment.SIZE
+                || BroadcastSegment.ELEMENTS.getVolatile(
+                                s.elements, (int) (c % BroadcastSegment.SIZE))
+                        != null;
+    }
+
+    /**
+     * @return The closed value, to return when receiving, if there are no more elements to receive.
+     */
+    private ChannelClosed closedForReceive(boolean noElement) {
+        var own = closedReason;
+        if (own != null) {
+            return own;
+        }
+        var logClosed = log.closedReason();
+        if (logClosed instanceof ChannelError e) {
+            return new ChannelError(e.cause(), channel);
+        }
+        if (logClosed != null && noElement && cursor >= log.tail()) {
+            return new ChannelDone(channel);
+        }
+        return null;
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        while (true) {
+            // checking if the log is done before inspecting the elements: all elements have been
+            // appended before closing, so they will be observed below
+            var closed = closedForReceive(false);
+            if (closed != null) {
+                return closed;
+            }
+            var value = poll();
+            if (value != null) {
+                return value;
+            }
+            closed = closedForReceive(true);
+            if (closed != null) {
+                return closed;
+            }
+            await();
+        }
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        var closed = closedForReceive(false);
+        if (closed != null) {
+            return closed;
+        }
+        var value = poll();
+        if (value != null) {
+            return value;
+        }
+        return closedForReceive(true); // null if not closed
+    }
+
+    /**
+     * Receives at most {@code max} elements, waking up the waiting producers at most once.
+     *
+     * @return The number of received elements.
+     */
+    private int pollAll(int max, Collection<? super T> into) {
+        var k = 0;
+        while (k < max) {
+            var value = take();
+            if (value == null) {
+                break;
+            }
+            //noinspection unchecked
+            into.add((T) value);
+            k += 1;
+        }
+        if (k > 0 && log.hasWaitingProducers()) {
+            log.wakeProducers();
+        }
+        return k;
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        while (true) {
+            var closed = closedForReceive(false);
+            if (closed != null) {
+                return closed;
+            }
+            var k = pollAll(max, into);
+            if (k > 0) {
+                return k;
+            }
+            closed = closedForReceive(true);
+            if (closed != null) {
+                return closed;
+            }
+            await();
+        }
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        var closed = closedForReceive(false);
+        if (closed != null) {
+            return closed;
+        }
+        var k = pollAll(max, into);
+        if (k == 0) {
+            closed = closedForReceive(true);
+            if (closed != null) {
+                return closed;
+            }
+        }
+        return k;
+    }
+
+    // *******
+    // Waiting
+    // *******
+
+    /**
+     * @return {@code true}, if the subscriber's operation might now succeed: there's an element
+     *     available, or the subscription is closed.
+     */
+    private boolean canProceed() {
+        return isElementAvailable() || closedForReceive(true) != null;
+    }
+
+    /**
+     * Waits until the subscriber's operation might succeed, using the channel's wait strategy.
+     * Might return spuriously.
+     */
+    private void await() throws InterruptedException {
+        var spinIterations = waitStrategy.spinIterations();
+        var yieldIterations = waitStrategy.yieldIterations();
+        var spins = 0;
+        while (spins < spinIterations) {
+            if (canProceed()) {
+                waitStrategy.afterWait(spins, false);
+                return;
+            }
+            Thread.onSpinWait();
+            spins += 1;
+        }
+        while (yieldIterations > 0) {
+            if (canProceed()) {
+                waitStrategy.afterWait(spins, true);
+                return;
+            }
+            Thread.yield();
+            yieldIterations -= 1;
+        }
+
+        var currentThread = Thread.currentThread();
+        registerWaiter(currentThread);
+        // re-checking after registering as a waiter: either we observe the element/closing, or
+        // the producer will observe the waiter and unpark us
+        while (!canProceed()) {
+            if (waiter != currentThread) {
+                // woken up by the producer
+                break;
+            }
+
+            LockSupport.park(this);
+
+            if (Thread.interrupted()) {
+                removeWaiter(currentThread);
+                throw new InterruptedException();
+            }
+        }
+        removeWaiter(currentThread);
+        waitStrategy.afterWait(spins, true);
+    }
+
+    private void registerWaiter(Object w) {
+        WAITER.setVolatile(this, w);
+        log.waitingSubscribers.incrementAndGet();
+    }
+
+    /**
+     * @return {@code true}, if the waiter has been removed; {@code false}, if it has already been
+     *     woken up.
+     */
+    private boolean removeWaiter(Object w) {
+        if (WAITER.compareAndSet(this, w, null)) {
+            log.waitingSubscribers.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /** Called by the producer, after appending an element. Wakes up the waiter, if any. */
+    void wake() {
+        var w = waiter;
+        if (w != null && removeWaiter(w)) {
+            if (w instanceof Thread t) {
+                LockSupport.unpark(t);
+            } else {
+                // if the clause isn't selected, the element remains available for subsequent
+                // operations
+                var ss = (StoredSelectClause) w;
+                ss.setPayload(RingMarker.READY);
+                ss.getSelect().trySelect(ss);
+            }
+        }
+    }
+
+    /** Called after the log is closed. Wakes up the waiter, if any. */
+    void wakeOnClose() {
+        var w = waiter;
+        if (w != null && removeWaiter(w)) {
+            if (w instanceof Thread t) {
+                LockSupport.unpark(t);
+            } else {
+                var ss = (StoredSelectClause) w;
+                var closed = closedForReceive(true);
+                if (closed == null) {
+                    // done, but there are still elements to receive
+                    ss.setPayload(RingMarker.READY);
+                    ss.getSelect().trySelect(ss);
+                } else {
+                    ss.getSelect().channelClosed(closed);
+                }
+            }
+        }
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    /** Closing the subscription unsubscribes from the log, even if the log is not yet closed. */
+    @Override
+    public Object closeOrClosed(ChannelClosed channelClosed) {
+        if (!CLOSED_REASON.compareAndSet(this, null, channelClosed)) {
+            return closedReason; // already closed
+        }
+        // releasing the segments
+        segment = null;
+        log.unsubscribe(this);
+
+        var w = waiter;
+        if (w != null && removeWaiter(w)) {
+            if (w instanceof Thread t) {
+                LockSupport.unpark(t);
+            } else {
+                ((StoredSelectClause) w).getSelect().channelClosed(channelClosed);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Called by the producer, while holding the log's lock, when the subscriber lags behind too
+     * much, and the policy is {@link SlowSubscriberPolicy#DROP}.
+     */
+    void drop() {
+        closeOrClosed(new ChannelError(new SlowSubscriberException(), channel));
+    }
+
+    /**
+     * Called by the producer, while holding the log's lock, when the subscriber lags behind too
+     * much, and the policy is {@link SlowSubscriberPolicy#SKIP}. Moves the cursor to {@code
+     * target}, unless it's already past it.
+     *
+     * @return The new cursor.
+     */
+    long skipTo(long target) {
+        while (true) {
+            var c = cursor;
+            if (c >= target) {
+                return c;
+            }
+            if (CURSOR.compareAndSet(this, c, target)) {
+                break;
+            }
+        }
+
+        // moving the segment forward, so that the skipped segments can be reclaimed; the
+        // subscriber might concurrently set a preceding segment, which only delays reclamation
+        var s = segment;
+        if (s != null) {
+            while (s.id < target / BroadcastSegment.SIZE && s.next != null) {
+                s = s.next;
+            }
+            if (closedReason == null) {
+                segment = s;
+            }
+        }
+        return target;
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        var own = closedReason;
+        return own != null ? own : closedForReceive(false);
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return closedForReceive(!isElementAvailable());
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Override
+    public Object registerReceive(SelectInstance select, SelectClause<?> clause) {
+        while (true) {
+            var closed = closedForReceive(false);
+            if (closed != null) {
+                return closed;
+            }
+            var value = poll();
+            if (value != null) {
+                return value;
+            }
+            closed = closedForReceive(true);
+            if (closed != null) {
+                return closed;
+            }
+
+            var ss = new StoredSelectClause(select, null, 0, false, clause, null);
+            registerWaiter(ss);
+            if (canProceed() && removeWaiter(ss)) {
+                // an element became available (or the channel was closed) concurrently; retrying
+                continue;
+            }
+            // otherwise, the producer might have already removed the waiter, calling trySelect -
+            // which will cause the clause to be re-registered, as the select is still registering
+            return ss;
+        }
+    }
+
+    @Override
+    public Object receiveSelected() {
+        var value = poll();
+        if (value == null) {
+            var own = closedReason;
+            if (own != null) {
+                // dropped after the clause has been selected
+                throw own.toException();
+            }
+            throw new IllegalStateException(
+                    "Selected a receive clause, but no element is available; is the subscription"
+                            + " used by multiple consumers?");
+        }
+        return value;
+    }
+
+    @Override
+    public void cleanupStoredSelectClause(StoredSelectClause ss) {
+        removeWaiter(ss);
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    // values are sent to the broadcast channel, not to the subscriptions
+
+    @Override
+    public Object sendOrClosed(T value) {
+        throw sendNotSupported();
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        throw sendNotSupported();
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) {
+        throw sendNotSupported();
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        throw sendNotSupported();
+    }
+
+    @Override
+    public Object registerSend(SelectInstance select, SelectClause<?> clause, T value) {
+        throw sendNotSupported();
+    }
+
+    @Override
+    public void sendSelected(T value) {
+        throw sendNotSupported();
+    }
+
+    private static UnsupportedOperationException sendNotSupported() {
+        return new UnsupportedOperationException(
+                "Values can't be sent to a subscription of a broadcast channel.");
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return "BroadcastSubscription(cursor="
+                + cursor
+                + ", closed="
+                + (closedReason != null)
+                + ", log="
+                + log
+                + ")";
+    }
+}
@@ -0,0 +1,53 @@
+package com.softwaremill.jox;
+
+import java.util.function.Consumer;
+
+/**
+ * How the buffer of a buffered {@link Channel} behaves, when it's not a plain, fixed-size buffer:
+ * values might be dropped when it's full (see {@link OverflowPolicy}), and its capacity might
+ * change (see {@link ElasticCapacity}).
+ *
+ * <p>Channels with a plain buffer don't have a policy. That way, their operations only check a
+ * single field, to find out that none of the variants applies.
+ */
+final class BufferPolicy<T> {
+    /** If non-{@code null}, sending never blocks. */
+    final OverflowPolicy overflowPolicy;
+
+    /** Called with each value dropped because of the {@link #overflowPolicy}; might be null. */
+    final Consumer<? super T> onDropped;
+
+    /** If non-{@code null}, the channel is resizable. */
+    final ElasticCapacity elastic;
+
+    BufferPolicy(
+            OverflowPolicy overflowPolicy, Consumer<? super T> onDropped, ElasticCapacity elastic) {
+        this.overflowPolicy = overflowPolicy;
+        this.onDropped = onDropped;
+        this.elastic = elastic;
+    }
+
+    void dropped(T value) {
+        if (onDropped != null) {
+            onDropped.accept(value);
+        }
+    }
+
+    boolean trySkipExpansion() {
+        return elastic != null && elastic.trySkipExpansion();
+    }
+
+    /**
+     * @return The new capacity, if it should be changed after a sender suspended, or {@code -1}.
+     */
+    int senderSuspended() {
+        return elastic == null ? -1 : elastic.senderSuspended();
+    }
+
+    /**
+     * @return The new capacity, if it should be changed after a receiver suspended, or {@code -1}.
+     */
+    int receiverSuspended() {
+        return elastic == null ? -1 : elastic.receiverSuspended();
+    }
+}
@@ -6,8 +6,13 @@ import static com.softwaremill.jox.Select.select;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -36,6 +41,14 @@ import java.util.stream.Stream;
  * {@link Channel#newBufferedDefaultChannel()} creates a buffered channel with a "default" capacity
  * of 16, which should be a good starting point for most use-cases.
  *
+ * <p>Buffered channels might also be created with an {@link OverflowPolicy}, using {@link
+ * Channel#newBufferedChannel(int, OverflowPolicy)} or {@link Channel#newConflatedChannel()}. Then,
+ * `send` never blocks: when the buffer is full, either the oldest buffered value, or the sent value
+ * is dropped.
+ *
+ * <p>Finally, {@link Channel#builder()} allows configuring each of the above per-instance, along
+ * with the size of the segments, in which the channel's cells are allocated.
+ *
  * <p>In a rendezvous channel, senders and receivers block until a matching party arrives (unless
  * one is already waiting). Similarly, buffered channels block if the buffer is full (in the case of
  * senders), or in the case of receivers, if the buffer is empty and there are no waiting senders.
@@ -102,6 +115,21 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
     private final int capacity;
     final boolean isRendezvous;
+    final WaitStrategy waitStrategy;
+
+    /**
+     * Each segment holds {@code 2^segmentShift} cells; the segment id of a cell is then {@code cell
+     * >> segmentShift}, and the index within the segment: {@code cell & segmentMask}.
+     */
+    private final int segmentShift;
+
+    private final long segmentMask;
+
+    /**
+     * Non-{@code null} for buffered channels, to which sending never blocks, or which are
+     * resizable; then, {@link #capacity} is only the initial capacity. See {@link BufferPolicy}.
+     */
+    private final BufferPolicy<T> bufferPolicy;
 
     // usages are inlined to avoid storing an additional field:
     // final boolean isUnlimited = capacity < 0; !isUnlimited = capacity >= 0
@@ -139,6 +167,12 @@ public final class Channel<T> implements Source<T>, Sink<T> {
     @SuppressWarnings("unused")
     private volatile ChannelClosed closedReason;
 
+    /**
+     * Set when the channel is a member of a {@link ChannelGroup}, which is then notified when a
+     * value might become available for receiving, or when the channel is closed.
+     */
+    private volatile ChannelGroupMember groupMember;
+
     // var handles
 
     private static final VarHandle SENDERS_AND_CLOSE_FLAG;
@@ -148,6 +182,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
     private static final VarHandle RECEIVE_SEGMENT;
     private static final VarHandle BUFFER_END_SEGMENT;
     private static final VarHandle CLOSED_REASON;
+    private static final VarHandle GROUP_MEMBER;
 
     static {
         try {
@@ -161,6 +196,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             RECEIVE_SEGMENT = l.findVarHandle(Channel.class, "receiveSegment", Segment.class);
             BUFFER_END_SEGMENT = l.findVarHandle(Channel.class, "bufferEndSegment", Segment.class);
             CLOSED_REASON = l.findVarHandle(Channel.class, "closedReason", ChannelClosed.class);
+            GROUP_MEMBER = l.findVarHandle(Channel.class, "groupMember", ChannelGroupMember.class);
         } catch (ReflectiveOperationException e) {
             throw new ExceptionInInitializerError(e);
         }
@@ -169,20 +205,67 @@ public final class Channel<T> implements Source<T>, Sink<T> {
     /**
      * Creates a buffered channel (when capacity is positive), or a rendezvous channel if the
      * capacity is 0.
+     *
+     * @param withSlots If the segments should store primitive values in parallel to the cell
+     *     states; see {@link SlotMarker}.
+     * @param waitStrategy The strategy used when suspending, or {@code null} for the default one.
      */
-    private Channel(int capacity) {
+    private Channel(int capacity, boolean withSlots, WaitStrategy waitStrategy) {
+        this(capacity, withSlots, waitStrategy, Segment.SEGMENT_SIZE, null);
+    }
+
+    /**
+     * @param segmentSize The number of cells in each segment, a power of 2.
+     * @param bufferPolicy If non-{@code null}, the channel must be buffered; see {@link
+     *     BufferPolicy}.
+     */
+    private Channel(
+            int capacity,
+            boolean withSlots,
+            WaitStrategy waitStrategy,
+            int segmentSize,
+            BufferPolicy<T> bufferPolicy) {
         if (capacity < UNLIMITED_CAPACITY)
             throw new IllegalArgumentException(
                     "Capacity must be 0 (rendezvous), positive (buffered) or -1 (unlimited"
                             + " channels).");
+        if (bufferPolicy != null && bufferPolicy.overflowPolicy != null && capacity <= 0)
+            throw new IllegalArgumentException(
+                    "Capacity of a channel with an overflow policy must be positive.");
+        if (bufferPolicy != null && bufferPolicy.elastic != null && capacity <= 0)
+            throw new IllegalArgumentException("Only buffered channels can be resizable.");
+
+        if (!Segment.isValidSize(segmentSize))
+            throw new IllegalArgumentException(
+                    "Segment size must be a power of 2, between 1 and "
+                            + Segment.MAX_SEGMENT_SIZE
+                            + ".");
 
         this.capacity = capacity;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+        this.segmentMask = segmentSize - 1;
+        this.bufferPolicy = bufferPolicy;
         isRendezvous = capacity == 0L;
         boolean isUnlimited = capacity == UNLIMITED_CAPACITY;
+        if (waitStrategy != null) {
+            this.waitStrategy = waitStrategy;
+        } else {
+            this.waitStrategy =
+                    isRendezvous
+                            ? FixedWaitStrategy.RENDEZVOUS_DEFAULT
+                            : FixedWaitStrategy.PARK_IMMEDIATELY;
+        }
+
         var isRendezvousOrUnlimited = isRendezvous || isUnlimited;
 
         var firstSegment =
-                new Segment(0, null, isRendezvousOrUnlimited ? 2 : 3, isRendezvousOrUnlimited);
+                new Segment(
+                        0,
+                        null,
+                        isRendezvousOrUnlimited ? 2 : 3,
+                        isRendezvousOrUnlimited,
+                        withSlots,
+                        segmentSize);
 
         sendSegment = firstSegment;
         receiveSegment = firstSegment;
@@ -204,13 +287,11 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         // interrupted senders.
 
         var currentSegment = bufferEndSegment;
+        var segmentSize = 1 << segmentShift;
         // the number of segments where all cells are processed, or some are processed (last segment
-        // of the buffer) = Math.ceil((double) capacity / Segment.SEGMENT_SIZE) (optimized for
-        // efficiency)
+        // of the buffer) = Math.ceil((double) capacity / segmentSize) (optimized for efficiency)
         int segmentsToProcess =
-                capacity <= 0
-                        ? 0
-                        : (int) ((capacity + Segment.SEGMENT_SIZE - 1L) / Segment.SEGMENT_SIZE);
+                capacity <= 0 ? 0 : (int) ((capacity + segmentSize - 1L) >> segmentShift);
 
         for (int segmentId = 0; segmentId < segmentsToProcess; segmentId++) {
             currentSegment =
@@ -218,33 +299,240 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
             var cellsToProcess =
                     (segmentId == segmentsToProcess - 1)
-                            ? (capacity % Segment.SEGMENT_SIZE)
-                            : Segment.SEGMENT_SIZE;
+                            ? (int) (capacity & segmentMask)
+                            : segmentSize;
             if (cellsToProcess == 0)
-                cellsToProcess = Segment.SEGMENT_SIZE; // the last segment is entirely processed
+                cellsToProcess = segmentSize; // the last segment is entirely processed
             //noinspection DataFlowIssue
             currentSegment.setup_markCellsProcessed(cellsToProcess);
         }
     }
 
     public static <T> Channel<T> newRendezvousChannel() {
-        return new Channel<>(0);
+        return new Channel<>(0, false, null);
+    }
+
+    /**
+     * Creates a new rendezvous channel, which uses the given strategy when waiting for the other
+     * party. See {@link WaitStrategy}.
+     */
+    public static <T> Channel<T> newRendezvousChannel(WaitStrategy waitStrategy) {
+        return new Channel<>(0, false, requireWaitStrategy(waitStrategy));
     }
 
     public static <T> Channel<T> newBufferedChannel(int capacity) {
-        return new Channel<>(capacity);
+        return new Channel<>(capacity, false, null);
+    }
+
+    /**
+     * Creates a new buffered channel, which uses the given strategy when waiting for values or
+     * buffer space. See {@link WaitStrategy}.
+     */
+    public static <T> Channel<T> newBufferedChannel(int capacity, WaitStrategy waitStrategy) {
+        return new Channel<>(capacity, false, requireWaitStrategy(waitStrategy));
     }
 
     /** Creates a new buffered channel, with the default buffer size (16). */
     public static <T> Channel<T> newBufferedDefaultChannel() {
-        return new Channel<>(DEFAULT_BUFFER_SIZE);
+        return new Channel<>(DEFAULT_BUFFER_SIZE, false, null);
+    }
+
+    /**
+     * Creates a new buffered channel, to which sending never blocks: when the buffer is full, a
+     * value is dropped, as determined by the given policy. See {@link OverflowPolicy}.
+     *
+     * @param capacity The buffer size, must be positive.
+     */
+    public static <T> Channel<T> newBufferedChannel(int capacity, OverflowPolicy overflowPolicy) {
+        return newBufferedChannel(capacity, overflowPolicy, null);
+    }
+
+    /**
+     * Same as {@link #newBufferedChannel(int, OverflowPolicy)}, additionally calling {@code
+     * onDropped} with each value that is dropped, because the buffer is full. The callback is run
+     * by the sending thread, and should not block; exceptions thrown by the callback are propagated
+     * to the sender (the value is then dropped nonetheless).
+     *
+     * @param capacity The buffer size, must be positive.
+     */
+    public static <T> Channel<T> newBufferedChannel(
+            int capacity, OverflowPolicy overflowPolicy, Consumer<? super T> onDropped) {
+        if (overflowPolicy == null) {
+            throw new NullPointerException("overflowPolicy");
+        }
+        return new Channel<>(
+                capacity,
+                false,
+                null,
+                Segment.SEGMENT_SIZE,
+                new BufferPolicy<T>(overflowPolicy, onDropped, null));
+    }
+
+    /**
+     * Creates a new conflated channel, which only keeps the most recently sent value: sending never
+     * blocks, and replaces the value that hasn't been received yet, if any. That is, a buffered
+     * channel of size 1, with the {@link OverflowPolicy#DROP_OLDEST} policy.
+     */
+    public static <T> Channel<T> newConflatedChannel() {
+        return newBufferedChannel(1, OverflowPolicy.DROP_OLDEST, null);
+    }
+
+    /**
+     * Same as {@link #newConflatedChannel()}, additionally calling {@code onDropped} with each
+     * value that is replaced before being received. See {@link #newBufferedChannel(int,
+     * OverflowPolicy, Consumer)}.
+     */
+    public static <T> Channel<T> newConflatedChannel(Consumer<? super T> onDropped) {
+        return newBufferedChannel(1, OverflowPolicy.DROP_OLDEST, onDropped);
     }
 
     public static <T> Channel<T> newUnlimitedChannel() {
-        return new Channel<>(UNLIMITED_CAPACITY);
+        return new Channel<>(UNLIMITED_CAPACITY, false, null);
     }
 
-    private static final int UNLIMITED_CAPACITY = -1;
+    /**
+     * Creates a new unlimited channel, which uses the given strategy when waiting for values. See
+     * {@link WaitStrategy}.
+     */
+    public static <T> Channel<T> newUnlimitedChannel(WaitStrategy waitStrategy) {
+        return new Channel<>(UNLIMITED_CAPACITY, false, requireWaitStrategy(waitStrategy));
+    }
+
+    /**
+     * Creates a new buffered channel, which supports a single producer and a single consumer: at
+     * any time, at most one thread might send values to the channel, and at most one thread might
+     * receive values from it (other threads might take over these roles, provided that there's a
+     * happens-before relationship with the previous sender/receiver, e.g. the previous one
+     * completed, and the new one is started by a join/fork). Moreover, the channel can only be
+     * completed using {@link #done()} by the sender, after the last value is sent. The channel can
+     * be closed with an error by any thread.
+     *
+     * <p>Such a channel is backed by a ring buffer, and doesn't require atomic read-modify-write
+     * operations when sending & receiving, which makes it faster than the general {@link
+     * #newBufferedChannel(int)}. If the above requirements aren't met, the behavior is undefined:
+     * values might be lost or duplicated.
+     *
+     * <p>The returned {@link RingChannel} doesn't support asynchronous operations, and can't be a
+     * member of a {@link ChannelGroup}.
+     *
+     * @param capacity The buffer size, must be positive.
+     */
+    public static <T> RingChannel<T> newSpscChannel(int capacity) {
+        return new RingChannel<>(ws -> new SpscRing<>(capacity, ws), null);
+    }
+
+    /**
+     * Same as {@link #newSpscChannel(int)}, using the given strategy when waiting for values or
+     * buffer space. See {@link WaitStrategy}.
+     */
+    public static <T> RingChannel<T> newSpscChannel(int capacity, WaitStrategy waitStrategy) {
+        return new RingChannel<>(
+                ws -> new SpscRing<>(capacity, ws), requireWaitStrategy(waitStrategy));
+    }
+
+    /**
+     * Creates a new buffered channel, which supports many producers, but only a single consumer: at
+     * any time, at most one thread might receive values from the channel (other threads might take
+     * over this role, provided that there's a happens-before relationship with the previous
+     * receiver). Values might be sent, and the channel might be closed, by any thread.
+     *
+     * <p>Such a channel is backed by a ring buffer, where the senders use a single CAS to claim a
+     * slot, and the receiver doesn't use any atomic read-modify-write operations, which makes it
+     * faster than the general {@link #newBufferedChannel(int)}. It's well suited to be used as a
+     * mailbox, e.g. of an actor. If the channel is used by multiple consumers concurrently, the
+     * behavior is undefined: values might be lost or duplicated.
+     *
+     * @param capacity The buffer size, must be positive, and at most {@code 2^16}.
+     */
+    public static <T> RingChannel<T> newMpscChannel(int capacity) {
+        return new RingChannel<>(ws -> new MpscRing<>(capacity, ws), null);
+    }
+
+    /**
+     * Same as {@link #newMpscChannel(int)}, using the given strategy when waiting for values or
+     * buffer space. See {@link WaitStrategy}.
+     */
+    public static <T> RingChannel<T> newMpscChannel(int capacity, WaitStrategy waitStrategy) {
+        return new RingChannel<>(
+                ws -> new MpscRing<>(capacity, ws), requireWaitStrategy(waitStrategy));
+    }
+
+    /**
+     * Creates an unlimited channel, which keeps at most {@code memoryCapacity} values on the heap.
+     * When that's exceeded, values are serialized and spilled to files, created in the given
+     * directory. The values are then read back transparently, in FIFO order; files are deleted once
+     * all values they contain are received (or when the channel is closed with an error).
+     *
+     * <p>Such a channel allows absorbing bursts, which wouldn't fit on the heap. Sending never
+     * blocks. As operations on the files dominate the cost, the channel is guarded by a lock,
+     * making it slower than in-memory channels. Asynchronous operations and channel groups are not
+     * supported.
+     *
+     * @param memoryCapacity The maximum number of values kept on the heap, must be positive.
+     * @param directory The directory, in which the spill files are created; it must exist.
+     * @param serializer Converts values to and from bytes, when they are spilled.
+     */
+    public static <T> RingChannel<T> newSpillingChannel(
+            int memoryCapacity, Path directory, ValueSerializer<T> serializer) {
+        return newSpillingChannel(
+                memoryCapacity, directory, serializer, SpillingLog.DEFAULT_FILE_SIZE);
+    }
+
+    /**
+     * Same as {@link #newSpillingChannel(int, Path, ValueSerializer)}, using spill files of the
+     * given size (64 MiB by default). A value, which doesn't fit in a file of that size, is spilled
+     * to a dedicated, larger file.
+     */
+    public static <T> RingChannel<T> newSpillingChannel(
+            int memoryCapacity, Path directory, ValueSerializer<T> serializer, int fileSize) {
+        if (directory == null) {
+            throw new NullPointerException("directory");
+        }
+        if (serializer == null) {
+            throw new NullPointerException("serializer");
+        }
+        var log = new SpillingLog<>(memoryCapacity, directory, serializer, fileSize);
+        return new RingChannel<>(ws -> log, null);
+    }
+
+    /**
+     * Creates a builder, which allows configuring the channel per-instance: its capacity, segment
+     * size, wait strategy and overflow policy. See {@link ChannelBuilder}.
+     */
+    public static <T> ChannelBuilder<T> builder() {
+        return new ChannelBuilder<>();
+    }
+
+    static <T> Channel<T> newChannel(
+            int capacity,
+            WaitStrategy waitStrategy,
+            OverflowPolicy overflowPolicy,
+            Consumer<? super T> onDropped,
+            int segmentSize,
+            ElasticCapacity elastic) {
+        var bufferPolicy =
+                overflowPolicy != null || elastic != null
+                        ? new BufferPolicy<T>(overflowPolicy, onDropped, elastic)
+                        : null;
+        return new Channel<>(capacity, false, waitStrategy, segmentSize, bufferPolicy);
+    }
+
+    private static WaitStrategy requireWaitStrategy(WaitStrategy waitStrategy) {
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy");
+        }
+        return waitStrategy;
+    }
+
+    /**
+     * Creates a channel, which transmits primitive values stored in segment slots, instead of
+     * objects. Used by the primitive channels, such as {@link LongChannel}.
+     */
+    static Channel<Object> newChannelWithSlots(int capacity) {
+        return new Channel<>(capacity, true, null);
+    }
+
+    static final int UNLIMITED_CAPACITY = -1;
 
     // *******
     // Sending
@@ -260,7 +548,18 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
     @Override
     public Object sendOrClosed(T value) throws InterruptedException {
-        return doSend(value, null, null);
+        if (dropsValues()) {
+            return sendDroppingOrClosed(value);
+        }
+        return doSend(value, 0, null, null, null);
+    }
+
+    /**
+     * Sends a primitive value; only valid for channels created using {@link #newChannelWithSlots}.
+     */
+    Object sendSlotOrClosed(long slotValue) throws InterruptedException {
+        //noinspection unchecked
+        return doSend((T) SlotMarker.VALUE, slotValue, null, null, null);
     }
 
     // used by the multi-channel Sink.trySend(value, channels...) select-based variant
@@ -272,11 +571,20 @@ public final class Channel<T> implements Source<T>, Sink<T> {
     static final Object TRY_SEND_NOT_SENT = new Object();
 
     /**
-     * @return If {@code select} & {@code selectClause} is {@code null}: {@code null} when the value
-     *     was sent, or {@link ChannelClosed}, when the channel is closed. Otherwise, might also
-     *     return {@link StoredSelectClause}.
+     * @param slotValue The primitive value to send, if {@code value} is {@link SlotMarker#VALUE}.
+     *     It's then stored in the slot corresponding to the reserved cell.
+     * @param async If non-{@code null}, instead of suspending, a {@link Continuation} completing
+     *     the given asynchronous operation is stored in the cell.
+     * @return If {@code select} & {@code selectClause} & {@code async} is {@code null}: {@code
+     *     null} when the value was sent, or {@link ChannelClosed}, when the channel is closed.
+     *     Otherwise, might also return {@link StoredSelectClause} or {@link Continuation}.
      */
-    private Object doSend(T value, SelectInstance select, SelectClause<?> selectClause)
+    private Object doSend(
+            T value,
+            long slotValue,
+            SelectInstance select,
+            SelectClause<?> selectClause,
+            AsyncOperation<?> async)
             throws InterruptedException {
         if (value == null) {
             throw new NullPointerException();
@@ -290,8 +598,8 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             var s = getSendersCounter(scf);
 
             // calculating the segment id and the index within the segment
-            var id = s / Segment.SEGMENT_SIZE;
-            var i = (int) (s % Segment.SEGMENT_SIZE);
+            var id = s >> segmentShift;
+            var i = (int) (s & segmentMask);
 
             // check if `sendSegment` stores a previous segment, if so move the reference forward
             if (segment.getId() != id) {
@@ -304,8 +612,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 // if we still have another segment, the segment must have been removed
                 if (segment.getId() != id) {
                     // skipping all interrupted cells, and trying with a new one
-                    SENDERS_AND_CLOSE_FLAG.compareAndSet(
-                            this, s, segment.getId() * Segment.SEGMENT_SIZE);
+                    SENDERS_AND_CLOSE_FLAG.compareAndSet(this, s, segment.getId() << segmentShift);
                     continue;
                 }
             }
@@ -318,7 +625,14 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 return closedReason;
             }
 
-            var sendResult = updateCellSend(segment, i, s, value, select, selectClause, true);
+            if (value == SlotMarker.VALUE) {
+                // the cell is reserved exclusively by this sender, so it's safe to write the slot
+                // before the cell's state is updated
+                segment.setSlot(i, slotValue);
+            }
+
+            var sendResult =
+                    updateCellSend(segment, i, s, value, select, selectClause, async, true);
             if (sendResult == SendResult.BUFFERED) {
                 // a receiver is coming, or we are in buffer
                 // similarly as above, not clearing the previous pointer
@@ -335,6 +649,9 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 // we stored a select instance - there's no matching receive, not clearing the
                 // previous segment
                 return ss;
+            } else if (sendResult instanceof Continuation c) {
+                // we stored an asynchronous continuation - as above
+                return c;
             } else if (sendResult == SendResult.FAILED) {
                 // the cell was broken (hence already processed by a receiver) or interrupted (also
                 // a receiver
@@ -351,6 +668,57 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         }
     }
 
+    // ***************************
+    // Send with an overflow policy
+    // ***************************
+
+    /*
+     * Sending to a channel with an overflow policy is implemented on top of the non-blocking
+     * doTrySend. If there's no space in the buffer (and no waiting receiver), with DROP_LATEST the
+     * value is simply dropped. With DROP_OLDEST, the oldest buffered value is removed using
+     * tryReceiveOrClosed, and sending is retried. As senders never suspend, the cells of such
+     * channels only contain buffered values, waiting receivers, or interrupted/broken markers;
+     * hence removing the oldest value never resumes a sender.
+     *
+     * If a receiver takes the oldest value concurrently, tryReceiveOrClosed removes the next one,
+     * or nothing (if the buffer became empty) - in both cases there's now space, or the removal is
+     * of a value that would have been dropped anyway. Each iteration makes progress, as either the
+     * value is sent, a value is removed, or another thread removed a value.
+     */
+
+    /**
+     * @return {@code null} when the value was sent or dropped, or {@link ChannelClosed}, when the
+     *     channel is closed.
+     */
+    private Object sendDroppingOrClosed(T value) {
+        while (true) {
+            var r = doTrySend(value, 0);
+            if (r != TRY_SEND_NOT_SENT) {
+                return r; // sent, or closed
+            }
+
+            if (bufferPolicy.overflowPolicy == OverflowPolicy.DROP_LATEST) {
+                bufferPolicy.dropped(value);
+                return null;
+            }
+
+            // DROP_OLDEST: not removing values once the channel is closed (the remaining values
+            // should still be received, if the channel is done)
+            if (isClosed(sendersAndClosedFlag)) {
+                return closedReason;
+            }
+            var oldest = tryReceiveOrClosed();
+            if (oldest != null && !(oldest instanceof ChannelClosed)) {
+                //noinspection unchecked
+                bufferPolicy.dropped((T) oldest);
+            }
+        }
+    }
+
+    private boolean dropsValues() {
+        return bufferPolicy != null && bufferPolicy.overflowPolicy != null;
+    }
+
     // *************
     // Non-blocking send
     // *************
@@ -371,6 +739,22 @@ public final class Channel<T> implements Source<T>, Sink<T> {
      */
     @Override
     public Object trySendOrClosed(T value) {
+        if (dropsValues()) {
+            return sendDroppingOrClosed(value);
+        }
+        return doTrySend(value, 0);
+    }
+
+    /**
+     * Attempts to send a primitive value; only valid for channels created using {@link
+     * #newChannelWithSlots}.
+     */
+    Object trySendSlotOrClosed(long slotValue) {
+        //noinspection unchecked
+        return doTrySend((T) SlotMarker.VALUE, slotValue);
+    }
+
+    private Object doTrySend(T value, long slotValue) {
         if (value == null) {
             throw new NullPointerException();
         }
@@ -408,8 +792,8 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             }
 
             // calculating the segment id and the index within the segment
-            var id = s / Segment.SEGMENT_SIZE;
-            var i = (int) (s % Segment.SEGMENT_SIZE);
+            var id = s >> segmentShift;
+            var i = (int) (s & segmentMask);
 
             // check if `sendSegment` stores a previous segment, if so move the reference forward
             if (segment.getId() != id) {
@@ -423,14 +807,18 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                     // skipping all interrupted cells; using s+1 (not s as in doSend) because the
                     // cell at index s was already reserved by our successful CAS above
                     SENDERS_AND_CLOSE_FLAG.compareAndSet(
-                            this, s + 1, segment.getId() * Segment.SEGMENT_SIZE);
+                            this, s + 1, segment.getId() << segmentShift);
                     continue;
                 }
             }
 
+            if (value == SlotMarker.VALUE) {
+                segment.setSlot(i, slotValue);
+            }
+
             Object sendResult;
             try {
-                sendResult = updateCellSend(segment, i, s, value, null, null, false);
+                sendResult = updateCellSend(segment, i, s, value, null, null, null, false);
             } catch (InterruptedException e) {
                 throw new AssertionError("unreachable: non-blocking send cannot be interrupted", e);
             }
@@ -495,8 +883,8 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             }
 
             // calculating the segment id and the index within the segment
-            var id = r / Segment.SEGMENT_SIZE;
-            var i = (int) (r % Segment.SEGMENT_SIZE);
+            var id = r >> segmentShift;
+            var i = (int) (r & segmentMask);
 
             // check if `receiveSegment` stores a previous segment, if so move the reference forward
             if (segment.getId() != id) {
@@ -509,14 +897,14 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 if (segment.getId() != id) {
                     // skipping all interrupted cells; using r+1 (not r as in doReceive) because
                     // the cell at index r was already reserved by our successful CAS above
-                    RECEIVERS.compareAndSet(this, r + 1, segment.getId() * Segment.SEGMENT_SIZE);
+                    RECEIVERS.compareAndSet(this, r + 1, segment.getId() << segmentShift);
                     continue;
                 }
             }
 
             Object result;
             try {
-                result = updateCellReceive(segment, i, r, null, null, false);
+                result = updateCellReceive(segment, i, r, null, null, null, false);
             } catch (InterruptedException e) {
                 throw new AssertionError(
                         "unreachable: non-blocking receive cannot be interrupted", e);
@@ -532,9 +920,318 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 return null;
             } else {
                 segment.cleanPrev();
-                return result;
+                return resolveSlot(result, segment, i);
+            }
+        }
+    }
+
+    // *************
+    // Batch sending
+    // *************
+
+    /*
+     * Batch operations reserve a contiguous range of cells using a single CAS on the counter, and
+     * then process the cells one by one, using the non-blocking variants of the cell updates. Only
+     * as many cells are reserved, as it's certain that no suspension will be needed (that is, the
+     * cells are in the buffer, or there are receivers / senders already assigned to them). That
+     * way, a batch operation never leaves a partially processed range of reserved cells, even when
+     * interrupted: blocking only happens outside of a batch, using the regular doSend/doReceive.
+     */
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        requireNoNulls(values);
+        if (dropsValues()) {
+            for (var value : values) {
+                var r = sendDroppingOrClosed(value);
+                if (r != null) {
+                    return r;
+                }
+            }
+            return null;
+        }
+        var n = values.size();
+        var sent = 0;
+        while (sent < n) {
+            var batchSent = trySendBatch(values, sent);
+            if (batchSent < 0) {
+                return closedReason;
+            } else if (batchSent > 0) {
+                sent += batchSent;
+            } else {
+                // no space in the buffer & no waiting receivers - sending a single value, possibly
+                // suspending, and then trying with a batch again
+                var r = doSend(values.get(sent), 0, null, null, null);
+                if (r instanceof ChannelClosed) {
+                    return r;
+                }
+                sent += 1;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        requireNoNulls(values);
+        if (dropsValues()) {
+            for (int sent = 0; sent < values.size(); sent++) {
+                var r = sendDroppingOrClosed(values.get(sent));
+                if (r != null) {
+                    return sent == 0 ? r : sent;
+                }
+            }
+            return values.size();
+        }
+        var sent = 0;
+        while (sent < values.size()) {
+            var batchSent = trySendBatch(values, sent);
+            if (batchSent < 0) {
+                return sent == 0 ? closedReason : sent;
+            } else if (batchSent == 0) {
+                break;
+            }
+            sent += batchSent;
+        }
+        return sent;
+    }
+
+    static void requireNoNulls(List<?> values) {
+        for (var value : values) {
+            if (value == null) {
+                throw new NullPointerException();
+            }
+        }
+    }
+
+    /**
+     * Sends values from the given list, starting at index {@code from}, to cells which can accept
+     * them without suspension. Cells are reserved in ranges, using a single CAS for each range.
+     *
+     * @return The number of values sent, or {@code -1} if the channel is closed, and no values have
+     *     been sent.
+     */
+    private int trySendBatch(List<T> values, int from) {
+        var n = values.size();
+        var next = from; // index of the next value to send
+        while (next < n) {
+            // reading the segment before the counter CAS - needed to find the required segment
+            // later
+            var segment = sendSegment;
+            var scf = sendersAndClosedFlag;
+            var s = getSendersCounter(scf);
+
+            if (isClosed(scf)) {
+                break;
+            }
+
+            // the number of cells, which can be reserved without the possibility of suspending:
+            // bufferEnd & receivers only increase, so once a cell is in the buffer, or has a
+            // receiver assigned, this doesn't change
+            long available;
+            if (capacity < 0) {
+                available = n - next;
+            } else {
+                available = Math.max(isRendezvous ? 0 : bufferEnd, receivers) - s;
+            }
+            if (available <= 0) {
+                break;
+            }
+            var k = (int) Math.min(available, n - next);
+
+            // reserving k cells at once
+            if (!SENDERS_AND_CLOSE_FLAG.compareAndSet(this, scf, scf + k)) {
+                continue;
+            }
+
+            var end = s + k;
+            var cell = s;
+            while (cell < end) {
+                // calculating the segment id and the index within the segment
+                var id = cell >> segmentShift;
+                var i = (int) (cell & segmentMask);
+
+                // check if `sendSegment` stores a previous segment, if so move the reference
+                // forward
+                if (segment.getId() != id) {
+                    segment = findAndMoveForward(SEND_SEGMENT, this, segment, id);
+                    if (segment == null) {
+                        // the channel has been closed, `cell` points to a segment which doesn't
+                        // exist
+                        return next == from ? -1 : next - from;
+                    }
+
+                    if (segment.getId() != id) {
+                        // the segment was removed, skipping all interrupted cells (in this range,
+                        // and if possible, also beyond it, as in doSend)
+                        var firstAlive = segment.getId() << segmentShift;
+                        if (firstAlive > end) {
+                            SENDERS_AND_CLOSE_FLAG.compareAndSet(this, end, firstAlive);
+                        }
+                        cell = firstAlive;
+                        continue;
+                    }
+                }
+
+                Object sendResult;
+                try {
+                    sendResult =
+                            updateCellSend(
+                                    segment, i, cell, values.get(next), null, null, null, false);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(
+                            "unreachable: non-blocking send cannot be interrupted", e);
+                }
+                if (sendResult == SendResult.BUFFERED) {
+                    next += 1;
+                } else if (sendResult == SendResult.RESUMED) {
+                    // we resumed a receiver - we can be sure that R > s
+                    segment.cleanPrev();
+                    next += 1;
+                } else if (sendResult == SendResult.FAILED) {
+                    // trying to send the same value using the next reserved cell, so that the
+                    // ordering of values is preserved
+                    segment.cleanPrev();
+                } else if (sendResult == SendResult.CLOSED) {
+                    return next == from ? -1 : next - from;
+                } else {
+                    // TRY_SEND_NOT_SENT is not possible, as the cell is in the buffer, or there's a
+                    // receiver
+                    throw new IllegalStateException(
+                            "Unexpected result: " + sendResult + " in channel: " + this);
+                }
+                cell += 1;
+            }
+        }
+
+        if (next == from && isClosed(sendersAndClosedFlag)) {
+            return -1;
+        }
+        return next - from;
+    }
+
+    // ***************
+    // Batch receiving
+    // ***************
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        if (max <= 0) throw new IllegalArgumentException("max must be positive");
+        var received = tryReceiveBatch(max, into);
+        if (received > 0) {
+            return received;
+        }
+
+        // nothing is immediately available (or the channel is closed): receiving a single value,
+        // possibly suspending, and then receiving whatever else is available
+        var first = doReceive(null, null, null);
+        if (first instanceof ChannelClosed) {
+            return first;
+        }
+        //noinspection unchecked
+        into.add((T) first);
+        if (max == 1) {
+            return 1;
+        }
+        return 1 + Math.max(tryReceiveBatch(max - 1, into), 0);
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        if (max <= 0) throw new IllegalArgumentException("max must be positive");
+        var received = tryReceiveBatch(max, into);
+        return received < 0 ? closedReason : received;
+    }
+
+    /**
+     * Receives at most {@code max} values, from cells which have a sender assigned. Cells are
+     * reserved in ranges, using a single CAS for each range.
+     *
+     * @return The number of values received, or {@code -1} if the channel is closed, and no values
+     *     have been received.
+     */
+    private int tryReceiveBatch(int max, Collection<? super T> into) {
+        var received = 0;
+        while (received < max) {
+            // snapshot of counters
+            var scf = sendersAndClosedFlag;
+            var s = getSendersCounter(scf);
+            var r = receivers;
+
+            // if no sender has reserved a cell beyond the current receiver position, there's
+            // nothing to receive
+            if (s <= r) {
+                if (received == 0 && isClosed(scf) && closedForReceive() != null) {
+                    return -1;
+                }
+                break;
+            }
+
+            // reading the segment before the counter CAS - needed to find the required segment
+            // later
+            var segment = receiveSegment;
+
+            // reserving the cells which have a sender assigned, at once
+            var k = (int) Math.min(s - r, max - received);
+            if (!RECEIVERS.compareAndSet(this, r, r + k)) {
+                continue;
+            }
+
+            var end = r + k;
+            var cell = r;
+            while (cell < end) {
+                // calculating the segment id and the index within the segment
+                var id = cell >> segmentShift;
+                var i = (int) (cell & segmentMask);
+
+                // check if `receiveSegment` stores a previous segment, if so move the reference
+                // forward
+                if (segment.getId() != id) {
+                    segment = findAndMoveForward(RECEIVE_SEGMENT, this, segment, id);
+                    if (segment == null) {
+                        // the channel has been closed, `cell` points to a segment which doesn't
+                        // exist
+                        return received == 0 ? -1 : received;
+                    }
+
+                    if (segment.getId() != id) {
+                        // the segment was removed, skipping all interrupted cells (in this range,
+                        // and if possible, also beyond it, as in doReceive)
+                        var firstAlive = segment.getId() << segmentShift;
+                        if (firstAlive > end) {
+                            RECEIVERS.compareAndSet(this, end, firstAlive);
+                        }
+                        cell = firstAlive;
+                        continue;
+                    }
+                }
+
+                Object result;
+                try {
+                    result = updateCellReceive(segment, i, cell, null, null, null, false);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(
+                            "unreachable: non-blocking receive cannot be interrupted", e);
+                }
+                if (result == ReceiveResult.CLOSED) {
+                    return received == 0 ? -1 : received;
+                } else if (result == ReceiveResult.FAILED) {
+                    // the sender was interrupted, or is still in progress (the cell is now
+                    // broken) - moving on to the next reserved cell
+                    segment.cleanPrev();
+                } else if (result != null) {
+                    // S > r, as the cell had a sender assigned
+                    segment.cleanPrev();
+                    //noinspection unchecked
+                    into.add((T) resolveSlot(result, segment, i));
+                    received += 1;
+                }
+                // else: `null` is not possible, as S > r
+                cell += 1;
             }
         }
+        return received;
     }
 
     /**
@@ -556,6 +1253,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             T value,
             SelectInstance select,
             SelectClause<?> selectClause,
+            AsyncOperation<?> async,
             boolean suspend)
             throws InterruptedException {
         while (true) {
@@ -581,15 +1279,31 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                                 new StoredSelectClause(
                                         select, segment, i, true, selectClause, value);
                         if (segment.casCell(i, state, storedSelect)) {
+                            signalGroupMember();
                             return storedSelect;
                         }
                         // else: CAS unsuccessful, repeat
                     } else {
                         // storing the value to send as the continuation's payload, so that the
                         // receiver can use it
-                        var c = new Continuation(value);
+                        var c =
+                                async == null
+                                        ? Continuation.forCurrentThread(value)
+                                        : new Continuation(value, async);
                         if (segment.casCell(i, null, c)) {
-                            if (c.await(segment, i, isRendezvous) == ChannelClosedMarker.CLOSED) {
+                            // before suspending, as the group's receiver might be the one to
+                            // resume us
+                            signalGroupMember();
+                            if (async != null) {
+                                // the operation will be completed by the resuming thread
+                                async.stored(c, segment, i);
+                                return c;
+                            }
+                            if (bufferPolicy != null) {
+                                // the buffer is full; growing it might resume this sender
+                                autoTune(bufferPolicy.senderSuspended());
+                            }
+                            if (c.await(segment, i, waitStrategy) == ChannelClosedMarker.CLOSED) {
                                 return SendResult.CLOSED;
                             } else {
                                 return SendResult.AWAITED;
@@ -600,6 +1314,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 } else {
                     // cell is empty, but a receiver is in progress, or in buffer -> elimination
                     if (segment.casCell(i, null, value)) {
+                        signalGroupMember();
                         return SendResult.BUFFERED;
                     }
                     // else: CAS unsuccessful, repeat
@@ -607,26 +1322,37 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             } else if (state == IN_BUFFER) {
                 // cell just became part of the buffer
                 if (segment.casCell(i, IN_BUFFER, value)) {
+                    signalGroupMember();
                     return SendResult.BUFFERED;
                 }
                 // else: CAS unsuccessful, repeat
             } else if (state instanceof Continuation c) {
-                // a receiver is waiting -> trying to resume
-                if (c.tryResume(value)) {
-                    segment.setCell(i, DONE);
-                    return SendResult.RESUMED;
-                } else {
-                    // when cell interrupted -> trying with a new one
-                    // when close in progress -> subsequent cells are already closed, this will be
-                    // detected in the next iteration
-                    return SendResult.FAILED;
+                // resolving a potential race with closing the channel; once the cell is RESUMING,
+                // no other thread might access the continuation, which can then be reused
+                if (segment.casCell(i, state, RESUMING)) {
+                    // a receiver is waiting -> trying to resume
+                    if (c.tryResume(value)) {
+                        segment.setCell(i, DONE);
+                        c.completeAsync();
+                        return SendResult.RESUMED;
+                    } else {
+                        // when cell interrupted -> trying with a new one; the state will be set to
+                        // INTERRUPTED_RECEIVE by the continuation
+                        return SendResult.FAILED;
+                    }
                 }
+                // else: CAS unsuccessful (when close in progress, the cell is RESUMING), repeat
+            } else if (state == RESUMING) {
+                // the channel is being closed, and the waiting receiver resumed -> repeat, the
+                // state will be CLOSED soon
+                Thread.onSpinWait();
             } else if (state instanceof StoredSelectClause ss) {
                 // Setting the payload first, before the memory barrier created by potentially
                 // setting `SelectInstance.state`.
                 // The state is the read in select's main thread. Since we have this send-cell
                 // exclusively, no other thread will attempt to call `setPayload`.
-                ss.setPayload(value);
+                // The select's result is an object anyway, so primitive values are boxed here.
+                ss.setPayload(value == SlotMarker.VALUE ? (Object) segment.getSlot(i) : value);
 
                 // a select clause is waiting -> trying to resume
                 if (ss.getSelect().trySelect(ss)) {
@@ -665,15 +1391,18 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
     @Override
     public Object receiveOrClosed() throws InterruptedException {
-        return doReceive(null, null);
+        return doReceive(null, null, null);
     }
 
     /**
-     * @return If {@code select} & {@code selectClause} is {@code null}: the received value, or
-     *     {@link ChannelClosed}, when the channel is closed. Otherwise, might also return {@link
-     *     StoredSelectClause}.
+     * @param async If non-{@code null}, instead of suspending, a {@link Continuation} completing
+     *     the given asynchronous operation is stored in the cell.
+     * @return If {@code select} & {@code selectClause} & {@code async} is {@code null}: the
+     *     received value, or {@link ChannelClosed}, when the channel is closed. Otherwise, might
+     *     also return {@link StoredSelectClause} or {@link Continuation}.
      */
-    private Object doReceive(SelectInstance select, SelectClause<?> selectClause)
+    private Object doReceive(
+            SelectInstance select, SelectClause<?> selectClause, AsyncOperation<?> async)
             throws InterruptedException {
         while (true) {
             // reading the segment before the counter increment - this is needed to find the
@@ -683,8 +1412,8 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             var r = (long) RECEIVERS.getAndAdd(this, 1L);
 
             // calculating the segment id and the index within the segment
-            var id = r / Segment.SEGMENT_SIZE;
-            var i = (int) (r % Segment.SEGMENT_SIZE);
+            var id = r >> segmentShift;
+            var i = (int) (r & segmentMask);
 
             // check if `receiveSegment` stores a previous segment, if so move the reference forward
             if (segment.getId() != id) {
@@ -697,12 +1426,12 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 // if we still have another segment, the segment must have been removed
                 if (segment.getId() != id) {
                     // skipping all interrupted cells, and trying with a new one
-                    RECEIVERS.compareAndSet(this, r, segment.getId() * Segment.SEGMENT_SIZE);
+                    RECEIVERS.compareAndSet(this, r, segment.getId() << segmentShift);
                     continue;
                 }
             }
 
-            var result = updateCellReceive(segment, i, r, select, selectClause, true);
+            var result = updateCellReceive(segment, i, r, select, selectClause, async, true);
             if (result == ReceiveResult.CLOSED) {
                 // not cleaning the previous segments - the close procedure might still need it
                 return closedReason;
@@ -718,18 +1447,75 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
                 The only cases when S <= r are when:
                 - awaiting on the continuation is interrupted, in which case the exception propagates outside of this method
-                - we stored the given select instance (in an empty / in-buffer cell)
+                - we stored the given select instance, or an asynchronous continuation (in an empty / in-buffer cell)
                 */
-                if (!(result instanceof StoredSelectClause)) {
+                if (!(result instanceof StoredSelectClause) && !(result instanceof Continuation)) {
                     segment.cleanPrev();
                 }
                 if (result != ReceiveResult.FAILED) {
-                    return result;
+                    return resolveSlot(result, segment, i);
                 }
             }
         }
     }
 
+    /**
+     * Receives a primitive value, without boxing; only valid for channels created using {@link
+     * #newChannelWithSlots}. Same as {@link #doReceive}, but without select support.
+     *
+     * @throws ChannelClosedException When the channel is closed.
+     */
+    long receiveSlot() throws InterruptedException {
+        while (true) {
+            // reading the segment before the counter increment - this is needed to find the
+            // required segment later
+            var segment = receiveSegment;
+            // reserving the next cell
+            var r = (long) RECEIVERS.getAndAdd(this, 1L);
+
+            // calculating the segment id and the index within the segment
+            var id = r >> segmentShift;
+            var i = (int) (r & segmentMask);
+
+            // check if `receiveSegment` stores a previous segment, if so move the reference forward
+            if (segment.getId() != id) {
+                segment = findAndMoveForward(RECEIVE_SEGMENT, this, segment, id);
+                if (segment == null) {
+                    // the channel has been closed, r points to a segment which doesn't exist
+                    throw closedReason.toException();
+                }
+
+                // if we still have another segment, the segment must have been removed
+                if (segment.getId() != id) {
+                    // skipping all interrupted cells, and trying with a new one
+                    RECEIVERS.compareAndSet(this, r, segment.getId() << segmentShift);
+                    continue;
+                }
+            }
+
+            var result = updateCellReceive(segment, i, r, null, null, null, true);
+            if (result == ReceiveResult.CLOSED) {
+                // not cleaning the previous segments - the close procedure might still need it
+                throw closedReason.toException();
+            } else {
+                // as in doReceive, S > r
+                segment.cleanPrev();
+                if (result != ReceiveResult.FAILED) {
+                    // the sender stored the value in the slot of this cell
+                    return segment.getSlot(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * If the received value is stored in the cell's slot, reads and boxes it. Otherwise, returns
+     * the received value unchanged.
+     */
+    private static Object resolveSlot(Object received, Segment segment, int i) {
+        return received == SlotMarker.VALUE ? (Object) segment.getSlot(i) : received;
+    }
+
     /**
      * Invariant maintained by receive + expandBuffer: between R and B the number of cells that are
      * empty / IN_BUFFER should be equal to the buffer size. These are the cells that can accept a
@@ -742,12 +1528,16 @@ public final class Channel<T> implements Source<T>, Sink<T> {
      * @param r Index of the reserved cell.
      * @param select The select instance of which this receive is part of, or {@code null} (along
      *     with {@code selectClause}) if this is a direct receive call.
+     * @param async The asynchronous operation of which this receive is part of, or {@code null}. If
+     *     non-{@code null}, the continuation is stored in the cell and returned, instead of
+     *     suspending.
      * @param suspend If {@code true}, the thread may be suspended (parked) when no sender is
      *     available. If {@code false} (non-blocking path), the cell is marked as
      *     INTERRUPTED_RECEIVE and {@code null} is returned instead.
      * @return Either a state-result ({@link ReceiveResult}), {@link StoredSelectClause} in case
-     *     {@code select} is not {@code null}, {@code null} (when {@code suspend=false} and nothing
-     *     available), or the received value.
+     *     {@code select} is not {@code null}, {@link Continuation} in case {@code async} is not
+     *     {@code null}, {@code null} (when {@code suspend=false} and nothing available), or the
+     *     received value.
      */
     private Object updateCellReceive(
             Segment segment,
@@ -755,6 +1545,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             long r,
             SelectInstance select,
             SelectClause<?> selectClause,
+            AsyncOperation<?> async,
             boolean suspend)
             throws InterruptedException {
         while (true) {
@@ -785,10 +1576,21 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                     } else {
                         // cell is empty, and no sender -> suspend
                         // not using any payload
-                        var c = new Continuation(null);
+                        var c =
+                                async == null
+                                        ? Continuation.forCurrentThread(null)
+                                        : new Continuation(null, async);
                         if (segment.casCell(i, state, c)) {
                             expandBuffer();
-                            var result = c.await(segment, i, isRendezvous);
+                            if (async != null) {
+                                // the operation will be completed by the resuming thread
+                                async.stored(c, segment, i);
+                                return c;
+                            }
+                            if (bufferPolicy != null) {
+                                autoTune(bufferPolicy.receiverSuspended());
+                            }
+                            var result = c.await(segment, i, waitStrategy);
                             if (result == ChannelClosedMarker.CLOSED) {
                                 return ReceiveResult.CLOSED;
                             } else {
@@ -808,11 +1610,14 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             } else if (state instanceof Continuation c) {
                 // resolving a potential race with `expandBuffer`
                 if (segment.casCell(i, state, RESUMING)) {
-                    // a sender is waiting -> trying to resume
+                    // a sender is waiting -> trying to resume; reading the payload first, as once
+                    // resumed, the continuation might be reused by the sender
+                    var payload = c.getPayload();
                     if (c.tryResume(0)) {
                         segment.setCell(i, DONE);
+                        c.completeAsync();
                         expandBuffer();
-                        return c.getPayload();
+                        return payload;
                     } else {
                         // when cell interrupted -> trying with a new one
                         // the state will be set to INTERRUPTED_SEND by the continuation, meanwhile
@@ -872,6 +1677,9 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
     private void expandBuffer() {
         if (capacity <= 0) return; // isRendezvous || isUnlimited
+        if (bufferPolicy != null && bufferPolicy.trySkipExpansion()) {
+            return; // the capacity has been reduced
+        }
         while (true) {
             // reading the segment before the counter increment - this is needed to find the
             // required segment later
@@ -880,8 +1688,8 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             var b = (long) BUFFER_END.getAndAdd(this, 1L);
 
             // calculating the segment id and the index within the segment
-            var id = b / Segment.SEGMENT_SIZE;
-            var i = (int) (b % Segment.SEGMENT_SIZE);
+            var id = b >> segmentShift;
+            var i = (int) (b & segmentMask);
 
             // check if `bufferEndSegment` stores a previous segment, if so move the reference
             // forward
@@ -900,7 +1708,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 // cell. As we are only processing it now, it must have been an interrupted sender.
                 if (segment.getId() != id) {
                     // skipping all interrupted (& removed) cells as an optimization if possible
-                    BUFFER_END.compareAndSet(this, b, segment.getId() * Segment.SEGMENT_SIZE);
+                    BUFFER_END.compareAndSet(this, b, segment.getId() << segmentShift);
                     // restarting buffer expansion as this cell was an interrupted sender
                     continue;
                 }
@@ -938,9 +1746,11 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 return ExpandBufferResult.DONE;
             } else if (state instanceof Continuation c && c.isSender()) {
                 if (segment.casCell(i, state, RESUMING)) {
-                    // a sender is waiting -> trying to resume
+                    // a sender is waiting -> trying to resume; reading the payload first, as above
+                    var payload = c.getPayload();
                     if (c.tryResume(0)) {
-                        segment.setCell(i, c.getPayload());
+                        segment.setCell(i, payload);
+                        c.completeAsync();
                         return ExpandBufferResult.DONE;
                     } else {
                         // when cell interrupted -> trying with a new one
@@ -990,7 +1800,9 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                         return ExpandBufferResult.DONE;
                     }
                     case CellState.RESUMING ->
-                            Thread.onSpinWait(); // receive() is resuming the sender -> repeat
+                            // receive() is resuming the sender, or send() / close the receiver
+                            // -> repeat
+                            Thread.onSpinWait();
                     case CellState.CLOSED -> {
                         return ExpandBufferResult.CLOSED;
                     }
@@ -1006,6 +1818,51 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         }
     }
 
+    // ********
+    // Resizing
+    // ********
+
+    /**
+     * @return The current capacity of the channel: {@code 0} for rendezvous channels, {@code -1}
+     *     for unlimited channels. The capacity of resizable channels might change over time.
+     */
+    public int capacity() {
+        var elastic = bufferPolicy == null ? null : bufferPolicy.elastic;
+        return elastic == null ? capacity : elastic.capacity();
+    }
+
+    /**
+     * Changes the capacity of a resizable channel, created using {@link
+     * ChannelBuilder#resizable()}. Might be called concurrently with any other operations.
+     *
+     * <p>Growing the buffer takes effect immediately, resuming any senders blocked on a full
+     * buffer, if possible. Shrinking the buffer never drops already buffered values: instead, the
+     * buffer shrinks as these are received.
+     *
+     * @param capacity The new capacity, must be positive.
+     * @throws UnsupportedOperationException When the channel isn't resizable.
+     */
+    public void setCapacity(int capacity) {
+        var elastic = bufferPolicy == null ? null : bufferPolicy.elastic;
+        if (elastic == null) {
+            throw new UnsupportedOperationException(
+                    "Only channels created using Channel.builder().resizable() can be resized.");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        var expansions = elastic.setCapacity(capacity);
+        for (int k = 0; k < expansions; k++) {
+            expandBuffer();
+        }
+    }
+
+    private void autoTune(int newCapacity) {
+        if (newCapacity > 0) {
+            setCapacity(newCapacity);
+        }
+    }
+
     // *******
     // Closing
     // *******
@@ -1074,12 +1931,15 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             // removed. This is safe, as after closing all cells are either closed, interrupted
             // (sender/receiver), done or broken (there are no pending sends, and no new sends
             // will be allowed).
-            var lastGlobalIndex = (lastSegment.getId() + 1) * Segment.SEGMENT_SIZE - 1;
+            var lastGlobalIndex = ((lastSegment.getId() + 1) << segmentShift) - 1;
             while (bufferEnd <= lastGlobalIndex) {
                 expandBuffer();
             }
         }
 
+        // the group's receiver should discover that the channel is closed
+        signalGroupMember();
+
         return null;
     }
 
@@ -1090,10 +1950,10 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             return;
         }
 
-        var lastCellToCloseSegmentId = lastCellToClose / Segment.SEGMENT_SIZE;
+        var lastCellToCloseSegmentId = lastCellToClose >> segmentShift;
         int lastIndexToCloseInSegment;
         if (lastCellToCloseSegmentId == segment.getId()) {
-            lastIndexToCloseInSegment = (int) (lastCellToClose % Segment.SEGMENT_SIZE);
+            lastIndexToCloseInSegment = (int) (lastCellToClose & segmentMask);
         } else if (lastCellToCloseSegmentId < segment.getId()) {
             // the last cell to close is in a segment before this one, so we need to close all cells
             // in this segment
@@ -1106,7 +1966,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
         // closing the cells in reverse order - that way, a later receiver won't be paired with a
         // sender, while an earlier receiver becomes closed
-        for (int i = Segment.SEGMENT_SIZE - 1; i >= lastIndexToCloseInSegment; i--) {
+        for (int i = segment.getSize() - 1; i >= lastIndexToCloseInSegment; i--) {
             updateCellClose(segment, i);
         }
 
@@ -1128,17 +1988,21 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 }
             } else if (state instanceof Continuation c) {
                 // potential race with sender/receiver resuming the continuation - resolved by
-                // synchronizing on `Continuation.data`: only one thread will successfully change
-                // its value from `null`
-                if (c.tryResume(ChannelClosedMarker.CLOSED)) {
-                    segment.setCell(i, CLOSED);
-                    segment.cellInterruptedReceiver();
-                    return;
-                } else {
-                    // new state is already set or will be set soon, trying again (there might be a
-                    // value to discard)
-                    Thread.onSpinWait();
+                // changing the cell's state to RESUMING; then, the race with interruption is
+                // resolved by synchronizing on `Continuation.data`: only one thread will
+                // successfully change its value from `null`
+                if (segment.casCell(i, state, RESUMING)) {
+                    if (c.tryResume(ChannelClosedMarker.CLOSED)) {
+                        segment.setCell(i, CLOSED);
+                        segment.cellInterruptedReceiver();
+                        c.completeAsync();
+                        return;
+                    }
+                    // else: the continuation is interrupted, the state will be set to
+                    // INTERRUPTED_* soon
                 }
+                // trying again
+                Thread.onSpinWait();
             } else if (state instanceof StoredSelectClause ss) {
                 if (ss.getSelect().channelClosed(closedReason)) {
                     // select state is successfully set to closed; not setting the cell state &
@@ -1213,8 +2077,8 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             }
 
             // calculating the segment id and the index within the segment
-            var id = r / Segment.SEGMENT_SIZE;
-            var i = (int) (r % Segment.SEGMENT_SIZE);
+            var id = r >> segmentShift;
+            var i = (int) (r & segmentMask);
 
             // check if `receiveSegment` stores a previous segment, if so move the reference forward
             if (segment.getId() != id) {
@@ -1227,7 +2091,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 // if we still have another segment, the segment must have been removed
                 if (segment.getId() != id) {
                     // skipping all interrupted cells, and trying with a new one
-                    RECEIVERS.compareAndSet(this, r, segment.getId() * Segment.SEGMENT_SIZE);
+                    RECEIVERS.compareAndSet(this, r, segment.getId() << segmentShift);
                     continue;
                 }
             }
@@ -1256,7 +2120,12 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             } else if (state instanceof Continuation c) {
                 // a receiver might have gotten suspended while hasValuesToReceive() is running -
                 // then, no value to receive here & the r counter is updated.
-                return c.isSender();
+                var isSender = c.isSender();
+                // the continuation might have been resumed & reused in the meantime, so the
+                // result is only valid if the cell still holds it
+                if (segment.getCell(i) == c) {
+                    return isSender;
+                }
             } else if (state instanceof StoredSelectClause ss) {
                 return ss.isSender(); // as above
             } else if (state instanceof CellState) {
@@ -1287,6 +2156,102 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         }
     }
 
+    // ***********
+    // Group member
+    // ***********
+
+    /**
+     * @return {@code true}, if the channel joined the group of the given member; {@code false}, if
+     *     it's already a member of a group.
+     */
+    boolean joinGroup(ChannelGroupMember member) {
+        return GROUP_MEMBER.compareAndSet(this, null, member);
+    }
+
+    void leaveGroup(ChannelGroupMember member) {
+        GROUP_MEMBER.compareAndSet(this, member, null);
+    }
+
+    private void signalGroupMember() {
+        var m = groupMember;
+        if (m != null) {
+            m.signal();
+        }
+    }
+
+    // ************************
+    // Asynchronous operations
+    // ************************
+
+    /*
+     * Asynchronous operations use the same algorithm as send & receive. The only difference is
+     * that when the operation can't complete immediately, instead of a continuation tied to the
+     * calling thread (which would then block), a continuation completing the returned future is
+     * stored in the cell. The future is then completed by the thread which resumes the
+     * continuation: the other party, buffer expansion, or closing the channel.
+     */
+
+    /**
+     * Receive a value from the channel, without blocking the calling thread. If no value is
+     * available, the returned future is completed when one becomes available, or when the channel
+     * is closed.
+     *
+     * <p>Non-async callbacks attached to the future (such as {@link CompletableFuture#thenAccept})
+     * might be run by the thread that completes the future: the thread which sends the value, or
+     * closes the channel. They shouldn't block.
+     *
+     * <p>Completing the future externally, before it's completed by the channel (e.g. using {@link
+     * CompletableFuture#cancel(boolean)} or {@link CompletableFuture#orTimeout}), withdraws the
+     * receive, same as when a blocked {@link #receive()} is interrupted. Then, no value is
+     * received.
+     *
+     * @return A future, completed with the received value, or completed exceptionally with {@link
+     *     ChannelClosedException}, when the channel is closed.
+     */
+    public CompletableFuture<T> receiveAsync() {
+        var async = new AsyncOperation<T>(this, false);
+        try {
+            var r = doReceive(null, null, async);
+            if (!(r instanceof Continuation)) {
+                async.resumed(r);
+            }
+        } catch (InterruptedException e) {
+            // not possible, as we provide an async operation, so no suspension should happen
+            throw new IllegalStateException(e);
+        }
+        return async;
+    }
+
+    /**
+     * Send a value to the channel, without blocking the calling thread. If the value can't be sent
+     * immediately, the returned future is completed when it's sent, or when the channel is closed.
+     *
+     * <p>As with {@link #receiveAsync()}, non-async callbacks attached to the future might be run
+     * by the thread that completes the future, and completing the future externally withdraws the
+     * send (if it hasn't completed yet).
+     *
+     * @param value The value to send. Not {@code null}.
+     * @return A future, completed when the value is sent, or completed exceptionally with {@link
+     *     ChannelClosedException}, when the channel is closed.
+     */
+    public CompletableFuture<Void> sendAsync(T value) {
+        var async = new AsyncOperation<Void>(this, true);
+        if (dropsValues()) {
+            async.resumed(sendDroppingOrClosed(value));
+            return async;
+        }
+        try {
+            var r = doSend(value, 0, null, null, async);
+            if (!(r instanceof Continuation)) {
+                async.resumed(r);
+            }
+        } catch (InterruptedException e) {
+            // not possible, as above
+            throw new IllegalStateException(e);
+        }
+        return async;
+    }
+
     // **************
     // Select clauses
     // **************
@@ -1301,16 +2266,11 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
     @Override
     public <U> SelectClause<U> receiveClause(Function<T, U> callback) {
-        return new SelectClause<>() {
-            @Override
-            Channel<?> getChannel() {
-                return Channel.this;
-            }
-
+        return new ChannelClause<>() {
             @Override
             Object register(SelectInstance select) {
                 try {
-                    return doReceive(select, this);
+                    return doReceive(select, this, null);
                 } catch (InterruptedException e) {
                     // not possible, as we provide a select, so no suspension should happen
                     throw new IllegalStateException(e);
@@ -1332,16 +2292,29 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
     @Override
     public <U> SelectClause<U> sendClause(T value, Supplier<U> callback) {
-        return new SelectClause<>() {
-            @Override
-            Channel<?> getChannel() {
-                return Channel.this;
-            }
+        return sendClause(value, 0, callback);
+    }
 
+    /**
+     * Creates a clause sending a primitive value; only valid for channels created using {@link
+     * #newChannelWithSlots}.
+     */
+    <U> SelectClause<U> sendSlotClause(long slotValue, Supplier<U> callback) {
+        //noinspection unchecked
+        return sendClause((T) SlotMarker.VALUE, slotValue, callback);
+    }
+
+    private <U> SelectClause<U> sendClause(T value, long slotValue, Supplier<U> callback) {
+        return new ChannelClause<>() {
             @Override
             Object register(SelectInstance select) {
+                if (dropsValues()) {
+                    // sending never blocks, so the clause can always be selected immediately
+                    var result = sendDroppingOrClosed(value);
+                    return result == null ? SentClauseMarker.SENT : result;
+                }
                 try {
-                    var result = doSend(value, select, this);
+                    var result = doSend(value, slotValue, select, this, null);
                     // we can't return null, the actual value doesn't matter
                     return result == null ? SentClauseMarker.SENT : result;
                 } catch (InterruptedException e) {
@@ -1357,7 +2330,27 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         };
     }
 
-    void cleanupStoredSelectClause(Segment segment, int i, boolean isSender) {
+    private abstract class ChannelClause<U> extends SelectClause<U> {
+        @Override
+        CloseableChannel getChannel() {
+            return Channel.this;
+        }
+
+        @Override
+        WaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        @Override
+        void cleanupStoredSelectClause(StoredSelectClause storedSelectClause) {
+            Channel.this.cleanupStoredSelectClause(storedSelectClause);
+        }
+    }
+
+    private void cleanupStoredSelectClause(StoredSelectClause storedSelectClause) {
+        var segment = storedSelectClause.getSegment();
+        var i = storedSelectClause.getIndex();
+        var isSender = storedSelectClause.isSender();
         // We treat the cell as if it was interrupted - the code is same as in `Continuation.await`;
         // there's no need to resolve races with `SelectInstance.trySelect`, as cleanup is called
         // either when a clause is selected, a channel is closed, or during re-registration. In all
@@ -1407,7 +2400,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
         var sb = new StringBuilder();
         sb.append("Channel(capacity=")
-                .append(capacity)
+                .append(capacity())
                 .append(", closed=")
                 .append(isClosed)
                 .append(", sendSegment=")
@@ -1426,7 +2419,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         var s = smallestSegment;
         while (s != null) {
             sb.append("  ").append(s).append(": ");
-            for (int i = 0; i < Segment.SEGMENT_SIZE; i++) {
+            for (int i = 0; i < s.getSize(); i++) {
                 var state = s.getCell(i);
                 if (state == null) {
                     sb.append("E");
@@ -1452,11 +2445,13 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                     sb.append("SS");
                 } else if (state instanceof StoredSelectClause) {
                     sb.append("SR");
+                } else if (state == SlotMarker.VALUE) {
+                    sb.append("V(").append(s.getSlot(i)).append(")");
                 } else {
                     // buffered value
                     sb.append("V(").append(state).append(")");
                 }
-                if (i != Segment.SEGMENT_SIZE - 1) sb.append(",");
+                if (i != s.getSize() - 1) sb.append(",");
             }
             s = s.getNext();
             if (s != null) sb.append("\n");
@@ -1501,39 +2496,72 @@ enum CellState {
     INTERRUPTED_RECEIVE,
     BROKEN,
     IN_BUFFER, // used to inform a potentially concurrent sender that the cell is now in the buffer
-    RESUMING, // expandBuffer is resuming a sender
+    RESUMING, // a receiver, expandBuffer or close is resuming a continuation
     CLOSED
 }
 
+/**
+ * A thread (or an asynchronous operation) waiting in a cell for the other party.
+ *
+ * <p>To avoid allocating on each blocking operation, a thread reuses its continuation for
+ * subsequent operations (see {@link #forCurrentThread(Object)}). That's only safe once no other
+ * thread might access the continuation: every other thread, before resuming a continuation stored
+ * in a cell, changes the cell's state to {@link CellState#RESUMING}, and after resuming - to a
+ * final state. Hence, a resumed continuation might be reused once the cell is no longer {@code
+ * RESUMING}. Interrupted continuations are never reused, as a thread which already changed the
+ * state to {@code RESUMING} might still attempt to resume it. The same applies to virtual threads:
+ * a recycled continuation doesn't reference the payload, so the cached instance of a finished
+ * thread is collected together with the thread. See {@code ContinuationReuseBenchmark} for the
+ * allocation savings.
+ */
 final class Continuation {
-    /**
-     * For rendezvous channels, the number of busy-looping iterations before yielding, during {@link
-     * Continuation#await(Segment, int, boolean)}. {@code 0}, if there's a single CPU. When there's
-     * no more than 4 CPUs, we use {@code 128} iterations: this is based on the (limited) testing
-     * that we've done with various systems. Otherwise, we use 1024 iterations.
-     *
-     * <p>For buffered channels, busy-looping is not used, as this negatively affects the
-     * performance.
-     *
-     * <p>This might need revisiting when more testing & more benchmarks are available.
-     */
-    static final int RENDEZVOUS_SPINS;
-
-    static {
-        var nproc = Runtime.getRuntime().availableProcessors();
-        RENDEZVOUS_SPINS = (nproc == 1) ? 0 : ((nproc <= 4) ? (1 << 7) : (1 << 10));
-    }
+    private static final ThreadLocal<Continuation> REUSABLE = new ThreadLocal<>();
 
     private final Thread creatingThread;
 
+    /**
+     * Non-{@code null} if the continuation is part of an asynchronous operation: then, it isn't
+     * tied to a thread, and instead of awaiting, the operation is completed when the continuation
+     * is resumed.
+     */
+    private final AsyncOperation<?> async;
+
     @SuppressWarnings("unused")
     private volatile Object data; // set using DATA var handle
 
-    private final Object payload;
+    /**
+     * Might change when the continuation is reused; it's written before the continuation is stored
+     * in a cell, so it can be safely read by threads which change the cell's state from this
+     * continuation to {@link CellState#RESUMING}.
+     */
+    private Object payload;
+
+    /** If this is the continuation stored in {@link #REUSABLE}; accessed only by the creator. */
+    private boolean reusable;
 
     Continuation(Object payload) {
+        this(payload, null);
+    }
+
+    /**
+     * @return A continuation for a blocking operation of the current thread, reusing the one from a
+     *     previous operation, if possible.
+     */
+    static Continuation forCurrentThread(Object payload) {
+        var c = REUSABLE.get();
+        if (c == null) {
+            return new Continuation(payload);
+        } else {
+            c.payload = payload;
+            c.data = null;
+            return c;
+        }
+    }
+
+    Continuation(Object payload, AsyncOperation<?> async) {
         this.payload = payload;
-        this.creatingThread = Thread.currentThread();
+        this.async = async;
+        this.creatingThread = async == null ? Thread.currentThread() : null;
     }
 
     /**
@@ -1553,43 +2581,82 @@ final class Continuation {
      */
     boolean tryResume(Object value) {
         var result = Continuation.DATA.compareAndSet(this, null, value);
-        LockSupport.unpark(creatingThread);
+        if (async == null) {
+            LockSupport.unpark(creatingThread);
+        }
         return result;
     }
 
+    /**
+     * Completes the asynchronous operation (if any), after the continuation has been successfully
+     * resumed. Must be called after the cell's state is updated, as completing the operation might
+     * run arbitrary callbacks (e.g. closing the channel, which waits for the cell's state to
+     * change).
+     */
+    void completeAsync() {
+        if (async != null) {
+            async.resumed(data);
+        }
+    }
+
+    /**
+     * Tries to interrupt the continuation; if successful, the cell's state is changed to
+     * interrupted.
+     *
+     * @return {@code true} if the continuation was interrupted. {@code false} if it has already
+     *     been resumed.
+     */
+    boolean tryInterrupt(Segment segment, int cellIndex) {
+        // potential race with `tryResume`
+        if (Continuation.DATA.compareAndSet(this, null, ContinuationMarker.INTERRUPTED)) {
+            var isSender = isSender();
+            segment.setCell(cellIndex, isSender ? INTERRUPTED_SEND : INTERRUPTED_RECEIVE);
+
+            // notifying the segment - if all cells become interrupted, the segment can be removed
+            if (isSender) {
+                segment.cellInterruptedSender();
+            } else {
+                segment.cellInterruptedReceiver();
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     /**
      * Await for the continuation to be resumed.
      *
      * @param segment The segment in which the cell is located.
      * @param cellIndex The index of the cell for which to change the state to interrupted, if
      *     interruption happens.
+     * @param waitStrategy Determines if, and for how long, to spin & yield before parking.
      * @return The value with which the continuation was resumed.
      */
-    Object await(Segment segment, int cellIndex, boolean isRendezvous) throws InterruptedException {
-        var spinIterations = isRendezvous ? RENDEZVOUS_SPINS : 0;
+    Object await(Segment segment, int cellIndex, WaitStrategy waitStrategy)
+            throws InterruptedException {
+        var spinIterations = waitStrategy.spinIterations();
+        var yieldIterations = waitStrategy.yieldIterations();
+        var spins = 0;
+        var parked = false;
         while (data == null) {
-            if (spinIterations > 0) {
+            if (spins < spinIterations) {
                 Thread.onSpinWait();
-                spinIterations -= 1;
+                spins += 1;
+            } else if (yieldIterations > 0) {
+                parked = true;
+                Thread.yield();
+                yieldIterations -= 1;
             } else {
+                parked = true;
                 LockSupport.park();
 
                 if (Thread.interrupted()) {
-                    // potential race with `tryResume`
-                    if (Continuation.DATA.compareAndSet(
-                            this, null, ContinuationMarker.INTERRUPTED)) {
-                        var isSender = isSender();
-                        segment.setCell(
-                                cellIndex, isSender ? INTERRUPTED_SEND : INTERRUPTED_RECEIVE);
-
-                        // notifying the segment - if all cells become interrupted, the segment can
-                        // be removed
-                        if (isSender) {
-                            segment.cellInterruptedSender();
-                        } else {
-                            segment.cellInterruptedReceiver();
+                    if (tryInterrupt(segment, cellIndex)) {
+                        if (reusable) {
+                            reusable = false;
+                            REUSABLE.remove();
                         }
-
                         throw new InterruptedException();
                     } else {
                         // another thread already set the data; setting the interrupt status (so
@@ -1600,7 +2667,30 @@ final class Continuation {
             }
         }
 
-        return data;
+        waitStrategy.afterWait(spins, parked);
+        var result = data;
+        recycle(segment, cellIndex);
+        return result;
+    }
+
+    /**
+     * Called after the continuation is resumed: makes it available for the next blocking operation
+     * of the creating thread, if the resuming thread is done with it. The payload and the result
+     * are then cleared, so that the values aren't retained by the reusable continuation.
+     */
+    private void recycle(Segment segment, int cellIndex) {
+        if (segment.getCell(cellIndex) != RESUMING) {
+            payload = null;
+            data = null;
+            if (!reusable) {
+                reusable = true;
+                REUSABLE.set(this);
+            }
+        } else if (reusable) {
+            // rare: the resuming thread hasn't yet updated the cell's state
+            reusable = false;
+            REUSABLE.remove();
+        }
     }
 
     Object getPayload() {
@@ -1621,6 +2711,81 @@ final class Continuation {
     }
 }
 
+/**
+ * An asynchronous send or receive, which is completed by the thread that resumes the operation's
+ * {@link Continuation} (or by the calling thread, if the operation completes immediately).
+ *
+ * <p>Completing the future externally ({@link #cancel(boolean)}, {@link #complete(Object)} or
+ * {@link #completeExceptionally(Throwable)}, which is e.g. used by {@link #orTimeout}), interrupts
+ * the continuation, same as when a thread blocked in a channel operation is interrupted. That's
+ * only possible if the continuation hasn't been resumed yet.
+ */
+final class AsyncOperation<T> extends CompletableFuture<T> {
+    private final Channel<?> channel;
+    private final boolean isSender;
+
+    // set by the thread creating the operation, before the future is returned to the user
+    private Continuation continuation;
+    private Segment segment;
+    private int cellIndex;
+
+    AsyncOperation(Channel<?> channel, boolean isSender) {
+        this.channel = channel;
+        this.isSender = isSender;
+    }
+
+    /** Called after the continuation is stored in the given cell. */
+    void stored(Continuation continuation, Segment segment, int cellIndex) {
+        this.continuation = continuation;
+        this.segment = segment;
+        this.cellIndex = cellIndex;
+    }
+
+    /**
+     * Completes the operation with the value, with which the continuation has been resumed, or with
+     * the immediate result of the channel operation.
+     */
+    void resumed(Object value) {
+        if (value == ChannelClosedMarker.CLOSED) {
+            value = channel.closedForSend();
+        }
+        if (value instanceof ChannelClosed cc) {
+            super.completeExceptionally(cc.toException());
+        } else if (isSender) {
+            super.complete(null);
+        } else {
+            //noinspection unchecked
+            super.complete((T) value);
+        }
+    }
+
+    private boolean tryInterrupt() {
+        var c = continuation;
+        return c != null && c.tryInterrupt(segment, cellIndex);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return tryInterrupt() && super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean complete(T value) {
+        return tryInterrupt() && super.complete(value);
+    }
+
+    @Override
+    public boolean completeExceptionally(Throwable ex) {
+        return tryInterrupt() && super.completeExceptionally(ex);
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        // dependent stages are regular futures
+        return new CompletableFuture<>();
+    }
+}
+
 // the marker value is used only to mark in the continuation's `data` that interruption won the race
 // with `tryResume`
 enum ContinuationMarker {
@@ -1638,3 +2803,10 @@ enum ChannelClosedMarker {
 enum SentClauseMarker {
     SENT
 }
+
+// used in channels transmitting primitive values, in place of the value itself (as the buffered
+// value, continuation or select payload): the actual value is stored in the segment's slot
+// corresponding to the cell; this avoids boxing the value
+enum SlotMarker {
+    VALUE
+}
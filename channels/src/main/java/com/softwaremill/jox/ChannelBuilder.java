@@ -0,0 +1,160 @@
+package com.softwaremill.jox;
+
+import java.util.function.Consumer;
+
+/**
+ * Creates a {@link Channel}, configured per-instance. Obtain a builder using {@link
+ * Channel#builder()}. By default, a rendezvous channel is created, using the default wait strategy
+ * and segment size.
+ *
+ * <p>The segment size determines how many cells are allocated at once. Smaller segments use less
+ * memory when a channel holds few values (e.g. rendezvous channels used for signalling), while
+ * larger segments reduce the number of allocations and segment transitions for channels with large
+ * buffers.
+ *
+ * <p>Buffered channels might be {@linkplain #resizable() resizable}, optionally with the capacity
+ * {@linkplain #autoTunedCapacity(int, int) adjusted automatically}, depending on how often senders
+ * block.
+ *
+ * @param <T> The type of the values processed by the channel.
+ */
+public final class ChannelBuilder<T> {
+    private int capacity = 0;
+    private int segmentSize = Segment.SEGMENT_SIZE;
+    private WaitStrategy waitStrategy;
+    private OverflowPolicy overflowPolicy;
+    private Consumer<? super T> onDropped;
+    private boolean resizable;
+    // both 0 if the capacity isn't auto-tuned
+    private int minCapacity;
+    private int maxCapacity;
+
+    ChannelBuilder() {}
+
+    /**
+     * @param capacity The buffer size: {@code 0} for a rendezvous channel, or positive for a
+     *     buffered one.
+     */
+    public ChannelBuilder<T> capacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException(
+                    "Capacity must be 0 (rendezvous) or positive (buffered channels).");
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    /** Create an unlimited channel, to which sending never blocks. */
+    public ChannelBuilder<T> unlimited() {
+        this.capacity = Channel.UNLIMITED_CAPACITY;
+        return this;
+    }
+
+    /**
+     * @param segmentSize The number of cells in each segment of the channel: a power of 2, between
+     *     1 and 16384. The default is 32, unless overridden using the {@code JOX_SEGMENT_SIZE}
+     *     environment variable (where, unlike here, other sizes are rounded up to a power of 2).
+     * @throws IllegalArgumentException When the size isn't a power of 2, or is out of range.
+     */
+    public ChannelBuilder<T> segmentSize(int segmentSize) {
+        if (!Segment.isValidSize(segmentSize)) {
+            throw new IllegalArgumentException(
+                    "Segment size must be a power of 2, between 1 and "
+                            + Segment.MAX_SEGMENT_SIZE
+                            + ".");
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /** Use the given strategy when waiting for the other party. See {@link WaitStrategy}. */
+    public ChannelBuilder<T> waitStrategy(WaitStrategy waitStrategy) {
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy");
+        }
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    /**
+     * Don't block when sending to a full buffer; instead drop a value, as determined by the given
+     * policy. Requires a positive capacity. See {@link OverflowPolicy}.
+     */
+    public ChannelBuilder<T> overflowPolicy(OverflowPolicy overflowPolicy) {
+        return overflowPolicy(overflowPolicy, null);
+    }
+
+    /**
+     * Same as {@link #overflowPolicy(OverflowPolicy)}, additionally calling {@code onDropped} with
+     * each value that is dropped. See {@link Channel#newBufferedChannel(int, OverflowPolicy,
+     * Consumer)}.
+     */
+    public ChannelBuilder<T> overflowPolicy(
+            OverflowPolicy overflowPolicy, Consumer<? super T> onDropped) {
+        if (overflowPolicy == null) {
+            throw new NullPointerException("overflowPolicy");
+        }
+        this.overflowPolicy = overflowPolicy;
+        this.onDropped = onDropped;
+        return this;
+    }
+
+    /**
+     * Allow changing the capacity of the channel while it's in use, using {@link
+     * Channel#setCapacity(int)}. Requires a positive capacity.
+     */
+    public ChannelBuilder<T> resizable() {
+        this.resizable = true;
+        return this;
+    }
+
+    /**
+     * Create a {@linkplain #resizable() resizable} channel, whose capacity is adjusted
+     * automatically: the buffer grows (doubling the capacity, up to {@code maxCapacity}) when
+     * senders frequently block, and shrinks (halving the capacity, down to {@code minCapacity})
+     * when it stays empty, that is when only receivers block. The initial capacity is the one set
+     * using {@link #capacity(int)}, or {@code minCapacity}, if none is set.
+     *
+     * <p>Can't be combined with an overflow policy, as then senders never block.
+     */
+    public ChannelBuilder<T> autoTunedCapacity(int minCapacity, int maxCapacity) {
+        if (minCapacity <= 0 || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException(
+                    "The minimum capacity must be positive, and not greater than the maximum one.");
+        }
+        this.resizable = true;
+        this.minCapacity = minCapacity;
+        this.maxCapacity = maxCapacity;
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException When an overflow policy is set, or the channel is resizable,
+     *     but the capacity isn't positive; when the capacity is auto-tuned, but is outside of the
+     *     bounds, or an overflow policy is set.
+     */
+    public Channel<T> build() {
+        var c = capacity;
+        ElasticCapacity elastic = null;
+        if (resizable) {
+            if (maxCapacity > 0) {
+                if (c == 0) {
+                    c = minCapacity;
+                } else if (c < minCapacity || c > maxCapacity) {
+                    throw new IllegalArgumentException(
+                            "The capacity must be between the auto-tuning bounds.");
+                }
+                if (overflowPolicy != null) {
+                    throw new IllegalArgumentException(
+                            "Auto-tuned capacity can't be combined with an overflow policy.");
+                }
+            }
+            if (c <= 0) {
+                throw new IllegalArgumentException(
+                        "Capacity of a resizable channel must be positive.");
+            }
+            elastic = new ElasticCapacity(c, minCapacity, maxCapacity);
+        }
+        return Channel.newChannel(c, waitStrategy, overflowPolicy, onDropped, segmentSize, elastic);
+    }
+}
@@ -7,5 +7,5 @@ package com.softwaremill.jox;
 public sealed interface ChannelClosed permits ChannelDone, ChannelError {
     ChannelClosedException toException();
 
-    Channel<?> channel();
+    CloseableChannel channel();
 }
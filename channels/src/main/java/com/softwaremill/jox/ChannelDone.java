@@ -1,6 +1,6 @@
 package com.softwaremill.jox;
 
-public record ChannelDone(Channel<?> channel) implements ChannelClosed {
+public record ChannelDone(CloseableChannel channel) implements ChannelClosed {
     @Override
     public ChannelClosedException toException() {
         return new ChannelDoneException();
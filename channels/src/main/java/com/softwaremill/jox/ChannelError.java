@@ -1,6 +1,6 @@
 package com.softwaremill.jox;
 
-public record ChannelError(Throwable cause, Channel<?> channel) implements ChannelClosed {
+public record ChannelError(Throwable cause, CloseableChannel channel) implements ChannelClosed {
     @Override
     public ChannelClosedException toException() {
         return new ChannelErrorException(cause);
@@ -0,0 +1,292 @@
+package com.softwaremill.jox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A group of channels, from which values can be received as they become available, in any of the
+ * member channels. An alternative to {@link Select#select(SelectClause[])}-ing from many channels,
+ * where the cost of receiving a value doesn't depend on the number of channels in the group.
+ *
+ * <p>Instead of registering in each of the channels on every receive, each member channel signals
+ * the group when a value might become available (or when the channel is closed). The signalled
+ * members are queued, and receiving takes the first member from the queue. If a value is received
+ * from that member, it's queued again at the end, so that the ready members are served in a
+ * round-robin fashion.
+ *
+ * <p>A channel can be a member of at most one group at a time. Ring buffer-backed channels (see
+ * {@link RingChannel}) can't be members of a group. The member channels can still be used directly,
+ * e.g. by other receivers.
+ *
+ * <p>Members which are done are removed from the group, once all the buffered values are received.
+ * When the last member is removed this way, the group is done: {@link #receiveOrClosed()} returns
+ * {@link ChannelDone}, to all current and future receivers. When a member is closed with an error,
+ * the group is closed with that error: the remaining members are removed, and the error is returned
+ * to all receivers. A closed group can't be used to receive any more values, and no channels can be
+ * added to it.
+ *
+ * <p>Values can be received from a group by multiple threads concurrently.
+ *
+ * @param <T> The type of the values received from the member channels.
+ */
+public final class ChannelGroup<T> {
+    // the members which might have a value available; each member is queued at most once
+    private final Channel<ChannelGroupMember> ready = Channel.newUnlimitedChannel();
+    private final ConcurrentHashMap<Channel<?>, ChannelGroupMember> members =
+            new ConcurrentHashMap<>();
+
+    // set once the group is done, or closed with an error; the ready channel is then closed, so
+    // that all receivers observe the closed reason
+    private volatile ChannelClosed closedReason;
+
+    private static final VarHandle CLOSED_REASON;
+
+    static {
+        try {
+            MethodHandles.Lookup l =
+                    MethodHandles.privateLookupIn(ChannelGroup.class, MethodHandles.lookup());
+            CLOSED_REASON =
+                    l.findVarHandle(ChannelGroup.class, "closedReason", ChannelClosed.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static <T> ChannelGroup<T> newChannelGroup() {
+        return new ChannelGroup<>();
+    }
+
+    private ChannelGroup() {}
+
+    /**
+     * Add a channel to the group. Values which are already buffered in the channel can be received
+     * from the group.
+     *
+     * @throws IllegalStateException When the channel is already a member of a group, or when the
+     *     group is closed.
+     */
+    public void add(Channel<? extends T> channel) {
+        if (closedReason != null) {
+            throw new IllegalStateException("The group is closed");
+        }
+        var member = new ChannelGroupMember(channel, ready);
+        if (members.putIfAbsent(channel, member) != null) {
+            throw new IllegalStateException("The channel is already a member of this group");
+        }
+        boolean joined = false;
+        try {
+            joined = channel.joinGroup(member);
+        } finally {
+            if (!joined) {
+                members.remove(channel, member);
+            }
+        }
+        if (!joined) {
+            throw new IllegalStateException("The channel is already a member of another group");
+        }
+        // the group might have been closed concurrently, without removing this member
+        if (closedReason != null) {
+            remove(member);
+            throw new IllegalStateException("The group is closed");
+        }
+        // values might have been sent before joining
+        member.signal();
+    }
+
+    /**
+     * Remove a channel from the group. Values which are buffered in the channel are no longer
+     * received from the group.
+     *
+     * @return {@code true}, if the channel was a member of the group.
+     */
+    public boolean remove(Channel<? extends T> channel) {
+        var member = members.get(channel);
+        return member != null && remove(member);
+    }
+
+    private boolean remove(ChannelGroupMember member) {
+        if (members.remove(member.channel, member)) {
+            member.removed = true;
+            member.channel.leaveGroup(member);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of channels in the group.
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * @return {@code true}, if the group is done, or closed with an error.
+     */
+    public boolean isClosed() {
+        return closedReason != null;
+    }
+
+    /**
+     * Closes the group with the given reason, unless it's already closed, removing the remaining
+     * members.
+     *
+     * @return The reason, with which the group is closed.
+     */
+    private ChannelClosed close(ChannelClosed reason) {
+        if (!CLOSED_REASON.compareAndSet(this, null, reason)) {
+            return closedReason;
+        }
+        for (var member : members.values()) {
+            remove(member);
+        }
+        if (reason instanceof ChannelError e) {
+            ready.errorOrClosed(e.cause());
+        } else {
+            ready.doneOrClosed();
+        }
+        return reason;
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    /**
+     * Receive a value from any of the member channels. Blocks until a value is available in one of
+     * the members.
+     *
+     * @throws ChannelDoneException When the last member is done.
+     * @throws ChannelErrorException When a member is closed with an error.
+     */
+    public T receive() throws InterruptedException {
+        var r = receiveOrClosed();
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        } else {
+            //noinspection unchecked
+            return (T) r;
+        }
+    }
+
+    /**
+     * Receive a value from any of the member channels. Blocks until a value is available in one of
+     * the members. Doesn't throw exceptions when a member is closed, but returns a value.
+     *
+     * @return Either a value of type {@code T}, {@link ChannelDone}, when the last member is done,
+     *     or {@link ChannelError}, when a member is closed with an error.
+     */
+    public Object receiveOrClosed() throws InterruptedException {
+        while (true) {
+            var member = ready.receiveOrClosed();
+            if (member instanceof ChannelClosed) {
+                return closedReason;
+            }
+            var r = receiveFrom((ChannelGroupMember) member);
+            if (r != null) {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * Attempt to receive a value from any of the member channels, if one is immediately available.
+     * Never blocks.
+     *
+     * @return Either a value of type {@code T}, {@code null}, if no value is immediately available,
+     *     {@link ChannelDone}, when the last member is done, or {@link ChannelError}, when a member
+     *     is closed with an error.
+     */
+    public Object tryReceiveOrClosed() {
+        while (true) {
+            var member = ready.tryReceiveOrClosed();
+            if (member == null) {
+                return null;
+            } else if (member instanceof ChannelClosed) {
+                return closedReason;
+            }
+            var r = receiveFrom((ChannelGroupMember) member);
+            if (r != null) {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * @return The received value, the closed reason, or {@code null}, if nothing was received from
+     *     the member, and another one should be tried.
+     */
+    private Object receiveFrom(ChannelGroupMember member) {
+        var r = member.poll();
+        if (r instanceof ChannelDone cd) {
+            // all buffered values have been received
+            if (remove(member) && members.isEmpty()) {
+                return close(cd);
+            } else {
+                return null;
+            }
+        } else if (r instanceof ChannelError ce) {
+            remove(member);
+            return close(ce);
+        } else {
+            return r;
+        }
+    }
+}
+
+/** A member of a {@link ChannelGroup}, signalled by the member channel. */
+final class ChannelGroupMember {
+    final Channel<?> channel;
+    private final Channel<ChannelGroupMember> ready;
+
+    // whether the member is in the ready queue
+    private volatile boolean queued;
+    volatile boolean removed;
+
+    private static final VarHandle QUEUED;
+
+    static {
+        try {
+            MethodHandles.Lookup l =
+                    MethodHandles.privateLookupIn(ChannelGroupMember.class, MethodHandles.lookup());
+            QUEUED = l.findVarHandle(ChannelGroupMember.class, "queued", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    ChannelGroupMember(Channel<?> channel, Channel<ChannelGroupMember> ready) {
+        this.channel = channel;
+        this.ready = ready;
+    }
+
+    /** Called when a value might be available in the channel, or when it's closed. */
+    void signal() {
+        if (!queued && QUEUED.compareAndSet(this, false, true)) {
+            // the ready channel is unlimited, so this always succeeds
+            ready.trySendOrClosed(this);
+        }
+    }
+
+    /**
+     * Called by a group's receiver, after taking the member from the ready queue.
+     *
+     * @return Same as {@link Channel#tryReceiveOrClosed()}.
+     */
+    Object poll() {
+        // clearing the flag before checking the channel, so that any value sent concurrently
+        // either is received below, or the member is signalled again
+        queued = false;
+        if (removed) {
+            return null;
+        }
+        var r = channel.tryReceiveOrClosed();
+        if (r != null && !(r instanceof ChannelClosed)) {
+            // more values might be available; queueing the member at the end, so that other ready
+            // members are served first
+            signal();
+        }
+        return r;
+    }
+}
@@ -0,0 +1,173 @@
+package com.softwaremill.jox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The capacity of a resizable buffered channel, see {@link ChannelBuilder#resizable()}.
+ *
+ * <p>The end of a channel's buffer only ever moves forward: each receive expands the buffer by one
+ * cell. Hence, the capacity is changed without moving the buffer's end backwards:
+ *
+ * <ul>
+ *   <li>growing the capacity by {@code n} expands the buffer {@code n} additional times (which
+ *       might resume blocked senders)
+ *   <li>shrinking the capacity by {@code n} records a debt of {@code n} buffer expansions, which
+ *       are then skipped by subsequent receives. Values that are already buffered are never
+ *       dropped, instead, the buffer shrinks as they are received.
+ * </ul>
+ *
+ * Growing first cancels any outstanding debt. As both operations are counter updates, concurrent
+ * resizes commute: once all of them complete, the buffer's size corresponds to the last capacity
+ * that has been set.
+ *
+ * <p>When auto-tuning is enabled, the capacity is adjusted after every {@link #WINDOW} suspensions
+ * of senders or receivers: if at least half of them were senders (blocked on a full buffer), the
+ * capacity is doubled, up to the maximum. After {@link #QUIET_WINDOWS} consecutive windows without
+ * any blocked senders (that is, the buffer is empty when receiving), the capacity is halved, down
+ * to the minimum. The statistics are updated without synchronization, so concurrent suspensions
+ * might only make the adjustments happen slightly earlier or later.
+ */
+final class ElasticCapacity {
+    static final int WINDOW = 64;
+    static final int QUIET_WINDOWS = 4;
+
+    /** The bounds for auto-tuning; both {@code 0}, if auto-tuning is disabled. */
+    private final int minCapacity;
+
+    private final int maxCapacity;
+
+    private volatile int capacity;
+
+    /** The number of buffer expansions to skip. */
+    private volatile long debt;
+
+    // auto-tuning statistics
+
+    private volatile int suspensions;
+    private volatile int suspendedSenders;
+    private int quietWindows;
+
+    ElasticCapacity(int capacity, int minCapacity, int maxCapacity) {
+        this.capacity = capacity;
+        this.minCapacity = minCapacity;
+        this.maxCapacity = maxCapacity;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean isAutoTuned() {
+        return maxCapacity > 0;
+    }
+
+    /**
+     * @return The number of buffer expansions that should be run, to grow the buffer up to the new
+     *     capacity.
+     */
+    int setCapacity(int newCapacity) {
+        var delta = newCapacity - (int) CAPACITY.getAndSet(this, newCapacity);
+        if (delta < 0) {
+            DEBT.getAndAdd(this, (long) -delta);
+            return 0;
+        }
+
+        // cancelling the debt first
+        while (delta > 0) {
+            var d = debt;
+            if (d == 0) {
+                break;
+            }
+            var cancelled = (int) Math.min(d, delta);
+            if (DEBT.compareAndSet(this, d, d - cancelled)) {
+                delta -= cancelled;
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * @return {@code true}, if a buffer expansion should be skipped, as the capacity has been
+     *     reduced.
+     */
+    boolean trySkipExpansion() {
+        while (true) {
+            var d = debt;
+            if (d == 0) {
+                return false;
+            }
+            if (DEBT.compareAndSet(this, d, d - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Should be called when a sender suspends.
+     *
+     * @return The new capacity, if it should be changed, or {@code -1}.
+     */
+    int senderSuspended() {
+        if (!isAutoTuned()) {
+            return -1;
+        }
+        SUSPENDED_SENDERS.getAndAdd(this, 1);
+        return suspended();
+    }
+
+    /**
+     * Should be called when a receiver suspends.
+     *
+     * @return The new capacity, if it should be changed, or {@code -1}.
+     */
+    int receiverSuspended() {
+        if (!isAutoTuned()) {
+            return -1;
+        }
+        return suspended();
+    }
+
+    private int suspended() {
+        var n = (int) SUSPENSIONS.getAndAdd(this, 1) + 1;
+        if ((n & (WINDOW - 1)) != 0) {
+            return -1;
+        }
+
+        // the window is complete
+        var senders = (int) SUSPENDED_SENDERS.getAndSet(this, 0);
+        var current = capacity;
+        if (senders >= WINDOW / 2) {
+            quietWindows = 0;
+            return current < maxCapacity ? (int) Math.min(current * 2L, maxCapacity) : -1;
+        } else if (senders > 0) {
+            quietWindows = 0;
+            return -1;
+        } else if (++quietWindows >= QUIET_WINDOWS) {
+            quietWindows = 0;
+            return current > minCapacity ? Math.max(current / 2, minCapacity) : -1;
+        } else {
+            return -1;
+        }
+    }
+
+    //
+
+    private static final VarHandle CAPACITY;
+    private static final VarHandle DEBT;
+    private static final VarHandle SUSPENSIONS;
+    private static final VarHandle SUSPENDED_SENDERS;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            CAPACITY = l.findVarHandle(ElasticCapacity.class, "capacity", int.class);
+            DEBT = l.findVarHandle(ElasticCapacity.class, "debt", long.class);
+            SUSPENSIONS = l.findVarHandle(ElasticCapacity.class, "suspensions", int.class);
+            SUSPENDED_SENDERS =
+                    l.findVarHandle(ElasticCapacity.class, "suspendedSenders", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
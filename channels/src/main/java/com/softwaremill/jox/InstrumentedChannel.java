@@ -0,0 +1,510 @@
+package com.softwaremill.jox;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A decorator of a {@link Channel}, which collects metrics: the number of completed sends and
+ * receives, and the distributions of time spent blocked when sending and receiving. The metrics can
+ * be inspected using {@link #snapshot()}. Additionally, when a JFR recording is active, each
+ * blocking wait is reported as a {@code com.softwaremill.jox.ChannelWait} event.
+ *
+ * <p>Instrumentation is opt-in: the decorated channel itself is not affected. Only operations
+ * invoked through the decorator are measured, including select clauses created using {@link
+ * #receiveClause()} and {@link #sendClause(Object)}.
+ *
+ * <p>Counters are striped ({@link LongAdder}), to avoid contention between concurrent senders and
+ * receivers. Only operations which can't complete immediately are timed: each operation is first
+ * attempted without blocking, and only if that fails, the time spent in the blocking variant is
+ * recorded. Select clauses are counted, but not timed, as a select waits for multiple channels at
+ * once.
+ *
+ * <p>Consistently with not exposing the size of a channel (see ADR 0001), the counters are not
+ * guaranteed to be mutually consistent: a snapshot might be taken while operations are in progress.
+ *
+ * @param <T> The type of the values processed by the channel.
+ */
+public final class InstrumentedChannel<T> implements Source<T>, Sink<T> {
+    private static final boolean JFR_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private final Channel<T> channel;
+    private final String name;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final WaitTimeHistogram sendWaits = new WaitTimeHistogram();
+    private final WaitTimeHistogram receiveWaits = new WaitTimeHistogram();
+
+    private InstrumentedChannel(Channel<T> channel, String name) {
+        this.channel = channel;
+        this.name = name;
+    }
+
+    /** Instrument the given channel. */
+    public static <T> InstrumentedChannel<T> instrument(Channel<T> channel) {
+        return instrument(channel, channel.toString());
+    }
+
+    /**
+     * Instrument the given channel.
+     *
+     * @param name The name of the channel, included in the JFR events.
+     */
+    public static <T> InstrumentedChannel<T> instrument(Channel<T> channel, String name) {
+        if (channel == null || name == null) {
+            throw new NullPointerException();
+        }
+        return new InstrumentedChannel<>(channel, name);
+    }
+
+    /**
+     * @return The decorated channel. Operations invoked on it directly are not measured.
+     */
+    public Channel<T> channel() {
+        return channel;
+    }
+
+    /**
+     * @return The current values of the counters, and distributions of wait times.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+                sent.sum(), received.sum(), sendWaits.snapshot(), receiveWaits.snapshot());
+    }
+
+    /**
+     * A snapshot of the metrics collected by an {@link InstrumentedChannel}.
+     *
+     * @param sent The number of completed sends.
+     * @param received The number of completed receives.
+     * @param sendWaits The distribution of time spent blocked by sends, which couldn't complete
+     *     immediately.
+     * @param receiveWaits The distribution of time spent blocked by receives, which couldn't
+     *     complete immediately.
+     */
+    public record Snapshot(long sent, long received, WaitTimes sendWaits, WaitTimes receiveWaits) {}
+
+    /**
+     * A distribution of wait times. Values are recorded in buckets of logarithmically increasing
+     * size, so that the reported percentiles are within 12.5% of the actual value.
+     */
+    public static final class WaitTimes {
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        WaitTimes(long[] counts, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = Arrays.stream(counts).sum();
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * @return The number of recorded waits.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return The total time spent waiting, in nanoseconds.
+         */
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return The longest recorded wait, in nanoseconds.
+         */
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @return The mean wait time, in nanoseconds, or {@code 0} if no waits were recorded.
+         */
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * @param percentile The percentile, between {@code 0} and {@code 100}.
+         * @return The (approximate) wait time, in nanoseconds, at the given percentile, or {@code
+         *     0} if no waits were recorded.
+         */
+        public long percentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("The percentile must be between 0 and 100");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            var rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            var seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(WaitTimeHistogram.highestValueInBucket(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "WaitTimes[count="
+                    + count
+                    + ", mean="
+                    + (long) meanNanos()
+                    + "ns, p50="
+                    + percentileNanos(50)
+                    + "ns, p99="
+                    + percentileNanos(99)
+                    + "ns, max="
+                    + maxNanos
+                    + "ns]";
+        }
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    @Override
+    public void send(T value) throws InterruptedException {
+        var r = sendOrClosed(value);
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        var r = channel.trySendOrClosed(value);
+        if (r == null) {
+            sent.increment();
+            return null;
+        } else if (r instanceof ChannelClosed) {
+            return r;
+        }
+
+        var start = System.nanoTime();
+        var event = startWaitEvent();
+        try {
+            r = channel.sendOrClosed(value);
+        } finally {
+            endWait(sendWaits, start, event, "send");
+        }
+        if (r == null) {
+            sent.increment();
+        }
+        return r;
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        var r = channel.trySendOrClosed(value);
+        if (r == null) {
+            sent.increment();
+        }
+        return r;
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        var r = trySendAllOrClosed(values);
+        if (r instanceof ChannelClosed) {
+            return r;
+        }
+        var done = (Integer) r;
+        if (done == values.size()) {
+            return null;
+        }
+
+        var start = System.nanoTime();
+        var event = startWaitEvent();
+        try {
+            r = channel.sendAllOrClosed(values.subList(done, values.size()));
+        } finally {
+            endWait(sendWaits, start, event, "send");
+        }
+        if (r == null) {
+            sent.add(values.size() - done);
+        }
+        return r;
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        var r = channel.trySendAllOrClosed(values);
+        if (r instanceof Integer n) {
+            sent.add(n);
+        }
+        return r;
+    }
+
+    @Override
+    public SelectClause<Void> sendClause(T value) {
+        return sendClause(value, () -> null);
+    }
+
+    @Override
+    public <U> SelectClause<U> sendClause(T value, Supplier<U> callback) {
+        // the callback is invoked once the clause is selected, that is after the value is sent
+        return channel.sendClause(
+                value,
+                () -> {
+                    sent.increment();
+                    return callback.get();
+                });
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    @Override
+    public T receive() throws InterruptedException {
+        var r = receiveOrClosed();
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        } else {
+            //noinspection unchecked
+            return (T) r;
+        }
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        var r = channel.tryReceiveOrClosed();
+        if (r instanceof ChannelClosed) {
+            return r;
+        } else if (r != null) {
+            received.increment();
+            return r;
+        }
+
+        var start = System.nanoTime();
+        var event = startWaitEvent();
+        try {
+            r = channel.receiveOrClosed();
+        } finally {
+            endWait(receiveWaits, start, event, "receive");
+        }
+        if (!(r instanceof ChannelClosed)) {
+            received.increment();
+        }
+        return r;
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        var r = channel.tryReceiveOrClosed();
+        if (r != null && !(r instanceof ChannelClosed)) {
+            received.increment();
+        }
+        return r;
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        var r = tryReceiveAtMostOrClosed(max, into);
+        if (r instanceof ChannelClosed || (Integer) r > 0) {
+            return r;
+        }
+
+        var start = System.nanoTime();
+        var event = startWaitEvent();
+        try {
+            r = channel.receiveAtMostOrClosed(max, into);
+        } finally {
+            endWait(receiveWaits, start, event, "receive");
+        }
+        if (r instanceof Integer n) {
+            received.add(n);
+        }
+        return r;
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        var r = channel.tryReceiveAtMostOrClosed(max, into);
+        if (r instanceof Integer n) {
+            received.add(n);
+        }
+        return r;
+    }
+
+    @Override
+    public SelectClause<T> receiveClause() {
+        return receiveClause(Function.identity());
+    }
+
+    @Override
+    public <U> SelectClause<U> receiveClause(Function<T, U> callback) {
+        return channel.receiveClause(
+                v -> {
+                    received.increment();
+                    return callback.apply(v);
+                });
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public void done() {
+        channel.done();
+    }
+
+    @Override
+    public Object doneOrClosed() {
+        return channel.doneOrClosed();
+    }
+
+    @Override
+    public void error(Throwable reason) {
+        channel.error(reason);
+    }
+
+    @Override
+    public Object errorOrClosed(Throwable reason) {
+        return channel.errorOrClosed(reason);
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return channel.closedForSend();
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return channel.closedForReceive();
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    private static Object startWaitEvent() {
+        if (!JFR_AVAILABLE) {
+            return null;
+        }
+        return ChannelWaitEvent.start();
+    }
+
+    private void endWait(WaitTimeHistogram histogram, long start, Object event, String operation) {
+        histogram.record(System.nanoTime() - start);
+        if (event != null) {
+            ((ChannelWaitEvent) event).finish(name, operation);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedChannel(" + name + ")";
+    }
+}
+
+/**
+ * A histogram of wait times, using log-linear buckets: values below 16 are recorded exactly; larger
+ * values are recorded in one of 8 sub-buckets, for each power of 2.
+ */
+final class WaitTimeHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values below this threshold are recorded exactly
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+    private static final int LINEAR_BITS = 4;
+    private static final int BUCKETS = LINEAR + (63 - LINEAR_BITS) * SUB_BUCKETS;
+
+    // waits are recorded only on the slow path, hence the contention is low
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.getAndIncrement(bucketIndex(nanos));
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    InstrumentedChannel.WaitTimes snapshot() {
+        var c = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            c[i] = counts.get(i);
+        }
+        return new InstrumentedChannel.WaitTimes(c, totalNanos.sum(), maxNanos.get());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        var exponent = 63 - Long.numberOfLeadingZeros(value); // >= LINEAR_BITS
+        var subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        var exponent = (index - LINEAR) / SUB_BUCKETS + LINEAR_BITS;
+        var subBucket = (index - LINEAR) % SUB_BUCKETS;
+        var shift = exponent - SUB_BUCKET_BITS;
+        var lowest = ((long) (SUB_BUCKETS + subBucket)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
+
+/** Reported when an operation on an {@link InstrumentedChannel} blocks. */
+@Name("com.softwaremill.jox.ChannelWait")
+@Label("Channel Wait")
+@Category("Jox")
+@Description("A send or receive, which blocked as it couldn't complete immediately")
+final class ChannelWaitEvent extends Event {
+    @Label("Channel")
+    String channel;
+
+    @Label("Operation")
+    String operation;
+
+    static ChannelWaitEvent start() {
+        var event = new ChannelWaitEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    void finish(String channel, String operation) {
+        end();
+        if (shouldCommit()) {
+            this.channel = channel;
+            this.operation = operation;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.softwaremill.jox;
+
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * A channel transmitting primitive {@code int} values. Sending using {@link #send(int)} and
+ * receiving using {@link #receive()} doesn't allocate: the values are stored in a primitive array,
+ * maintained in parallel to the cells of the channel's segments, instead of being boxed.
+ *
+ * <p>Otherwise, the channel behaves exactly as {@link Channel}: rendezvous, buffered and unlimited
+ * variants are available, the channel can be closed, and clauses created by {@link
+ * #sendClause(int)} and {@link #receiveClause()} can be used in {@link
+ * Select#select(SelectClause[])} (although values transmitted using select clauses are boxed).
+ *
+ * <p>The {@link ChannelClosed} values returned by the or-closed operations refer to the channel's
+ * internal storage, not to the {@link IntChannel} instance itself.
+ */
+public final class IntChannel implements IntSource, IntSink {
+    private final Channel<Object> delegate;
+
+    private IntChannel(int capacity) {
+        this.delegate = Channel.newChannelWithSlots(capacity);
+    }
+
+    public static IntChannel newRendezvousChannel() {
+        return new IntChannel(0);
+    }
+
+    public static IntChannel newBufferedChannel(int capacity) {
+        return new IntChannel(capacity);
+    }
+
+    /** Creates a new buffered channel, with the default buffer size (16). */
+    public static IntChannel newBufferedDefaultChannel() {
+        return new IntChannel(Channel.DEFAULT_BUFFER_SIZE);
+    }
+
+    public static IntChannel newUnlimitedChannel() {
+        return new IntChannel(Channel.UNLIMITED_CAPACITY);
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    @Override
+    public void send(int value) throws InterruptedException {
+        var r = sendOrClosed(value);
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    @Override
+    public Object sendOrClosed(int value) throws InterruptedException {
+        return delegate.sendSlotOrClosed(value);
+    }
+
+    @Override
+    public Object trySendOrClosed(int value) {
+        return delegate.trySendSlotOrClosed(value);
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    @Override
+    public int receive() throws InterruptedException {
+        return (int) delegate.receiveSlot();
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        return toInteger(delegate.receiveOrClosed());
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        return toInteger(delegate.tryReceiveOrClosed());
+    }
+
+    // the values are stored as longs in the segment slots, hence they are boxed as Longs
+    private static Object toInteger(Object received) {
+        return received instanceof Long l ? (Object) l.intValue() : received;
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public void done() {
+        delegate.done();
+    }
+
+    @Override
+    public Object doneOrClosed() {
+        return delegate.doneOrClosed();
+    }
+
+    @Override
+    public void error(Throwable reason) {
+        delegate.error(reason);
+    }
+
+    @Override
+    public Object errorOrClosed(Throwable reason) {
+        return delegate.errorOrClosed(reason);
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return delegate.closedForSend();
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return delegate.closedForReceive();
+    }
+
+    // **************
+    // Select clauses
+    // **************
+
+    @Override
+    public SelectClause<Integer> receiveClause() {
+        return delegate.receiveClause(v -> ((Long) v).intValue());
+    }
+
+    @Override
+    public <U> SelectClause<U> receiveClause(IntFunction<U> callback) {
+        return delegate.receiveClause(v -> callback.apply(((Long) v).intValue()));
+    }
+
+    @Override
+    public SelectClause<Void> sendClause(int value) {
+        return sendClause(value, () -> null);
+    }
+
+    @Override
+    public <U> SelectClause<U> sendClause(int value, Supplier<U> callback) {
+        return delegate.sendSlotClause(value, callback);
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return "IntChannel(" + delegate + ")";
+    }
+}
@@ -0,0 +1,67 @@
+package com.softwaremill.jox;
+
+import java.util.function.Supplier;
+
+/**
+ * A sink of a primitive channel, which can be used to send {@code int} values to the channel,
+ * without boxing. See {@link IntChannel} for more details.
+ */
+public interface IntSink extends CloseableChannel {
+    /**
+     * Send a value to the channel.
+     *
+     * @param value The value to send.
+     * @throws ChannelClosedException When the channel is closed.
+     */
+    void send(int value) throws InterruptedException;
+
+    /**
+     * Send a value to the channel. Doesn't throw exceptions when the channel is closed, but returns
+     * a value.
+     *
+     * @param value The value to send.
+     * @return Either {@code null}, or {@link ChannelClosed}, when the channel is closed.
+     */
+    Object sendOrClosed(int value) throws InterruptedException;
+
+    /**
+     * Attempt to send a value to the channel if there's a waiting receiver, or space in the buffer.
+     *
+     * <p>This method never blocks or suspends the calling thread. It completes in bounded time.
+     *
+     * @param value The value to send.
+     * @return {@code true} if the value was sent, {@code false} otherwise.
+     * @throws ChannelClosedException When the channel is closed.
+     */
+    default boolean trySend(int value) {
+        Object r = trySendOrClosed(value);
+        if (r instanceof ChannelClosed c) throw c.toException();
+        return r == null;
+    }
+
+    /**
+     * Attempt to send a value to the channel if there's a waiting receiver, or space in the buffer.
+     * Doesn't throw exceptions when the channel is closed, but returns a value.
+     *
+     * <p>This method never blocks or suspends the calling thread. It completes in bounded time.
+     *
+     * @param value The value to send.
+     * @return {@code null} if the value was sent, {@link ChannelClosed} if the channel is closed,
+     *     or a non-null sentinel value if the value was not sent (buffer full or no waiting
+     *     receiver).
+     */
+    Object trySendOrClosed(int value);
+
+    /**
+     * Create a clause which can be used in {@link Select#select(SelectClause[])}. The clause will
+     * send the given value to the current channel, and return {@code null} as the clause's result.
+     */
+    SelectClause<Void> sendClause(int value);
+
+    /**
+     * Create a clause which can be used in {@link Select#select(SelectClause[])}. The clause will
+     * send the given value to the current channel, and return the value of the provided callback as
+     * the clause's result.
+     */
+    <U> SelectClause<U> sendClause(int value, Supplier<U> callback);
+}
@@ -0,0 +1,71 @@
+package com.softwaremill.jox;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * A source of a primitive channel, which can be used to receive {@code int} values from the
+ * channel, without boxing. See {@link IntChannel} for more details.
+ */
+public interface IntSource extends CloseableChannel {
+    /**
+     * Receive a value from the channel.
+     *
+     * @throws ChannelClosedException When the channel is closed.
+     */
+    int receive() throws InterruptedException;
+
+    /**
+     * Receive a value from the channel. Doesn't throw exceptions when the channel is closed, but
+     * returns a value.
+     *
+     * <p>The received value is boxed; to avoid allocations, use {@link #receive()}.
+     *
+     * @return Either a value of type {@link Integer}, or {@link ChannelClosed}, when the channel is
+     *     closed.
+     */
+    Object receiveOrClosed() throws InterruptedException;
+
+    /**
+     * Attempt to receive a value from the channel if one is immediately available. Doesn't throw
+     * exceptions when the channel is closed, but returns a value.
+     *
+     * <p>This method never blocks or suspends the calling thread. It completes in bounded time.
+     *
+     * @return The received value of type {@link Integer}, {@link ChannelClosed} when the channel is
+     *     closed, or {@code null} if no value is immediately available.
+     */
+    Object tryReceiveOrClosed();
+
+    /**
+     * Create a clause which can be used in {@link Select#select(SelectClause[])}. The clause will
+     * receive a value from the current channel.
+     */
+    SelectClause<Integer> receiveClause();
+
+    /**
+     * Create a clause which can be used in {@link Select#select(SelectClause[])}. The clause will
+     * receive a value from the current channel, and transform it using the provided {@code
+     * callback}.
+     */
+    <U> SelectClause<U> receiveClause(IntFunction<U> callback);
+
+    // draining operations
+
+    /**
+     * Invokes the given function for each received element. Blocks until the channel is done.
+     *
+     * @throws ChannelErrorException When there is an upstream error.
+     */
+    default void forEach(IntConsumer c) throws InterruptedException {
+        while (true) {
+            int v;
+            try {
+                v = receive();
+            } catch (ChannelDoneException e) {
+                return;
+            }
+            c.accept(v);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.softwaremill.jox;
+
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * A channel transmitting primitive {@code long} values. Sending using {@link #send(long)} and
+ * receiving using {@link #receive()} doesn't allocate: the values are stored in a primitive array,
+ * maintained in parallel to the cells of the channel's segments, instead of being boxed.
+ *
+ * <p>Otherwise, the channel behaves exactly as {@link Channel}: rendezvous, buffered and unlimited
+ * variants are available, the channel can be closed, and clauses created by {@link
+ * #sendClause(long)} and {@link #receiveClause()} can be used in {@link
+ * Select#select(SelectClause[])} (although values transmitted using select clauses are boxed).
+ *
+ * <p>The {@link ChannelClosed} values returned by the or-closed operations refer to the channel's
+ * internal storage, not to the {@link LongChannel} instance itself.
+ */
+public final class LongChannel implements LongSource, LongSink {
+    private final Channel<Object> delegate;
+
+    private LongChannel(int capacity) {
+        this.delegate = Channel.newChannelWithSlots(capacity);
+    }
+
+    public static LongChannel newRendezvousChannel() {
+        return new LongChannel(0);
+    }
+
+    public static LongChannel newBufferedChannel(int capacity) {
+        return new LongChannel(capacity);
+    }
+
+    /** Creates a new buffered channel, with the default buffer size (16). */
+    public static LongChannel newBufferedDefaultChannel() {
+        return new LongChannel(Channel.DEFAULT_BUFFER_SIZE);
+    }
+
+    public static LongChannel newUnlimitedChannel() {
+        return new LongChannel(Channel.UNLIMITED_CAPACITY);
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    @Override
+    public void send(long value) throws InterruptedException {
+        var r = sendOrClosed(value);
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    @Override
+    public Object sendOrClosed(long value) throws InterruptedException {
+        return delegate.sendSlotOrClosed(value);
+    }
+
+    @Override
+    public Object trySendOrClosed(long value) {
+        return delegate.trySendSlotOrClosed(value);
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    @Override
+    public long receive() throws InterruptedException {
+        return delegate.receiveSlot();
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        return delegate.receiveOrClosed();
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        return delegate.tryReceiveOrClosed();
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public void done() {
+        delegate.done();
+    }
+
+    @Override
+    public Object doneOrClosed() {
+        return delegate.doneOrClosed();
+    }
+
+    @Override
+    public void error(Throwable reason) {
+        delegate.error(reason);
+    }
+
+    @Override
+    public Object errorOrClosed(Throwable reason) {
+        return delegate.errorOrClosed(reason);
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return delegate.closedForSend();
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return delegate.closedForReceive();
+    }
+
+    // **************
+    // Select clauses
+    // **************
+
+    @Override
+    public SelectClause<Long> receiveClause() {
+        return delegate.receiveClause(v -> (Long) v);
+    }
+
+    @Override
+    public <U> SelectClause<U> receiveClause(LongFunction<U> callback) {
+        return delegate.receiveClause(v -> callback.apply((Long) v));
+    }
+
+    @Override
+    public SelectClause<Void> sendClause(long value) {
+        return sendClause(value, () -> null);
+    }
+
+    @Override
+    public <U> SelectClause<U> sendClause(long value, Supplier<U> callback) {
+        return delegate.sendSlotClause(value, callback);
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return "LongChannel(" + delegate + ")";
+    }
+}
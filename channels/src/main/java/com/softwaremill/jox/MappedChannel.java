@@ -0,0 +1,300 @@
+package com.softwaremill.jox;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A channel, which might be used to exchange values between two processes, running on the same
+ * machine. The values are stored in a ring buffer in a memory-mapped file, using the given {@link
+ * ValueSerializer}. The file is created by one of the processes using {@link #create(Path, int,
+ * ValueSerializer)}, and then opened by the other using {@link #open(Path, ValueSerializer)}.
+ *
+ * <p>The channel has a single producer and a single consumer: values should be sent by a single
+ * thread at a time (across all processes), and received by a single thread at a time. The {@code
+ * capacity} is the size of the ring buffer in bytes; each value takes the size of its serialized
+ * form, plus 4 bytes, rounded up to a multiple of 4. Values which don't fit in the buffer can't be
+ * sent.
+ *
+ * <p>Processes can't wake each other up. Hence, a waiting sender or receiver spins and yields as
+ * determined by the {@link WaitStrategy}, and then parks for increasing periods of time (up to 1
+ * millisecond), polling the state of the buffer. For the same reason, mapped channels can't be used
+ * in {@link Select#select(SelectClause[])}; the timed variants of sending and receiving are
+ * supported, though.
+ *
+ * <p>Closing the channel in one process is observed in the other. When a channel is closed with an
+ * error by another process, the cause is a {@link MappedChannelException}, with the description of
+ * the original cause as the message.
+ *
+ * <p>The file isn't deleted when the channel is closed.
+ */
+public final class MappedChannel<T> implements Source<T>, Sink<T> {
+    private final MappedRing<T> ring;
+    private final RingChannel<T> delegate;
+
+    private MappedChannel(MappedRing<T> ring, WaitStrategy waitStrategy) {
+        this.ring = ring;
+        this.delegate = new RingChannel<>(w -> ring, waitStrategy);
+        ring.attach(delegate);
+    }
+
+    /**
+     * Creates a new mapped channel, storing the values in the given file. If the file exists, it is
+     * overwritten. The channel can then be opened in another process using {@link #open(Path,
+     * ValueSerializer)}.
+     *
+     * @param file The file in which the values are stored. Preferably placed on a memory-backed
+     *     file system, such as {@code /dev/shm}.
+     * @param capacity The size of the ring buffer in bytes, must be at least 16.
+     * @param serializer Used to convert the values to and from bytes.
+     */
+    public static <T> MappedChannel<T> create(
+            Path file, int capacity, ValueSerializer<T> serializer) throws IOException {
+        return create(file, capacity, serializer, WaitStrategy.spinYieldThenPark(100, 10));
+    }
+
+    /**
+     * Same as {@link #create(Path, int, ValueSerializer)}, using the given strategy when waiting
+     * for values or space in the buffer. See {@link WaitStrategy}.
+     */
+    public static <T> MappedChannel<T> create(
+            Path file, int capacity, ValueSerializer<T> serializer, WaitStrategy waitStrategy)
+            throws IOException {
+        requireNonNull(file, serializer, waitStrategy);
+        return new MappedChannel<>(
+                MappedRing.create(file, capacity, serializer, waitStrategy), waitStrategy);
+    }
+
+    /**
+     * Opens a mapped channel, which has been created using {@link #create(Path, int,
+     * ValueSerializer)}, possibly by another process.
+     *
+     * @throws IllegalStateException When the file doesn't contain a mapped channel.
+     */
+    public static <T> MappedChannel<T> open(Path file, ValueSerializer<T> serializer)
+            throws IOException {
+        return open(file, serializer, WaitStrategy.spinYieldThenPark(100, 10));
+    }
+
+    /**
+     * Same as {@link #open(Path, ValueSerializer)}, using the given strategy when waiting for
+     * values or space in the buffer. See {@link WaitStrategy}.
+     */
+    public static <T> MappedChannel<T> open(
+            Path file, ValueSerializer<T> serializer, WaitStrategy waitStrategy)
+            throws IOException {
+        requireNonNull(file, serializer, waitStrategy);
+        return new MappedChannel<>(MappedRing.open(file, serializer, waitStrategy), waitStrategy);
+    }
+
+    private static void requireNonNull(
+            Path file, ValueSerializer<?> serializer, WaitStrategy waitStrategy) {
+        if (file == null) {
+            throw new NullPointerException("file");
+        }
+        if (serializer == null) {
+            throw new NullPointerException("serializer");
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy");
+        }
+    }
+
+    /**
+     * @return The size of the ring buffer in bytes.
+     */
+    public int capacity() {
+        return ring.capacity();
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    @Override
+    public void send(T value) throws InterruptedException {
+        delegate.send(value);
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        return delegate.sendOrClosed(value);
+    }
+
+    @Override
+    public void sendWithin(T value, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        var r = sendOrClosedWithin(value, timeout, Channel.TRY_SEND_NOT_SENT);
+        if (r == Channel.TRY_SEND_NOT_SENT) {
+            throw new TimeoutException("Channel send timed out");
+        } else if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    @Override
+    public Object sendOrClosedWithin(T value, Duration timeout, Object timeoutValue)
+            throws InterruptedException {
+        var r = ring.sendOrClosed(value, deadline(timeout));
+        return r == Channel.TRY_SEND_NOT_SENT ? timeoutValue : r;
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        return delegate.trySendOrClosed(value);
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        return delegate.sendAllOrClosed(values);
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        return delegate.trySendAllOrClosed(values);
+    }
+
+    /**
+     * @return A clause, which throws {@link UnsupportedOperationException} when used in a select,
+     *     as mapped channels can't be notified by another process.
+     */
+    @Override
+    public SelectClause<Void> sendClause(T value) {
+        return delegate.sendClause(value);
+    }
+
+    /**
+     * @return A clause, which throws {@link UnsupportedOperationException} when used in a select,
+     *     as mapped channels can't be notified by another process.
+     */
+    @Override
+    public <U> SelectClause<U> sendClause(T value, Supplier<U> callback) {
+        return delegate.sendClause(value, callback);
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    @Override
+    public T receive() throws InterruptedException {
+        return delegate.receive();
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        return delegate.receiveOrClosed();
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        return delegate.tryReceiveOrClosed();
+    }
+
+    @Override
+    public T receiveWithin(Duration timeout) throws InterruptedException, TimeoutException {
+        var r = ring.receiveOrClosed(deadline(timeout));
+        if (r == null) {
+            throw new TimeoutException("Channel receive timed out");
+        } else if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        } else {
+            //noinspection unchecked
+            return (T) r;
+        }
+    }
+
+    @Override
+    public Object receiveOrClosedWithin(Duration timeout, Object timeoutValue)
+            throws InterruptedException {
+        var r = ring.receiveOrClosed(deadline(timeout));
+        return r == null ? timeoutValue : r;
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        return delegate.receiveAtMostOrClosed(max, into);
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        return delegate.tryReceiveAtMostOrClosed(max, into);
+    }
+
+    /**
+     * @return A clause, which throws {@link UnsupportedOperationException} when used in a select,
+     *     as mapped channels can't be notified by another process.
+     */
+    @Override
+    public SelectClause<T> receiveClause() {
+        return delegate.receiveClause();
+    }
+
+    /**
+     * @return A clause, which throws {@link UnsupportedOperationException} when used in a select,
+     *     as mapped channels can't be notified by another process.
+     */
+    @Override
+    public <U> SelectClause<U> receiveClause(Function<T, U> callback) {
+        return delegate.receiveClause(callback);
+    }
+
+    private static long deadline(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        var now = System.nanoTime();
+        var deadline = now + timeout.toNanos();
+        // overflow, or the deadline accidentally being equal to the "no deadline" value
+        return deadline - now < 0 || deadline == Long.MAX_VALUE ? Long.MAX_VALUE - 1 : deadline;
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public void done() {
+        delegate.done();
+    }
+
+    @Override
+    public Object doneOrClosed() {
+        return delegate.doneOrClosed();
+    }
+
+    @Override
+    public void error(Throwable reason) {
+        delegate.error(reason);
+    }
+
+    @Override
+    public Object errorOrClosed(Throwable reason) {
+        return delegate.errorOrClosed(reason);
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return delegate.closedForSend();
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return delegate.closedForReceive();
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return ring.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.softwaremill.jox;
+
+/**
+ * The cause of the error, with which a {@link MappedChannel} is closed, when it's closed with an
+ * error by another process. As exceptions can't be shared between processes, only the description
+ * of the original cause is available, as the message.
+ */
+public final class MappedChannelException extends RuntimeException {
+    public MappedChannelException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,600 @@
+package com.softwaremill.jox;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implementation of {@link MappedChannel}: a single-producer, single-consumer ring buffer of bytes,
+ * stored in a memory-mapped file, which might be shared by two processes.
+ *
+ * <p>The file starts with a header, followed by {@link #capacity} bytes of data. The header holds
+ * the number of bytes written ({@code tail}) and read ({@code head}), each on a separate cache
+ * line, as well as the channel's state. Each value is serialized, and stored as a record: its
+ * length, followed by the bytes, aligned to 4 bytes. If a record doesn't fit before the end of the
+ * data area, a padding marker is written, and the record is stored at the beginning.
+ *
+ * <p>As in {@link SpscRing}, the producer publishes a record by advancing {@code tail} with a
+ * release write, and the consumer frees space by advancing {@code head}. The parties might be in
+ * different processes, so they can't unpark each other: instead, a waiting party spins and yields
+ * as determined by the wait strategy, and then parks for increasing periods of time (up to {@link
+ * #MAX_PARK_NANOS}), polling the file's header.
+ *
+ * <p>Closing the channel sets the state in the header, so that it's observed by the other process
+ * as well. When closing with an error, the state is first set to {@code CLOSING}, then the error's
+ * description is written, and finally the state is set to {@code ERROR}. The other process sees the
+ * error as a {@link MappedChannelException}.
+ */
+final class MappedRing<T> implements RingBuffer<T> {
+    private static final int MAGIC = 0x4a6f784d; // "JoxM"
+    private static final int VERSION = 1;
+
+    // header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int TAIL_OFFSET = 64;
+    private static final int HEAD_OFFSET = 128;
+    private static final int STATE_OFFSET = 192;
+    private static final int ERROR_LENGTH_OFFSET = 196;
+    private static final int ERROR_OFFSET = 200;
+    static final int MAX_ERROR_LENGTH = 312;
+    static final int DATA_OFFSET = 512;
+
+    // states
+    private static final int OPEN = 0;
+    private static final int DONE = 1;
+    private static final int CLOSING = 2;
+    private static final int ERROR = 3;
+
+    private static final int PADDING = -1;
+
+    static final long MAX_PARK_NANOS = 1_000_000L;
+    private static final long MIN_PARK_NANOS = 1_000L;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final ValueSerializer<T> serializer;
+    private final WaitStrategy waitStrategy;
+
+    /** The channel wrapping this ring, used in the closed values. */
+    private RingChannel<T> channel;
+
+    /** Cached closed reason: either set when closing the channel locally, or read from the file. */
+    private volatile ChannelClosed closedReason;
+
+    private MappedRing(
+            MappedByteBuffer buffer,
+            int capacity,
+            ValueSerializer<T> serializer,
+            WaitStrategy waitStrategy) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.serializer = serializer;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /** Creates (or overwrites) the file, initializing an empty, open channel. */
+    static <T> MappedRing<T> create(
+            Path file, int capacity, ValueSerializer<T> serializer, WaitStrategy waitStrategy)
+            throws IOException {
+        if (capacity < 16) {
+            throw new IllegalArgumentException("Capacity of a mapped channel must be at least 16.");
+        }
+        // keeping records aligned
+        var alignedCapacity = (capacity + 3) & ~3;
+        try (var fc =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            var buffer =
+                    fc.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + (long) alignedCapacity);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(CAPACITY_OFFSET, alignedCapacity);
+            // publishing the header; another process might already be polling for the magic value
+            INTS.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+            return new MappedRing<>(buffer, alignedCapacity, serializer, waitStrategy);
+        }
+    }
+
+    /** Opens a file, which has been initialized using {@link #create}. */
+    static <T> MappedRing<T> open(
+            Path file, ValueSerializer<T> serializer, WaitStrategy waitStrategy)
+            throws IOException {
+        try (var fc = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var size = fc.size();
+            if (size < DATA_OFFSET) {
+                throw new IllegalStateException("Not a mapped channel file: " + file);
+            }
+            var buffer = fc.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if ((int) INTS.getAcquire(buffer, MAGIC_OFFSET) != MAGIC) {
+                throw new IllegalStateException("Not a mapped channel file: " + file);
+            }
+            if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IllegalStateException(
+                        "Unsupported mapped channel version: " + buffer.getInt(VERSION_OFFSET));
+            }
+            var capacity = buffer.getInt(CAPACITY_OFFSET);
+            if (DATA_OFFSET + (long) capacity > size) {
+                throw new IllegalStateException("Truncated mapped channel file: " + file);
+            }
+            return new MappedRing<>(buffer, capacity, serializer, waitStrategy);
+        }
+    }
+
+    void attach(RingChannel<T> channel) {
+        this.channel = channel;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private long tail() {
+        return (long) LONGS.getAcquire(buffer, TAIL_OFFSET);
+    }
+
+    private long head() {
+        return (long) LONGS.getAcquire(buffer, HEAD_OFFSET);
+    }
+
+    private int state() {
+        return (int) INTS.getAcquire(buffer, STATE_OFFSET);
+    }
+
+    private static int recordSize(int length) {
+        return (Integer.BYTES + length + 3) & ~3;
+    }
+
+    // ********
+    // Producer
+    // ********
+
+    /**
+     * @return The number of bytes, which must be free in the buffer to write a record of the given
+     *     size at the given position, including the padding.
+     */
+    private int needed(long t, int size) {
+        var contiguous = capacity - (int) (t % capacity);
+        return size <= contiguous ? size : contiguous + size;
+    }
+
+    /**
+     * Writes the record, if there's space available.
+     *
+     * @return {@code 1} if the record has been written, {@code 0} if there's not enough space,
+     *     {@code -1} if the channel is closed.
+     */
+    private int offer(byte[] bytes) {
+        if (state() != OPEN) {
+            return -1;
+        }
+        var t = (long) LONGS.getOpaque(buffer, TAIL_OFFSET);
+        var size = recordSize(bytes.length);
+        if (capacity - (t - head()) < needed(t, size)) {
+            return 0;
+        }
+
+        var position = (int) (t % capacity);
+        if (size > capacity - position) {
+            buffer.putInt(DATA_OFFSET + position, PADDING);
+            t += capacity - position;
+            position = 0;
+        }
+        buffer.putInt(DATA_OFFSET + position, bytes.length);
+        buffer.put(DATA_OFFSET + position + Integer.BYTES, bytes);
+        // publishing the record
+        LONGS.setRelease(buffer, TAIL_OFFSET, t + size);
+        return 1;
+    }
+
+    private byte[] serialize(T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        var bytes = serializer.serialize(value);
+        if (recordSize(bytes.length) > capacity) {
+            throw new IllegalArgumentException(
+                    "The serialized value ("
+                            + bytes.length
+                            + " bytes) doesn't fit in the channel's capacity.");
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        return sendOrClosed(value, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param deadline The {@link System#nanoTime()} after which to stop waiting, or {@link
+     *     Long#MAX_VALUE} to wait indefinitely.
+     * @return {@code null} when the value is sent, {@link ChannelClosed}, or {@link
+     *     Channel#TRY_SEND_NOT_SENT} when the deadline passes.
+     */
+    Object sendOrClosed(T value, long deadline) throws InterruptedException {
+        var bytes = serialize(value);
+        while (true) {
+            var r = offer(bytes);
+            if (r > 0) {
+                return null;
+            } else if (r < 0) {
+                return closedForSend();
+            }
+            if (!await(true, recordSize(bytes.length), deadline)) {
+                return Channel.TRY_SEND_NOT_SENT;
+            }
+        }
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        var r = offer(serialize(value));
+        if (r > 0) {
+            return null;
+        } else if (r < 0) {
+            return closedForSend();
+        } else {
+            return Channel.TRY_SEND_NOT_SENT;
+        }
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        Channel.requireNoNulls(values);
+        for (var value : values) {
+            var r = sendOrClosed(value);
+            if (r != null) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        Channel.requireNoNulls(values);
+        var sent = 0;
+        for (var value : values) {
+            var r = offer(serialize(value));
+            if (r < 0) {
+                return sent == 0 ? closedForSend() : sent;
+            } else if (r == 0) {
+                break;
+            }
+            sent += 1;
+        }
+        return sent;
+    }
+
+    // ********
+    // Consumer
+    // ********
+
+    /**
+     * Reads a record, if one is available.
+     *
+     * @return The deserialized value, or {@code null}.
+     */
+    private T poll() {
+        var h = (long) LONGS.getOpaque(buffer, HEAD_OFFSET);
+        if (tail() == h) {
+            return null;
+        }
+
+        var position = (int) (h % capacity);
+        var length = buffer.getInt(DATA_OFFSET + position);
+        if (length == PADDING) {
+            h += capacity - position;
+            position = 0;
+            length = buffer.getInt(DATA_OFFSET);
+        }
+        var bytes = new byte[length];
+        buffer.get(DATA_OFFSET + position + Integer.BYTES, bytes);
+        // freeing the space
+        LONGS.setRelease(buffer, HEAD_OFFSET, h + recordSize(length));
+        return serializer.deserialize(bytes);
+    }
+
+    /**
+     * @return The closed reason to return when receiving, or {@code null}, if there might be more
+     *     values to receive.
+     */
+    private ChannelClosed closedForReceive(boolean checkEmpty) {
+        var s = state();
+        if (s == ERROR) {
+            return closedForSend();
+        } else if (s == DONE && (!checkEmpty || tail() == head())) {
+            return closedForSend();
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        return receiveOrClosed(Long.MAX_VALUE);
+    }
+
+    /**
+     * @param deadline The {@link System#nanoTime()} after which to stop waiting, or {@link
+     *     Long#MAX_VALUE} to wait indefinitely.
+     * @return The received value, {@link ChannelClosed}, or {@code null} when the deadline passes.
+     */
+    Object receiveOrClosed(long deadline) throws InterruptedException {
+        while (true) {
+            if (state() == ERROR) {
+                return closedForSend();
+            }
+            var value = poll();
+            if (value != null) {
+                return value;
+            }
+            var closed = closedForReceive(true);
+            if (closed != null) {
+                return closed;
+            }
+            if (!await(false, 0, deadline)) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        if (state() == ERROR) {
+            return closedForSend();
+        }
+        var value = poll();
+        if (value != null) {
+            return value;
+        }
+        return closedForReceive(true);
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        var first = receiveOrClosed();
+        if (first instanceof ChannelClosed) {
+            return first;
+        }
+        //noinspection unchecked
+        into.add((T) first);
+        var k = 1;
+        while (k < max) {
+            var value = poll();
+            if (value == null) {
+                break;
+            }
+            into.add(value);
+            k += 1;
+        }
+        return k;
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        if (state() == ERROR) {
+            return closedForSend();
+        }
+        var k = 0;
+        while (k < max) {
+            var value = poll();
+            if (value == null) {
+                break;
+            }
+            into.add(value);
+            k += 1;
+        }
+        if (k == 0) {
+            var closed = closedForReceive(true);
+            if (closed != null) {
+                return closed;
+            }
+        }
+        return k;
+    }
+
+    // *******
+    // Waiting
+    // *******
+
+    /**
+     * @return {@code true}, if the operation of the given side might now succeed: the channel is
+     *     closed, or there's space / a record available.
+     */
+    private boolean canProceed(boolean producer, int size) {
+        if (state() != OPEN) {
+            return true;
+        }
+        if (producer) {
+            var t = (long) LONGS.getOpaque(buffer, TAIL_OFFSET);
+            return capacity - (t - head()) >= needed(t, size);
+        } else {
+            return tail() != (long) LONGS.getOpaque(buffer, HEAD_OFFSET);
+        }
+    }
+
+    /**
+     * Waits until the operation of the given side might succeed: spinning and yielding as
+     * determined by the wait strategy, and then parking for increasing periods of time, polling the
+     * file's header.
+     *
+     * @return {@code false}, if the deadline passed.
+     */
+    private boolean await(boolean producer, int size, long deadline) throws InterruptedException {
+        var spinIterations = waitStrategy.spinIterations();
+        var yieldIterations = waitStrategy.yieldIterations();
+        var spins = 0;
+        var parked = false;
+        var parkNanos = MIN_PARK_NANOS;
+        while (!canProceed(producer, size)) {
+            if (spins < spinIterations) {
+                Thread.onSpinWait();
+                spins += 1;
+            } else if (yieldIterations > 0) {
+                parked = true;
+                Thread.yield();
+                yieldIterations -= 1;
+            } else {
+                parked = true;
+                var now = System.nanoTime();
+                if (deadline != Long.MAX_VALUE && now - deadline >= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        waitStrategy.afterWait(spins, parked);
+        return true;
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public Object closeOrClosed(ChannelClosed channelClosed) {
+        var isError = channelClosed instanceof ChannelError;
+        if (!INTS.compareAndSet(buffer, STATE_OFFSET, OPEN, isError ? CLOSING : DONE)) {
+            return closedForSend(); // already closed, possibly by the other process
+        }
+        if (channelClosed instanceof ChannelError e) {
+            var description = encode(String.valueOf(e.cause()));
+            buffer.putInt(ERROR_LENGTH_OFFSET, description.length);
+            buffer.put(ERROR_OFFSET, description);
+            INTS.setRelease(buffer, STATE_OFFSET, ERROR);
+        }
+        closedReason = channelClosed;
+        return null;
+    }
+
+    /** Encodes the description, truncating it so that it fits in the header. */
+    private static byte[] encode(String description) {
+        var bytes = description.getBytes(StandardCharsets.UTF_8);
+        var length = description.length();
+        while (bytes.length > MAX_ERROR_LENGTH) {
+            length = Math.min(length - 1, MAX_ERROR_LENGTH);
+            bytes = description.substring(0, length).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        var cr = closedReason;
+        if (cr != null) {
+            return cr;
+        }
+        var s = state();
+        if (s == OPEN) {
+            return null;
+        }
+        // closed by the other process
+        while (s == CLOSING) {
+            // the error's description is being written
+            Thread.onSpinWait();
+            s = state();
+        }
+        ChannelClosed remote;
+        if (s == DONE) {
+            remote = new ChannelDone(channel);
+        } else {
+            var description = new byte[buffer.getInt(ERROR_LENGTH_OFFSET)];
+            buffer.get(ERROR_OFFSET, description);
+            remote =
+                    new ChannelError(
+                            new MappedChannelException(
+                                    new String(description, StandardCharsets.UTF_8)),
+                            channel);
+        }
+        closedReason = remote;
+        return remote;
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return closedForReceive(true);
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Override
+    public Object registerReceive(SelectInstance select, SelectClause<?> clause) {
+        throw selectNotSupported();
+    }
+
+    @Override
+    public Object receiveSelected() {
+        throw selectNotSupported();
+    }
+
+    @Override
+    public Object registerSend(SelectInstance select, SelectClause<?> clause, T value) {
+        throw selectNotSupported();
+    }
+
+    @Override
+    public void sendSelected(T value) {
+        throw selectNotSupported();
+    }
+
+    @Override
+    public void cleanupStoredSelectClause(StoredSelectClause ss) {
+        throw selectNotSupported();
+    }
+
+    private static UnsupportedOperationException selectNotSupported() {
+        return new UnsupportedOperationException(
+                "Mapped channels can't be used in selects, as they can't be notified by another"
+                        + " process.");
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return "MappedChannel(capacity="
+                + capacity
+                + ", state="
+                + state()
+                + ", head="
+                + head()
+                + ", tail="
+                + tail()
+                + ")";
+    }
+}
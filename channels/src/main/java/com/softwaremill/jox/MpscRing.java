@@ -0,0 +1,831 @@
+package com.softwaremill.jox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+As in SpscRing, the field updated by the producers (tail), and the field written by the consumer (head) are placed on
+separate cache lines, using a class hierarchy interleaved with padding-only classes.
+ */
+
+@SuppressWarnings("unused")
+abstract class MpscRingPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+}
+
+abstract class MpscRingTailField extends MpscRingPad0 {
+    /**
+     * The index of the next slot to claim, the number of reserved slots, and the closed flag; see
+     * {@link MpscRing}. Updated by the producers using CAS.
+     */
+    long tail;
+}
+
+@SuppressWarnings("unused")
+abstract class MpscRingPad1 extends MpscRingTailField {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+    long p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+}
+
+abstract class MpscRingHeadField extends MpscRingPad1 {
+    /** The index of the next element to read. Written only by the consumer. */
+    long head;
+}
+
+@SuppressWarnings("unused")
+abstract class MpscRingPad2 extends MpscRingHeadField {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+    long p28, p29, p2a, p2b, p2c, p2d, p2e, p2f;
+}
+
+/**
+ * Implementation of multi-producer, single-consumer channels, see {@link
+ * Channel#newMpscChannel(int)}.
+ *
+ * <p>A bounded ring buffer. Producers claim slots by incrementing the index stored in {@code tail}
+ * using CAS, and then write the element to the claimed slot. As elements might be written out of
+ * order, an empty ({@code null}) slot at {@code head} means that there's no element available (yet)
+ * - there's no need for the consumer to read {@code tail}. The consumer only writes {@code head}
+ * (and clears the element slots), without any CAS; batches of elements are received using a single
+ * write.
+ *
+ * <p>The {@code tail} value consists of three parts: the index of the next slot to claim (lowest
+ * {@link #INDEX_BITS} bits, wrapping around), the number of slots reserved for selected send
+ * clauses (see below), and the closed flag. As the closed flag is set atomically with respect to
+ * claiming slots, no elements can be added after the channel is closed, and the consumer knows when
+ * all elements have been received.
+ *
+ * <p>The consumer waits in the same way as in {@link SpscRing}, using a single waiter field. There
+ * might be many waiting producers: these are stored in a queue, guarded by a lock, which is only
+ * used when the buffer is full. After freeing space, the consumer checks if there are any waiting
+ * producers (the counterpart of the producers re-checking if there's space after registering as a
+ * waiter), and wakes up at most as many as there are free slots. Waiting threads re-attempt to
+ * claim a slot, and might have to wait again, if other producers claim the space first. Waiting
+ * send clauses, on the other hand, can't retry after being selected: hence, a slot is reserved for
+ * the clause before the select is notified, and the select's thread later claims the reserved slot.
+ */
+final class MpscRing<T> extends MpscRingPad2 implements RingBuffer<T> {
+    // the buffer is padded at both ends, so that the first and last elements don't share cache
+    // lines with other objects
+    private static final int BUFFER_PAD = 16;
+
+    private static final int INDEX_BITS = 44;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final long RESERVED_ONE = 1L << INDEX_BITS;
+    private static final long RESERVED_MASK = (1L << 18) - 1;
+    private static final long CLOSED_FLAG = 1L << 62;
+
+    // the number of reserved slots is at most the capacity, so it must fit in the reserved bits
+    static final int MAX_CAPACITY = 1 << 16;
+
+    private final WaitStrategy waitStrategy;
+    private final int capacity;
+    private final int mask;
+    private final Object[] buffer;
+
+    /** {@code null}, {@link Thread} or {@link StoredSelectClause} of the waiting consumer. */
+    @SuppressWarnings("unused")
+    private volatile Object consumerWaiter;
+
+    /** {@link Thread}s or {@link StoredSelectClause}s of the waiting producers. */
+    private final ArrayDeque<Object> producerWaiters = new ArrayDeque<>();
+
+    private final ReentrantLock producerWaitersLock = new ReentrantLock();
+
+    /** The size of {@link #producerWaiters}, readable without acquiring the lock. */
+    private volatile int waitingProducers;
+
+    @SuppressWarnings("unused")
+    private volatile ChannelClosed closedReason;
+
+    private static final VarHandle TAIL;
+    private static final VarHandle HEAD;
+    private static final VarHandle BUFFER = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle CONSUMER_WAITER;
+    private static final VarHandle CLOSED_REASON;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TAIL = l.findVarHandle(MpscRingTailField.class, "tail", long.class);
+            HEAD = l.findVarHandle(MpscRingHeadField.class, "head", long.class);
+            CONSUMER_WAITER = l.findVarHandle(MpscRing.class, "consumerWaiter", Object.class);
+            CLOSED_REASON = l.findVarHandle(MpscRing.class, "closedReason", ChannelClosed.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    MpscRing(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity of a multi-producer, single-consumer channel must be positive.");
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "Capacity of a multi-producer, single-consumer channel must be at most 2^16.");
+        }
+        this.waitStrategy = waitStrategy;
+        this.capacity = capacity;
+        var size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.buffer = new Object[size + 2 * BUFFER_PAD];
+    }
+
+    private int slot(long i) {
+        return BUFFER_PAD + (int) (i & mask);
+    }
+
+    private static long index(long t) {
+        return t & INDEX_MASK;
+    }
+
+    private static boolean isClosed(long t) {
+        return (t & CLOSED_FLAG) != 0;
+    }
+
+    /**
+     * @return The number of slots which are occupied (by elements, or claimed, but not yet
+     *     written), or reserved, given the values of {@code tail} and {@code head}.
+     */
+    private static long used(long t, long h) {
+        return ((index(t) - h) & INDEX_MASK) + ((t >>> INDEX_BITS) & RESERVED_MASK);
+    }
+
+    /**
+     * @return The value of {@code tail}, with the index advanced by {@code k}.
+     */
+    private static long advance(long t, int k) {
+        return (t & ~INDEX_MASK) | ((t + k) & INDEX_MASK);
+    }
+
+    // *********
+    // Producers
+    // *********
+
+    /**
+     * Adds the value to the buffer, if there's space available.
+     *
+     * @return {@code 1} if the value has been added, {@code 0} if the buffer is full, {@code -1} if
+     *     the channel is closed.
+     */
+    private int offer(T value) {
+        var t = (long) TAIL.getVolatile(this);
+        while (true) {
+            if (isClosed(t)) {
+                return -1;
+            }
+            if (used(t, (long) HEAD.getVolatile(this)) >= capacity) {
+                return 0;
+            }
+            var witness = (long) TAIL.compareAndExchange(this, t, advance(t, 1));
+            if (witness == t) {
+                break;
+            }
+            t = witness;
+        }
+
+        // publishing the element; the volatile write guarantees that the read of the waiter below
+        // is not reordered before the write
+        BUFFER.setVolatile(buffer, slot(index(t)), value);
+        if (consumerWaiter != null) {
+            wakeConsumer();
+        }
+        return 1;
+    }
+
+    /**
+     * Adds as many values, starting from {@code from}, as there's space available, claiming the
+     * slots using a single CAS.
+     *
+     * @return The number of added values, or {@code -1}, if the channel is closed.
+     */
+    private int offerAll(List<T> values, int from) {
+        var t = (long) TAIL.getVolatile(this);
+        int k;
+        while (true) {
+            if (isClosed(t)) {
+                return -1;
+            }
+            var free = capacity - used(t, (long) HEAD.getVolatile(this));
+            k = (int) Math.min(values.size() - from, free);
+            if (k <= 0) {
+                return 0;
+            }
+            var witness = (long) TAIL.compareAndExchange(this, t, advance(t, k));
+            if (witness == t) {
+                break;
+            }
+            t = witness;
+        }
+
+        var i = index(t);
+        for (int j = 0; j < k; j++) {
+            BUFFER.setRelease(buffer, slot(i + j), values.get(from + j));
+        }
+        // as in offer(), the read of the waiter can't be reordered before the writes
+        VarHandle.fullFence();
+        if (consumerWaiter != null) {
+            wakeConsumer();
+        }
+        return k;
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            var r = offer(value);
+            if (r > 0) {
+                return null;
+            } else if (r < 0) {
+                return closedReason;
+            }
+            awaitProducer();
+        }
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        var r = offer(value);
+        if (r > 0) {
+            return null;
+        } else if (r < 0) {
+            return closedReason;
+        } else {
+            return Channel.TRY_SEND_NOT_SENT;
+        }
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        Channel.requireNoNulls(values);
+        var sent = 0;
+        while (sent < values.size()) {
+            var k = offerAll(values, sent);
+            if (k < 0) {
+                return closedReason;
+            } else if (k == 0) {
+                awaitProducer();
+            }
+            sent += Math.max(k, 0);
+        }
+        return null;
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        Channel.requireNoNulls(values);
+        var k = offerAll(values, 0);
+        return k < 0 ? closedReason : k;
+    }
+
+    // ********
+    // Consumer
+    // ********
+
+    /**
+     * Removes an element from the buffer, if one is available. Must only be called by the consumer.
+     *
+     * @return The element, or {@code null}, if the buffer is empty, or if the producer which
+     *     claimed the slot at {@code head} didn't yet write the element.
+     */
+    private Object poll() {
+        var h = head;
+        var i = slot(h);
+        var value = BUFFER.getAcquire(buffer, i);
+        if (value == null) {
+            return null;
+        }
+
+        buffer[i] = null;
+        // freeing the space; the volatile write guarantees that the read of the number of waiting
+        // producers below is not reordered before the write
+        HEAD.setVolatile(this, h + 1);
+        if (waitingProducers != 0) {
+            wakeProducers();
+        }
+        return value;
+    }
+
+    /**
+     * Removes at most {@code max} elements from the buffer, freeing the space using a single write.
+     * Must only be called by the consumer.
+     *
+     * @return The number of removed elements.
+     */
+    private int pollAll(int max, Collection<? super T> into) {
+        var h = head;
+        var k = 0;
+        while (k < max) {
+            var i = slot(h + k);
+            var value = BUFFER.getAcquire(buffer, i);
+            if (value == null) {
+                break;
+            }
+            //noinspection unchecked
+            into.add((T) value);
+            buffer[i] = null;
+            k += 1;
+        }
+        if (k == 0) {
+            return 0;
+        }
+
+        HEAD.setVolatile(this, h + k);
+        if (waitingProducers != 0) {
+            wakeProducers();
+        }
+        return k;
+    }
+
+    /**
+     * @return {@code true}, if all elements have been received, and there are no claimed or
+     *     reserved slots; after the channel is closed, this means that no more elements will be
+     *     received.
+     */
+    private boolean isEmpty() {
+        return used((long) TAIL.getVolatile(this), (long) HEAD.getVolatile(this)) == 0;
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        while (true) {
+            // reading the closed reason before inspecting the buffer: if the channel is done, all
+            // slots have been claimed before closing, so their elements will be observed below
+            var closed = closedReason;
+            if (closed instanceof ChannelError) {
+                return closed;
+            }
+            var value = poll();
+            if (value != null) {
+                return value;
+            }
+            if (closed != null && isEmpty()) {
+                return closed;
+            }
+            awaitConsumer();
+        }
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        var closed = closedReason;
+        if (closed instanceof ChannelError) {
+            return closed;
+        }
+        var value = poll();
+        if (value != null) {
+            return value;
+        }
+        if (closed != null && isEmpty()) {
+            return closed;
+        }
+        return null;
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        while (true) {
+            var closed = closedReason;
+            if (closed instanceof ChannelError) {
+                return closed;
+            }
+            var k = pollAll(max, into);
+            if (k > 0) {
+                return k;
+            }
+            if (closed != null && isEmpty()) {
+                return closed;
+            }
+            awaitConsumer();
+        }
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        var closed = closedReason;
+        if (closed instanceof ChannelError) {
+            return closed;
+        }
+        var k = pollAll(max, into);
+        if (k == 0 && closed != null && isEmpty()) {
+            return closed;
+        }
+        return k;
+    }
+
+    // *******
+    // Waiting
+    // *******
+
+    /**
+     * @return {@code true}, if a producer's operation might now succeed: the channel is closed, or
+     *     there's space available in the buffer.
+     */
+    private boolean canSend() {
+        var t = (long) TAIL.getVolatile(this);
+        return isClosed(t) || used(t, (long) HEAD.getVolatile(this)) < capacity;
+    }
+
+    /**
+     * @return {@code true}, if the consumer's operation might now succeed: the channel is closed
+     *     with an error, an element is available, or the channel is done and all elements have been
+     *     received.
+     */
+    private boolean canReceive() {
+        var closed = closedReason;
+        return closed instanceof ChannelError
+                || BUFFER.getVolatile(buffer, slot(head)) != null
+                || (closed != null && isEmpty());
+    }
+
+    private boolean canProceed(boolean producer) {
+        return producer ? canSend() : canReceive();
+    }
+
+    /**
+     * Spins and yields, as defined by the wait strategy, until the operation of the given side
+     * might succeed.
+     *
+     * @return {@code -1}, if the operation might now succeed; otherwise, the number of spins done,
+     *     before the thread should park.
+     */
+    private int spin(boolean producer) {
+        var spinIterations = waitStrategy.spinIterations();
+        var yieldIterations = waitStrategy.yieldIterations();
+        var spins = 0;
+        while (spins < spinIterations) {
+            if (canProceed(producer)) {
+                waitStrategy.afterWait(spins, false);
+                return -1;
+            }
+            Thread.onSpinWait();
+            spins += 1;
+        }
+        while (yieldIterations > 0) {
+            if (canProceed(producer)) {
+                waitStrategy.afterWait(spins, true);
+                return -1;
+            }
+            Thread.yield();
+            yieldIterations -= 1;
+        }
+        return spins;
+    }
+
+    /**
+     * Waits until the consumer's operation might succeed, using the channel's wait strategy. Might
+     * return spuriously.
+     */
+    private void awaitConsumer() throws InterruptedException {
+        var spins = spin(false);
+        if (spins < 0) {
+            return;
+        }
+
+        var currentThread = Thread.currentThread();
+        CONSUMER_WAITER.setVolatile(this, currentThread);
+        // re-checking after registering as a waiter: either we observe the element/closing, or
+        // the producer will observe the waiter and unpark us
+        while (!canReceive()) {
+            if (consumerWaiter != currentThread) {
+                // woken up by a producer
+                break;
+            }
+
+            LockSupport.park(this);
+
+            if (Thread.interrupted()) {
+                CONSUMER_WAITER.compareAndSet(this, currentThread, null);
+                throw new InterruptedException();
+            }
+        }
+        CONSUMER_WAITER.compareAndSet(this, currentThread, null);
+        waitStrategy.afterWait(spins, true);
+    }
+
+    /**
+     * Waits until a producer's operation might succeed, using the channel's wait strategy. Might
+     * return spuriously, or when the space has been claimed by another producer in the meantime.
+     */
+    private void awaitProducer() throws InterruptedException {
+        var spins = spin(true);
+        if (spins < 0) {
+            return;
+        }
+
+        var currentThread = Thread.currentThread();
+        addProducerWaiter(currentThread);
+        // re-checking after registering as a waiter: either we observe the space/closing, or the
+        // consumer will observe the waiter and unpark us
+        if (!canSend()) {
+            LockSupport.park(this);
+        }
+        var removed = removeProducerWaiter(currentThread);
+
+        if (Thread.interrupted()) {
+            if (!removed) {
+                // we've been woken up, as space became available; as we won't use it, passing
+                // this on to the other waiting producers
+                wakeProducers();
+            }
+            throw new InterruptedException();
+        }
+        waitStrategy.afterWait(spins, true);
+    }
+
+    private void addProducerWaiter(Object waiter) {
+        producerWaitersLock.lock();
+        try {
+            producerWaiters.addLast(waiter);
+            // the volatile write guarantees that the space re-check, done by the caller, is not
+            // reordered before the write
+            waitingProducers = producerWaiters.size();
+        } finally {
+            producerWaitersLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true}, if the waiter has been removed; {@code false}, if it has already been
+     *     woken up.
+     */
+    private boolean removeProducerWaiter(Object waiter) {
+        producerWaitersLock.lock();
+        try {
+            var removed = producerWaiters.removeFirstOccurrence(waiter);
+            waitingProducers = producerWaiters.size();
+            return removed;
+        } finally {
+            producerWaitersLock.unlock();
+        }
+    }
+
+    /** Wakes up the waiting consumer, if any. */
+    private void wakeConsumer() {
+        var waiter = consumerWaiter;
+        if (waiter != null && CONSUMER_WAITER.compareAndSet(this, waiter, null)) {
+            if (waiter instanceof Thread t) {
+                LockSupport.unpark(t);
+            } else {
+                // if the clause isn't selected, the element remains available for subsequent
+                // operations
+                var ss = (StoredSelectClause) waiter;
+                ss.setPayload(RingMarker.READY);
+                ss.getSelect().trySelect(ss);
+            }
+        }
+    }
+
+    /** Wakes up at most as many waiting producers, as there are free slots in the buffer. */
+    private void wakeProducers() {
+        producerWaitersLock.lock();
+        try {
+            var free =
+                    capacity - used((long) TAIL.getVolatile(this), (long) HEAD.getVolatile(this));
+            while (free > 0 && !producerWaiters.isEmpty()) {
+                var waiter = producerWaiters.peekFirst();
+                if (waiter instanceof Thread t) {
+                    producerWaiters.pollFirst();
+                    LockSupport.unpark(t);
+                } else {
+                    var ss = (StoredSelectClause) waiter;
+                    // reserving a slot first, so that it's available once the select's thread
+                    // sends the value
+                    if (!reserve()) {
+                        break;
+                    }
+                    producerWaiters.pollFirst();
+                    ss.setPayload(RingMarker.READY);
+                    if (!ss.getSelect().trySelect(ss)) {
+                        // the select won't send the value (or will re-register the clause)
+                        TAIL.getAndAdd(this, -RESERVED_ONE);
+                        continue;
+                    }
+                }
+                free -= 1;
+            }
+            waitingProducers = producerWaiters.size();
+        } finally {
+            producerWaitersLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true}, if a slot has been reserved.
+     */
+    private boolean reserve() {
+        var t = (long) TAIL.getVolatile(this);
+        while (true) {
+            if (isClosed(t) || used(t, (long) HEAD.getVolatile(this)) >= capacity) {
+                return false;
+            }
+            var witness = (long) TAIL.compareAndExchange(this, t, t + RESERVED_ONE);
+            if (witness == t) {
+                return true;
+            }
+            t = witness;
+        }
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public Object closeOrClosed(ChannelClosed channelClosed) {
+        if (!CLOSED_REASON.compareAndSet(this, null, channelClosed)) {
+            return closedReason; // already closed
+        }
+        // from now on, no new slots can be claimed (only the reserved ones)
+        TAIL.getAndBitwiseOr(this, CLOSED_FLAG);
+
+        var waiter = CONSUMER_WAITER.getAndSet(this, null);
+        if (waiter instanceof Thread t) {
+            LockSupport.unpark(t);
+        } else if (waiter instanceof StoredSelectClause ss) {
+            if (channelClosed instanceof ChannelDone && !isEmpty()) {
+                // done, but there are still elements to receive
+                ss.setPayload(RingMarker.READY);
+                ss.getSelect().trySelect(ss);
+            } else {
+                ss.getSelect().channelClosed(channelClosed);
+            }
+        }
+
+        producerWaitersLock.lock();
+        try {
+            for (var producerWaiter : producerWaiters) {
+                if (producerWaiter instanceof Thread t) {
+                    LockSupport.unpark(t);
+                } else {
+                    ((StoredSelectClause) producerWaiter).getSelect().channelClosed(channelClosed);
+                }
+            }
+            producerWaiters.clear();
+            waitingProducers = 0;
+        } finally {
+            producerWaitersLock.unlock();
+        }
+        return null;
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return closedReason;
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        var cr = closedReason;
+        if (cr instanceof ChannelDone && !isEmpty()) {
+            // there are still elements to receive
+            return null;
+        }
+        return cr;
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Override
+    public Object registerReceive(SelectInstance select, SelectClause<?> clause) {
+        while (true) {
+            var closed = closedReason;
+            if (closed instanceof ChannelError) {
+                return closed;
+            }
+            var value = poll();
+            if (value != null) {
+                return value;
+            }
+            if (closed != null && isEmpty()) {
+                return closed;
+            }
+
+            var ss = new StoredSelectClause(select, null, 0, false, clause, null);
+            CONSUMER_WAITER.setVolatile(this, ss);
+            if (canReceive() && CONSUMER_WAITER.compareAndSet(this, ss, null)) {
+                // an element became available (or the channel was closed) concurrently; retrying
+                continue;
+            }
+            // otherwise, a producer might have already removed the waiter, calling trySelect -
+            // which will cause the clause to be re-registered, as the select is still registering
+            return ss;
+        }
+    }
+
+    @Override
+    public Object receiveSelected() {
+        while (true) {
+            var value = poll();
+            if (value != null) {
+                return value;
+            }
+            // the clause is selected after an element is written; but with concurrent producers,
+            // elements might be written out-of-order: waiting until the producer, which claimed
+            // the slot at head, writes its element; spinning and yielding as defined by the wait
+            // strategy, and then yielding (instead of parking, as this can't be interrupted), so
+            // that a descheduled producer can run
+            if (spin(false) >= 0 || BUFFER.getVolatile(buffer, slot(head)) == null) {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    public Object registerSend(SelectInstance select, SelectClause<?> clause, T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            var r = offer(value);
+            if (r > 0) {
+                return SentClauseMarker.SENT;
+            } else if (r < 0) {
+                return closedReason;
+            }
+
+            var ss = new StoredSelectClause(select, null, 0, true, clause, null);
+            addProducerWaiter(ss);
+            if (canSend() && removeProducerWaiter(ss)) {
+                // space became available (or the channel was closed) concurrently; retrying
+                continue;
+            }
+            // otherwise, a slot might have already been reserved for the clause, and trySelect
+            // called
+            return ss;
+        }
+    }
+
+    @Override
+    public void sendSelected(T value) {
+        // claiming the slot reserved in wakeProducers(); this is possible even if the channel has
+        // been closed in the meantime
+        var t = (long) TAIL.getVolatile(this);
+        while (true) {
+            var witness = (long) TAIL.compareAndExchange(this, t, advance(t, 1) - RESERVED_ONE);
+            if (witness == t) {
+                break;
+            }
+            t = witness;
+        }
+
+        BUFFER.setVolatile(buffer, slot(index(t)), value);
+        if (consumerWaiter != null) {
+            wakeConsumer();
+        }
+    }
+
+    @Override
+    public void cleanupStoredSelectClause(StoredSelectClause ss) {
+        if (ss.isSender()) {
+            removeProducerWaiter(ss);
+        } else {
+            CONSUMER_WAITER.compareAndSet(this, ss, null);
+        }
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        var t = (long) TAIL.getVolatile(this);
+        return "Channel(mpsc, capacity="
+                + capacity
+                + ", closed="
+                + isClosed(t)
+                + ", head="
+                + (long) HEAD.getVolatile(this)
+                + ", tail="
+                + index(t)
+                + ", reserved="
+                + ((t >>> INDEX_BITS) & RESERVED_MASK)
+                + ")";
+    }
+}
@@ -0,0 +1,16 @@
+package com.softwaremill.jox;
+
+/**
+ * Determines what happens when a value is sent to a buffered channel, whose buffer is full. Used
+ * when creating channels using {@link Channel#newBufferedChannel(int, OverflowPolicy)}; sending to
+ * such channels never blocks.
+ *
+ * <p>A conflated channel ({@link Channel#newConflatedChannel()}), which only keeps the latest
+ * value, is a channel with a buffer of size 1, and the {@link #DROP_OLDEST} policy.
+ */
+public enum OverflowPolicy {
+    /** The oldest value in the buffer is dropped, and the sent value is added to the buffer. */
+    DROP_OLDEST,
+    /** The sent value is dropped, leaving the buffer unchanged. */
+    DROP_LATEST
+}
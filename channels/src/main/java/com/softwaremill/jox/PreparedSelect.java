@@ -0,0 +1,139 @@
+package com.softwaremill.jox;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A select from a fixed set of clauses, which can be run repeatedly, e.g. in an event loop. Created
+ * using {@link Select#prepare(SelectClause[])}.
+ *
+ * <p>Compared to calling {@link Select#select(SelectClause[])} with the same clauses in a loop, the
+ * clauses are validated only once, and the internal state of the select is reused between runs,
+ * when it's safe to do so. That's the case when a clause is selected immediately, without the
+ * select having to be stored in any of the channels - e.g. when a value is already available in the
+ * channel of the first receive clause. Otherwise, some state still has to be allocated on each run.
+ *
+ * <p>The clauses are fixed: a send clause sends the same value on each run.
+ *
+ * <p>A prepared select is not thread-safe: it might be run by only one thread at a time.
+ */
+public final class PreparedSelect<U> {
+    private final SelectClause<? extends U>[] clauses;
+    private final WaitStrategy waitStrategy;
+
+    // the select instance to use for the next run, renewed after each run
+    private SelectInstance instance;
+
+    PreparedSelect(SelectClause<? extends U>[] clauses) {
+        if (clauses == null || clauses.length == 0) {
+            throw new IllegalArgumentException("No clauses given");
+        }
+        if (Arrays.stream(clauses).anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Null clauses are not supported");
+        }
+        for (int i = 0; i < clauses.length - 1; i++) {
+            if (clauses[i] instanceof DefaultClause<?>) {
+                throw new IllegalArgumentException("The default clause can only be the last one.");
+            }
+        }
+
+        this.clauses = clauses.clone();
+        this.waitStrategy = Select.verifyChannelsUnique_getWaitStrategy(this.clauses);
+        this.instance = new SelectInstance(clauses.length);
+    }
+
+    /**
+     * Select exactly one of the clauses to complete. See {@link Select#select(SelectClause[])}.
+     *
+     * @return The value returned by the selected clause.
+     * @throws ChannelClosedException When any of the channels is closed (done or in error).
+     */
+    public U select() throws InterruptedException {
+        var r = selectOrClosed();
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        } else {
+            //noinspection unchecked
+            return (U) r;
+        }
+    }
+
+    /**
+     * Select exactly one of the clauses to complete. Doesn't throw exceptions when the channel is
+     * closed, but returns a value. See {@link Select#selectOrClosed(SelectClause[])}.
+     *
+     * @return Either the value returned by the selected clause, or {@link ChannelClosed}, when any
+     *     of the channels is closed (done or in error).
+     */
+    public Object selectOrClosed() throws InterruptedException {
+        return run(false, 0);
+    }
+
+    /**
+     * Select exactly one of the clauses to complete, with a timeout. See {@link
+     * Select#selectWithin(Duration, SelectClause[])}.
+     *
+     * @param timeout The maximum time to wait for a clause to be selected.
+     * @return The value returned by the selected clause.
+     * @throws TimeoutException When the timeout elapses before any clause can be selected.
+     * @throws ChannelClosedException When any of the channels is closed (done or in error).
+     */
+    public U selectWithin(Duration timeout) throws InterruptedException, TimeoutException {
+        var r = selectOrClosedWithin(timeout, TimeoutMarker.INSTANCE);
+        if (r == TimeoutMarker.INSTANCE) {
+            throw new TimeoutException("Select timed out after " + timeout.toMillis() + " ms");
+        } else if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        } else {
+            //noinspection unchecked
+            return (U) r;
+        }
+    }
+
+    /**
+     * Select exactly one of the clauses to complete, with a timeout. Doesn't throw exceptions when
+     * the channel is closed or timeout occurs, but returns a value. See {@link
+     * Select#selectOrClosedWithin(Duration, Object, SelectClause[])}.
+     *
+     * @param timeout The maximum time to wait for a clause to be selected.
+     * @param timeoutValue The value to return if the timeout elapses.
+     * @return Either the value returned by the selected clause, the timeout value when timeout
+     *     occurs, or {@link ChannelClosed} when any of the channels is closed (done or in error).
+     */
+    public Object selectOrClosedWithin(Duration timeout, Object timeoutValue)
+            throws InterruptedException {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        var r = run(true, Select.deadlineAfter(timeout));
+        return r == TimeoutMarker.INSTANCE ? timeoutValue : r;
+    }
+
+    private Object run(boolean timed, long deadline) throws InterruptedException {
+        while (true) {
+            // same as in Select.doSelectOrClosed: short-circuiting if any of the channels is in
+            // error
+            var anyError = Select.getAnyChannelInError(clauses);
+            if (anyError != null) {
+                return anyError;
+            }
+
+            var si = instance;
+            Object r;
+            try {
+                r = Select.registerAndWait(si, waitStrategy, timed, deadline, clauses);
+            } finally {
+                instance = si.renew();
+            }
+
+            //noinspection StatementWithEmptyBody
+            if (r == RestartSelectMarker.RESTART) {
+                // the clause's transformation requested a restart (see Select.selectOrClosed)
+            } else {
+                return r;
+            }
+        }
+    }
+}
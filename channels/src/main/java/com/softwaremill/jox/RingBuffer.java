@@ -0,0 +1,71 @@
+package com.softwaremill.jox;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A buffer, to which all operations of a {@link RingChannel} are delegated, when the channel is
+ * created with a restricted number of producers and/or consumers, when it's a part of a {@link
+ * BroadcastChannel}, when it spills values to disk, or when it's shared with another process. See
+ * {@link SpscRing}, {@link MpscRing}, {@link BroadcastLog}, {@link BroadcastSubscription}, {@link
+ * SpillingLog} and {@link MappedRing}.
+ *
+ * <p>The methods follow the conventions of the corresponding methods of {@link Channel}: they
+ * return either a value, or {@link ChannelClosed}, when the channel is closed.
+ */
+interface RingBuffer<T> {
+    Object sendOrClosed(T value) throws InterruptedException;
+
+    Object trySendOrClosed(T value);
+
+    Object sendAllOrClosed(List<T> values) throws InterruptedException;
+
+    Object trySendAllOrClosed(List<T> values);
+
+    Object receiveOrClosed() throws InterruptedException;
+
+    Object tryReceiveOrClosed();
+
+    Object receiveAtMostOrClosed(int max, Collection<? super T> into) throws InterruptedException;
+
+    Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into);
+
+    Object closeOrClosed(ChannelClosed channelClosed);
+
+    ChannelClosed closedForSend();
+
+    ChannelClosed closedForReceive();
+
+    /**
+     * @return Either a {@link StoredSelectClause}, {@link ChannelClosed} when the channel is
+     *     closed, or the received value.
+     */
+    Object registerReceive(SelectInstance select, SelectClause<?> clause);
+
+    /**
+     * Called by the select's thread, after a receive clause, for which {@link #registerReceive}
+     * returned a {@link StoredSelectClause}, has been selected with the {@link RingMarker#READY}
+     * payload.
+     */
+    Object receiveSelected();
+
+    /**
+     * @return Either a {@link StoredSelectClause}, {@link ChannelClosed} when the channel is
+     *     closed, or {@link SentClauseMarker#SENT}, when the value has been sent.
+     */
+    Object registerSend(SelectInstance select, SelectClause<?> clause, T value);
+
+    /**
+     * Called by the select's thread, after a send clause, for which {@link #registerSend} returned
+     * a {@link StoredSelectClause}, has been selected with the {@link RingMarker#READY} payload.
+     */
+    void sendSelected(T value);
+
+    void cleanupStoredSelectClause(StoredSelectClause ss);
+}
+
+// set as the payload of a stored select clause, when the clause is selected because an element
+// (receive) or space (send) became available in a ring buffer
+enum RingMarker {
+    READY
+}
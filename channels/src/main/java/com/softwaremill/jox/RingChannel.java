@@ -0,0 +1,226 @@
+package com.softwaremill.jox;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A channel, which delegates all operations to a {@link RingBuffer}. Created using {@link
+ * Channel#newSpscChannel(int)}, {@link Channel#newMpscChannel(int)} and {@link
+ * Channel#newSpillingChannel(int, Path, ValueSerializer)}; also used by {@link BroadcastChannel}
+ * and {@link MappedChannel}.
+ *
+ * <p>Ring buffer-backed channels are a separate implementation of {@link Source} and {@link Sink},
+ * so that the operations of the general {@link Channel} don't need to check which variant is used.
+ * Unlike {@link Channel}, they don't support asynchronous operations, and can't be members of a
+ * {@link ChannelGroup}.
+ *
+ * @param <T> The type of the values processed by the channel.
+ */
+public final class RingChannel<T> implements Source<T>, Sink<T> {
+    private final RingBuffer<T> ring;
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * @param ringFactory Creates the ring buffer backing the channel, given the wait strategy.
+     * @param waitStrategy The strategy used when waiting for values or buffer space, or {@code
+     *     null}, for the default one.
+     */
+    RingChannel(Function<WaitStrategy, RingBuffer<T>> ringFactory, WaitStrategy waitStrategy) {
+        this.waitStrategy =
+                waitStrategy != null ? waitStrategy : FixedWaitStrategy.PARK_IMMEDIATELY;
+        this.ring = ringFactory.apply(this.waitStrategy);
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    @Override
+    public void send(T value) throws InterruptedException {
+        var r = sendOrClosed(value);
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        return ring.sendOrClosed(value);
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        return ring.trySendOrClosed(value);
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        return ring.sendAllOrClosed(values);
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        return ring.trySendAllOrClosed(values);
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    @Override
+    public T receive() throws InterruptedException {
+        var r = receiveOrClosed();
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        } else {
+            //noinspection unchecked
+            return (T) r;
+        }
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        return ring.receiveOrClosed();
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        return ring.tryReceiveOrClosed();
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        return ring.receiveAtMostOrClosed(max, into);
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        return ring.tryReceiveAtMostOrClosed(max, into);
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public void done() {
+        var r = doneOrClosed();
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    @Override
+    public Object doneOrClosed() {
+        return ring.closeOrClosed(new ChannelDone(this));
+    }
+
+    @Override
+    public void error(Throwable reason) {
+        if (reason == null) {
+            throw new NullPointerException("Error reason cannot be null");
+        }
+        var r = errorOrClosed(reason);
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    @Override
+    public Object errorOrClosed(Throwable reason) {
+        return ring.closeOrClosed(new ChannelError(reason, this));
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return ring.closedForSend();
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return ring.closedForReceive();
+    }
+
+    // **************
+    // Select clauses
+    // **************
+
+    @Override
+    public SelectClause<T> receiveClause() {
+        return receiveClause(Function.identity());
+    }
+
+    @Override
+    public <U> SelectClause<U> receiveClause(Function<T, U> callback) {
+        return new RingClause<>() {
+            @Override
+            Object register(SelectInstance select) {
+                return ring.registerReceive(select, this);
+            }
+
+            @Override
+            U transformedRawValue(Object rawValue) {
+                if (rawValue == RingMarker.READY) {
+                    // selected after suspending, the value is still in the buffer
+                    rawValue = ring.receiveSelected();
+                }
+                //noinspection unchecked
+                return callback.apply((T) rawValue);
+            }
+        };
+    }
+
+    @Override
+    public SelectClause<Void> sendClause(T value) {
+        return sendClause(value, () -> null);
+    }
+
+    @Override
+    public <U> SelectClause<U> sendClause(T value, Supplier<U> callback) {
+        return new RingClause<>() {
+            @Override
+            Object register(SelectInstance select) {
+                return ring.registerSend(select, this, value);
+            }
+
+            @Override
+            U transformedRawValue(Object rawValue) {
+                if (rawValue == RingMarker.READY) {
+                    // selected after suspending, there's now space in the buffer
+                    ring.sendSelected(value);
+                }
+                return callback.get();
+            }
+        };
+    }
+
+    private abstract class RingClause<U> extends SelectClause<U> {
+        @Override
+        CloseableChannel getChannel() {
+            return RingChannel.this;
+        }
+
+        @Override
+        WaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        @Override
+        void cleanupStoredSelectClause(StoredSelectClause storedSelectClause) {
+            ring.cleanupStoredSelectClause(storedSelectClause);
+        }
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return ring.toString();
+    }
+}
@@ -4,22 +4,49 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 
 final class Segment {
+    /** The largest segment size, which can be set per-channel, using {@link Channel#builder()}. */
+    static final int MAX_SEGMENT_SIZE = 1 << 14;
+
+    /** The default segment size, used by channels, unless configured otherwise. */
     static final int SEGMENT_SIZE; // by default 32 = 2^5
 
     static {
         String channelSizeEnv = System.getenv("JOX_SEGMENT_SIZE");
-        SEGMENT_SIZE = channelSizeEnv != null ? Integer.parseInt(channelSizeEnv) : 32;
-        if (SEGMENT_SIZE < 0 || SEGMENT_SIZE > 32) {
-            throw new IllegalArgumentException("Segment size must be between 1 and 32");
-        }
+        SEGMENT_SIZE = channelSizeEnv != null ? defaultSize(Integer.parseInt(channelSizeEnv)) : 32;
         if (SEGMENT_SIZE != 32) {
             System.out.println("Using SEGMENT_SIZE: " + SEGMENT_SIZE);
         }
     }
 
-    // to store values between 0 and 32 (inclusive) we need 6 bits
-    private static final int PROCESSED_SHIFT = 6;
-    private static final int POINTERS_SHIFT = 12;
+    /**
+     * Segment sizes must be powers of 2, so that cell indexes can be computed using shifts & masks.
+     */
+    static boolean isValidSize(int size) {
+        return size > 0 && size <= MAX_SEGMENT_SIZE && Integer.bitCount(size) == 1;
+    }
+
+    /**
+     * Validates the default segment size, set using {@code JOX_SEGMENT_SIZE}. For backwards
+     * compatibility, a size which isn't a power of 2 is accepted, and rounded up to one.
+     */
+    static int defaultSize(int size) {
+        if (size <= 0 || size > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException(
+                    "Segment size must be between 1 and " + MAX_SEGMENT_SIZE);
+        }
+        if (!isValidSize(size)) {
+            var rounded = Integer.highestOneBit(size) << 1;
+            System.out.println(
+                    "Segment size must be a power of 2, rounding " + size + " up to " + rounded);
+            return rounded;
+        }
+        return size;
+    }
+
+    // to store values between 0 and MAX_SEGMENT_SIZE (inclusive) we need 15 bits; the pointers get
+    // the upper 32 bits
+    private static final int PROCESSED_SHIFT = 16;
+    private static final int POINTERS_SHIFT = 32;
     static final Segment NULL_SEGMENT = new Segment(-1, null, 0, false);
 
     /** Used in {@code next} to indicate that the segment is closed. */
@@ -32,7 +59,15 @@ final class Segment {
 
     // mutable state
 
-    private final Object[] data = new Object[SEGMENT_SIZE];
+    private final Object[] data;
+
+    /**
+     * Primitive values, stored in parallel to {@link #data}; only allocated for channels which
+     * transmit primitive values (see {@link SlotMarker}). A slot is written only by the sender
+     * which reserved the corresponding cell, before the cell's state is updated, and read after the
+     * state is read - hence, plain accesses are sufficient.
+     */
+    private final long[] slots;
 
     /** Possible values: {@code Segment} or {@link #CLOSED} (union type). */
     private volatile Segment next;
@@ -41,10 +76,10 @@ final class Segment {
 
     /**
      * A single counter that can be inspected & modified atomically, which includes: - the number of
-     * incoming pointers (shifted by {@link Segment#POINTERS_SHIFT} to the left), in bits 13 & 14 -
+     * incoming pointers (shifted by {@link Segment#POINTERS_SHIFT} to the left), in bits 33-64 -
      * the number of cells, which are not processed (shifted by {@link Segment#PROCESSED_SHIFT} to
-     * the left), in bits 7-12 - the number of cells, which haven't been interrupted (in the first 6
-     * bits)
+     * the left), in bits 17-32 - the number of cells, which haven't been interrupted (in the first
+     * 16 bits)
      *
      * <p>When this reaches 0, the segment is logically removed.
      *
@@ -52,7 +87,7 @@ final class Segment {
      * and fully processed by `expandBuffer()` (in buffered channels).
      */
     @SuppressWarnings("FieldMayBeFinal")
-    private volatile int pointers_notProcessed_notInterrupted;
+    private volatile long pointers_notProcessed_notInterrupted;
 
     // var handles for mutable state
 
@@ -70,7 +105,7 @@ final class Segment {
             PREV = l.findVarHandle(Segment.class, "prev", Segment.class);
             POINTERS_NOT_PROCESSED_NOT_INTERRUPTED =
                     l.findVarHandle(
-                            Segment.class, "pointers_notProcessed_notInterrupted", int.class);
+                            Segment.class, "pointers_notProcessed_notInterrupted", long.class);
         } catch (ReflectiveOperationException e) {
             throw new ExceptionInInitializerError(e);
         }
@@ -79,19 +114,38 @@ final class Segment {
     //
 
     Segment(long id, Segment prev, int pointers, boolean isRendezvousOrUnlimited) {
+        this(id, prev, pointers, isRendezvousOrUnlimited, false, SEGMENT_SIZE);
+    }
+
+    /**
+     * @param size The number of cells in the segment; all segments of a channel have the same size.
+     */
+    Segment(
+            long id,
+            Segment prev,
+            int pointers,
+            boolean isRendezvousOrUnlimited,
+            boolean withSlots,
+            int size) {
         this.id = id;
         this.prev = prev;
         this.pointers_notProcessed_notInterrupted =
-                SEGMENT_SIZE
-                        + (isRendezvousOrUnlimited ? 0 : (SEGMENT_SIZE << PROCESSED_SHIFT))
-                        + (pointers << POINTERS_SHIFT);
+                size
+                        + (isRendezvousOrUnlimited ? 0 : ((long) size << PROCESSED_SHIFT))
+                        + ((long) pointers << POINTERS_SHIFT);
         this.isRendezvousOrUnlimited = isRendezvousOrUnlimited;
+        this.data = new Object[size];
+        this.slots = withSlots ? new long[size] : null;
     }
 
     long getId() {
         return id;
     }
 
+    int getSize() {
+        return data.length;
+    }
+
     void cleanPrev() {
         prev = null;
     }
@@ -121,6 +175,14 @@ final class Segment {
         return DATA.compareAndSet(data, index, expected, newValue);
     }
 
+    long getSlot(int index) {
+        return slots[index];
+    }
+
+    void setSlot(int index, long value) {
+        slots[index] = value;
+    }
+
     private boolean isTail() {
         return getNext() == null;
     }
@@ -140,14 +202,14 @@ final class Segment {
      *     is not updated.
      */
     boolean tryIncPointers() {
-        int p;
+        long p;
         do {
             p = pointers_notProcessed_notInterrupted;
             if (p == 0) {
                 return false;
             }
         } while (!POINTERS_NOT_PROCESSED_NOT_INTERRUPTED.compareAndSet(
-                this, p, p + (1 << POINTERS_SHIFT)));
+                this, p, p + (1L << POINTERS_SHIFT)));
         return true;
     }
 
@@ -158,7 +220,7 @@ final class Segment {
      */
     boolean decPointers() {
         // pointers_notProcessed_notInterrupted.updateAndGet(p -> p - (1 << POINTERS_SHIFT)) == 0
-        var toAdd = -(1 << POINTERS_SHIFT);
+        var toAdd = -(1L << POINTERS_SHIFT);
         while (true) {
             var currentP = pointers_notProcessed_notInterrupted;
             var updated =
@@ -178,11 +240,11 @@ final class Segment {
      */
     void cellInterruptedReceiver() {
         // decrementAndGet() == 0
-        if ((int) POINTERS_NOT_PROCESSED_NOT_INTERRUPTED.getAndAdd(this, -1) == 1) remove();
+        if ((long) POINTERS_NOT_PROCESSED_NOT_INTERRUPTED.getAndAdd(this, -1L) == 1L) remove();
     }
 
-    private static final int ONE_PROCESSED = 1 << PROCESSED_SHIFT;
-    private static final int ONE_PROCESSED_AND_INTERRUPTED = ONE_PROCESSED + 1;
+    private static final long ONE_PROCESSED = 1L << PROCESSED_SHIFT;
+    private static final long ONE_PROCESSED_AND_INTERRUPTED = ONE_PROCESSED + 1;
 
     /**
      * Notify the segment that a `send` has been interrupted in the cell. Also marks the cell as
@@ -194,10 +256,10 @@ final class Segment {
     void cellInterruptedSender() {
         if (isRendezvousOrUnlimited) {
             // we're not counting processed cells
-            if ((int) POINTERS_NOT_PROCESSED_NOT_INTERRUPTED.getAndAdd(this, -1) == 1) remove();
+            if ((long) POINTERS_NOT_PROCESSED_NOT_INTERRUPTED.getAndAdd(this, -1L) == 1L) remove();
         } else {
             // decrementing both counters in a single operation
-            if ((int)
+            if ((long)
                             POINTERS_NOT_PROCESSED_NOT_INTERRUPTED.getAndAdd(
                                     this, -ONE_PROCESSED_AND_INTERRUPTED)
                     == ONE_PROCESSED_AND_INTERRUPTED) remove();
@@ -212,7 +274,7 @@ final class Segment {
      * removed.
      */
     void cellProcessed_notInterruptedSender() {
-        if ((int) POINTERS_NOT_PROCESSED_NOT_INTERRUPTED.getAndAdd(this, -ONE_PROCESSED)
+        if ((long) POINTERS_NOT_PROCESSED_NOT_INTERRUPTED.getAndAdd(this, -ONE_PROCESSED)
                 == ONE_PROCESSED) remove();
     }
 
@@ -337,9 +399,20 @@ final class Segment {
                 // segment chain is closed, so we can't create a new segment
                 return null;
             } else if (n == null) {
-                // create a new segment if needed
+                // create a new segment if needed; segments aren't pooled & reused, as a thread
+                // might still hold a reference to a segment long after it's been removed (e.g. one
+                // read from `sendSegment` before reserving a cell); if such a segment got a new id,
+                // that thread would skip cells based on it. Guarding against this would require
+                // tracking in-progress operations (e.g. hazard pointers), which costs more than
+                // allocating segments, which mostly die young
                 var newSegment =
-                        new Segment(current.getId() + 1, current, 0, start.isRendezvousOrUnlimited);
+                        new Segment(
+                                current.getId() + 1,
+                                current,
+                                0,
+                                start.isRendezvousOrUnlimited,
+                                start.slots != null,
+                                start.data.length);
                 if (current.setNextIfNull(newSegment)) {
                     if (current.isRemoved()) {
                         // the current segment was a tail segment, so if it was logically removed,
@@ -398,8 +471,8 @@ final class Segment {
         var p = prev;
         var c = pointers_notProcessed_notInterrupted;
 
-        var notInterrupted = c & ((1 << PROCESSED_SHIFT) - 1);
-        var notProcessed = (c & ((1 << POINTERS_SHIFT) - 1)) >> PROCESSED_SHIFT;
+        var notInterrupted = c & ((1L << PROCESSED_SHIFT) - 1);
+        var notProcessed = (c & ((1L << POINTERS_SHIFT) - 1)) >> PROCESSED_SHIFT;
         var pointers = c >> POINTERS_SHIFT;
 
         return "Segment{"
@@ -83,6 +83,19 @@ public class Select {
     @SafeVarargs
     public static <U> Object selectOrClosed(SelectClause<? extends U>... clauses)
             throws InterruptedException {
+        return selectOrClosed(false, 0, clauses);
+    }
+
+    /**
+     * @param timed Whether the select should time out, once {@code deadline} passes.
+     * @param deadline The {@link System#nanoTime()} at which the select times out, if timed.
+     * @return Either the value returned by the selected clause, {@link ChannelClosed}, or {@link
+     *     TimeoutMarker#INSTANCE} when the select is timed, and the deadline passes.
+     */
+    @SafeVarargs
+    private static <U> Object selectOrClosed(
+            boolean timed, long deadline, SelectClause<? extends U>... clauses)
+            throws InterruptedException {
         while (true) {
             if (clauses == null || clauses.length == 0) {
                 // no clauses given
@@ -93,7 +106,7 @@ public class Select {
                 throw new IllegalArgumentException("Null clauses are not supported");
             }
 
-            var r = doSelectOrClosed(clauses);
+            var r = doSelectOrClosed(timed, deadline, clauses);
             //noinspection StatementWithEmptyBody
             if (r == RestartSelectMarker.RESTART) {
                 // in case a `CollectSource` function filters out the element (the transformation
@@ -170,55 +183,50 @@ public class Select {
             throw new IllegalArgumentException("Timeout must be positive");
         }
 
-        // Create a timeout channel and virtual thread to send the timeout signal
-        Channel<TimeoutMarker> timeoutChannel = Channel.newBufferedChannel(1);
-        var timeoutThread =
-                Thread.ofVirtual()
-                        .start(
-                                () -> {
-                                    try {
-                                        Thread.sleep(timeout.toMillis());
-                                        timeoutChannel.sendOrClosed(TimeoutMarker.INSTANCE);
-                                    } catch (InterruptedException e) {
-                                        // this might happen - ignore, since we don't want the
-                                        // uncaught exception handler to be called
-                                    }
-                                });
+        if (clauses != null && clauses.length == 0) {
+            // nothing to select from, waiting for the timeout
+            Thread.sleep(timeout);
+            return timeoutValue;
+        }
 
-        // Create a new array with the timeout clause appended
-        @SuppressWarnings("unchecked")
-        SelectClause<Object>[] clausesWithTimeout =
-                Arrays.copyOf(clauses, clauses.length + 1, SelectClause[].class);
-        clausesWithTimeout[clauses.length] = timeoutChannel.receiveClause(marker -> timeoutValue);
+        // the select instance parks with a deadline, and unregisters from all the cells on timeout
+        var r = selectOrClosed(true, deadlineAfter(timeout), clauses);
+        return r == TimeoutMarker.INSTANCE ? timeoutValue : r;
+    }
 
+    /**
+     * @return The {@link System#nanoTime()} at which the given timeout elapses. As {@code nanoTime}
+     *     differences are overflow-safe, only the timeout itself is saturated.
+     */
+    static long deadlineAfter(Duration timeout) {
+        long timeoutNanos;
         try {
-            return selectOrClosed(clausesWithTimeout);
-        } finally {
-            // Always clean up the timeout thread
-            timeoutThread.interrupt();
-            joinUninterruptibly(timeoutThread);
+            timeoutNanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            timeoutNanos = Long.MAX_VALUE;
         }
+        return System.nanoTime() + timeoutNanos;
     }
 
-    private static void joinUninterruptibly(Thread thread) throws InterruptedException {
-        InterruptedException intercepted = null;
-        while (true) {
-            try {
-                thread.join();
-                break;
-            } catch (InterruptedException e) {
-                if (intercepted == null) intercepted = e;
-                else intercepted.addSuppressed(e);
-            }
-        }
-
-        if (intercepted != null) {
-            throw intercepted;
-        }
+    /**
+     * Prepare a select from a fixed set of clauses, which can then be run repeatedly, e.g. in an
+     * event loop. The clauses are validated once, and the state of the select is reused between
+     * runs when possible, avoiding allocations. See {@link PreparedSelect}.
+     *
+     * <p>If a couple of the clauses can be completed immediately, the select is biased towards the
+     * clauses that appear first.
+     *
+     * @param clauses The clauses, from which one will be selected on each run. Array must not be
+     *     empty or {@code null} and can't contain {@code null} values.
+     */
+    @SafeVarargs
+    public static <U> PreparedSelect<U> prepare(SelectClause<? extends U>... clauses) {
+        return new PreparedSelect<>(clauses);
     }
 
     @SafeVarargs
-    private static <U> Object doSelectOrClosed(SelectClause<? extends U>... clauses)
+    private static <U> Object doSelectOrClosed(
+            boolean timed, long deadline, SelectClause<? extends U>... clauses)
             throws InterruptedException {
         // short-circuiting if any of the channels is in error; otherwise, we might have selected a
         // clause, for which a value was available immediately - even though a channel for a clause
@@ -230,9 +238,23 @@ public class Select {
 
         // check that the clause doesn't refer to a channel that is already used in a different
         // clause
-        var allRendezvous = verifyChannelsUnique_getAreAllRendezvous(clauses);
+        var waitStrategy = verifyChannelsUnique_getWaitStrategy(clauses);
+
+        return registerAndWait(
+                new SelectInstance(clauses.length), waitStrategy, timed, deadline, clauses);
+    }
 
-        var si = new SelectInstance(clauses.length);
+    /**
+     * Registers the clauses in the given, fresh or {@linkplain SelectInstance#renew() renewed},
+     * select instance, and waits until one of them is selected.
+     */
+    static Object registerAndWait(
+            SelectInstance si,
+            WaitStrategy waitStrategy,
+            boolean timed,
+            long deadline,
+            SelectClause<?>[] clauses)
+            throws InterruptedException {
         for (int i = 0; i < clauses.length; i++) {
             SelectClause<?> clause = clauses[i];
             if (clause instanceof DefaultClause<?> && i != clauses.length - 1) {
@@ -244,11 +266,16 @@ public class Select {
             }
         }
 
-        return si.checkStateAndWait(allRendezvous);
+        return si.checkStateAndWait(waitStrategy, timed, deadline);
     }
 
-    private static boolean verifyChannelsUnique_getAreAllRendezvous(SelectClause<?>[] clauses) {
-        var allRendezvous = true;
+    /**
+     * @return The wait strategy shared by the channels of all clauses, or a strategy which parks
+     *     immediately, if the channels use different strategies.
+     */
+    static WaitStrategy verifyChannelsUnique_getWaitStrategy(SelectClause<?>[] clauses) {
+        WaitStrategy waitStrategy = null;
+        var sameWaitStrategy = true;
         // we expect the number of clauses to be small, so that this n^2 double-loop is faster than
         // allocating a set
         for (int i = 0; i < clauses.length; i++) {
@@ -259,12 +286,21 @@ public class Select {
                             "Channel " + chi + " is used in multiple clauses");
                 }
             }
-            allRendezvous = allRendezvous && (chi == null || chi.isRendezvous);
+            if (chi != null) {
+                var wsi = clauses[i].getWaitStrategy();
+                if (waitStrategy == null) {
+                    waitStrategy = wsi;
+                } else if (waitStrategy != wsi) {
+                    sameWaitStrategy = false;
+                }
+            }
         }
-        return allRendezvous;
+        return sameWaitStrategy && waitStrategy != null
+                ? waitStrategy
+                : FixedWaitStrategy.PARK_IMMEDIATELY;
     }
 
-    private static ChannelError getAnyChannelInError(SelectClause<?>[] clauses) {
+    static ChannelError getAnyChannelInError(SelectClause<?>[] clauses) {
         for (var clause : clauses) {
             var ch = clause.getChannel();
             if (ch != null) {
@@ -333,8 +369,40 @@ final class SelectInstance {
      */
     private Object resultSelectedDuringRegistration;
 
+    /**
+     * Set when a {@link StoredSelectClause} referencing this instance is created, that is when the
+     * instance might become visible to other threads. Only written & read by the main select
+     * thread.
+     */
+    private boolean published;
+
     SelectInstance(int clausesCount) {
-        storedClauses = new ArrayList<>(clausesCount);
+        this(new ArrayList<>(clausesCount));
+    }
+
+    private SelectInstance(List<StoredSelectClause> storedClauses) {
+        this.storedClauses = storedClauses;
+    }
+
+    void published() {
+        published = true;
+    }
+
+    /**
+     * Prepares a select instance for the next select, after this one completed. If this instance
+     * has never been published, no other thread can reference it, and it's reset & reused.
+     * Otherwise, a thread might still call {@link #trySelect} or {@link #channelClosed} on it (e.g.
+     * having read a cell before it was cleaned up), so a new instance is needed; only the list of
+     * stored clauses, which is never accessed by other threads, is reused then.
+     */
+    SelectInstance renew() {
+        storedClauses.clear();
+        if (published) {
+            return new SelectInstance(storedClauses);
+        }
+        resultSelectedDuringRegistration = null;
+        state = SelectState.REGISTERING;
+        return this;
     }
 
     // registration
@@ -377,13 +445,15 @@ final class SelectInstance {
     // main loop
 
     /**
-     * @param allRendezvous If channels for all clauses are rendezvous channels. In such a case,
-     *     busy-looping is initially used, instead of blocking.
+     * @param waitStrategy Determines if, and for how long, to spin & yield before blocking.
+     * @param timed Whether to stop waiting once {@code deadline} passes.
+     * @param deadline The {@link System#nanoTime()} until which to wait, if timed.
      * @return Either the value returned by the selected clause (which can include {@link
-     *     RestartSelectMarker#RESTART}), or {@link ChannelClosed}, when any of the channels is
-     *     closed.
+     *     RestartSelectMarker#RESTART}), {@link ChannelClosed}, when any of the channels is closed,
+     *     or {@link TimeoutMarker#INSTANCE}, when the deadline passes.
      */
-    Object checkStateAndWait(boolean allRendezvous) throws InterruptedException {
+    Object checkStateAndWait(WaitStrategy waitStrategy, boolean timed, long deadline)
+            throws InterruptedException {
         while (true) {
             var currentState = state;
             if (currentState == SelectState.REGISTERING) {
@@ -391,14 +461,38 @@ final class SelectInstance {
                 // up as the state we won't leave this case until the state is changed from Thread
                 var currentThread = Thread.currentThread();
                 if (STATE.compareAndSet(this, SelectState.REGISTERING, currentThread)) {
-                    var spinIterations = allRendezvous ? Continuation.RENDEZVOUS_SPINS : 0;
+                    var spinIterations = waitStrategy.spinIterations();
+                    var yieldIterations = waitStrategy.yieldIterations();
+                    var spins = 0;
+                    var parked = false;
                     while (state == currentThread) {
                         // same logic as in Continuation
-                        if (spinIterations > 0) {
+                        if (spins < spinIterations) {
                             Thread.onSpinWait();
-                            spinIterations -= 1;
+                            spins += 1;
+                        } else if (yieldIterations > 0) {
+                            parked = true;
+                            Thread.yield();
+                            yieldIterations -= 1;
                         } else {
-                            LockSupport.park();
+                            parked = true;
+                            if (timed) {
+                                var remaining = deadline - System.nanoTime();
+                                if (remaining <= 0) {
+                                    if (STATE.compareAndSet(
+                                            this, currentThread, SelectState.TIMED_OUT)) {
+                                        // as with interruption, none of the clauses will become
+                                        // completed
+                                        cleanup(null);
+                                        return TimeoutMarker.INSTANCE;
+                                    }
+                                    // else: another thread already changed the state, continuing
+                                    continue;
+                                }
+                                LockSupport.parkNanos(remaining);
+                            } else {
+                                LockSupport.park();
+                            }
 
                             if (Thread.interrupted()) {
                                 if (STATE.compareAndSet(
@@ -416,6 +510,7 @@ final class SelectInstance {
                             }
                         }
                     }
+                    waitStrategy.afterWait(spins, parked);
                     // inspect the updated state in next iteration
                 }
                 // else: CAS unsuccessful, retry
@@ -525,8 +620,9 @@ final class SelectInstance {
                     return true;
                 }
                 // else: CAS unsuccessful, retry
-            } else if (currentState == SelectState.INTERRUPTED) {
-                // already interrupted, will be cleaned up soon
+            } else if (currentState == SelectState.INTERRUPTED
+                    || currentState == SelectState.TIMED_OUT) {
+                // already interrupted or timed out, will be cleaned up soon
                 return false;
             } else if (currentState instanceof ChannelClosed) {
                 // closed, will be cleaned up soon
@@ -570,8 +666,9 @@ final class SelectInstance {
                     return true;
                 }
                 // else: CAS unsuccessful, retry
-            } else if (currentState == SelectState.INTERRUPTED) {
-                // already interrupted
+            } else if (currentState == SelectState.INTERRUPTED
+                    || currentState == SelectState.TIMED_OUT) {
+                // already interrupted or timed out
                 return false;
             } else if (currentState instanceof ChannelClosed) {
                 // already closed
@@ -585,7 +682,8 @@ final class SelectInstance {
 
 enum SelectState {
     REGISTERING,
-    INTERRUPTED
+    INTERRUPTED,
+    TIMED_OUT
 }
 
 //
@@ -609,6 +707,7 @@ final class StoredSelectClause {
             boolean isSender,
             SelectClause<?> clause,
             Object payload) {
+        select.published();
         this.select = select;
         this.segment = segment;
         this.i = i;
@@ -629,8 +728,17 @@ final class StoredSelectClause {
         return clause;
     }
 
+    /** The segment in which the clause is stored; {@code null} for ring buffer-backed channels. */
+    Segment getSegment() {
+        return segment;
+    }
+
+    int getIndex() {
+        return i;
+    }
+
     void cleanup() {
-        clause.getChannel().cleanupStoredSelectClause(segment, i, isSender);
+        clause.cleanupStoredSelectClause(this);
     }
 
     public Object getPayload() {
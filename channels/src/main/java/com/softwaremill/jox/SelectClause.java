@@ -9,10 +9,26 @@ import java.util.function.Supplier;
  * <p>A clause instance is immutable and can be reused in multiple `select` calls.
  */
 public abstract class SelectClause<T> {
-    Channel<?> getChannel() {
+    /**
+     * @return The channel, for which the clause is created, or {@code null} for default clauses.
+     */
+    CloseableChannel getChannel() {
+        return null;
+    }
+
+    /**
+     * @return The wait strategy of the clause's channel, or {@code null} for default clauses.
+     */
+    WaitStrategy getWaitStrategy() {
         return null;
     }
 
+    /**
+     * Called when the {@link StoredSelectClause}, returned by {@link #register(SelectInstance)}, is
+     * no longer needed, so that the channel can clean up its state.
+     */
+    void cleanupStoredSelectClause(StoredSelectClause storedSelectClause) {}
+
     /**
      * @return Either a {@link StoredSelectClause}, {@link ChannelClosed} when the channel is
      *     already closed, or the selected value (not {@code null}).
@@ -1,5 +1,8 @@
 package com.softwaremill.jox;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
 /**
@@ -24,6 +27,34 @@ public interface Sink<T> extends CloseableChannel {
      */
     Object sendOrClosed(T value) throws InterruptedException;
 
+    /**
+     * Send a value to the channel, waiting at most the given amount of time.
+     *
+     * @param value The value to send. Not {@code null}.
+     * @param timeout The maximum time to wait for the value to be sent. Must be positive.
+     * @throws TimeoutException When the value isn't sent before the timeout elapses.
+     * @throws ChannelClosedException When the channel is closed.
+     */
+    default void sendWithin(T value, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        Select.selectWithin(timeout, sendClause(value));
+    }
+
+    /**
+     * Send a value to the channel, waiting at most the given amount of time. Doesn't throw
+     * exceptions when the channel is closed or the timeout elapses, but returns a value.
+     *
+     * @param value The value to send. Not {@code null}.
+     * @param timeout The maximum time to wait for the value to be sent. Must be positive.
+     * @param timeoutValue The value to return if the timeout elapses.
+     * @return Either {@code null}, {@link ChannelClosed}, when the channel is closed, or {@code
+     *     timeoutValue}, when the timeout elapses.
+     */
+    default Object sendOrClosedWithin(T value, Duration timeout, Object timeoutValue)
+            throws InterruptedException {
+        return Select.selectOrClosedWithin(timeout, timeoutValue, sendClause(value));
+    }
+
     /**
      * Attempt to send a value to the channel if there's a waiting receiver, or space in the buffer.
      *
@@ -58,6 +89,85 @@ public interface Sink<T> extends CloseableChannel {
      */
     Object trySendOrClosed(T value);
 
+    /**
+     * Send all the given values to the channel, in order. Blocks until all values are sent.
+     *
+     * <p>Implementations might reserve space for multiple values at once, amortizing the cost of
+     * synchronization across the batch. The default implementation sends the values one by one.
+     *
+     * @param values The values to send. Can't contain {@code null}s.
+     * @throws ChannelClosedException When the channel is closed. Some of the values might have been
+     *     sent before that happened.
+     */
+    default void sendAll(List<T> values) throws InterruptedException {
+        var r = sendAllOrClosed(values);
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    /**
+     * Send all the given values to the channel, in order. Blocks until all values are sent. Doesn't
+     * throw exceptions when the channel is closed but returns a value.
+     *
+     * @param values The values to send. Can't contain {@code null}s.
+     * @return Either {@code null}, when all values were sent, or {@link ChannelClosed}, when the
+     *     channel is closed. Some of the values might have been sent before the channel was closed.
+     */
+    default Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        for (var value : values) {
+            var r = sendOrClosed(value);
+            if (r instanceof ChannelClosed) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Attempt to send as many of the given values as possible (starting from the first one),
+     * without blocking: that is, to waiting receivers, or into free space in the buffer.
+     *
+     * <p>This method never blocks or suspends the calling thread. It completes in bounded time.
+     *
+     * <p>May send fewer values than there's space for, due to contention with concurrent
+     * operations.
+     *
+     * @param values The values to send. Can't contain {@code null}s.
+     * @return The number of values sent; these are always the first values from the list.
+     * @throws ChannelClosedException When the channel is closed, and no values have been sent.
+     */
+    default int trySendAll(List<T> values) {
+        var r = trySendAllOrClosed(values);
+        if (r instanceof ChannelClosed c) throw c.toException();
+        return (Integer) r;
+    }
+
+    /**
+     * Attempt to send as many of the given values as possible (starting from the first one),
+     * without blocking. Doesn't throw exceptions when the channel is closed but returns a value.
+     *
+     * <p>This method never blocks or suspends the calling thread. It completes in bounded time.
+     *
+     * @param values The values to send. Can't contain {@code null}s.
+     * @return Either the number of values sent (an {@link Integer}; these are always the first
+     *     values from the list), or {@link ChannelClosed}, when the channel is closed and no values
+     *     have been sent.
+     */
+    default Object trySendAllOrClosed(List<T> values) {
+        var sent = 0;
+        for (var value : values) {
+            var r = trySendOrClosed(value);
+            if (r instanceof ChannelClosed) {
+                return sent == 0 ? r : sent;
+            } else if (r != null) {
+                break; // not sent
+            }
+            sent++;
+        }
+        return sent;
+    }
+
     /**
      * Attempt to send a value to one of the given channels if in any of them there's a waiting
      * receiver, or space in the buffer.
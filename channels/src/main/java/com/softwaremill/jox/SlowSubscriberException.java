@@ -0,0 +1,12 @@
+package com.softwaremill.jox;
+
+/**
+ * The cause of the error, with which a subscription of a {@link BroadcastChannel} is closed, when
+ * the subscriber lags behind the producers by more than the channel's capacity, and the channel's
+ * policy is {@link BroadcastChannel.SlowSubscriberPolicy#DROP}.
+ */
+public final class SlowSubscriberException extends RuntimeException {
+    public SlowSubscriberException() {
+        super("The subscriber lagged behind the broadcast channel's producers too much.");
+    }
+}
@@ -1,7 +1,10 @@
 package com.softwaremill.jox;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -58,6 +61,130 @@ public interface Source<T> extends CloseableChannel {
      */
     Object tryReceiveOrClosed();
 
+    /**
+     * Receive a value from the channel, waiting at most the given amount of time.
+     *
+     * @param timeout The maximum time to wait for a value. Must be positive.
+     * @return The received value.
+     * @throws TimeoutException When no value is received before the timeout elapses.
+     * @throws ChannelClosedException When the channel is closed.
+     */
+    default T receiveWithin(Duration timeout) throws InterruptedException, TimeoutException {
+        return Select.selectWithin(timeout, receiveClause());
+    }
+
+    /**
+     * Receive a value from the channel, waiting at most the given amount of time. Doesn't throw
+     * exceptions when the channel is closed or the timeout elapses, but returns a value.
+     *
+     * @param timeout The maximum time to wait for a value. Must be positive.
+     * @param timeoutValue The value to return if the timeout elapses.
+     * @return Either a value of type {@code T}, {@link ChannelClosed}, when the channel is closed,
+     *     or {@code timeoutValue}, when the timeout elapses.
+     */
+    default Object receiveOrClosedWithin(Duration timeout, Object timeoutValue)
+            throws InterruptedException {
+        return Select.selectOrClosedWithin(timeout, timeoutValue, receiveClause());
+    }
+
+    /**
+     * Receive at least one, and at most {@code max} values from the channel, adding them to {@code
+     * into}. Blocks until at least one value is available; then, receives only the values that are
+     * immediately available.
+     *
+     * <p>Implementations might reserve multiple values at once, amortizing the cost of
+     * synchronization across the batch. The default implementation receives the values one by one.
+     *
+     * @param max The maximum number of values to receive. Must be positive.
+     * @param into The collection to which the received values are added, in order.
+     * @return The number of received values, between {@code 1} and {@code max}.
+     * @throws ChannelClosedException When the channel is closed.
+     */
+    default int receiveAtMost(int max, Collection<? super T> into) throws InterruptedException {
+        var r = receiveAtMostOrClosed(max, into);
+        if (r instanceof ChannelClosed c) throw c.toException();
+        return (Integer) r;
+    }
+
+    /**
+     * Receive at least one, and at most {@code max} values from the channel, adding them to {@code
+     * into}. Blocks until at least one value is available. Doesn't throw exceptions when the
+     * channel is closed, but returns a value.
+     *
+     * @param max The maximum number of values to receive. Must be positive.
+     * @param into The collection to which the received values are added, in order.
+     * @return Either the number of received values (an {@link Integer}, between {@code 1} and
+     *     {@code max}), or {@link ChannelClosed}, when the channel is closed.
+     */
+    default Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        if (max <= 0) throw new IllegalArgumentException("max must be positive");
+        var first = receiveOrClosed();
+        if (first instanceof ChannelClosed) {
+            return first;
+        }
+        //noinspection unchecked
+        into.add((T) first);
+        var received = 1;
+        while (received < max) {
+            var r = tryReceiveOrClosed();
+            if (r == null || r instanceof ChannelClosed) break;
+            //noinspection unchecked
+            into.add((T) r);
+            received++;
+        }
+        return received;
+    }
+
+    /**
+     * Attempt to receive at most {@code max} values from the channel, which are immediately
+     * available, adding them to {@code into}.
+     *
+     * <p>This method never blocks or suspends the calling thread. It completes in bounded time.
+     *
+     * <p>May receive fewer values than are available, due to contention with concurrent operations.
+     *
+     * @param max The maximum number of values to receive. Must be positive.
+     * @param into The collection to which the received values are added, in order.
+     * @return The number of received values, between {@code 0} and {@code max}.
+     * @throws ChannelClosedException When the channel is closed, and no values have been received.
+     */
+    default int tryReceiveAtMost(int max, Collection<? super T> into) {
+        var r = tryReceiveAtMostOrClosed(max, into);
+        if (r instanceof ChannelClosed c) throw c.toException();
+        return (Integer) r;
+    }
+
+    /**
+     * Attempt to receive at most {@code max} values from the channel, which are immediately
+     * available, adding them to {@code into}. Doesn't throw exceptions when the channel is closed,
+     * but returns a value.
+     *
+     * <p>This method never blocks or suspends the calling thread. It completes in bounded time.
+     *
+     * @param max The maximum number of values to receive. Must be positive.
+     * @param into The collection to which the received values are added, in order.
+     * @return Either the number of received values (an {@link Integer}, between {@code 0} and
+     *     {@code max}), or {@link ChannelClosed}, when the channel is closed and no values have
+     *     been received.
+     */
+    default Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        if (max <= 0) throw new IllegalArgumentException("max must be positive");
+        var received = 0;
+        while (received < max) {
+            var r = tryReceiveOrClosed();
+            if (r instanceof ChannelClosed) {
+                return received == 0 ? r : received;
+            } else if (r == null) {
+                break;
+            }
+            //noinspection unchecked
+            into.add((T) r);
+            received++;
+        }
+        return received;
+    }
+
     /**
      * Create a clause which can be used in {@link Select#select(SelectClause[])}. The clause will
      * receive a value from the current channel.
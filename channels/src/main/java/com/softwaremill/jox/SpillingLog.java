@@ -0,0 +1,700 @@
+package com.softwaremill.jox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of unlimited channels, which spill values to disk, see {@link
+ * Channel#newSpillingChannel(int, Path, ValueSerializer)}.
+ *
+ * <p>At most {@link #memoryCapacity} values are kept on the heap, in {@link #memory}. When that's
+ * full, sent values are serialized and appended to files in the spill directory ({@link #files}),
+ * each of at most {@link #fileSize} bytes (unless a single value is larger). To preserve the FIFO
+ * order, once any values are spilled, subsequent values are spilled as well, until the files are
+ * drained: the values in memory are always older than the spilled ones. When the in-memory values
+ * are received, the memory is refilled with the oldest spilled values; files are deleted once all
+ * of their values are read.
+ *
+ * <p>Sending never blocks. As reading and writing the files dominates the cost of operations, the
+ * state is guarded by a single lock. Receivers wait in {@link #receiverWaiters}, and a waiter is
+ * woken up for each sent value. A receive select clause is woken up by reserving a value for it
+ * ({@link #reserved}), so that it can't be taken by another receiver before the select's thread
+ * completes the clause.
+ */
+final class SpillingLog<T> implements RingBuffer<T> {
+    static final int DEFAULT_FILE_SIZE = 64 * 1024 * 1024;
+
+    private final int memoryCapacity;
+    private final Path directory;
+    private final ValueSerializer<T> serializer;
+    private final int fileSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guarded by the lock
+
+    /** The oldest values. */
+    private final ArrayDeque<T> memory = new ArrayDeque<>();
+
+    /** The spilled values, in the order of the files. */
+    private final ArrayDeque<SpillFile> files = new ArrayDeque<>();
+
+    private long spilled;
+
+    /** The number of values, which are reserved for selected receive clauses. */
+    private int reserved;
+
+    /** {@link Thread}s or {@link StoredSelectClause}s of the waiting receivers. */
+    private final ArrayDeque<Object> receiverWaiters = new ArrayDeque<>();
+
+    private volatile ChannelClosed closedReason;
+
+    SpillingLog(int memoryCapacity, Path directory, ValueSerializer<T> serializer, int fileSize) {
+        if (memoryCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "The in-memory capacity of a spilling channel must be positive.");
+        }
+        if (fileSize <= Integer.BYTES) {
+            throw new IllegalArgumentException("The spill file size must be greater than 4.");
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.memoryCapacity = memoryCapacity;
+        this.directory = directory;
+        this.serializer = serializer;
+        this.fileSize = fileSize;
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    /**
+     * Appends the values, so that either all, or none of them are appended (when serializing a
+     * value, or writing to a file fails). Must be called while holding the lock.
+     */
+    private void append(List<T> values) {
+        var toMemory = spilled == 0 ? Math.min(values.size(), memoryCapacity - memory.size()) : 0;
+        // serializing before appending anything, so that a failing serializer leaves the log intact
+        var toSpill = new byte[values.size() - toMemory][];
+        for (int i = 0; i < toSpill.length; i++) {
+            toSpill[i] = serializer.serialize(values.get(toMemory + i));
+        }
+
+        var filesBefore = files.size();
+        var lastFile = files.peekLast();
+        var lastFileEnd = lastFile == null ? 0 : lastFile.end();
+        var spilledBefore = spilled;
+        try {
+            for (var bytes : toSpill) {
+                spill(bytes);
+            }
+        } catch (RuntimeException e) {
+            while (files.size() > filesBefore) {
+                files.pollLast().delete();
+            }
+            if (lastFile != null) {
+                lastFile.truncate(lastFileEnd);
+            }
+            spilled = spilledBefore;
+            throw e;
+        }
+        for (int i = 0; i < toMemory; i++) {
+            memory.addLast(values.get(i));
+        }
+    }
+
+    /** Must be called while holding the lock. */
+    private void append(T value) {
+        if (spilled == 0 && memory.size() < memoryCapacity) {
+            memory.addLast(value);
+        } else {
+            spill(serializer.serialize(value));
+        }
+    }
+
+    /** Spills a single value; if writing fails, the files are left intact. */
+    private void spill(byte[] bytes) {
+        var file = files.peekLast();
+        if (file == null || !file.hasSpaceFor(bytes.length)) {
+            var newFile =
+                    SpillFile.create(directory, Math.max(fileSize, Integer.BYTES + bytes.length));
+            try {
+                newFile.write(bytes);
+            } catch (RuntimeException e) {
+                newFile.delete();
+                throw e;
+            }
+            files.addLast(newFile);
+        } else {
+            file.write(bytes);
+        }
+        spilled += 1;
+    }
+
+    /** Must be called while holding the lock, after {@code k} values are appended. */
+    private void wakeReceivers(int k) {
+        while (k > 0 && !receiverWaiters.isEmpty()) {
+            var waiter = receiverWaiters.pollFirst();
+            if (waiter instanceof Thread t) {
+                LockSupport.unpark(t);
+            } else {
+                var ss = (StoredSelectClause) waiter;
+                ss.setPayload(RingMarker.READY);
+                if (!ss.getSelect().trySelect(ss)) {
+                    // another clause has been selected, or the select is re-registering
+                    continue;
+                }
+                reserved += 1;
+            }
+            k -= 1;
+        }
+    }
+
+    @Override
+    public Object sendOrClosed(T value) {
+        return trySendOrClosed(value);
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            var closed = closedReason;
+            if (closed != null) {
+                return closed;
+            }
+            append(value);
+            wakeReceivers(1);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) {
+        var r = trySendAllOrClosed(values);
+        return r instanceof ChannelClosed ? r : null;
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        Channel.requireNoNulls(values);
+        lock.lock();
+        try {
+            var closed = closedReason;
+            if (closed != null) {
+                return closed;
+            }
+            append(values);
+            wakeReceivers(values.size());
+            return values.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    /** Must be called while holding the lock. */
+    private long size() {
+        return memory.size() + spilled;
+    }
+
+    /**
+     * Removes the oldest value. Must be called while holding the lock, when there's a value
+     * available.
+     */
+    private T take() {
+        if (memory.isEmpty()) {
+            refill();
+        }
+        return memory.pollFirst();
+    }
+
+    /** Moves the oldest spilled values to memory. */
+    private void refill() {
+        while (spilled > 0 && memory.size() < memoryCapacity) {
+            var file = files.peekFirst();
+            //noinspection DataFlowIssue
+            memory.addLast(serializer.deserialize(file.read()));
+            spilled -= 1;
+            if (file.isFullyRead() && (files.size() > 1 || spilled == 0)) {
+                files.pollFirst();
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Tries to receive a value, if one is available, or to return the closed reason. Must be called
+     * while holding the lock.
+     *
+     * @return The value, {@link ChannelClosed} or {@code null}.
+     */
+    private Object tryTake() {
+        var closed = closedReason;
+        if (closed instanceof ChannelError) {
+            return closed;
+        }
+        if (size() > reserved) {
+            return take();
+        }
+        if (closed != null && size() == 0) {
+            return closed;
+        }
+        return null;
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        var currentThread = Thread.currentThread();
+        while (true) {
+            lock.lock();
+            try {
+                var r = tryTake();
+                if (r != null) {
+                    return r;
+                }
+                receiverWaiters.addLast(currentThread);
+            } finally {
+                lock.unlock();
+            }
+
+            // woken up by a sender, or by closing the channel
+            LockSupport.park(this);
+
+            lock.lock();
+            try {
+                var removed = receiverWaiters.removeFirstOccurrence(currentThread);
+                if (Thread.interrupted()) {
+                    if (!removed) {
+                        // we've been woken up, as a value has been sent; as we won't receive it,
+                        // passing this on to the other waiting receivers
+                        wakeReceivers(1);
+                    }
+                    throw new InterruptedException();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        lock.lock();
+        try {
+            return tryTake();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        var first = receiveOrClosed();
+        if (first instanceof ChannelClosed) {
+            return first;
+        }
+        //noinspection unchecked
+        into.add((T) first);
+        if (max == 1) {
+            return 1;
+        }
+        var r = tryReceiveAtMostOrClosed(max - 1, into);
+        return r instanceof Integer k ? k + 1 : 1;
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        lock.lock();
+        try {
+            var first = tryTake();
+            if (first == null) {
+                return 0;
+            } else if (first instanceof ChannelClosed) {
+                return first;
+            }
+            //noinspection unchecked
+            into.add((T) first);
+            var k = 1;
+            while (k < max && size() > reserved) {
+                into.add(take());
+                k += 1;
+            }
+            return k;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public Object closeOrClosed(ChannelClosed channelClosed) {
+        lock.lock();
+        try {
+            if (closedReason != null) {
+                return closedReason;
+            }
+            closedReason = channelClosed;
+            if (channelClosed instanceof ChannelError) {
+                discard();
+            }
+
+            for (var waiter : receiverWaiters) {
+                if (waiter instanceof Thread t) {
+                    LockSupport.unpark(t);
+                } else {
+                    var ss = (StoredSelectClause) waiter;
+                    if (channelClosed instanceof ChannelDone && size() > reserved) {
+                        // done, but there are still values to receive
+                        ss.setPayload(RingMarker.READY);
+                        if (ss.getSelect().trySelect(ss)) {
+                            reserved += 1;
+                        }
+                    } else {
+                        ss.getSelect().channelClosed(channelClosed);
+                    }
+                }
+            }
+            receiverWaiters.clear();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards all values (except those reserved for selected clauses, which will still be
+     * received), deleting the spill files.
+     */
+    private void discard() {
+        while (memory.size() < reserved && spilled > 0) {
+            refill();
+        }
+        while (memory.size() > reserved) {
+            memory.pollLast();
+        }
+        for (var file : files) {
+            file.delete();
+        }
+        files.clear();
+        spilled = 0;
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return closedReason;
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        lock.lock();
+        try {
+            var cr = closedReason;
+            if (cr instanceof ChannelDone && size() > 0) {
+                // there are still values to receive
+                return null;
+            }
+            return cr;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Override
+    public Object registerReceive(SelectInstance select, SelectClause<?> clause) {
+        lock.lock();
+        try {
+            var r = tryTake();
+            if (r != null) {
+                return r;
+            }
+            var ss = new StoredSelectClause(select, null, 0, false, clause, null);
+            receiverWaiters.addLast(ss);
+            return ss;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object receiveSelected() {
+        lock.lock();
+        try {
+            // the value has been reserved when selecting the clause
+            reserved -= 1;
+            return take();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object registerSend(SelectInstance select, SelectClause<?> clause, T value) {
+        // sending never blocks
+        var r = trySendOrClosed(value);
+        return r == null ? SentClauseMarker.SENT : r;
+    }
+
+    @Override
+    public void sendSelected(T value) {
+        // send clauses are never stored
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public void cleanupStoredSelectClause(StoredSelectClause ss) {
+        lock.lock();
+        try {
+            receiverWaiters.remove(ss);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "Channel(spilling, memoryCapacity="
+                    + memoryCapacity
+                    + ", closed="
+                    + (closedReason != null)
+                    + ", inMemory="
+                    + memory.size()
+                    + ", spilled="
+                    + spilled
+                    + ", files="
+                    + files.size()
+                    + ")";
+        } finally {
+            lock.unlock();
+        }
+    }
+}
+
+/**
+ * A file, to which spilled values are appended, and then read in the same order. Each record is the
+ * length of the serialized value, followed by its bytes. Small writes and reads are buffered, so
+ * that they don't require a system call each. Not thread-safe.
+ */
+final class SpillFile {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int size;
+
+    /**
+     * The bytes between {@link #flushed} and {@link #end}, which aren't yet written to the file.
+     */
+    private final ByteBuffer writeBuffer;
+
+    /** The bytes starting at {@link #readPosition}, which are already read from the file. */
+    private final ByteBuffer readBuffer;
+
+    private int flushed;
+    private int end;
+    private int readPosition;
+
+    private SpillFile(Path path, FileChannel channel, int size) {
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+        this.writeBuffer = ByteBuffer.allocate(Math.min(size, BUFFER_SIZE));
+        this.readBuffer = ByteBuffer.allocate(Math.min(size, BUFFER_SIZE)).limit(0);
+    }
+
+    static SpillFile create(Path directory, int size) {
+        try {
+            var path = Files.createTempFile(directory, "jox-spill-", ".log");
+            try {
+                var channel =
+                        FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                return new SpillFile(path, channel, size);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(path);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    boolean hasSpaceFor(int length) {
+        return size - end >= Integer.BYTES + length;
+    }
+
+    /** The position, at which the next record will be written. */
+    int end() {
+        return end;
+    }
+
+    /**
+     * Writes a record. If writing fails, the file is left intact: the record is not appended.
+     *
+     * @throws UncheckedIOException When writing to the file fails.
+     */
+    void write(byte[] bytes) {
+        var length = Integer.BYTES + bytes.length;
+        if (writeBuffer.remaining() < length) {
+            flush();
+        }
+        if (writeBuffer.remaining() >= length) {
+            writeBuffer.putInt(bytes.length).put(bytes);
+        } else {
+            // too large to be buffered
+            writeFully(ByteBuffer.allocate(length).putInt(bytes.length).put(bytes).flip(), flushed);
+            flushed += length;
+        }
+        end += length;
+    }
+
+    /**
+     * Discards the records written at, or after the given position (which must be at or after the
+     * records that are read).
+     */
+    void truncate(int position) {
+        if (position >= flushed) {
+            writeBuffer.position(position - flushed);
+        } else {
+            // the discarded bytes which are already written will be overwritten
+            writeBuffer.clear();
+            flushed = position;
+        }
+        end = position;
+    }
+
+    private void flush() {
+        if (writeBuffer.position() > 0) {
+            // writing a copy, so that the buffer is left intact if writing fails
+            writeFully(writeBuffer.duplicate().flip(), flushed);
+            writeBuffer.clear();
+            flushed = end;
+        }
+    }
+
+    private void writeFully(ByteBuffer src, int position) {
+        try {
+            while (src.hasRemaining()) {
+                position += channel.write(src, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @throws UncheckedIOException When reading from the file fails.
+     */
+    byte[] read() {
+        fillReadBuffer(Integer.BYTES);
+        var bytes = new byte[readBuffer.getInt()];
+        readPosition += Integer.BYTES;
+        if (bytes.length <= readBuffer.capacity()) {
+            fillReadBuffer(bytes.length);
+            readBuffer.get(bytes);
+        } else {
+            // too large to be buffered: copying what's buffered, and reading the rest directly
+            var buffered = readBuffer.remaining();
+            readBuffer.get(bytes, 0, buffered);
+            if (end > flushed) {
+                flush();
+            }
+            readFully(
+                    ByteBuffer.wrap(bytes, buffered, bytes.length - buffered),
+                    readPosition + buffered);
+        }
+        readPosition += bytes.length;
+        return bytes;
+    }
+
+    /** Ensures that at least {@code length} bytes at {@link #readPosition} are buffered. */
+    private void fillReadBuffer(int length) {
+        if (readBuffer.remaining() >= length) {
+            return;
+        }
+        var position = readPosition + readBuffer.remaining();
+        readBuffer.compact();
+        readBuffer.limit(Math.min(readBuffer.capacity(), end - readPosition));
+        if (end > flushed) {
+            flush();
+        }
+        readFully(readBuffer, position);
+        readBuffer.flip();
+    }
+
+    private void readFully(ByteBuffer dst, int position) {
+        try {
+            while (dst.hasRemaining()) {
+                var n = channel.read(dst, position);
+                if (n < 0) {
+                    throw new IOException("Unexpected end of spill file: " + path);
+                }
+                position += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    boolean isFullyRead() {
+        return readPosition == end;
+    }
+
+    /**
+     * Closes and deletes the file. Failures are ignored, as they shouldn't fail the channel's
+     * operations; a file which can't be deleted is left in the spill directory.
+     */
+    void delete() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
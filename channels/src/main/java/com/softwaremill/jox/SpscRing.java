@@ -0,0 +1,606 @@
+package com.softwaremill.jox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+The fields which are written by the producer (tail), and by the consumer (head) are placed on separate cache lines, to
+avoid false sharing. As the JVM lays out the fields of a superclass before the fields of a subclass, padding is
+achieved by declaring the fields in a class hierarchy, interleaved with classes which only contain padding fields.
+128 bytes are used, as some CPUs prefetch cache lines in pairs.
+ */
+
+@SuppressWarnings("unused")
+abstract class SpscRingPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+}
+
+abstract class SpscRingProducerFields extends SpscRingPad0 {
+    /** The index of the next element to write. Written only by the producer. */
+    long tail;
+
+    /** The last observed value of {@link SpscRingConsumerFields#head}. Producer-local. */
+    long cachedHead;
+}
+
+@SuppressWarnings("unused")
+abstract class SpscRingPad1 extends SpscRingProducerFields {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+    long p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+}
+
+abstract class SpscRingConsumerFields extends SpscRingPad1 {
+    /** The index of the next element to read. Written only by the consumer. */
+    long head;
+
+    /** The last observed value of {@link SpscRingProducerFields#tail}. Consumer-local. */
+    long cachedTail;
+}
+
+@SuppressWarnings("unused")
+abstract class SpscRingPad2 extends SpscRingConsumerFields {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+    long p28, p29, p2a, p2b, p2c, p2d, p2e, p2f;
+}
+
+/**
+ * Implementation of single-producer, single-consumer channels, see {@link
+ * Channel#newSpscChannel(int)}.
+ *
+ * <p>A bounded ring buffer, where the producer only writes {@code tail} & the element slots, and
+ * the consumer only writes {@code head} (and clears the element slots). Hence, no CAS is needed on
+ * the fast path: elements are published by storing the new value of the counter, and each side
+ * caches the last observed value of the other side's counter, reading it again only when the buffer
+ * appears to be full (producer) or empty (consumer).
+ *
+ * <p>When the buffer is empty (full), the consumer (producer) registers itself as a waiter, and
+ * parks. The counters are stored using volatile semantics, so that after publishing an element (or
+ * freeing space), the other side's waiter field is guaranteed to be observed, if the other side
+ * re-checked the counter after registering (the same pattern as in {@link Continuation}, where the
+ * cell's state is re-checked).
+ *
+ * <p>A waiter is either a {@link Thread} (blocking operations), or a {@link StoredSelectClause}. In
+ * the latter case, the waiting select is notified that the clause might now succeed: selected
+ * receive clauses then receive the element from the buffer, and selected send clauses add the
+ * element to the buffer, in the select's thread. That's always possible, as the select's thread is
+ * the only consumer (producer), and the waiter is notified only after an element is available
+ * (space is available). If the select doesn't pick the clause, the element simply remains in the
+ * buffer.
+ */
+final class SpscRing<T> extends SpscRingPad2 implements RingBuffer<T> {
+    // the buffer is padded at both ends, so that the first and last elements don't share cache
+    // lines with other objects
+    private static final int BUFFER_PAD = 16;
+
+    private final WaitStrategy waitStrategy;
+    private final int capacity;
+    private final int mask;
+    private final Object[] buffer;
+
+    /** {@code null}, {@link Thread} or {@link StoredSelectClause} of the waiting producer. */
+    @SuppressWarnings("unused")
+    private volatile Object producerWaiter;
+
+    /** {@code null}, {@link Thread} or {@link StoredSelectClause} of the waiting consumer. */
+    @SuppressWarnings("unused")
+    private volatile Object consumerWaiter;
+
+    @SuppressWarnings("unused")
+    private volatile ChannelClosed closedReason;
+
+    private static final VarHandle TAIL;
+    private static final VarHandle HEAD;
+    private static final VarHandle PRODUCER_WAITER;
+    private static final VarHandle CONSUMER_WAITER;
+    private static final VarHandle CLOSED_REASON;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TAIL = l.findVarHandle(SpscRingProducerFields.class, "tail", long.class);
+            HEAD = l.findVarHandle(SpscRingConsumerFields.class, "head", long.class);
+            PRODUCER_WAITER = l.findVarHandle(SpscRing.class, "producerWaiter", Object.class);
+            CONSUMER_WAITER = l.findVarHandle(SpscRing.class, "consumerWaiter", Object.class);
+            CLOSED_REASON = l.findVarHandle(SpscRing.class, "closedReason", ChannelClosed.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    SpscRing(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity of a single-producer, single-consumer channel must be positive.");
+        }
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException(
+                    "Capacity of a single-producer, single-consumer channel must be at most 2^30.");
+        }
+        this.waitStrategy = waitStrategy;
+        this.capacity = capacity;
+        var size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.buffer = new Object[size + 2 * BUFFER_PAD];
+    }
+
+    private int index(long i) {
+        return BUFFER_PAD + (int) (i & mask);
+    }
+
+    // ********
+    // Producer
+    // ********
+
+    /**
+     * Adds the value to the buffer, if there's space available. Must only be called by the
+     * producer.
+     */
+    private boolean offer(T value) {
+        var t = tail;
+        if (t - cachedHead >= capacity) {
+            cachedHead = (long) HEAD.getAcquire(this);
+            if (t - cachedHead >= capacity) {
+                return false;
+            }
+        }
+
+        buffer[index(t)] = value;
+        // publishing the element; the volatile write guarantees that the read of the waiter below
+        // is not reordered before the write
+        TAIL.setVolatile(this, t + 1);
+        if (consumerWaiter != null) {
+            wake(CONSUMER_WAITER);
+        }
+        return true;
+    }
+
+    /**
+     * Adds as many values, starting from {@code from}, as there's space available, publishing them
+     * using a single write. Must only be called by the producer.
+     *
+     * @return The number of added values.
+     */
+    private int offerAll(List<T> values, int from) {
+        var t = tail;
+        var remaining = values.size() - from;
+        if (t - cachedHead + remaining > capacity) {
+            cachedHead = (long) HEAD.getAcquire(this);
+        }
+        var k = (int) Math.min(remaining, capacity - (t - cachedHead));
+        if (k <= 0) {
+            return 0;
+        }
+
+        for (int j = 0; j < k; j++) {
+            buffer[index(t + j)] = values.get(from + j);
+        }
+        TAIL.setVolatile(this, t + k);
+        if (consumerWaiter != null) {
+            wake(CONSUMER_WAITER);
+        }
+        return k;
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            var closed = closedReason;
+            if (closed != null) {
+                return closed;
+            }
+            if (offer(value)) {
+                return null;
+            }
+            await(PRODUCER_WAITER);
+        }
+    }
+
+    @Override
+    public Object trySendOrClosed(T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        var closed = closedReason;
+        if (closed != null) {
+            return closed;
+        }
+        return offer(value) ? null : Channel.TRY_SEND_NOT_SENT;
+    }
+
+    @Override
+    public Object sendAllOrClosed(List<T> values) throws InterruptedException {
+        Channel.requireNoNulls(values);
+        var sent = 0;
+        while (sent < values.size()) {
+            var closed = closedReason;
+            if (closed != null) {
+                return closed;
+            }
+            var k = offerAll(values, sent);
+            if (k == 0) {
+                await(PRODUCER_WAITER);
+            }
+            sent += k;
+        }
+        return null;
+    }
+
+    @Override
+    public Object trySendAllOrClosed(List<T> values) {
+        Channel.requireNoNulls(values);
+        var closed = closedReason;
+        if (closed != null) {
+            return closed;
+        }
+        return offerAll(values, 0);
+    }
+
+    // ********
+    // Consumer
+    // ********
+
+    /**
+     * Removes an element from the buffer, if one is available. Must only be called by the consumer.
+     *
+     * @return The element, or {@code null}, if the buffer is empty.
+     */
+    private Object poll() {
+        var h = head;
+        if (h >= cachedTail) {
+            cachedTail = (long) TAIL.getAcquire(this);
+            if (h >= cachedTail) {
+                return null;
+            }
+        }
+
+        var i = index(h);
+        var value = buffer[i];
+        buffer[i] = null;
+        // freeing the space; as in offer(), the volatile write orders the read of the waiter
+        HEAD.setVolatile(this, h + 1);
+        if (producerWaiter != null) {
+            wake(PRODUCER_WAITER);
+        }
+        return value;
+    }
+
+    /**
+     * Removes at most {@code max} elements from the buffer, freeing the space using a single write.
+     * Must only be called by the consumer.
+     *
+     * @return The number of removed elements.
+     */
+    private int pollAll(int max, Collection<? super T> into) {
+        var h = head;
+        if (cachedTail - h < max) {
+            cachedTail = (long) TAIL.getAcquire(this);
+        }
+        var k = (int) Math.min(max, cachedTail - h);
+        if (k <= 0) {
+            return 0;
+        }
+
+        for (int j = 0; j < k; j++) {
+            var i = index(h + j);
+            //noinspection unchecked
+            into.add((T) buffer[i]);
+            buffer[i] = null;
+        }
+        HEAD.setVolatile(this, h + k);
+        if (producerWaiter != null) {
+            wake(PRODUCER_WAITER);
+        }
+        return k;
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        while (true) {
+            // reading the closed reason before inspecting the buffer: if the channel is done,
+            // all elements have been published before closing, so they will be observed below
+            var closed = closedReason;
+            if (closed instanceof ChannelError) {
+                return closed;
+            }
+            var value = poll();
+            if (value != null) {
+                return value;
+            }
+            if (closed != null) {
+                return closed;
+            }
+            await(CONSUMER_WAITER);
+        }
+    }
+
+    @Override
+    public Object tryReceiveOrClosed() {
+        var closed = closedReason;
+        if (closed instanceof ChannelError) {
+            return closed;
+        }
+        var value = poll();
+        if (value != null) {
+            return value;
+        }
+        return closed; // null if not closed
+    }
+
+    @Override
+    public Object receiveAtMostOrClosed(int max, Collection<? super T> into)
+            throws InterruptedException {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        while (true) {
+            var closed = closedReason;
+            if (closed instanceof ChannelError) {
+                return closed;
+            }
+            var k = pollAll(max, into);
+            if (k > 0) {
+                return k;
+            }
+            if (closed != null) {
+                return closed;
+            }
+            await(CONSUMER_WAITER);
+        }
+    }
+
+    @Override
+    public Object tryReceiveAtMostOrClosed(int max, Collection<? super T> into) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        var closed = closedReason;
+        if (closed instanceof ChannelError) {
+            return closed;
+        }
+        var k = pollAll(max, into);
+        if (k == 0 && closed != null) {
+            return closed;
+        }
+        return k;
+    }
+
+    // *******
+    // Waiting
+    // *******
+
+    /**
+     * @param waiterHandle Either {@link #PRODUCER_WAITER}, or {@link #CONSUMER_WAITER}.
+     * @return {@code true}, if the operation of the given side might now succeed: the channel is
+     *     closed, or there's space available in the buffer (producer) or an element available
+     *     (consumer).
+     */
+    private boolean canProceed(VarHandle waiterHandle) {
+        if (closedReason != null) {
+            return true;
+        }
+        if (waiterHandle == PRODUCER_WAITER) {
+            return tail - (long) HEAD.getVolatile(this) < capacity;
+        } else {
+            return (long) TAIL.getVolatile(this) > head;
+        }
+    }
+
+    /**
+     * Waits until the operation of the given side might succeed, using the channel's wait strategy.
+     * Might return spuriously.
+     */
+    private void await(VarHandle waiterHandle) throws InterruptedException {
+        var spinIterations = waitStrategy.spinIterations();
+        var yieldIterations = waitStrategy.yieldIterations();
+        var spins = 0;
+        while (spins < spinIterations) {
+            if (canProceed(waiterHandle)) {
+                waitStrategy.afterWait(spins, false);
+                return;
+            }
+            Thread.onSpinWait();
+            spins += 1;
+        }
+        while (yieldIterations > 0) {
+            if (canProceed(waiterHandle)) {
+                waitStrategy.afterWait(spins, true);
+                return;
+            }
+            Thread.yield();
+            yieldIterations -= 1;
+        }
+
+        var currentThread = Thread.currentThread();
+        waiterHandle.setVolatile(this, currentThread);
+        // re-checking after registering as a waiter: either we observe the element/space/closing,
+        // or the other side will observe the waiter and unpark us
+        while (!canProceed(waiterHandle)) {
+            if (waiterHandle.getVolatile(this) != currentThread) {
+                // woken up by the other side
+                break;
+            }
+
+            LockSupport.park(this);
+
+            if (Thread.interrupted()) {
+                // the operation didn't have any effect yet, so no need to resolve races with the
+                // other side: removing the waiter (unless it's already removed), and throwing
+                waiterHandle.compareAndSet(this, currentThread, null);
+                throw new InterruptedException();
+            }
+        }
+        waiterHandle.compareAndSet(this, currentThread, null);
+        waitStrategy.afterWait(spins, true);
+    }
+
+    /** Wakes up the waiter stored in the given field, if any. */
+    private void wake(VarHandle waiterHandle) {
+        var waiter = waiterHandle.getVolatile(this);
+        if (waiter != null && waiterHandle.compareAndSet(this, waiter, null)) {
+            if (waiter instanceof Thread t) {
+                LockSupport.unpark(t);
+            } else {
+                // if the clause isn't selected, the element/space remains available for
+                // subsequent operations
+                var ss = (StoredSelectClause) waiter;
+                ss.setPayload(RingMarker.READY);
+                ss.getSelect().trySelect(ss);
+            }
+        }
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public Object closeOrClosed(ChannelClosed channelClosed) {
+        if (!CLOSED_REASON.compareAndSet(this, null, channelClosed)) {
+            return closedReason; // already closed
+        }
+
+        wakeOnClose(PRODUCER_WAITER, channelClosed);
+        wakeOnClose(CONSUMER_WAITER, channelClosed);
+        return null;
+    }
+
+    private void wakeOnClose(VarHandle waiterHandle, ChannelClosed channelClosed) {
+        var waiter = waiterHandle.getAndSet(this, null);
+        if (waiter instanceof Thread t) {
+            LockSupport.unpark(t);
+        } else if (waiter instanceof StoredSelectClause ss) {
+            if (!ss.isSender()
+                    && channelClosed instanceof ChannelDone
+                    && (long) TAIL.getVolatile(this) > (long) HEAD.getVolatile(this)) {
+                // done, but there are still elements to receive
+                ss.setPayload(RingMarker.READY);
+                ss.getSelect().trySelect(ss);
+            } else {
+                ss.getSelect().channelClosed(channelClosed);
+            }
+        }
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return closedReason;
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        var cr = closedReason;
+        if (cr instanceof ChannelDone
+                && (long) TAIL.getVolatile(this) > (long) HEAD.getVolatile(this)) {
+            // there are still elements to receive
+            return null;
+        }
+        return cr;
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Override
+    public Object registerReceive(SelectInstance select, SelectClause<?> clause) {
+        while (true) {
+            var closed = closedReason;
+            if (closed instanceof ChannelError) {
+                return closed;
+            }
+            var value = poll();
+            if (value != null) {
+                return value;
+            }
+            if (closed != null) {
+                return closed;
+            }
+
+            var ss = new StoredSelectClause(select, null, 0, false, clause, null);
+            CONSUMER_WAITER.setVolatile(this, ss);
+            if (canProceed(CONSUMER_WAITER) && CONSUMER_WAITER.compareAndSet(this, ss, null)) {
+                // an element became available (or the channel was closed) concurrently; retrying
+                continue;
+            }
+            // otherwise, the producer might have already removed the waiter, calling trySelect -
+            // which will cause the clause to be re-registered, as the select is still registering
+            return ss;
+        }
+    }
+
+    @Override
+    public Object receiveSelected() {
+        var value = poll();
+        if (value == null) {
+            throw new IllegalStateException(
+                    "Selected a receive clause, but no element is available; is the channel used"
+                            + " by multiple consumers?");
+        }
+        return value;
+    }
+
+    @Override
+    public Object registerSend(SelectInstance select, SelectClause<?> clause, T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            var closed = closedReason;
+            if (closed != null) {
+                return closed;
+            }
+            if (offer(value)) {
+                return SentClauseMarker.SENT;
+            }
+
+            var ss = new StoredSelectClause(select, null, 0, true, clause, null);
+            PRODUCER_WAITER.setVolatile(this, ss);
+            if (canProceed(PRODUCER_WAITER) && PRODUCER_WAITER.compareAndSet(this, ss, null)) {
+                // space became available (or the channel was closed) concurrently; retrying
+                continue;
+            }
+            return ss;
+        }
+    }
+
+    @Override
+    public void sendSelected(T value) {
+        if (!offer(value)) {
+            throw new IllegalStateException(
+                    "Selected a send clause, but there's no space in the buffer; is the channel"
+                            + " used by multiple producers?");
+        }
+    }
+
+    @Override
+    public void cleanupStoredSelectClause(StoredSelectClause ss) {
+        (ss.isSender() ? PRODUCER_WAITER : CONSUMER_WAITER).compareAndSet(this, ss, null);
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    @Override
+    public String toString() {
+        return "Channel(spsc, capacity="
+                + capacity
+                + ", closed="
+                + (closedReason != null)
+                + ", head="
+                + (long) HEAD.getVolatile(this)
+                + ", tail="
+                + (long) TAIL.getVolatile(this)
+                + ")";
+    }
+}
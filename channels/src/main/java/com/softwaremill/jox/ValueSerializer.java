@@ -0,0 +1,18 @@
+package com.softwaremill.jox;
+
+/**
+ * Converts values to and from bytes, for channels which store values outside of the heap: when they
+ * are spilled to disk by a channel created using {@link Channel#newSpillingChannel(int,
+ * java.nio.file.Path, ValueSerializer)}, or exchanged with another process using a {@link
+ * MappedChannel}.
+ *
+ * <p>The methods are called by the sending and receiving threads. A spilling channel calls them one
+ * at a time (while holding the channel's lock).
+ *
+ * @param <T> The type of the serialized values.
+ */
+public interface ValueSerializer<T> {
+    byte[] serialize(T value);
+
+    T deserialize(byte[] bytes);
+}
@@ -0,0 +1,171 @@
+package com.softwaremill.jox;
+
+/**
+ * Determines how a thread waits, when a channel operation can't complete immediately (e.g. a
+ * receiver waits for a value, or a sender waits for space in the buffer). Before parking (blocking)
+ * the thread, it might busy-loop for a number of iterations ("spin"), and then yield for a number
+ * of iterations. If in the meantime the operation is resumed by another thread, the cost of parking
+ * and unparking the thread is avoided.
+ *
+ * <p>Spinning is beneficial when the other party typically arrives quickly, and there are enough
+ * CPUs available; otherwise it only wastes CPU time.
+ *
+ * <p>Wait strategies are set per-channel, when the channel is created. By default, rendezvous
+ * channels spin for a number of iterations which depends on the number of available CPUs, while
+ * buffered and unlimited channels park immediately. When {@link Select#select(SelectClause[])}-ing,
+ * the wait strategy is used only if it's shared by the channels of all clauses; otherwise, the
+ * thread parks immediately.
+ *
+ * <p>Implementations must be thread-safe, as a strategy might be used by many threads concurrently.
+ */
+public interface WaitStrategy {
+    /**
+     * @return The number of busy-looping iterations (using {@link Thread#onSpinWait()}), before
+     *     yielding or parking the thread.
+     */
+    int spinIterations();
+
+    /**
+     * @return The number of iterations using {@link Thread#yield()}, after spinning, before parking
+     *     the thread.
+     */
+    default int yieldIterations() {
+        return 0;
+    }
+
+    /**
+     * Called after the waiting thread is resumed; can be used to adapt the strategy to the observed
+     * behavior. Not called if the waiting thread is interrupted.
+     *
+     * @param spins The number of busy-looping iterations that were done, before the thread was
+     *     resumed, or before yielding/parking.
+     * @param parked {@code true}, if the thread had to yield or park, as it wasn't resumed while
+     *     busy-looping.
+     */
+    default void afterWait(int spins, boolean parked) {}
+
+    //
+
+    /** A strategy which parks the thread immediately, without spinning. */
+    static WaitStrategy parkImmediately() {
+        return FixedWaitStrategy.PARK_IMMEDIATELY;
+    }
+
+    /** A strategy which spins for the given number of iterations, and then parks the thread. */
+    static WaitStrategy spinThenPark(int spinIterations) {
+        return spinYieldThenPark(spinIterations, 0);
+    }
+
+    /**
+     * A strategy which spins for the given number of iterations, then yields the thread for the
+     * given number of iterations, and finally parks the thread.
+     */
+    static WaitStrategy spinYieldThenPark(int spinIterations, int yieldIterations) {
+        if (spinIterations < 0 || yieldIterations < 0) {
+            throw new IllegalArgumentException("The number of iterations must be non-negative.");
+        }
+        return new FixedWaitStrategy(spinIterations, yieldIterations);
+    }
+
+    /**
+     * An adaptive strategy, which tunes the number of spin iterations based on the recently
+     * observed hand-off latency, between {@code 0} and {@code 1024} iterations (or always {@code
+     * 0}, if there's a single CPU). See {@link #adaptive(int, int)}.
+     */
+    static WaitStrategy adaptive() {
+        return adaptive(0, Runtime.getRuntime().availableProcessors() == 1 ? 0 : 1 << 10);
+    }
+
+    /**
+     * An adaptive strategy, which tunes the number of spin iterations based on the recently
+     * observed hand-off latency (the time until another thread resumes the waiting one, measured in
+     * spin iterations).
+     *
+     * <p>A moving average of the latency is maintained; the thread spins for twice the average
+     * number of iterations. When spinning is unsuccessful, the latency is estimated to be twice the
+     * number of iterations that were done. If the estimate exceeds {@code maxSpinIterations},
+     * spinning isn't worth it, and the thread parks after {@code minSpinIterations}.
+     *
+     * <p>A new instance should be created for each channel (or group of channels with similar
+     * traffic).
+     */
+    static WaitStrategy adaptive(int minSpinIterations, int maxSpinIterations) {
+        if (minSpinIterations < 0 || maxSpinIterations < minSpinIterations) {
+            throw new IllegalArgumentException(
+                    "Spin iterations must satisfy: 0 <= minSpinIterations <= maxSpinIterations.");
+        }
+        return new AdaptiveWaitStrategy(minSpinIterations, maxSpinIterations);
+    }
+}
+
+record FixedWaitStrategy(int spinIterations, int yieldIterations) implements WaitStrategy {
+    static final FixedWaitStrategy PARK_IMMEDIATELY = new FixedWaitStrategy(0, 0);
+
+    /**
+     * The default strategy for rendezvous channels. {@code 0} spins, if there's a single CPU. When
+     * there's no more than 4 CPUs, we use {@code 128} iterations: this is based on the (limited)
+     * testing that we've done with various systems. Otherwise, we use 1024 iterations.
+     *
+     * <p>For buffered channels, busy-looping is not used by default, as this negatively affects the
+     * performance.
+     *
+     * <p>This might need revisiting when more testing & more benchmarks are available.
+     */
+    static final FixedWaitStrategy RENDEZVOUS_DEFAULT;
+
+    static {
+        var nproc = Runtime.getRuntime().availableProcessors();
+        RENDEZVOUS_DEFAULT =
+                new FixedWaitStrategy((nproc == 1) ? 0 : ((nproc <= 4) ? (1 << 7) : (1 << 10)), 0);
+    }
+}
+
+final class AdaptiveWaitStrategy implements WaitStrategy {
+    // the moving average is updated using a 1/8 weight of the new sample
+    private static final int WEIGHT_SHIFT = 3;
+
+    private final int minSpinIterations;
+    private final int maxSpinIterations;
+
+    // the moving average of the hand-off latency, in spin iterations, scaled by 2^WEIGHT_SHIFT;
+    // updated without synchronization, as lost updates only cause the estimate to be slightly
+    // less accurate
+    private int scaledLatency;
+
+    AdaptiveWaitStrategy(int minSpinIterations, int maxSpinIterations) {
+        this.minSpinIterations = minSpinIterations;
+        this.maxSpinIterations = maxSpinIterations;
+        // initially, spinning for the maximum number of iterations
+        this.scaledLatency = (maxSpinIterations / 2) << WEIGHT_SHIFT;
+    }
+
+    @Override
+    public int spinIterations() {
+        var latency = scaledLatency >> WEIGHT_SHIFT;
+        if (latency > maxSpinIterations) {
+            return minSpinIterations;
+        }
+        return Math.max(minSpinIterations, Math.min(maxSpinIterations, 2 * latency));
+    }
+
+    @Override
+    public void afterWait(int spins, boolean parked) {
+        // if parked, the latency is greater than the number of spins; we don't know by how much,
+        // so assuming twice as much (+1, so that the estimate can grow when not spinning at all);
+        // capping, so that the estimate can quickly come back when the latency decreases
+        var sample = parked ? Math.min(2 * spins + 1, 2 * maxSpinIterations + 1) : spins;
+        var current = scaledLatency;
+        scaledLatency = current + sample - (current >> WEIGHT_SHIFT);
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveWaitStrategy(min="
+                + minSpinIterations
+                + ", max="
+                + maxSpinIterations
+                + ", current="
+                + spinIterations()
+                + ")";
+    }
+}
@@ -1,3 +1,6 @@
 module com.softwaremill.jox {
+    // optional: used by InstrumentedChannel, to report JFR events, when available
+    requires static jdk.jfr;
+
     exports com.softwaremill.jox;
 }
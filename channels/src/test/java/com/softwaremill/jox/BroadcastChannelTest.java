@@ -0,0 +1,479 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.Select.selectOrClosed;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.softwaremill.jox.BroadcastChannel.SlowSubscriberPolicy;
+
+public class BroadcastChannelTest {
+    @Test
+    void shouldRejectInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> BroadcastChannel.newBroadcastChannel(0));
+        assertThrows(
+                IllegalArgumentException.class, () -> BroadcastChannel.newBroadcastChannel(-1));
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldDeliverEachValueToAllSubscribers() throws InterruptedException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s1 = ch.subscribe();
+        var s2 = ch.subscribe();
+
+        // when
+        ch.send("a");
+        ch.send("b");
+
+        // then
+        assertEquals("a", s1.receive());
+        assertEquals("b", s1.receive());
+        assertEquals("a", s2.receive());
+        assertEquals("b", s2.receive());
+        assertNull(s1.tryReceive());
+        assertEquals(2, ch.subscriberCount());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldOnlyDeliverValuesSentAfterSubscribing() throws InterruptedException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s1 = ch.subscribe();
+        ch.send("a");
+
+        // when
+        var s2 = ch.subscribe();
+        ch.send("b");
+
+        // then
+        assertEquals("a", s1.receive());
+        assertEquals("b", s1.receive());
+        assertEquals("b", s2.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldNotBlockWithoutSubscribers() throws InterruptedException {
+        // given
+        BroadcastChannel<Integer> ch = BroadcastChannel.newBroadcastChannel(1);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            ch.send(i);
+        }
+
+        // then
+        var s = ch.subscribe();
+        assertNull(s.tryReceive());
+    }
+
+    @ParameterizedTest
+    @EnumSource(SlowSubscriberPolicy.class)
+    @Timeout(20)
+    void shouldDeliverAllValuesFromManyProducersToManySubscribers(SlowSubscriberPolicy policy)
+            throws InterruptedException, ExecutionException {
+        // given
+        var producers = 4;
+        var subscribers = 4;
+        var count = 10_000;
+        // large enough, so that the subscribers never lag behind with the DROP & SKIP policies
+        var capacity = policy == SlowSubscriberPolicy.BLOCK ? 16 : producers * count;
+        BroadcastChannel<int[]> ch = BroadcastChannel.newBroadcastChannel(capacity, policy);
+
+        scoped(
+                scope -> {
+                    var sources = new ArrayList<Source<int[]>>();
+                    for (int s = 0; s < subscribers; s++) {
+                        sources.add(ch.subscribe());
+                    }
+
+                    // when
+                    var fs = new ArrayList<Future<Void>>();
+                    for (int p = 0; p < producers; p++) {
+                        var producer = p;
+                        fs.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            for (int i = 0; i < count; i++) {
+                                                ch.send(new int[] {producer, i});
+                                            }
+                                        }));
+                    }
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (var f : fs) {
+                                    f.get();
+                                }
+                                ch.done();
+                            });
+
+                    // then
+                    var results = new ArrayList<Future<int[]>>();
+                    for (var source : sources) {
+                        results.add(
+                                fork(
+                                        scope,
+                                        () -> {
+                                            var expected = new int[producers];
+                                            while (true) {
+                                                var r = source.receiveOrClosed();
+                                                if (r instanceof ChannelDone) {
+                                                    return expected;
+                                                }
+                                                var v = (int[]) r;
+                                                // values sent by a single producer are received
+                                                // in order
+                                                assertEquals(expected[v[0]], v[1]);
+                                                expected[v[0]] += 1;
+                                            }
+                                        }));
+                    }
+                    for (var r : results) {
+                        for (var received : r.get()) {
+                            assertEquals(count, received);
+                        }
+                    }
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void block_shouldBlockProducersUntilTheSlowestSubscriberReceives()
+            throws InterruptedException, ExecutionException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(2);
+        var fast = ch.subscribe();
+        var slow = ch.subscribe();
+        ch.send("a");
+        ch.send("b");
+
+        scoped(
+                scope -> {
+                    // when
+                    assertEquals("a", fast.receive());
+                    assertEquals("b", fast.receive());
+                    var f = forkVoid(scope, () -> ch.send("c"));
+                    Thread.sleep(100);
+                    assertFalse(f.isDone());
+                    assertFalse(ch.trySend("c"));
+
+                    // then
+                    assertEquals("a", slow.receive());
+                    f.get();
+                    assertEquals("c", fast.receive());
+                    assertEquals("b", slow.receive());
+                    assertEquals("c", slow.receive());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void block_shouldUnblockProducersWhenTheSlowestSubscriberUnsubscribes()
+            throws InterruptedException, ExecutionException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(1);
+        var s1 = ch.subscribe();
+        var s2 = ch.subscribe();
+        ch.send("a");
+        assertEquals("a", s1.receive());
+
+        scoped(
+                scope -> {
+                    var f = forkVoid(scope, () -> ch.send("b"));
+                    Thread.sleep(100);
+                    assertFalse(f.isDone());
+
+                    // when
+                    s2.done();
+
+                    // then
+                    f.get();
+                    assertEquals("b", s1.receive());
+                    assertEquals(1, ch.subscriberCount());
+                    assertInstanceOf(ChannelDone.class, s2.receiveOrClosed());
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void drop_shouldCloseTheSubscriptionWhichLagsBehind() throws InterruptedException {
+        // given
+        BroadcastChannel<String> ch =
+                BroadcastChannel.newBroadcastChannel(2, SlowSubscriberPolicy.DROP);
+        var fast = ch.subscribe();
+        var slow = ch.subscribe();
+
+        // when
+        for (var v : List.of("a", "b", "c")) {
+            ch.send(v);
+            assertEquals(v, fast.receive());
+        }
+
+        // then
+        var r = slow.receiveOrClosed();
+        assertInstanceOf(ChannelError.class, r);
+        assertInstanceOf(SlowSubscriberException.class, ((ChannelError) r).cause());
+        assertEquals(1, ch.subscriberCount());
+        assertNull(fast.tryReceive());
+    }
+
+    @Test
+    @Timeout(1)
+    void skip_shouldMoveTheSubscriptionWhichLagsBehindForward() throws InterruptedException {
+        // given
+        BroadcastChannel<Integer> ch =
+                BroadcastChannel.newBroadcastChannel(4, SlowSubscriberPolicy.SKIP);
+        var s = ch.subscribe();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            ch.send(i);
+        }
+
+        // then
+        // after sending 4, the subscriber lagged behind by more than the capacity, and has been
+        // moved forward so that it lags behind by half of it
+        assertEquals(3, s.receive());
+        assertEquals(4, s.receive());
+        assertNull(s.tryReceive());
+    }
+
+    @Test
+    @Timeout(2)
+    void skip_shouldNotBlockProducersWhenSubscribersLagBehind() throws InterruptedException {
+        // given
+        BroadcastChannel<Integer> ch =
+                BroadcastChannel.newBroadcastChannel(16, SlowSubscriberPolicy.SKIP);
+        var s = ch.subscribe();
+
+        // when
+        for (int i = 0; i < 100_000; i++) {
+            ch.send(i);
+        }
+        ch.done();
+
+        // then
+        var received = new ArrayList<Integer>();
+        while (s.receiveOrClosed() instanceof Integer i) {
+            received.add(i);
+        }
+        assertTrue(received.size() <= 16);
+        assertEquals(99_999, received.get(received.size() - 1));
+        for (int i = 1; i < received.size(); i++) {
+            assertEquals(received.get(i - 1) + 1, received.get(i));
+        }
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldSpanManySegments() throws InterruptedException, ExecutionException {
+        // given
+        BroadcastChannel<Integer> ch = BroadcastChannel.newBroadcastChannel(3);
+        var s = ch.subscribe();
+        var count = Segment.SEGMENT_SIZE * 10 + 5;
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    ch.send(i);
+                                }
+                                ch.done();
+                            });
+
+                    // then
+                    var batch = new ArrayList<Integer>();
+                    var expected = 0;
+                    while (!(s.receiveAtMostOrClosed(2, batch) instanceof ChannelDone)) {
+                        for (var v : batch) {
+                            assertEquals(expected++, v);
+                        }
+                        batch.clear();
+                    }
+                    assertEquals(count, expected);
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void done_shouldDeliverRemainingValuesBeforeClosingSubscriptions() throws InterruptedException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s = ch.subscribe();
+        ch.send("a");
+        ch.send("b");
+
+        // when
+        ch.done();
+
+        // then
+        assertInstanceOf(ChannelDone.class, ch.sendOrClosed("c"));
+        assertNull(s.closedForReceive());
+        assertEquals("a", s.receive());
+        assertEquals("b", s.receive());
+        var r = s.receiveOrClosed();
+        assertEquals(new ChannelDone(s), r);
+        assertTrue(s.isClosedForReceive());
+        // subscribing after the channel is done
+        assertInstanceOf(ChannelDone.class, ch.subscribe().receiveOrClosed());
+    }
+
+    @Test
+    @Timeout(1)
+    void error_shouldCloseSubscriptionsImmediately() throws InterruptedException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s = ch.subscribe();
+        ch.send("a");
+        var reason = new RuntimeException();
+
+        // when
+        ch.error(reason);
+
+        // then
+        var r = s.receiveOrClosed();
+        assertEquals(new ChannelError(reason, s), r);
+        assertThrows(ChannelErrorException.class, () -> ch.send("b"));
+    }
+
+    @Test
+    @Timeout(2)
+    void done_shouldWakeUpWaitingSubscribers() throws InterruptedException, ExecutionException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s = ch.subscribe();
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, s::receiveOrClosed);
+                    Thread.sleep(100);
+
+                    // when
+                    ch.done();
+
+                    // then
+                    assertInstanceOf(ChannelDone.class, f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void receive_shouldBeInterruptible() throws InterruptedException, ExecutionException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s = ch.subscribe();
+
+        scoped(
+                scope -> {
+                    var f = forkCancelable(scope, s::receive);
+                    Thread.sleep(100);
+
+                    // when
+                    var result = f.cancel();
+
+                    // then
+                    assertInstanceOf(InterruptedException.class, result);
+                    ch.send("a");
+                    assertEquals("a", s.receive());
+                });
+    }
+
+    @Test
+    void subscription_shouldNotSupportSending() {
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s = (Sink<String>) ch.subscribe();
+        assertThrows(UnsupportedOperationException.class, () -> s.send("a"));
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldReceiveFromSubscriptionAfterSuspending()
+            throws InterruptedException, ExecutionException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s = ch.subscribe();
+        Channel<String> other = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, () -> select(s.receiveClause(), other.receiveClause()));
+                    Thread.sleep(100);
+
+                    // when
+                    ch.send("a");
+
+                    // then
+                    assertEquals("a", f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldReturnDoneWhenBroadcastChannelIsDone()
+            throws InterruptedException, ExecutionException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(4);
+        var s = ch.subscribe();
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, () -> selectOrClosed(s.receiveClause()));
+                    Thread.sleep(100);
+
+                    // when
+                    ch.done();
+
+                    // then
+                    assertEquals(new ChannelDone(s), f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldSendWhenSpaceBecomesAvailable()
+            throws InterruptedException, ExecutionException {
+        // given
+        BroadcastChannel<String> ch = BroadcastChannel.newBroadcastChannel(1);
+        var s = ch.subscribe();
+        ch.send("a");
+        Channel<String> other = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    var f =
+                            fork(
+                                    scope,
+                                    () ->
+                                            select(
+                                                    ch.sendClause("b", () -> "broadcast"),
+                                                    other.sendClause("b", () -> "other")));
+                    Thread.sleep(100);
+                    assertFalse(f.isDone());
+
+                    // when
+                    assertEquals("a", s.receive());
+
+                    // then
+                    assertEquals("broadcast", f.get());
+                    assertEquals("b", s.receive());
+                });
+    }
+}
@@ -0,0 +1,283 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ChannelAsyncTest {
+    @Test
+    @Timeout(1)
+    void receiveAsync_shouldCompleteImmediatelyWhenAValueIsBuffered()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(2);
+        ch.send("a");
+
+        // when
+        var f = ch.receiveAsync();
+
+        // then
+        assertTrue(f.isDone());
+        assertEquals("a", f.get());
+    }
+
+    @Test
+    @Timeout(1)
+    void receiveAsync_shouldCompleteWhenAValueIsSent()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var f = ch.receiveAsync();
+        assertFalse(f.isDone());
+
+        // when
+        ch.send("a");
+
+        // then
+        assertEquals("a", f.get());
+    }
+
+    @Test
+    @Timeout(1)
+    void sendAsync_shouldCompleteWhenTheValueIsReceived()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var f = ch.sendAsync("a");
+        assertFalse(f.isDone());
+
+        // when
+        var r = ch.receive();
+
+        // then
+        assertEquals("a", r);
+        assertNull(f.get());
+    }
+
+    @Test
+    @Timeout(1)
+    void sendAsync_shouldCompleteWhenTheBufferExpands()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(1);
+        assertTrue(ch.sendAsync("a").isDone());
+        var f = ch.sendAsync("b");
+        assertFalse(f.isDone());
+
+        // when
+        assertEquals("a", ch.receive());
+
+        // then
+        f.get();
+        assertEquals("b", ch.receive());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 16})
+    @Timeout(5)
+    void shouldServeManyPendingOperationsWithoutBlockingThreads(int capacity)
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.newBufferedChannel(capacity);
+        var count = 10_000;
+
+        // when
+        var receives = new ArrayList<CompletableFuture<Integer>>();
+        for (int i = 0; i < count; i++) {
+            receives.add(ch.receiveAsync());
+        }
+        var sends = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < count; i++) {
+            sends.add(ch.sendAsync(i));
+        }
+
+        // then
+        var received = new HashSet<Integer>();
+        for (var f : receives) {
+            received.add(f.get());
+        }
+        for (var f : sends) {
+            assertTrue(f.isDone());
+        }
+        assertEquals(count, received.size());
+    }
+
+    @Test
+    @Timeout(1)
+    void receiveAsync_shouldCompleteExceptionallyWhenTheChannelIsClosed()
+            throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var f1 = ch.receiveAsync();
+
+        // when
+        ch.done();
+
+        // then
+        var e = assertThrows(ExecutionException.class, f1::get);
+        assertInstanceOf(ChannelDoneException.class, e.getCause());
+        // after closing
+        var f2 = ch.receiveAsync();
+        assertTrue(f2.isCompletedExceptionally());
+    }
+
+    @Test
+    @Timeout(1)
+    void sendAsync_shouldCompleteExceptionallyWhenTheChannelIsClosedWithAnError()
+            throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var f = ch.sendAsync("a");
+
+        // when
+        ch.error(new RuntimeException("boom"));
+
+        // then
+        var e = assertThrows(ExecutionException.class, f::get);
+        assertInstanceOf(ChannelErrorException.class, e.getCause());
+    }
+
+    @Test
+    @Timeout(1)
+    void receiveAsync_cancelShouldWithdrawTheReceive()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(1);
+        var f1 = ch.receiveAsync();
+        var f2 = ch.receiveAsync();
+
+        // when
+        assertTrue(f1.cancel(false));
+        ch.send("a");
+
+        // then
+        assertThrows(CancellationException.class, f1::get);
+        assertEquals("a", f2.get());
+    }
+
+    @Test
+    @Timeout(1)
+    void sendAsync_cancelShouldWithdrawTheSend() throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var f = ch.sendAsync("a");
+
+        // when
+        assertTrue(f.cancel(false));
+
+        // then
+        assertNull(ch.tryReceive());
+        ch.done();
+        assertInstanceOf(ChannelDone.class, ch.receiveOrClosed());
+    }
+
+    @Test
+    @Timeout(1)
+    void cancelShouldNotWithdrawACompletedOperation()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var f = ch.receiveAsync();
+        ch.send("a");
+
+        // when
+        assertFalse(f.cancel(false));
+
+        // then
+        assertEquals("a", f.get());
+    }
+
+    @Test
+    @Timeout(2)
+    void receiveAsync_shouldBeWithdrawnOnTimeout() throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(1);
+        var f = ch.receiveAsync().orTimeout(100, TimeUnit.MILLISECONDS);
+
+        // when
+        var e = assertThrows(ExecutionException.class, f::get);
+
+        // then
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        ch.send("a");
+        assertEquals("a", ch.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void callbacksShouldBeAbleToCloseTheChannel() throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var received = new ArrayList<String>();
+        ch.receiveAsync()
+                .thenAccept(
+                        v -> {
+                            received.add(v);
+                            ch.done();
+                        });
+
+        // when
+        ch.send("a");
+
+        // then
+        assertEquals(List.of("a"), received);
+        assertTrue(ch.isClosedForReceive());
+    }
+
+    @Test
+    @Timeout(1)
+    void callbacksShouldBeAbleToChainOperations() throws InterruptedException {
+        // given
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+        var sum = new CompletableFuture<Integer>();
+        ch.receiveAsync()
+                .thenCompose(a -> ch.receiveAsync().thenApply(b -> a + b))
+                .thenAccept(sum::complete);
+
+        // when
+        ch.send(1);
+        ch.send(2);
+
+        // then
+        assertEquals(3, sum.join());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldInteroperateWithBlockingOperations()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.newBufferedChannel(4);
+        var count = 10_000;
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    ch.send(i);
+                                }
+                            });
+
+                    // then
+                    for (int i = 0; i < count; i++) {
+                        assertEquals(i, ch.receiveAsync().get());
+                    }
+                });
+    }
+}
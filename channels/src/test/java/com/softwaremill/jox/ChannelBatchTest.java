@@ -0,0 +1,386 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class ChannelBatchTest {
+
+    // *******
+    // sendAll
+    // *******
+
+    @Test
+    @Timeout(1)
+    void sendAll_buffered_shouldSendAllValuesInOrder() throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(5);
+
+        // when
+        ch.sendAll(List.of("a", "b", "c"));
+
+        // then
+        assertEquals("a", ch.receive());
+        assertEquals("b", ch.receive());
+        assertEquals("c", ch.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void sendAll_unlimited_shouldSendValuesSpanningMultipleSegments() throws InterruptedException {
+        // given
+        Channel<Integer> ch = Channel.newUnlimitedChannel();
+        var values = IntStream.range(0, 100).boxed().toList();
+
+        // when
+        ch.sendAll(values);
+        ch.done();
+
+        // then
+        assertEquals(values, ch.toList());
+    }
+
+    @Test
+    @Timeout(2)
+    void sendAll_buffered_shouldBlockUntilAllValuesAreReceived()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.newBufferedChannel(2);
+        var values = IntStream.range(0, 10).boxed().toList();
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = forkVoid(scope, () -> ch.sendAll(values));
+
+                    // then
+                    Thread.sleep(100);
+                    assertFalse(f.isDone());
+
+                    var received = new ArrayList<Integer>();
+                    for (int i = 0; i < 10; i++) {
+                        received.add(ch.receive());
+                    }
+                    f.get();
+                    assertEquals(values, received);
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void sendAll_rendezvous_shouldResumeWaitingReceivers()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    var f1 = fork(scope, ch::receive);
+                    var f2 = fork(scope, ch::receive);
+                    Thread.sleep(100); // let the receivers suspend
+
+                    // when
+                    var f3 = forkVoid(scope, () -> ch.sendAll(List.of("a", "b", "c")));
+
+                    // then
+                    assertEquals(
+                            List.of("a", "b"),
+                            List.of(f1.get(), f2.get()).stream().sorted().toList());
+                    assertFalse(f3.isDone()); // no receiver for the third value yet
+                    assertEquals("c", ch.receive());
+                    f3.get();
+                });
+    }
+
+    @Test
+    void sendAll_shouldNotSendAnythingWhenAValueIsNull() {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(5);
+
+        // when
+        assertThrows(NullPointerException.class, () -> ch.sendAll(Arrays.asList("a", null)));
+
+        // then
+        assertNull(ch.tryReceive());
+    }
+
+    @Test
+    void sendAll_shouldThrowWhenClosed() {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(5);
+        ch.done();
+
+        // when & then
+        assertThrows(ChannelDoneException.class, () -> ch.sendAll(List.of("a")));
+        assertInstanceOf(
+                ChannelDone.class, assertDoesNotThrow(() -> ch.sendAllOrClosed(List.of("a"))));
+    }
+
+    // **********
+    // trySendAll
+    // **********
+
+    @Test
+    void trySendAll_buffered_shouldSendAsManyValuesAsThereIsSpaceFor() {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(2);
+
+        // when
+        var sent = ch.trySendAll(List.of("a", "b", "c"));
+
+        // then
+        assertEquals(2, sent);
+        assertEquals("a", ch.tryReceive());
+        assertEquals("b", ch.tryReceive());
+        assertNull(ch.tryReceive());
+    }
+
+    @Test
+    void trySendAll_rendezvous_shouldNotSendWithoutReceivers() {
+        Channel<String> ch = Channel.newRendezvousChannel();
+        assertEquals(0, ch.trySendAll(List.of("a", "b")));
+    }
+
+    @Test
+    void trySendAll_closed_shouldThrowOrReturnClosed() {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(2);
+        ch.error(new RuntimeException("boom"));
+
+        // when & then
+        assertThrows(ChannelErrorException.class, () -> ch.trySendAll(List.of("a")));
+        assertInstanceOf(ChannelError.class, ch.trySendAllOrClosed(List.of("a")));
+    }
+
+    // *************
+    // receiveAtMost
+    // *************
+
+    @Test
+    @Timeout(1)
+    void receiveAtMost_shouldReceiveAllAvailableValuesUpToMax() throws InterruptedException {
+        // given
+        Channel<Integer> ch = Channel.newBufferedChannel(10);
+        ch.sendAll(List.of(1, 2, 3, 4, 5));
+
+        // when
+        var into = new ArrayList<Integer>();
+        var r1 = ch.receiveAtMost(3, into);
+        var r2 = ch.receiveAtMost(3, into);
+
+        // then
+        assertEquals(3, r1);
+        assertEquals(2, r2);
+        assertEquals(List.of(1, 2, 3, 4, 5), into);
+    }
+
+    @Test
+    @Timeout(2)
+    void receiveAtMost_shouldBlockUntilAValueIsAvailable()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    // when
+                    var into = new ArrayList<Integer>();
+                    var f = fork(scope, () -> ch.receiveAtMost(10, into));
+
+                    // then
+                    Thread.sleep(100);
+                    assertFalse(f.isDone());
+
+                    ch.send(1);
+                    assertEquals(1, f.get());
+                    assertEquals(List.of(1), into);
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void receiveAtMost_shouldReceiveBufferedValuesAfterDone() throws InterruptedException {
+        // given
+        Channel<Integer> ch = Channel.newBufferedChannel(10);
+        ch.sendAll(List.of(1, 2, 3));
+        ch.done();
+
+        // when
+        var into = new ArrayList<Integer>();
+        var r1 = ch.receiveAtMostOrClosed(10, into);
+        var r2 = ch.receiveAtMostOrClosed(10, into);
+
+        // then
+        assertEquals(3, r1);
+        assertInstanceOf(ChannelDone.class, r2);
+        assertEquals(List.of(1, 2, 3), into);
+    }
+
+    @Test
+    void receiveAtMost_shouldRejectNonPositiveMax() {
+        Channel<Integer> ch = Channel.newBufferedChannel(10);
+        assertThrows(IllegalArgumentException.class, () -> ch.receiveAtMost(0, new ArrayList<>()));
+        assertThrows(
+                IllegalArgumentException.class, () -> ch.tryReceiveAtMost(-1, new ArrayList<>()));
+    }
+
+    // ****************
+    // tryReceiveAtMost
+    // ****************
+
+    @Test
+    void tryReceiveAtMost_shouldReturnZeroWhenEmpty() {
+        Channel<Integer> ch = Channel.newBufferedChannel(10);
+        assertEquals(0, ch.tryReceiveAtMost(10, new ArrayList<>()));
+    }
+
+    @Test
+    @Timeout(2)
+    void tryReceiveAtMost_shouldResumeWaitingSenders()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    forkVoid(scope, () -> ch.send(1));
+                    forkVoid(scope, () -> ch.send(2));
+                    Thread.sleep(100); // let the senders suspend
+
+                    // when
+                    var into = new ArrayList<Integer>();
+                    var received = ch.tryReceiveAtMost(10, into);
+
+                    // then
+                    assertEquals(2, received);
+                    assertEquals(List.of(1, 2), into.stream().sorted().toList());
+                });
+    }
+
+    @Test
+    void tryReceiveAtMost_closed_shouldThrowOrReturnClosed() {
+        // given
+        Channel<Integer> ch = Channel.newBufferedChannel(10);
+        ch.done();
+
+        // when & then
+        assertThrows(ChannelDoneException.class, () -> ch.tryReceiveAtMost(10, new ArrayList<>()));
+        assertInstanceOf(ChannelDone.class, ch.tryReceiveAtMostOrClosed(10, new ArrayList<>()));
+    }
+
+    // ******
+    // Stress
+    // ******
+
+    @TestWithCapacities
+    @Timeout(30)
+    void shouldDeliverAllValuesExactlyOnce(int capacity)
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<long[]> ch = Channel.newBufferedChannel(capacity);
+        int producers = 4;
+        int consumers = 4;
+        int valuesPerProducer = 10_000;
+        int batchSize = 37;
+
+        var seen = ConcurrentHashMap.<Long>newKeySet();
+
+        scoped(
+                scope -> {
+                    var producerForks = new ArrayList<Future<Void>>();
+                    for (int p = 0; p < producers; p++) {
+                        long producer = p;
+                        producerForks.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            var batch = new ArrayList<long[]>();
+                                            for (long i = 0; i < valuesPerProducer; i++) {
+                                                batch.add(new long[] {producer, i});
+                                                if (batch.size() == batchSize) {
+                                                    ch.sendAll(batch);
+                                                    batch.clear();
+                                                }
+                                            }
+                                            ch.sendAll(batch);
+                                        }));
+                    }
+
+                    var consumerForks = new ArrayList<Future<Integer>>();
+                    for (int c = 0; c < consumers; c++) {
+                        consumerForks.add(
+                                fork(
+                                        scope,
+                                        () -> {
+                                            var count = 0;
+                                            var into = new ArrayList<long[]>();
+                                            while (true) {
+                                                into.clear();
+                                                var r = ch.receiveAtMostOrClosed(batchSize, into);
+                                                if (r instanceof ChannelDone) {
+                                                    return count;
+                                                }
+                                                for (var v : into) {
+                                                    assertTrue(
+                                                            seen.add(
+                                                                    v[0] * valuesPerProducer
+                                                                            + v[1]));
+                                                }
+                                                count += into.size();
+                                            }
+                                        }));
+                    }
+
+                    for (var f : producerForks) {
+                        f.get();
+                    }
+                    ch.done();
+
+                    var total = 0;
+                    for (var f : consumerForks) {
+                        total += f.get();
+                    }
+
+                    // then
+                    assertEquals(producers * valuesPerProducer, total);
+                });
+    }
+
+    @Test
+    @Timeout(10)
+    void shouldPreserveOrderForASingleProducerAndConsumer()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.newBufferedChannel(16);
+        var values = IntStream.range(0, 10_000).boxed().toList();
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < values.size(); i += 100) {
+                                    ch.sendAll(values.subList(i, i + 100));
+                                }
+                                ch.done();
+                            });
+
+                    var received = new ArrayList<Integer>();
+                    while (!(ch.receiveAtMostOrClosed(50, received) instanceof ChannelDone)) {}
+
+                    // then
+                    assertEquals(values, received);
+                });
+    }
+}
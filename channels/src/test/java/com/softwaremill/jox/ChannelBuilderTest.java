@@ -0,0 +1,158 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ChannelBuilderTest {
+    @Test
+    void shouldCreateARendezvousChannelByDefault() {
+        // given
+        Channel<String> ch = Channel.<String>builder().build();
+
+        // then
+        assertTrue(ch.isRendezvous);
+        assertFalse(ch.trySend("a"));
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> Channel.builder().capacity(-1));
+        assertThrows(IllegalArgumentException.class, () -> Channel.builder().segmentSize(0));
+        assertThrows(IllegalArgumentException.class, () -> Channel.builder().segmentSize(3));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.builder().segmentSize(Segment.MAX_SEGMENT_SIZE * 2));
+        assertThrows(NullPointerException.class, () -> Channel.builder().waitStrategy(null));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.builder().overflowPolicy(OverflowPolicy.DROP_OLDEST).build());
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        Channel.builder()
+                                .unlimited()
+                                .overflowPolicy(OverflowPolicy.DROP_OLDEST)
+                                .build());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 64, 1024})
+    @Timeout(2)
+    void bufferedChannel_shouldSendAndReceiveAcrossSegments(int segmentSize)
+            throws InterruptedException {
+        // given
+        Channel<Integer> ch =
+                Channel.<Integer>builder().capacity(100).segmentSize(segmentSize).build();
+
+        // when
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                ch.send(i);
+            }
+            assertFalse(ch.trySend(100));
+
+            // then
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, ch.receive());
+            }
+            assertNull(ch.tryReceive());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 1024})
+    @Timeout(2)
+    void unlimitedChannel_shouldBufferValuesAcrossSegments(int segmentSize)
+            throws InterruptedException {
+        // given
+        Channel<Integer> ch =
+                Channel.<Integer>builder().unlimited().segmentSize(segmentSize).build();
+
+        // when
+        for (int i = 0; i < 3000; i++) {
+            ch.send(i);
+        }
+        ch.done();
+
+        // then
+        var received = new ArrayList<Integer>();
+        ch.forEach(received::add);
+        assertEquals(3000, received.size());
+        assertEquals(2999, received.getLast());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 1024})
+    @Timeout(5)
+    void rendezvousChannel_shouldRemoveSegmentsOfInterruptedOperations(int segmentSize)
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.<String>builder().segmentSize(segmentSize).build();
+
+        scoped(
+                scope -> {
+                    // when
+                    for (int i = 0; i < 2 * segmentSize + 10; i++) {
+                        var f = forkCancelable(scope, () -> ch.send("x"));
+                        Thread.sleep(1);
+                        f.cancel();
+                    }
+                    var f = fork(scope, ch::receive);
+                    ch.send("y");
+
+                    // then
+                    assertEquals("y", f.get());
+                    // segments full of interrupted cells should be removed
+                    assertTrue(countOccurrences(ch.toString(), "Segment{") <= 3, ch.toString());
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldUseTheOverflowPolicy() throws InterruptedException {
+        // given
+        var dropped = new ArrayList<String>();
+        Channel<String> ch =
+                Channel.<String>builder()
+                        .capacity(2)
+                        .segmentSize(1)
+                        .overflowPolicy(OverflowPolicy.DROP_OLDEST, dropped::add)
+                        .build();
+
+        // when
+        ch.send("a");
+        ch.send("b");
+        ch.send("c");
+
+        // then
+        assertEquals("b", ch.receive());
+        assertEquals("c", ch.receive());
+        assertEquals(List.of("a"), dropped);
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldUseTheWaitStrategy() throws InterruptedException, ExecutionException {
+        // given
+        var ws = WaitStrategy.spinYieldThenPark(16, 4);
+        Channel<String> ch = Channel.<String>builder().waitStrategy(ws).segmentSize(8).build();
+
+        // then
+        assertSame(ws, ch.waitStrategy);
+        scoped(
+                scope -> {
+                    var f = fork(scope, ch::receive);
+                    ch.send("a");
+                    assertEquals("a", f.get());
+                });
+    }
+}
@@ -0,0 +1,299 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class ChannelGroupTest {
+    @Test
+    @Timeout(1)
+    void shouldReceiveValuesBufferedBeforeAndAfterJoining() throws InterruptedException {
+        // given
+        Channel<String> ch1 = Channel.newBufferedChannel(4);
+        Channel<String> ch2 = Channel.newBufferedChannel(4);
+        ch1.send("a");
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch1);
+        group.add(ch2);
+
+        // when
+        ch2.send("b");
+
+        // then
+        var received = new HashSet<String>();
+        received.add(group.receive());
+        received.add(group.receive());
+        assertEquals(Set.of("a", "b"), received);
+        assertNull(group.tryReceiveOrClosed());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldRotateFairlyAmongReadyMembers() throws InterruptedException {
+        // given
+        Channel<String> ch1 = Channel.newBufferedChannel(4);
+        Channel<String> ch2 = Channel.newBufferedChannel(4);
+        Channel<String> ch3 = Channel.newBufferedChannel(4);
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch1);
+        group.add(ch2);
+        group.add(ch3);
+        for (int i = 0; i < 3; i++) {
+            ch1.send("a" + i);
+            ch2.send("b" + i);
+            ch3.send("c" + i);
+        }
+
+        // when
+        var received = new ArrayList<String>();
+        for (int i = 0; i < 9; i++) {
+            received.add(group.receive());
+        }
+
+        // then
+        assertEquals(List.of("a0", "b0", "c0", "a1", "b1", "c1", "a2", "b2", "c2"), received);
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldReceiveFromAWaitingRendezvousSender()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch);
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = forkVoid(scope, () -> ch.send("a"));
+
+                    // then
+                    assertEquals("a", group.receive());
+                    f.get();
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldBlockUntilAValueIsSent() throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch1 = Channel.newBufferedChannel(4);
+        Channel<String> ch2 = Channel.newRendezvousChannel();
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch1);
+        group.add(ch2);
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, group::receive);
+                    Thread.sleep(50);
+
+                    // when
+                    ch2.sendOrClosed("b");
+
+                    // then
+                    assertEquals("b", f.get());
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldRemoveDoneMembersAndReturnDoneWhenTheLastOneIsDone() throws InterruptedException {
+        // given
+        Channel<String> ch1 = Channel.newBufferedChannel(4);
+        Channel<String> ch2 = Channel.newBufferedChannel(4);
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch1);
+        group.add(ch2);
+        ch1.send("a");
+        ch1.done();
+
+        // when
+        var r1 = group.receiveOrClosed();
+        ch2.send("b");
+        var r2 = group.receiveOrClosed();
+        ch2.done();
+        var r3 = group.receiveOrClosed();
+
+        // then
+        assertEquals("a", r1);
+        assertEquals("b", r2);
+        assertInstanceOf(ChannelDone.class, r3);
+        assertEquals(0, group.size());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldReturnDoneOnEachReceiveAfterTheGroupIsDone() throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(4);
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch);
+        ch.done();
+
+        // when
+        var r1 = group.receiveOrClosed();
+        var r2 = group.receiveOrClosed();
+        var r3 = group.tryReceiveOrClosed();
+
+        // then
+        assertInstanceOf(ChannelDone.class, r1);
+        assertInstanceOf(ChannelDone.class, r2);
+        assertInstanceOf(ChannelDone.class, r3);
+        assertTrue(group.isClosed());
+        assertThrows(IllegalStateException.class, () -> group.add(Channel.newBufferedChannel(4)));
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldReturnDoneToAllBlockedReceivers() throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch);
+
+        scoped(
+                scope -> {
+                    var f1 = fork(scope, group::receiveOrClosed);
+                    var f2 = fork(scope, group::receiveOrClosed);
+                    Thread.sleep(50);
+
+                    // when
+                    ch.done();
+
+                    // then
+                    assertInstanceOf(ChannelDone.class, f1.get());
+                    assertInstanceOf(ChannelDone.class, f2.get());
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldCloseTheGroupWithTheErrorOfAMember() throws InterruptedException {
+        // given
+        Channel<String> ch1 = Channel.newBufferedChannel(4);
+        Channel<String> ch2 = Channel.newBufferedChannel(4);
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch1);
+        group.add(ch2);
+        var cause = new RuntimeException("boom");
+
+        // when
+        ch1.error(cause);
+
+        // then
+        assertThrows(ChannelErrorException.class, group::receive);
+        assertEquals(0, group.size());
+        ch2.send("b");
+        assertEquals(new ChannelError(cause, ch1), group.receiveOrClosed());
+        assertEquals(new ChannelError(cause, ch1), group.tryReceiveOrClosed());
+        // the remaining member can be used directly
+        assertEquals("b", ch2.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldNotReceiveFromRemovedMembers() throws InterruptedException {
+        // given
+        Channel<String> ch1 = Channel.newBufferedChannel(4);
+        Channel<String> ch2 = Channel.newBufferedChannel(4);
+        ChannelGroup<String> group = ChannelGroup.newChannelGroup();
+        group.add(ch1);
+        group.add(ch2);
+        ch1.send("a");
+
+        // when
+        assertTrue(group.remove(ch1));
+        ch2.send("b");
+
+        // then
+        assertFalse(group.remove(ch1));
+        assertEquals("b", group.receive());
+        assertNull(group.tryReceiveOrClosed());
+        assertEquals("a", ch1.receive());
+        // the channel can join another group
+        ChannelGroup<String> other = ChannelGroup.newChannelGroup();
+        other.add(ch1);
+        ch1.send("c");
+        assertEquals("c", other.receive());
+    }
+
+    @Test
+    void shouldRejectChannelsWhichAreAlreadyMembers() {
+        Channel<String> ch = Channel.newBufferedChannel(4);
+        ChannelGroup<String> group1 = ChannelGroup.newChannelGroup();
+        ChannelGroup<String> group2 = ChannelGroup.newChannelGroup();
+        group1.add(ch);
+        assertThrows(IllegalStateException.class, () -> group1.add(ch));
+        assertThrows(IllegalStateException.class, () -> group2.add(ch));
+        assertEquals(1, group1.size());
+        assertEquals(0, group2.size());
+    }
+
+    @Test
+    @Timeout(20)
+    void shouldReceiveAllValuesFromManyProducers() throws InterruptedException, ExecutionException {
+        // given
+        var channelCount = 200;
+        var perChannel = 500;
+        ChannelGroup<Integer> group = ChannelGroup.newChannelGroup();
+        var channels = new ArrayList<Channel<Integer>>();
+        for (int c = 0; c < channelCount; c++) {
+            Channel<Integer> ch =
+                    c % 2 == 0 ? Channel.newBufferedChannel(4) : Channel.newRendezvousChannel();
+            channels.add(ch);
+            group.add(ch);
+        }
+
+        scoped(
+                scope -> {
+                    for (int c = 0; c < channelCount; c++) {
+                        var ch = channels.get(c);
+                        var base = c * perChannel;
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    for (int i = 0; i < perChannel; i++) {
+                                        ch.send(base + i);
+                                    }
+                                    ch.done();
+                                });
+                    }
+
+                    // when
+                    var received = new ConcurrentLinkedQueue<Integer>();
+                    var consumers = new ArrayList<Future<Void>>();
+                    for (int i = 0; i < 4; i++) {
+                        consumers.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            Object r;
+                                            while (!((r = group.receiveOrClosed())
+                                                    instanceof ChannelDone)) {
+                                                received.add((Integer) r);
+                                            }
+                                        }));
+                    }
+                    // all consumers observe the group being done
+                    for (var consumer : consumers) {
+                        consumer.get();
+                    }
+
+                    // then
+                    assertEquals(channelCount * perChannel, new HashSet<>(received).size());
+                    assertEquals(channelCount * perChannel, received.size());
+                });
+    }
+}
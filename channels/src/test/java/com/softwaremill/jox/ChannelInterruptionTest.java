@@ -51,6 +51,43 @@ public class ChannelInterruptionTest {
                 });
     }
 
+    @Test
+    void testBlockingOperationsInTheSameThreadAfterInterrupt() throws Exception {
+        // given
+        Channel<String> channel = Channel.newRendezvousChannel();
+        var interrupted = new Semaphore(0);
+
+        // when
+        var receiver =
+                Thread.ofVirtual()
+                        .start(
+                                () -> {
+                                    try {
+                                        channel.receive();
+                                    } catch (InterruptedException e) {
+                                        interrupted.release();
+                                    }
+                                    try {
+                                        // the thread's continuation is no longer reused
+                                        for (int i = 0; i < 3; i++) {
+                                            channel.send(channel.receive() + "!");
+                                        }
+                                    } catch (InterruptedException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                });
+        Thread.sleep(100);
+        receiver.interrupt();
+        interrupted.acquire();
+
+        // then
+        for (int i = 0; i < 3; i++) {
+            channel.send("x" + i);
+            assertEquals("x" + i + "!", channel.receive());
+        }
+        receiver.join();
+    }
+
     @Test
     void testRaceInterruptAndSend() throws Exception {
         // when
@@ -0,0 +1,424 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.Select.selectOrClosed;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ChannelMpscTest {
+    @Test
+    void shouldRejectInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> Channel.newMpscChannel(0));
+        assertThrows(IllegalArgumentException.class, () -> Channel.newMpscChannel(-1));
+        assertThrows(IllegalArgumentException.class, () -> Channel.newMpscChannel((1 << 16) + 1));
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldBufferValuesUpToCapacity() throws InterruptedException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(3);
+
+        // when
+        ch.send("a");
+        ch.send("b");
+        ch.send("c");
+
+        // then
+        assertFalse(ch.trySend("d"));
+        assertEquals("a", ch.receive());
+        assertTrue(ch.trySend("d"));
+        assertEquals("b", ch.receive());
+        assertEquals("c", ch.receive());
+        assertEquals("d", ch.receive());
+        assertNull(ch.tryReceive());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 16, 100})
+    @Timeout(20)
+    void shouldDeliverAllValuesFromManyProducers(int capacity)
+            throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<int[]> ch = Channel.newMpscChannel(capacity);
+        var producers = 8;
+        var count = 10_000;
+
+        scoped(
+                scope -> {
+                    // when
+                    var fs = new ArrayList<Future<Void>>();
+                    for (int p = 0; p < producers; p++) {
+                        var producer = p;
+                        fs.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            for (int i = 0; i < count; i++) {
+                                                ch.send(new int[] {producer, i});
+                                            }
+                                        }));
+                    }
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (var f : fs) {
+                                    f.get();
+                                }
+                                ch.done();
+                            });
+
+                    // then
+                    var expected = new int[producers];
+                    while (true) {
+                        var r = ch.receiveOrClosed();
+                        if (r instanceof ChannelDone) {
+                            break;
+                        }
+                        var v = (int[]) r;
+                        // values sent by a single producer are received in order
+                        assertEquals(expected[v[0]], v[1]);
+                        expected[v[0]] += 1;
+                    }
+                    for (int p = 0; p < producers; p++) {
+                        assertEquals(count, expected[p]);
+                    }
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void send_shouldBlockManyProducersUntilSpaceIsAvailable()
+            throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(1);
+        ch.send("a");
+
+        scoped(
+                scope -> {
+                    // when
+                    var f1 = forkVoid(scope, () -> ch.send("b"));
+                    var f2 = forkVoid(scope, () -> ch.send("c"));
+                    Thread.sleep(100);
+                    assertFalse(f1.isDone());
+                    assertFalse(f2.isDone());
+
+                    // then
+                    var received = new HashSet<String>();
+                    received.add(ch.receive());
+                    received.add(ch.receive());
+                    received.add(ch.receive());
+                    f1.get();
+                    f2.get();
+                    assertEquals(Set.of("a", "b", "c"), received);
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void send_interruptedWaitingProducer_shouldNotPreventOthersFromSending()
+            throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(1);
+        ch.send("a");
+
+        scoped(
+                scope -> {
+                    var f1 = forkCancelable(scope, () -> ch.send("b"));
+                    Thread.sleep(50);
+                    var f2 = forkVoid(scope, () -> ch.send("c"));
+                    Thread.sleep(50);
+
+                    // when
+                    assertInstanceOf(InterruptedException.class, f1.cancel());
+
+                    // then
+                    assertEquals("a", ch.receive());
+                    assertEquals("c", ch.receive());
+                    f2.get();
+                    assertNull(ch.tryReceive());
+                });
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Test
+    @Timeout(1)
+    void done_shouldDeliverBufferedValues() throws InterruptedException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(2);
+        ch.send("a");
+
+        // when
+        ch.done();
+
+        // then
+        assertTrue(ch.isClosedForSend());
+        assertFalse(ch.isClosedForReceive());
+        assertEquals("a", ch.receive());
+        assertTrue(ch.isClosedForReceive());
+        assertEquals(new ChannelDone(ch), ch.receiveOrClosed());
+        assertThrows(ChannelDoneException.class, () -> ch.send("b"));
+        assertThrows(ChannelDoneException.class, ch::done);
+    }
+
+    @Test
+    @Timeout(1)
+    void error_shouldDiscardBufferedValues() throws InterruptedException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(2);
+        ch.send("a");
+        var reason = new RuntimeException();
+
+        // when
+        ch.error(reason);
+
+        // then
+        assertTrue(ch.isClosedForReceive());
+        assertEquals(new ChannelError(reason, ch), ch.receiveOrClosed());
+        assertEquals(new ChannelError(reason, ch), ch.sendOrClosed("b"));
+    }
+
+    @Test
+    @Timeout(2)
+    void done_shouldWakeUpWaitingReceiver() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(2);
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, ch::receiveOrClosed);
+                    Thread.sleep(100);
+
+                    // when
+                    ch.done();
+
+                    // then
+                    assertEquals(new ChannelDone(ch), f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void error_shouldWakeUpWaitingSenders() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(1);
+        ch.send("a");
+        var reason = new RuntimeException();
+
+        scoped(
+                scope -> {
+                    var f1 = fork(scope, () -> ch.sendOrClosed("b"));
+                    var f2 = fork(scope, () -> ch.sendOrClosed("c"));
+                    Thread.sleep(100);
+
+                    // when
+                    ch.error(reason);
+
+                    // then
+                    assertEquals(new ChannelError(reason, ch), f1.get());
+                    assertEquals(new ChannelError(reason, ch), f2.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void receive_shouldBeInterruptible() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(2);
+
+        scoped(
+                scope -> {
+                    var f = forkCancelable(scope, ch::receive);
+                    Thread.sleep(100);
+
+                    // when
+                    var result = f.cancel();
+
+                    // then
+                    assertInstanceOf(InterruptedException.class, result);
+                    ch.send("a");
+                    assertEquals("a", ch.receive());
+                });
+    }
+
+    // *****
+    // Batch
+    // *****
+
+    @Test
+    @Timeout(5)
+    void shouldSendAndReceiveBatches() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<Integer> ch = Channel.newMpscChannel(8);
+        var values = IntStream.range(0, 1000).boxed().toList();
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < values.size(); i += 50) {
+                                    ch.sendAll(values.subList(i, i + 50));
+                                }
+                                ch.done();
+                            });
+
+                    // then
+                    var received = new ArrayList<Integer>();
+                    while (!(ch.receiveAtMostOrClosed(7, received) instanceof ChannelDone)) {}
+                    assertEquals(values, received);
+                });
+    }
+
+    @Test
+    void trySendAll_shouldSendAsManyValuesAsThereIsSpaceFor() {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(2);
+
+        // when
+        var sent = ch.trySendAll(List.of("a", "b", "c"));
+
+        // then
+        assertEquals(2, sent);
+        var received = new ArrayList<String>();
+        assertEquals(2, ch.tryReceiveAtMost(10, received));
+        assertEquals(List.of("a", "b"), received);
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Test
+    @Timeout(2)
+    void select_shouldReceiveAfterSuspending() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch1 = Channel.newMpscChannel(2);
+        RingChannel<String> ch2 = Channel.newMpscChannel(2);
+
+        scoped(
+                scope -> {
+                    // when
+                    var f =
+                            fork(
+                                    scope,
+                                    () ->
+                                            select(
+                                                    ch1.receiveClause(v -> "1" + v),
+                                                    ch2.receiveClause(v -> "2" + v)));
+                    Thread.sleep(100);
+                    ch2.send("x");
+
+                    // then
+                    assertEquals("2x", f.get());
+                    // the other channel should still be usable
+                    ch1.send("y");
+                    assertEquals("y", ch1.receive());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldSendAfterSuspending() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch1 = Channel.newMpscChannel(1);
+        RingChannel<String> ch2 = Channel.newMpscChannel(1);
+        ch1.send("a");
+        ch2.send("b");
+
+        scoped(
+                scope -> {
+                    // when
+                    var f =
+                            fork(
+                                    scope,
+                                    () ->
+                                            select(
+                                                    ch1.sendClause("c", () -> 1),
+                                                    ch2.sendClause("d", () -> 2)));
+                    Thread.sleep(100);
+                    assertEquals("b", ch2.receive());
+
+                    // then
+                    assertEquals(2, f.get());
+                    assertEquals("d", ch2.receive());
+                    assertEquals("a", ch1.receive());
+                    assertNull(ch1.tryReceive());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldReturnDoneWhenChannelIsDone()
+            throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newMpscChannel(2);
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = fork(scope, () -> selectOrClosed(ch.receiveClause()));
+                    Thread.sleep(100);
+                    ch.done();
+
+                    // then
+                    assertEquals(new ChannelDone(ch), f.get());
+                });
+    }
+
+    @Test
+    @Timeout(20)
+    void select_shouldSendAllValuesWhenCompetingWithOtherProducers()
+            throws InterruptedException, ExecutionException {
+        // given
+        var count = 10_000;
+        RingChannel<Integer> ch = Channel.newMpscChannel(2);
+        Channel<Integer> other = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    ch.send(i);
+                                }
+                            });
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = count; i < 2 * count; i++) {
+                                    // the other channel never has a receiver
+                                    select(ch.sendClause(i), other.sendClause(-1));
+                                }
+                            });
+
+                    // then
+                    var received = ConcurrentHashMap.<Integer>newKeySet();
+                    for (int i = 0; i < 2 * count; i++) {
+                        received.add(ch.receive());
+                    }
+                    assertEquals(2 * count, received.size());
+                    assertNull(ch.tryReceive());
+                });
+    }
+}
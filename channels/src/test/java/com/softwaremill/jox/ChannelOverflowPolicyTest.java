@@ -0,0 +1,243 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class ChannelOverflowPolicyTest {
+    @Test
+    void shouldRejectInvalidCapacity() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.newBufferedChannel(0, OverflowPolicy.DROP_OLDEST));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.newBufferedChannel(-1, OverflowPolicy.DROP_LATEST));
+    }
+
+    @Test
+    @Timeout(1)
+    void conflated_shouldKeepOnlyTheLatestValue() throws InterruptedException {
+        // given
+        var dropped = new ArrayList<String>();
+        Channel<String> ch = Channel.newConflatedChannel(dropped::add);
+
+        // when
+        ch.send("a");
+        ch.send("b");
+        ch.send("c");
+
+        // then
+        assertEquals("c", ch.receive());
+        assertNull(ch.tryReceive());
+        assertEquals(List.of("a", "b"), dropped);
+    }
+
+    @Test
+    @Timeout(1)
+    void dropOldest_shouldDropTheOldestBufferedValues() throws InterruptedException {
+        // given
+        var dropped = new ArrayList<Integer>();
+        Channel<Integer> ch =
+                Channel.newBufferedChannel(3, OverflowPolicy.DROP_OLDEST, dropped::add);
+
+        // when
+        for (int i = 1; i <= 5; i++) {
+            ch.send(i);
+        }
+
+        // then
+        assertEquals(3, ch.receive());
+        assertEquals(4, ch.receive());
+        assertEquals(5, ch.receive());
+        assertNull(ch.tryReceive());
+        assertEquals(List.of(1, 2), dropped);
+    }
+
+    @Test
+    @Timeout(1)
+    void dropLatest_shouldDropTheSentValues() throws InterruptedException {
+        // given
+        var dropped = new ArrayList<Integer>();
+        Channel<Integer> ch =
+                Channel.newBufferedChannel(3, OverflowPolicy.DROP_LATEST, dropped::add);
+
+        // when
+        for (int i = 1; i <= 5; i++) {
+            ch.send(i);
+        }
+
+        // then
+        assertEquals(1, ch.receive());
+        assertEquals(2, ch.receive());
+        assertEquals(3, ch.receive());
+        assertNull(ch.tryReceive());
+        assertEquals(List.of(4, 5), dropped);
+    }
+
+    @ParameterizedTest
+    @EnumSource(OverflowPolicy.class)
+    @Timeout(1)
+    void shouldWorkWithoutCallback(OverflowPolicy policy) throws InterruptedException {
+        // given
+        Channel<Integer> ch = Channel.newBufferedChannel(1, policy);
+
+        // when
+        assertTrue(ch.trySend(1));
+        assertTrue(ch.trySend(2));
+
+        // then
+        assertEquals(policy == OverflowPolicy.DROP_OLDEST ? 2 : 1, ch.receive());
+    }
+
+    @ParameterizedTest
+    @EnumSource(OverflowPolicy.class)
+    @Timeout(2)
+    void shouldSendToAWaitingReceiver(OverflowPolicy policy)
+            throws InterruptedException, ExecutionException {
+        // given
+        var dropped = new ArrayList<String>();
+        Channel<String> ch = Channel.newBufferedChannel(1, policy, dropped::add);
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, ch::receive);
+                    Thread.sleep(100);
+
+                    // when
+                    ch.send("a");
+
+                    // then
+                    assertEquals("a", f.get());
+                    assertTrue(dropped.isEmpty());
+                });
+    }
+
+    @ParameterizedTest
+    @EnumSource(OverflowPolicy.class)
+    @Timeout(1)
+    void sendAll_shouldDropValuesWhichDoNotFit(OverflowPolicy policy) throws InterruptedException {
+        // given
+        var dropped = new ArrayList<Integer>();
+        Channel<Integer> ch = Channel.newBufferedChannel(2, policy, dropped::add);
+
+        // when
+        ch.sendAll(List.of(1, 2, 3, 4));
+        var sent = ch.trySendAll(List.of(5));
+
+        // then
+        assertEquals(1, sent);
+        var received = new ArrayList<Integer>();
+        ch.tryReceiveAtMost(10, received);
+        if (policy == OverflowPolicy.DROP_OLDEST) {
+            assertEquals(List.of(4, 5), received);
+            assertEquals(List.of(1, 2, 3), dropped);
+        } else {
+            assertEquals(List.of(1, 2), received);
+            assertEquals(List.of(3, 4, 5), dropped);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(OverflowPolicy.class)
+    @Timeout(1)
+    void done_shouldKeepTheBufferedValues(OverflowPolicy policy) throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(1, policy);
+        ch.send("a");
+
+        // when
+        ch.done();
+
+        // then
+        assertInstanceOf(ChannelDone.class, ch.sendOrClosed("b"));
+        assertEquals("a", ch.receive());
+        assertInstanceOf(ChannelDone.class, ch.receiveOrClosed());
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldAlwaysSelectTheSendClause() throws InterruptedException {
+        // given
+        var dropped = new ArrayList<String>();
+        Channel<String> ch = Channel.newConflatedChannel(dropped::add);
+        Channel<String> other = Channel.newRendezvousChannel();
+
+        // when
+        var r1 = select(other.sendClause("x", () -> "other"), ch.sendClause("a", () -> "ch"));
+        var r2 = select(other.sendClause("x", () -> "other"), ch.sendClause("b", () -> "ch"));
+
+        // then
+        assertEquals("ch", r1);
+        assertEquals("ch", r2);
+        assertEquals("b", ch.receive());
+        assertEquals(List.of("a"), dropped);
+    }
+
+    @ParameterizedTest
+    @EnumSource(OverflowPolicy.class)
+    @Timeout(20)
+    void shouldAccountForAllValuesWithConcurrentProducersAndConsumers(OverflowPolicy policy)
+            throws InterruptedException, ExecutionException {
+        // given
+        var producers = 4;
+        var consumers = 4;
+        var count = 10_000;
+        var droppedCount = new AtomicLong();
+        Channel<Integer> ch =
+                Channel.newBufferedChannel(4, policy, v -> droppedCount.incrementAndGet());
+        var received = new ConcurrentLinkedQueue<Integer>();
+
+        scoped(
+                scope -> {
+                    // when
+                    var cs = new ArrayList<Future<Void>>();
+                    for (int c = 0; c < consumers; c++) {
+                        cs.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            Object r;
+                                            while (!((r = ch.receiveOrClosed())
+                                                    instanceof ChannelDone)) {
+                                                received.add((Integer) r);
+                                            }
+                                        }));
+                    }
+                    var ps = new ArrayList<Future<Void>>();
+                    for (int p = 0; p < producers; p++) {
+                        ps.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            for (int i = 0; i < count; i++) {
+                                                ch.send(i);
+                                            }
+                                        }));
+                    }
+                    for (var p : ps) {
+                        p.get();
+                    }
+                    ch.done();
+                    for (var c : cs) {
+                        c.get();
+                    }
+
+                    // then
+                    // each value is either received, or dropped, exactly once
+                    assertEquals((long) producers * count, received.size() + droppedCount.get());
+                });
+    }
+}
@@ -0,0 +1,295 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class ChannelResizableTest {
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> Channel.builder().resizable().build());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.builder().unlimited().resizable().build());
+        assertThrows(
+                IllegalArgumentException.class, () -> Channel.builder().autoTunedCapacity(0, 4));
+        assertThrows(
+                IllegalArgumentException.class, () -> Channel.builder().autoTunedCapacity(8, 4));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.builder().capacity(16).autoTunedCapacity(1, 8).build());
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        Channel.builder()
+                                .autoTunedCapacity(1, 8)
+                                .overflowPolicy(OverflowPolicy.DROP_LATEST)
+                                .build());
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> Channel.newBufferedChannel(4).setCapacity(8));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.builder().capacity(4).resizable().build().setCapacity(0));
+    }
+
+    @Test
+    void shouldReportTheCapacity() {
+        assertEquals(0, Channel.newRendezvousChannel().capacity());
+        assertEquals(-1, Channel.newUnlimitedChannel().capacity());
+        assertEquals(4, Channel.newBufferedChannel(4).capacity());
+        assertEquals(2, Channel.builder().autoTunedCapacity(2, 8).build().capacity());
+    }
+
+    @Test
+    void shouldBufferMoreValuesAfterGrowing() throws InterruptedException {
+        // given
+        Channel<Integer> ch = Channel.<Integer>builder().capacity(2).resizable().build();
+        assertTrue(ch.trySend(1));
+        assertTrue(ch.trySend(2));
+        assertFalse(ch.trySend(3));
+
+        // when
+        ch.setCapacity(4);
+
+        // then
+        assertEquals(4, ch.capacity());
+        assertTrue(ch.trySend(3));
+        assertTrue(ch.trySend(4));
+        assertFalse(ch.trySend(5));
+        assertEquals(List.of(1, 2, 3, 4), receive(ch, 4));
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldResumeBlockedSendersWhenGrowing() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.<Integer>builder().capacity(1).resizable().build();
+        ch.send(1);
+
+        scoped(
+                scope -> {
+                    var f1 = forkVoid(scope, () -> ch.send(2));
+                    var f2 = forkVoid(scope, () -> ch.send(3));
+                    Thread.sleep(100);
+                    assertFalse(f1.isDone());
+                    assertFalse(f2.isDone());
+
+                    // when
+                    ch.setCapacity(3);
+
+                    // then
+                    f1.get();
+                    f2.get();
+                    assertEquals(List.of(1), receive(ch, 1));
+                    assertEquals(2, new HashSet<>(receive(ch, 2)).size());
+                    assertNull(ch.tryReceive());
+                });
+    }
+
+    @Test
+    void shouldKeepBufferedValuesWhenShrinking() throws InterruptedException {
+        // given
+        Channel<Integer> ch = Channel.<Integer>builder().capacity(4).resizable().build();
+        for (int i = 1; i <= 4; i++) {
+            ch.send(i);
+        }
+
+        // when
+        ch.setCapacity(1);
+
+        // then
+        assertEquals(1, ch.capacity());
+        // the buffer only has space once the excess values are received
+        assertEquals(List.of(1, 2, 3), receive(ch, 3));
+        assertFalse(ch.trySend(5));
+        assertEquals(List.of(4), receive(ch, 1));
+        assertTrue(ch.trySend(5));
+        assertFalse(ch.trySend(6));
+        assertEquals(List.of(5), receive(ch, 1));
+    }
+
+    @Test
+    void shouldCancelShrinkingWhenGrowing() throws InterruptedException {
+        // given
+        Channel<Integer> ch = Channel.<Integer>builder().capacity(4).resizable().build();
+        for (int i = 1; i <= 4; i++) {
+            ch.send(i);
+        }
+
+        // when
+        ch.setCapacity(1);
+        ch.setCapacity(2);
+        ch.setCapacity(3);
+
+        // then
+        assertEquals(List.of(1, 2), receive(ch, 2));
+        assertTrue(ch.trySend(5));
+        assertFalse(ch.trySend(6));
+        assertEquals(List.of(3, 4, 5), receive(ch, 3));
+    }
+
+    @Test
+    @Timeout(5)
+    void autoTuned_shouldGrowWhenSendersBlock() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.<Integer>builder().autoTunedCapacity(1, 64).build();
+        var count = 10_000;
+
+        scoped(
+                scope -> {
+                    // when
+                    var f =
+                            forkVoid(
+                                    scope,
+                                    () -> {
+                                        for (int i = 0; i < count; i++) {
+                                            ch.send(i);
+                                        }
+                                    });
+                    // a slow receiver
+                    for (int i = 0; i < count; i++) {
+                        assertEquals(i, ch.receive());
+                        if (i % 100 == 0) {
+                            Thread.sleep(1);
+                        }
+                    }
+                    f.get();
+
+                    // then
+                    assertTrue(ch.capacity() > 1, "capacity: " + ch.capacity());
+                });
+    }
+
+    @Test
+    @Timeout(5)
+    void autoTuned_shouldShrinkWhenTheBufferStaysEmpty()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch =
+                Channel.<Integer>builder().capacity(64).autoTunedCapacity(2, 64).build();
+        var count = 2_000;
+
+        scoped(
+                scope -> {
+                    // when
+                    var f =
+                            fork(
+                                    scope,
+                                    () -> {
+                                        var sum = 0;
+                                        for (int i = 0; i < count; i++) {
+                                            sum += ch.receive();
+                                        }
+                                        return sum;
+                                    });
+                    // a slow sender
+                    for (int i = 0; i < count; i++) {
+                        ch.send(1);
+                        if (i % 4 == 0) {
+                            Thread.sleep(0, 100_000);
+                        }
+                    }
+
+                    // then
+                    assertEquals(count, f.get());
+                    assertTrue(ch.capacity() < 64, "capacity: " + ch.capacity());
+                });
+    }
+
+    @Test
+    @Timeout(30)
+    void shouldSendAndReceiveAllValuesWhenResizedConcurrently()
+            throws InterruptedException, ExecutionException {
+        for (var autoTuned : List.of(false, true)) {
+            // given
+            var builder = Channel.<Integer>builder().capacity(4).segmentSize(4);
+            Channel<Integer> ch =
+                    autoTuned
+                            ? builder.autoTunedCapacity(1, 32).build()
+                            : builder.resizable().build();
+            var producers = 4;
+            var perProducer = 5_000;
+            var received = new ConcurrentLinkedQueue<Integer>();
+            var running = new AtomicBoolean(true);
+
+            scoped(
+                    scope -> {
+                        // when
+                        var ps = new ArrayList<Future<Void>>();
+                        for (int p = 0; p < producers; p++) {
+                            var base = p * perProducer;
+                            ps.add(
+                                    forkVoid(
+                                            scope,
+                                            () -> {
+                                                for (int i = 0; i < perProducer; i++) {
+                                                    ch.send(base + i);
+                                                }
+                                            }));
+                        }
+                        var cs = new ArrayList<Future<Void>>();
+                        for (int c = 0; c < 2; c++) {
+                            cs.add(
+                                    forkVoid(
+                                            scope,
+                                            () -> {
+                                                Object r;
+                                                while (!((r = ch.receiveOrClosed())
+                                                        instanceof ChannelDone)) {
+                                                    received.add((Integer) r);
+                                                }
+                                            }));
+                        }
+                        var resizers = new ArrayList<Future<Void>>();
+                        for (int r = 0; r < 2; r++) {
+                            var seed = r;
+                            resizers.add(
+                                    forkVoid(
+                                            scope,
+                                            () -> {
+                                                var n = seed;
+                                                while (running.get()) {
+                                                    ch.setCapacity(1 + (n++ * 7) % 16);
+                                                    Thread.yield();
+                                                }
+                                            }));
+                        }
+
+                        for (var p : ps) {
+                            p.get();
+                        }
+                        running.set(false);
+                        for (var r : resizers) {
+                            r.get();
+                        }
+                        ch.done();
+                        for (var c : cs) {
+                            c.get();
+                        }
+
+                        // then
+                        assertEquals(producers * perProducer, received.size());
+                        assertEquals(producers * perProducer, new HashSet<>(received).size());
+                    });
+        }
+    }
+
+    private static List<Integer> receive(Channel<Integer> ch, int n) throws InterruptedException {
+        var result = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++) {
+            result.add(ch.receive());
+        }
+        return result;
+    }
+}
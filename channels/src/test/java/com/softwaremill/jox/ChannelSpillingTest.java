@@ -0,0 +1,352 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ChannelSpillingTest {
+    private static final ValueSerializer<String> STRINGS =
+            new ValueSerializer<>() {
+                @Override
+                public byte[] serialize(String value) {
+                    return value.getBytes(StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public String deserialize(byte[] bytes) {
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            };
+
+    @TempDir Path dir;
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(
+                IllegalArgumentException.class, () -> Channel.newSpillingChannel(0, dir, STRINGS));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.newSpillingChannel(4, dir.resolve("missing"), STRINGS));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Channel.newSpillingChannel(4, dir, STRINGS, 4));
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldReceiveSpilledValuesInOrderAndDeleteTheFiles()
+            throws InterruptedException, IOException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(4, dir, STRINGS, 64);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            ch.send("v" + i);
+        }
+
+        // then
+        assertTrue(fileCount() > 1);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("v" + i, ch.receive());
+        }
+        assertNull(ch.tryReceive());
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldPreserveTheOrderWhenSendingAndReceivingInterleaved()
+            throws InterruptedException, IOException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(3, dir, STRINGS, 32);
+        var next = 0;
+        var expected = 0;
+
+        // when
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 7; i++) {
+                ch.send("v" + next++);
+            }
+            for (int i = 0; i < 5; i++) {
+                // then
+                assertEquals("v" + expected++, ch.receive());
+            }
+        }
+        while (expected < next) {
+            assertEquals("v" + expected++, ch.receive());
+        }
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldSpillValuesLargerThanAFile() throws InterruptedException, IOException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(1, dir, STRINGS, 16);
+        var large = "x".repeat(1000);
+
+        // when
+        ch.send("a");
+        ch.send(large);
+        ch.send("b");
+
+        // then
+        assertEquals(List.of("a", large, "b"), List.of(ch.receive(), ch.receive(), ch.receive()));
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldSpillValuesLargerThanTheBuffers() throws InterruptedException, IOException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(1, dir, STRINGS, 1024 * 1024);
+        var large = "x".repeat(100_000);
+
+        // when
+        ch.send("a");
+        ch.send("b");
+        ch.send(large);
+        ch.send("c");
+
+        // then
+        assertEquals("a", ch.receive());
+        assertEquals("b", ch.receive());
+        ch.send(large + "y");
+        assertEquals(large, ch.receive());
+        assertEquals("c", ch.receive());
+        assertEquals(large + "y", ch.receive());
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldNotAppendAnyValuesOfABatchWhenSerializingOneFails()
+            throws InterruptedException, IOException {
+        // given
+        var failing =
+                new ValueSerializer<String>() {
+                    @Override
+                    public byte[] serialize(String value) {
+                        if (value.equals("fail")) {
+                            throw new IllegalArgumentException("boom");
+                        }
+                        return STRINGS.serialize(value);
+                    }
+
+                    @Override
+                    public String deserialize(byte[] bytes) {
+                        return STRINGS.deserialize(bytes);
+                    }
+                };
+        RingChannel<String> ch = Channel.newSpillingChannel(2, dir, failing, 64);
+        ch.send("a");
+
+        // when
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> ch.sendAll(List.of("b", "c", "d", "fail", "e")));
+        ch.sendAll(List.of("f", "g", "h"));
+
+        // then
+        var received = new ArrayList<String>();
+        ch.tryReceiveAtMost(10, received);
+        assertEquals(List.of("a", "f", "g", "h"), received);
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldReceiveBatches() throws InterruptedException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(2, dir, STRINGS);
+        ch.sendAll(List.of("a", "b", "c", "d", "e"));
+
+        // when
+        var received = new ArrayList<String>();
+        var r1 = ch.receiveAtMost(3, received);
+        var r2 = ch.tryReceiveAtMost(10, received);
+
+        // then
+        assertEquals(3, r1);
+        assertEquals(2, r2);
+        assertEquals(List.of("a", "b", "c", "d", "e"), received);
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldWakeUpAWaitingReceiver() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(2, dir, STRINGS);
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, ch::receive);
+                    Thread.sleep(50);
+
+                    // when
+                    ch.send("a");
+
+                    // then
+                    assertEquals("a", f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldReceiveRemainingValuesWhenDone() throws InterruptedException, IOException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(1, dir, STRINGS, 64);
+        ch.send("a");
+        ch.send("b");
+
+        // when
+        ch.done();
+
+        // then
+        assertNull(ch.closedForReceive());
+        assertEquals("a", ch.receive());
+        assertEquals("b", ch.receive());
+        assertInstanceOf(ChannelDone.class, ch.receiveOrClosed());
+        assertInstanceOf(ChannelDone.class, ch.sendOrClosed("c"));
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldDeleteTheFilesWhenClosedWithAnError() throws InterruptedException, IOException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(1, dir, STRINGS, 64);
+        for (int i = 0; i < 100; i++) {
+            ch.send("v" + i);
+        }
+        assertTrue(fileCount() > 0);
+
+        // when
+        ch.error(new RuntimeException("boom"));
+
+        // then
+        assertInstanceOf(ChannelError.class, ch.receiveOrClosed());
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldSelectFromASpillingChannel() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch1 = Channel.newSpillingChannel(1, dir, STRINGS);
+        Channel<String> ch2 = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, () -> select(ch1.receiveClause(), ch2.receiveClause()));
+                    Thread.sleep(50);
+
+                    // when
+                    ch1.send("a");
+                    ch1.send("b");
+
+                    // then
+                    assertEquals("a", f.get());
+                    assertEquals("b", select(ch1.receiveClause(), ch2.receiveClause()));
+                    assertEquals("sent", select(ch1.sendClause("c", () -> "sent")));
+                    assertEquals("c", ch1.receive());
+                });
+    }
+
+    @Test
+    @Timeout(20)
+    void shouldReceiveAllValuesFromManyProducersInOrder()
+            throws InterruptedException, ExecutionException, IOException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(16, dir, STRINGS, 1024);
+        var producers = 4;
+        var perProducer = 10_000;
+        var received = new ConcurrentLinkedQueue<String>();
+
+        scoped(
+                scope -> {
+                    // when
+                    var ps = new ArrayList<Future<Void>>();
+                    for (int p = 0; p < producers; p++) {
+                        var producer = p;
+                        ps.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            for (int i = 0; i < perProducer; i++) {
+                                                ch.send(producer + ":" + i);
+                                            }
+                                        }));
+                    }
+                    var c = forkVoid(scope, () -> ch.forEach(received::add));
+                    for (var p : ps) {
+                        p.get();
+                    }
+                    ch.done();
+                    c.get();
+
+                    // then
+                    assertEquals(producers * perProducer, received.size());
+                    var lastByProducer = new HashMap<String, Integer>();
+                    for (var v : received) {
+                        var parts = v.split(":");
+                        var i = Integer.parseInt(parts[1]);
+                        assertEquals(lastByProducer.getOrDefault(parts[0], -1) + 1, i);
+                        lastByProducer.put(parts[0], i);
+                    }
+                    assertEquals(0, fileCount());
+                });
+    }
+
+    @Test
+    @Timeout(20)
+    void shouldReceiveAllValuesWithManyConsumers()
+            throws InterruptedException, ExecutionException, IOException {
+        // given
+        RingChannel<String> ch = Channel.newSpillingChannel(8, dir, STRINGS, 512);
+        var count = 20_000;
+        var received = new ConcurrentLinkedQueue<String>();
+
+        scoped(
+                scope -> {
+                    // when
+                    var cs = new ArrayList<Future<Void>>();
+                    for (int c = 0; c < 4; c++) {
+                        cs.add(forkVoid(scope, () -> ch.forEach(received::add)));
+                    }
+                    for (int i = 0; i < count; i++) {
+                        ch.send("v" + i);
+                    }
+                    ch.done();
+                    for (var c : cs) {
+                        c.get();
+                    }
+
+                    // then
+                    assertEquals(count, received.size());
+                    assertEquals(count, received.stream().distinct().count());
+                    assertEquals(0, fileCount());
+                });
+    }
+
+    private long fileCount() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
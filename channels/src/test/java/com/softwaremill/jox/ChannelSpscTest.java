@@ -0,0 +1,412 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.Select.selectOrClosed;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ChannelSpscTest {
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> Channel.newSpscChannel(0));
+        assertThrows(IllegalArgumentException.class, () -> Channel.newSpscChannel(-1));
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldBufferValuesUpToCapacity() throws InterruptedException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(3);
+
+        // when
+        ch.send("a");
+        ch.send("b");
+        ch.send("c");
+
+        // then
+        assertFalse(ch.trySend("d"));
+        assertEquals("a", ch.receive());
+        assertTrue(ch.trySend("d"));
+        assertEquals("b", ch.receive());
+        assertEquals("c", ch.receive());
+        assertEquals("d", ch.receive());
+        assertNull(ch.tryReceive());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 16, 100})
+    @Timeout(10)
+    void shouldDeliverAllValuesInOrder(int capacity)
+            throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<Integer> ch = Channel.newSpscChannel(capacity);
+        var count = 100_000;
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    ch.send(i);
+                                }
+                                ch.done();
+                            });
+
+                    // then
+                    var expected = 0;
+                    while (true) {
+                        var r = ch.receiveOrClosed();
+                        if (r instanceof ChannelDone) {
+                            break;
+                        }
+                        assertEquals(expected, r);
+                        expected += 1;
+                    }
+                    assertEquals(count, expected);
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void receive_shouldBlockUntilValueIsSent() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(2);
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = fork(scope, ch::receive);
+                    Thread.sleep(100);
+                    assertFalse(f.isDone());
+                    ch.send("x");
+
+                    // then
+                    assertEquals("x", f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void send_shouldBlockUntilSpaceIsAvailable() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(1);
+        ch.send("a");
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = forkVoid(scope, () -> ch.send("b"));
+                    Thread.sleep(100);
+                    assertFalse(f.isDone());
+
+                    // then
+                    assertEquals("a", ch.receive());
+                    f.get();
+                    assertEquals("b", ch.receive());
+                });
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Test
+    @Timeout(1)
+    void done_shouldDeliverBufferedValues() throws InterruptedException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(2);
+        ch.send("a");
+
+        // when
+        ch.done();
+
+        // then
+        assertTrue(ch.isClosedForSend());
+        assertFalse(ch.isClosedForReceive());
+        assertEquals("a", ch.receive());
+        assertTrue(ch.isClosedForReceive());
+        assertEquals(new ChannelDone(ch), ch.receiveOrClosed());
+        assertThrows(ChannelDoneException.class, () -> ch.send("b"));
+        assertThrows(ChannelDoneException.class, ch::done);
+    }
+
+    @Test
+    @Timeout(1)
+    void error_shouldDiscardBufferedValues() throws InterruptedException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(2);
+        ch.send("a");
+        var reason = new RuntimeException();
+
+        // when
+        ch.error(reason);
+
+        // then
+        assertTrue(ch.isClosedForReceive());
+        assertEquals(new ChannelError(reason, ch), ch.receiveOrClosed());
+        assertEquals(new ChannelError(reason, ch), ch.sendOrClosed("b"));
+    }
+
+    @Test
+    @Timeout(2)
+    void done_shouldWakeUpWaitingReceiver() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(2);
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, ch::receiveOrClosed);
+                    Thread.sleep(100);
+
+                    // when
+                    ch.done();
+
+                    // then
+                    assertEquals(new ChannelDone(ch), f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void error_shouldWakeUpWaitingSender() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(1);
+        ch.send("a");
+        var reason = new RuntimeException();
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, () -> ch.sendOrClosed("b"));
+                    Thread.sleep(100);
+
+                    // when
+                    ch.error(reason);
+
+                    // then
+                    assertEquals(new ChannelError(reason, ch), f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void receive_shouldBeInterruptible() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(2);
+
+        scoped(
+                scope -> {
+                    var f = forkCancelable(scope, ch::receive);
+                    Thread.sleep(100);
+
+                    // when
+                    var result = f.cancel();
+
+                    // then
+                    assertInstanceOf(InterruptedException.class, result);
+                    ch.send("a");
+                    assertEquals("a", ch.receive());
+                });
+    }
+
+    // *****
+    // Batch
+    // *****
+
+    @Test
+    @Timeout(2)
+    void shouldSendAndReceiveBatches() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<Integer> ch = Channel.newSpscChannel(8);
+        var values = IntStream.range(0, 1000).boxed().toList();
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < values.size(); i += 50) {
+                                    ch.sendAll(values.subList(i, i + 50));
+                                }
+                                ch.done();
+                            });
+
+                    // then
+                    var received = new ArrayList<Integer>();
+                    while (!(ch.receiveAtMostOrClosed(7, received) instanceof ChannelDone)) {}
+                    assertEquals(values, received);
+                });
+    }
+
+    @Test
+    void trySendAll_shouldSendAsManyValuesAsThereIsSpaceFor() {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(2);
+
+        // when
+        var sent = ch.trySendAll(List.of("a", "b", "c"));
+
+        // then
+        assertEquals(2, sent);
+        var received = new ArrayList<String>();
+        assertEquals(2, ch.tryReceiveAtMost(10, received));
+        assertEquals(List.of("a", "b"), received);
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Test
+    @Timeout(1)
+    void select_shouldReceiveImmediatelyAvailableValue() throws InterruptedException {
+        // given
+        RingChannel<String> ch1 = Channel.newSpscChannel(2);
+        Channel<String> ch2 = Channel.newBufferedChannel(2);
+        ch1.send("a");
+
+        // when
+        var received = select(ch2.receiveClause(), ch1.receiveClause());
+
+        // then
+        assertEquals("a", received);
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldReceiveAfterSuspending() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch1 = Channel.newSpscChannel(2);
+        RingChannel<String> ch2 = Channel.newSpscChannel(2);
+
+        scoped(
+                scope -> {
+                    // when
+                    var f =
+                            fork(
+                                    scope,
+                                    () ->
+                                            select(
+                                                    ch1.receiveClause(v -> "1" + v),
+                                                    ch2.receiveClause(v -> "2" + v)));
+                    Thread.sleep(100);
+                    ch2.send("x");
+
+                    // then
+                    assertEquals("2x", f.get());
+                    // the other channel should still be usable
+                    ch1.send("y");
+                    assertEquals("y", ch1.receive());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldSendAfterSuspending() throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch1 = Channel.newSpscChannel(1);
+        RingChannel<String> ch2 = Channel.newSpscChannel(1);
+        ch1.send("a");
+        ch2.send("b");
+
+        scoped(
+                scope -> {
+                    // when
+                    var f =
+                            fork(
+                                    scope,
+                                    () ->
+                                            select(
+                                                    ch1.sendClause("c", () -> 1),
+                                                    ch2.sendClause("d", () -> 2)));
+                    Thread.sleep(100);
+                    assertEquals("b", ch2.receive());
+
+                    // then
+                    assertEquals(2, f.get());
+                    assertEquals("d", ch2.receive());
+                    assertEquals("a", ch1.receive());
+                    assertNull(ch1.tryReceive());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldReturnDoneWhenChannelIsDone()
+            throws InterruptedException, ExecutionException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(2);
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = fork(scope, () -> selectOrClosed(ch.receiveClause()));
+                    Thread.sleep(100);
+                    ch.done();
+
+                    // then
+                    assertEquals(new ChannelDone(ch), f.get());
+                });
+    }
+
+    @Test
+    @Timeout(20)
+    void select_shouldReceiveAllValuesFromMultipleChannels()
+            throws InterruptedException, ExecutionException {
+        // given
+        var count = 10_000;
+        RingChannel<Integer> ch1 = Channel.newSpscChannel(4);
+        RingChannel<Integer> ch2 = Channel.newSpscChannel(4);
+
+        scoped(
+                scope -> {
+                    // when
+                    for (var ch : List.of(ch1, ch2)) {
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    for (int i = 0; i < count; i++) {
+                                        ch.send(i);
+                                    }
+                                    ch.done();
+                                });
+                    }
+
+                    // then
+                    var sum = 0L;
+                    var received = 0;
+                    var done = 0;
+                    while (done < 2) {
+                        var r = selectOrClosed(ch1.receiveClause(), ch2.receiveClause());
+                        if (r instanceof ChannelDone cd) {
+                            done += 1;
+                            // draining the other channel
+                            var other = cd.channel() == ch1 ? ch2 : ch1;
+                            Object v;
+                            while (!((v = other.receiveOrClosed()) instanceof ChannelDone)) {
+                                sum += (Integer) v;
+                                received += 1;
+                            }
+                            done += 1;
+                        } else {
+                            sum += (Integer) r;
+                            received += 1;
+                        }
+                    }
+                    assertEquals(2 * count, received);
+                    assertEquals(2L * count * (count - 1) / 2, sum);
+                });
+    }
+}
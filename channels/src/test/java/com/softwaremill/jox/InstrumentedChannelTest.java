@@ -0,0 +1,163 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class InstrumentedChannelTest {
+    @Test
+    @Timeout(1)
+    void shouldCountSendsAndReceives() throws InterruptedException {
+        // given
+        var ch = InstrumentedChannel.instrument(Channel.<String>newBufferedChannel(10));
+
+        // when
+        ch.send("a");
+        ch.trySend("b");
+        ch.sendAll(List.of("c", "d"));
+        ch.receive();
+        ch.tryReceive();
+        ch.receiveAtMost(10, new ArrayList<>());
+
+        // then
+        var s = ch.snapshot();
+        assertEquals(4, s.sent());
+        assertEquals(4, s.received());
+        // nothing blocked
+        assertEquals(0, s.sendWaits().count());
+        assertEquals(0, s.receiveWaits().count());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldNotCountOperationsWhichDidNotComplete() throws InterruptedException {
+        // given
+        var ch = InstrumentedChannel.instrument(Channel.<String>newBufferedChannel(1));
+
+        // when
+        assertTrue(ch.trySend("a"));
+        assertFalse(ch.trySend("b"));
+        assertEquals("a", ch.tryReceive());
+        assertNull(ch.tryReceive());
+        ch.done();
+        assertInstanceOf(ChannelDone.class, ch.sendOrClosed("c"));
+        assertInstanceOf(ChannelDone.class, ch.receiveOrClosed());
+
+        // then
+        var s = ch.snapshot();
+        assertEquals(1, s.sent());
+        assertEquals(1, s.received());
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldRecordTimeSpentBlocked() throws InterruptedException, ExecutionException {
+        // given
+        var ch = InstrumentedChannel.instrument(Channel.<String>newRendezvousChannel(), "test");
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = fork(scope, ch::receive);
+                    Thread.sleep(100);
+                    ch.send("a");
+
+                    // then
+                    assertEquals("a", f.get());
+                    var s = ch.snapshot();
+                    assertEquals(1, s.sent());
+                    assertEquals(1, s.received());
+                    assertEquals(1, s.receiveWaits().count());
+                    var waited = s.receiveWaits().maxNanos();
+                    assertTrue(waited >= Duration.ofMillis(50).toNanos(), "waited: " + waited);
+                    assertEquals(waited, s.receiveWaits().totalNanos());
+                    // the percentiles are approximate, but can't exceed the max
+                    assertTrue(s.receiveWaits().percentileNanos(50) <= waited);
+                    assertTrue(s.receiveWaits().percentileNanos(50) >= waited * 7 / 8);
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldCountSelectClauses() throws InterruptedException, TimeoutException {
+        // given
+        var ch1 = InstrumentedChannel.instrument(Channel.<String>newBufferedChannel(10));
+        var ch2 = InstrumentedChannel.instrument(Channel.<String>newBufferedChannel(10));
+        ch1.send("a");
+
+        // when
+        var r1 = select(ch1.receiveClause(v -> v + v), ch2.receiveClause());
+        var r2 = select(ch2.sendClause("b", () -> "sent"));
+        var r3 = ch2.receiveWithin(Duration.ofMillis(100));
+
+        // then
+        assertEquals("aa", r1);
+        assertEquals("sent", r2);
+        assertEquals("b", r3);
+        assertEquals(1, ch1.snapshot().sent());
+        assertEquals(1, ch1.snapshot().received());
+        assertEquals(1, ch2.snapshot().sent());
+        assertEquals(1, ch2.snapshot().received());
+    }
+
+    @Test
+    @Timeout(10)
+    void shouldCountConcurrentOperations() throws InterruptedException, ExecutionException {
+        // given
+        var ch = InstrumentedChannel.instrument(Channel.<Integer>newBufferedChannel(4));
+        var producers = 4;
+        var count = 10_000;
+
+        scoped(
+                scope -> {
+                    // when
+                    var ps = new ArrayList<Future<Void>>();
+                    for (int p = 0; p < producers; p++) {
+                        ps.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            for (int i = 0; i < count; i++) {
+                                                ch.send(i);
+                                            }
+                                        }));
+                    }
+                    var c = forkVoid(scope, () -> ch.forEach(v -> {}));
+                    for (var p : ps) {
+                        p.get();
+                    }
+                    ch.done();
+                    c.get();
+
+                    // then
+                    var s = ch.snapshot();
+                    assertEquals(producers * count, s.sent());
+                    assertEquals(producers * count, s.received());
+                    assertTrue(s.sendWaits().count() <= producers * count);
+                });
+    }
+
+    @Test
+    void histogramBucketsShouldCoverAllValues() {
+        long[] values = {0, 1, 15, 16, 17, 18, 1000, 123_456_789, Long.MAX_VALUE};
+        var previousIndex = -1;
+        for (var v : values) {
+            var index = WaitTimeHistogram.bucketIndex(v);
+            assertTrue(index >= previousIndex);
+            assertTrue(WaitTimeHistogram.highestValueInBucket(index) >= v);
+            // the bucket's width is at most 1/8 of its values
+            assertTrue(WaitTimeHistogram.highestValueInBucket(index) - v <= v / 8);
+            previousIndex = index;
+        }
+    }
+}
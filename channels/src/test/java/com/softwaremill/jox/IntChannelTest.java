@@ -0,0 +1,71 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class IntChannelTest {
+    @TestWithCapacities
+    @Timeout(5)
+    void shouldSendAndReceiveValuesInOrder(int capacity)
+            throws InterruptedException, ExecutionException {
+        // given
+        var ch = IntChannel.newBufferedChannel(capacity);
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < 1000; i++) {
+                                    ch.send(Integer.MAX_VALUE - i);
+                                }
+                                ch.done();
+                            });
+
+                    // then
+                    var received = new ArrayList<Integer>();
+                    ch.forEach(received::add);
+                    assertEquals(1000, received.size());
+                    for (int i = 0; i < 1000; i++) {
+                        assertEquals(Integer.MAX_VALUE - i, received.get(i));
+                    }
+                });
+    }
+
+    @Test
+    void shouldReturnBoxedIntegersInOrClosedVariants() throws InterruptedException {
+        // given
+        var ch = IntChannel.newBufferedChannel(2);
+        ch.send(-5);
+        ch.send(6);
+        ch.done();
+
+        // when & then
+        assertEquals(-5, ch.receiveOrClosed());
+        assertEquals(6, ch.tryReceiveOrClosed());
+        assertInstanceOf(ChannelDone.class, ch.receiveOrClosed());
+    }
+
+    @Test
+    @Timeout(1)
+    void select_shouldReceiveIntegers() throws InterruptedException {
+        // given
+        var ch1 = IntChannel.newBufferedChannel(1);
+        var ch2 = IntChannel.newBufferedChannel(1);
+        ch2.send(-1);
+
+        // when
+        Integer received = select(ch1.receiveClause(), ch2.receiveClause());
+
+        // then
+        assertEquals(-1, received);
+    }
+}
@@ -0,0 +1,263 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class LongChannelTest {
+    @Test
+    @Timeout(1)
+    void rendezvous_shouldSendAndReceiveValue() throws InterruptedException, ExecutionException {
+        // given
+        var ch = LongChannel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(scope, () -> ch.send(Long.MAX_VALUE));
+
+                    // then
+                    assertEquals(Long.MAX_VALUE, ch.receive());
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void buffered_shouldReceiveValuesInOrder() throws InterruptedException {
+        // given
+        var ch = LongChannel.newBufferedChannel(3);
+
+        // when
+        ch.send(1L);
+        ch.send(-2L);
+        ch.send(1_000_000_000_000L);
+
+        // then
+        assertEquals(1L, ch.receive());
+        assertEquals(-2L, ch.receive());
+        assertEquals(1_000_000_000_000L, ch.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void unlimited_shouldBufferValuesSpanningMultipleSegments() throws InterruptedException {
+        // given
+        var ch = LongChannel.newUnlimitedChannel();
+
+        // when
+        for (long i = 0; i < 100; i++) {
+            ch.send(i * 1000);
+        }
+        ch.done();
+
+        // then
+        var received = new ArrayList<Long>();
+        ch.forEach(received::add);
+        assertEquals(100, received.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 1000L, received.get(i));
+        }
+    }
+
+    @Test
+    void shouldReturnBoxedValuesInOrClosedVariants() throws InterruptedException {
+        // given
+        var ch = LongChannel.newBufferedChannel(2);
+        ch.send(5L);
+        ch.send(6L);
+        ch.done();
+
+        // when & then
+        assertEquals(5L, ch.receiveOrClosed());
+        assertEquals(6L, ch.tryReceiveOrClosed());
+        assertInstanceOf(ChannelDone.class, ch.receiveOrClosed());
+    }
+
+    @Test
+    void trySend_shouldNotSendWhenBufferIsFull() {
+        // given
+        var ch = LongChannel.newBufferedChannel(1);
+
+        // when & then
+        assertTrue(ch.trySend(1L));
+        assertFalse(ch.trySend(2L));
+        assertEquals(1L, ch.tryReceiveOrClosed());
+        assertNull(ch.tryReceiveOrClosed());
+    }
+
+    @Test
+    void shouldThrowWhenClosed() {
+        // given
+        var ch = LongChannel.newBufferedChannel(1);
+        ch.error(new RuntimeException("boom"));
+
+        // when & then
+        assertThrows(ChannelErrorException.class, () -> ch.send(1L));
+        assertThrows(ChannelErrorException.class, ch::receive);
+        assertInstanceOf(ChannelError.class, assertDoesNotThrow(() -> ch.sendOrClosed(1L)));
+        assertTrue(ch.isClosedForReceive());
+    }
+
+    @Test
+    @Timeout(1)
+    void receive_shouldThrowDoneWhenChannelIsDoneAndEmpty() throws InterruptedException {
+        // given
+        var ch = LongChannel.newBufferedChannel(1);
+        ch.send(1L);
+        ch.done();
+
+        // when & then
+        assertEquals(1L, ch.receive());
+        assertThrows(ChannelDoneException.class, ch::receive);
+    }
+
+    // ******
+    // Select
+    // ******
+
+    @Test
+    @Timeout(1)
+    void select_shouldReceiveFromPrimitiveAndObjectChannels() throws InterruptedException {
+        // given
+        var ch1 = LongChannel.newBufferedChannel(1);
+        Channel<String> ch2 = Channel.newBufferedChannel(1);
+        ch1.send(42L);
+
+        // when
+        Object received = select(ch1.receiveClause(v -> v + 1), ch2.receiveClause());
+
+        // then
+        assertEquals(43L, received);
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldReceiveFromSuspendedSender() throws InterruptedException, ExecutionException {
+        // given
+        var ch1 = LongChannel.newRendezvousChannel();
+        var ch2 = LongChannel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = fork(scope, () -> select(ch1.receiveClause(), ch2.receiveClause()));
+                    forkVoid(
+                            scope,
+                            () -> {
+                                Thread.sleep(100); // making sure receive suspends
+                                ch2.send(7L);
+                            });
+
+                    // then
+                    assertEquals(7L, f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldSendToWaitingReceiver() throws InterruptedException, ExecutionException {
+        // given
+        var ch1 = LongChannel.newRendezvousChannel();
+        var ch2 = LongChannel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, ch2::receive);
+                    Thread.sleep(100); // making sure receive suspends
+
+                    // when
+                    var sent = select(ch1.sendClause(1L, () -> 1), ch2.sendClause(2L, () -> 2));
+
+                    // then
+                    assertEquals(2, sent);
+                    assertEquals(2L, f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_suspendedSendShouldBeReceivedWithoutBoxing()
+            throws InterruptedException, ExecutionException {
+        // given
+        var ch = LongChannel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    // when
+                    var f = fork(scope, () -> select(ch.sendClause(Long.MIN_VALUE)));
+                    Thread.sleep(100); // making sure send suspends
+
+                    // then
+                    assertEquals(Long.MIN_VALUE, ch.receive());
+                    assertNull(f.get());
+                });
+    }
+
+    // ******
+    // Stress
+    // ******
+
+    @TestWithCapacities
+    @Timeout(30)
+    void shouldDeliverAllValuesExactlyOnce(int capacity)
+            throws InterruptedException, ExecutionException {
+        // given
+        var ch = LongChannel.newBufferedChannel(capacity);
+        int producers = 4;
+        int consumers = 4;
+        long valuesPerProducer = 10_000;
+
+        scoped(
+                scope -> {
+                    // when
+                    var producerForks = new ArrayList<Future<Void>>();
+                    for (int p = 0; p < producers; p++) {
+                        long producer = p;
+                        producerForks.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            for (long i = 0; i < valuesPerProducer; i++) {
+                                                ch.send(producer * valuesPerProducer + i);
+                                            }
+                                        }));
+                    }
+
+                    var consumerForks = new ArrayList<Future<HashSet<Long>>>();
+                    for (int c = 0; c < consumers; c++) {
+                        consumerForks.add(
+                                fork(
+                                        scope,
+                                        () -> {
+                                            var received = new HashSet<Long>();
+                                            ch.forEach(received::add);
+                                            return received;
+                                        }));
+                    }
+
+                    for (var f : producerForks) {
+                        f.get();
+                    }
+                    ch.done();
+
+                    // then
+                    var all = new HashSet<Long>();
+                    var total = 0;
+                    for (var f : consumerForks) {
+                        var received = f.get();
+                        total += received.size();
+                        all.addAll(received);
+                    }
+                    assertEquals(producers * valuesPerProducer, total);
+                    assertEquals(producers * valuesPerProducer, all.size());
+                });
+    }
+}
@@ -0,0 +1,27 @@
+package com.softwaremill.jox;
+
+import java.nio.file.Path;
+
+/**
+ * Run by {@link MappedChannelTest} in a separate JVM: receives values from the channel stored in
+ * the first file, and sends them upper-cased to the channel stored in the second file. Closing of
+ * the first channel is propagated to the second one.
+ */
+public class MappedChannelPeer {
+    public static void main(String[] args) throws Exception {
+        var in = MappedChannel.open(Path.of(args[0]), MappedChannelTest.STRINGS);
+        var out = MappedChannel.open(Path.of(args[1]), MappedChannelTest.STRINGS);
+        while (true) {
+            var r = in.receiveOrClosed();
+            if (r instanceof ChannelDone) {
+                out.done();
+                return;
+            } else if (r instanceof ChannelError e) {
+                out.error(e.cause());
+                return;
+            } else {
+                out.send(((String) r).toUpperCase());
+            }
+        }
+    }
+}
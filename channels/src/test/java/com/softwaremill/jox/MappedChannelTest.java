@@ -0,0 +1,289 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedChannelTest {
+    static final ValueSerializer<String> STRINGS =
+            new ValueSerializer<>() {
+                @Override
+                public byte[] serialize(String value) {
+                    return value.getBytes(StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public String deserialize(byte[] bytes) {
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            };
+
+    @TempDir Path dir;
+
+    @Test
+    void shouldRejectInvalidSettings() throws IOException {
+        var file = dir.resolve("ch");
+        assertThrows(IllegalArgumentException.class, () -> MappedChannel.create(file, 8, STRINGS));
+
+        Files.write(file, new byte[1024]);
+        assertThrows(IllegalStateException.class, () -> MappedChannel.open(file, STRINGS));
+
+        var ch = MappedChannel.create(file, 16, STRINGS);
+        assertThrows(IllegalArgumentException.class, () -> ch.send("x".repeat(13)));
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldReceiveValuesInOrderWrappingAround() throws InterruptedException, IOException {
+        // given
+        var file = dir.resolve("ch");
+        var sender = MappedChannel.create(file, 64, STRINGS);
+        var receiver = MappedChannel.open(file, STRINGS);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            sender.send("v" + i);
+            if (i % 3 == 2) {
+                // then
+                assertEquals("v" + (i - 2), receiver.receive());
+                assertEquals("v" + (i - 1), receiver.receive());
+                assertEquals("v" + i, receiver.receive());
+            }
+        }
+        assertEquals("v999", receiver.receive());
+        assertNull(receiver.tryReceive());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldNotSendWhenTheBufferIsFull() throws InterruptedException, IOException {
+        // given
+        var ch = MappedChannel.create(dir.resolve("ch"), 16, STRINGS);
+
+        // when
+        assertTrue(ch.trySend("abcd"));
+        assertTrue(ch.trySend("efgh"));
+
+        // then
+        assertFalse(ch.trySend("i"));
+        assertEquals("abcd", ch.receive());
+        assertTrue(ch.trySend("i"));
+        assertEquals(List.of("efgh", "i"), List.of(ch.receive(), ch.receive()));
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldReceiveBatches() throws InterruptedException, IOException {
+        // given
+        var ch = MappedChannel.create(dir.resolve("ch"), 1024, STRINGS);
+        ch.sendAll(List.of("a", "b", "c", "d", "e"));
+
+        // when
+        var received = new ArrayList<String>();
+        var r1 = ch.receiveAtMost(3, received);
+        var r2 = ch.tryReceiveAtMost(10, received);
+
+        // then
+        assertEquals(3, r1);
+        assertEquals(2, r2);
+        assertEquals(List.of("a", "b", "c", "d", "e"), received);
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldWaitForValuesAndSpace()
+            throws InterruptedException, ExecutionException, IOException {
+        // given
+        var file = dir.resolve("ch");
+        var sender = MappedChannel.create(file, 32, STRINGS);
+        var receiver = MappedChannel.open(file, STRINGS);
+        var count = 10_000;
+
+        scoped(
+                scope -> {
+                    // when
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    sender.send("v" + i);
+                                }
+                                sender.done();
+                            });
+                    var received = fork(scope, receiver::toList);
+
+                    // then
+                    var expected = new ArrayList<String>();
+                    for (int i = 0; i < count; i++) {
+                        expected.add("v" + i);
+                    }
+                    assertEquals(expected, received.get());
+                });
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldTimeOut() throws InterruptedException, IOException {
+        // given
+        var ch = MappedChannel.create(dir.resolve("ch"), 16, STRINGS);
+
+        // when & then
+        assertThrows(TimeoutException.class, () -> ch.receiveWithin(Duration.ofMillis(50)));
+        assertEquals("x", ch.receiveOrClosedWithin(Duration.ofMillis(50), "x"));
+        ch.send("abcdefgh");
+        assertEquals("x", ch.sendOrClosedWithin("abcd", Duration.ofMillis(50), "x"));
+        assertEquals("abcdefgh", ch.receiveOrClosedWithin(Duration.ofMillis(50), "x"));
+        assertNull(ch.sendOrClosedWithin("abcd", Duration.ofMillis(50), "x"));
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldReceiveRemainingValuesWhenDone() throws InterruptedException, IOException {
+        // given
+        var file = dir.resolve("ch");
+        var sender = MappedChannel.create(file, 64, STRINGS);
+        var receiver = MappedChannel.open(file, STRINGS);
+        sender.send("a");
+
+        // when
+        sender.done();
+
+        // then
+        assertInstanceOf(ChannelDone.class, sender.sendOrClosed("b"));
+        assertNull(receiver.closedForReceive());
+        assertInstanceOf(ChannelDone.class, receiver.closedForSend());
+        assertEquals("a", receiver.receive());
+        assertInstanceOf(ChannelDone.class, receiver.receiveOrClosed());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldPropagateTheErrorDescription() throws InterruptedException, IOException {
+        // given
+        var file = dir.resolve("ch");
+        var sender = MappedChannel.create(file, 64, STRINGS);
+        var receiver = MappedChannel.open(file, STRINGS);
+        sender.send("a");
+
+        // when
+        sender.error(new RuntimeException("boom"));
+
+        // then
+        var r = receiver.receiveOrClosed();
+        var error = assertInstanceOf(ChannelError.class, r);
+        assertInstanceOf(MappedChannelException.class, error.cause());
+        assertEquals("java.lang.RuntimeException: boom", error.cause().getMessage());
+        assertInstanceOf(ChannelError.class, receiver.errorOrClosed(new RuntimeException()));
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldNotSupportSelect() throws IOException {
+        // given
+        var ch = MappedChannel.create(dir.resolve("ch"), 64, STRINGS);
+
+        // when & then
+        assertThrows(UnsupportedOperationException.class, () -> Select.select(ch.receiveClause()));
+    }
+
+    @Test
+    @Timeout(30)
+    void shouldExchangeValuesWithAnotherProcess() throws Exception {
+        // given
+        var requests = MappedChannel.create(dir.resolve("requests"), 256, STRINGS);
+        var responses = MappedChannel.create(dir.resolve("responses"), 256, STRINGS);
+        var peer = startPeer(dir.resolve("requests"), dir.resolve("responses"));
+
+        try {
+            // when
+            for (int i = 0; i < 1000; i++) {
+                requests.send("v" + i);
+                // then
+                assertEquals("V" + i, responses.receiveWithin(Duration.ofSeconds(10)));
+            }
+            requests.error(new IllegalStateException("stop"));
+            var r =
+                    assertInstanceOf(
+                            ChannelError.class,
+                            responses.receiveOrClosedWithin(Duration.ofSeconds(10), null));
+            assertEquals(
+                    MappedChannelException.class.getName()
+                            + ": java.lang.IllegalStateException: stop",
+                    r.cause().getMessage());
+            assertTrue(peer.waitFor(10, TimeUnit.SECONDS));
+            assertEquals(0, peer.exitValue());
+        } finally {
+            peer.destroyForcibly();
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void shouldReceiveDoneFromAnotherProcess() throws Exception {
+        // given
+        var requests = MappedChannel.create(dir.resolve("requests"), 256, STRINGS);
+        var responses = MappedChannel.create(dir.resolve("responses"), 256, STRINGS);
+        var peer = startPeer(dir.resolve("requests"), dir.resolve("responses"));
+
+        try {
+            // when
+            requests.sendAll(List.of("a", "b"));
+            requests.done();
+
+            // then
+            assertEquals("A", responses.receiveWithin(Duration.ofSeconds(10)));
+            assertEquals("B", responses.receiveWithin(Duration.ofSeconds(10)));
+            assertInstanceOf(
+                    ChannelDone.class,
+                    responses.receiveOrClosedWithin(Duration.ofSeconds(10), null));
+            assertTrue(peer.waitFor(10, TimeUnit.SECONDS));
+        } finally {
+            peer.destroyForcibly();
+        }
+    }
+
+    private static Process startPeer(Path in, Path out) throws IOException {
+        var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        // the main and test classes might be on the module path, which isn't included in the
+        // "java.class.path" property
+        var classPath =
+                String.join(
+                        File.pathSeparator,
+                        location(MappedChannel.class),
+                        location(MappedChannelPeer.class));
+        return new ProcessBuilder(
+                        java,
+                        "-cp",
+                        classPath,
+                        MappedChannelPeer.class.getName(),
+                        in.toString(),
+                        out.toString())
+                .inheritIO()
+                .start();
+    }
+
+    private static String location(Class<?> c) {
+        try {
+            return Path.of(c.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.*;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class PreparedSelectTest {
+    @Test
+    void shouldValidateTheClausesWhenPrepared() {
+        Channel<String> ch = Channel.newBufferedChannel(1);
+        assertThrows(IllegalArgumentException.class, () -> prepare());
+        assertThrows(IllegalArgumentException.class, () -> prepare(ch.receiveClause(), null));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> prepare(ch.receiveClause(), ch.receiveClause()));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> prepare(defaultClause("x"), ch.receiveClause()));
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldSelectRepeatedly() throws InterruptedException {
+        // given
+        Channel<String> ch1 = Channel.newBufferedChannel(10);
+        Channel<String> ch2 = Channel.newBufferedChannel(10);
+        var select = prepare(ch1.receiveClause(), ch2.receiveClause(s -> s + s));
+        ch1.send("a");
+        ch2.send("b");
+        ch1.send("c");
+
+        // when
+        var results = new ArrayList<String>();
+        for (int i = 0; i < 3; i++) {
+            results.add(select.select());
+        }
+
+        // then
+        assertEquals(List.of("a", "c", "bb"), results);
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldSelectTheDefaultClauseRepeatedly() throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(10);
+        var select = prepare(ch.receiveClause(), defaultClause("none"));
+
+        // when
+        var r1 = select.select();
+        ch.send("a");
+        var r2 = select.select();
+        var r3 = select.select();
+
+        // then
+        assertEquals("none", r1);
+        assertEquals("a", r2);
+        assertEquals("none", r3);
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldSendTheSameValueRepeatedly() throws InterruptedException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(10);
+        var select = prepare(ch.sendClause("tick", () -> "sent"));
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            assertEquals("sent", select.select());
+        }
+
+        // then
+        var received = new ArrayList<String>();
+        ch.tryReceiveAtMost(10, received);
+        assertEquals(List.of("tick", "tick", "tick"), received);
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldReturnClosedWhenAChannelIsDone() throws InterruptedException {
+        // given
+        Channel<String> ch1 = Channel.newBufferedChannel(10);
+        Channel<String> ch2 = Channel.newBufferedChannel(10);
+        var select = prepare(ch1.receiveClause(), ch2.receiveClause());
+        ch1.send("a");
+        ch1.done();
+
+        // when
+        var r1 = select.selectOrClosed();
+        var r2 = select.selectOrClosed();
+
+        // then
+        assertEquals("a", r1);
+        assertInstanceOf(ChannelDone.class, r2);
+        assertThrows(ChannelDoneException.class, select::select);
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldTimeOutRepeatedly() throws InterruptedException, TimeoutException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var select = prepare(ch.receiveClause());
+
+        // when/then
+        assertEquals("timeout", select.selectOrClosedWithin(Duration.ofMillis(20), "timeout"));
+        assertThrows(TimeoutException.class, () -> select.selectWithin(Duration.ofMillis(20)));
+        // the timed-out selects are withdrawn
+        assertFalse(ch.trySend("a"));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> select.selectOrClosedWithin(Duration.ZERO, "timeout"));
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldBeUsableAfterInterruption() throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+        var select = prepare(ch.receiveClause());
+
+        scoped(
+                scope -> {
+                    var f1 = forkCancelable(scope, select::select);
+                    Thread.sleep(50);
+                    assertInstanceOf(InterruptedException.class, f1.cancel());
+
+                    // when
+                    var f2 = fork(scope, select::select);
+                    ch.send("a");
+
+                    // then
+                    assertEquals("a", f2.get());
+                });
+    }
+
+    @Test
+    @Timeout(10)
+    void shouldReceiveAllValuesSentConcurrently() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch1 = Channel.newRendezvousChannel();
+        Channel<Integer> ch2 = Channel.newBufferedChannel(4);
+        var select = prepare(ch1.receiveClause(), ch2.receiveClause());
+        var count = 10_000;
+
+        scoped(
+                scope -> {
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    ch1.send(i);
+                                }
+                            });
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    ch2.send(count + i);
+                                }
+                            });
+
+                    // when
+                    var received = new HashSet<Integer>();
+                    for (int i = 0; i < 2 * count; i++) {
+                        received.add(select.select());
+                    }
+
+                    // then
+                    assertEquals(2 * count, received.size());
+                });
+    }
+}
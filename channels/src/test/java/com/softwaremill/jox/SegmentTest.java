@@ -6,6 +6,18 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 
 public class SegmentTest {
+    @Test
+    void defaultSegmentSizeShouldBeRoundedUpToAPowerOf2() {
+        assertEquals(32, Segment.defaultSize(32));
+        assertEquals(1, Segment.defaultSize(1));
+        assertEquals(16, Segment.defaultSize(10));
+        assertEquals(128, Segment.defaultSize(100));
+        assertThrows(IllegalArgumentException.class, () -> Segment.defaultSize(0));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Segment.defaultSize(Segment.MAX_SEGMENT_SIZE + 1));
+    }
+
     @Test
     void segmentShouldBecomeRemovedOnceAllCellsInterruptedAndProcessed() {
         // given
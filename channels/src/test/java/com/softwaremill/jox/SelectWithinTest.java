@@ -425,4 +425,131 @@ public class SelectWithinTest {
                     assertInstanceOf(InterruptedException.class, result);
                 });
     }
+
+    @Test
+    @Timeout(2)
+    void testSelectOrClosedWithin_shouldUnregisterFromChannelsOnTimeout()
+            throws InterruptedException {
+        // given
+        Channel<String> ch1 = Channel.newRendezvousChannel();
+        Channel<String> ch2 = Channel.newRendezvousChannel();
+
+        // when
+        var result =
+                selectOrClosedWithin(
+                        Duration.ofMillis(50), "timeout", ch1.receiveClause(), ch2.receiveClause());
+
+        // then
+        assertEquals("timeout", result);
+        // no receiver should be waiting in the channels
+        assertFalse(ch1.trySend("a"));
+        assertFalse(ch2.trySend("b"));
+    }
+
+    @Test
+    @Timeout(2)
+    void testSelectOrClosedWithin_shouldReturnTimeoutValueWhenNoClausesAreGiven()
+            throws InterruptedException {
+        assertEquals("timeout", selectOrClosedWithin(Duration.ofMillis(10), "timeout"));
+    }
+
+    @Test
+    @Timeout(5)
+    void testSelectOrClosedWithin_shouldNotLoseValuesWhenTimingOutConcurrently()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> ch = Channel.newRendezvousChannel();
+        var count = 1000;
+
+        scoped(
+                scope -> {
+                    forkVoid(
+                            scope,
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    ch.send(i);
+                                }
+                            });
+
+                    // when
+                    var received = 0;
+                    while (received < count) {
+                        var r =
+                                selectOrClosedWithin(
+                                        Duration.ofNanos(1000), -1, ch.receiveClause());
+                        // then
+                        if (!Integer.valueOf(-1).equals(r)) {
+                            assertEquals(received, r);
+                            received += 1;
+                        }
+                    }
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void testReceiveWithin_shouldReceiveAValueOrTimeOut()
+            throws InterruptedException, TimeoutException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(1);
+
+        // when/then
+        assertThrows(TimeoutException.class, () -> ch.receiveWithin(Duration.ofMillis(50)));
+        ch.send("a");
+        assertEquals("a", ch.receiveWithin(Duration.ofMillis(50)));
+        assertEquals("timeout", ch.receiveOrClosedWithin(Duration.ofMillis(50), "timeout"));
+        ch.done();
+        assertInstanceOf(
+                ChannelDone.class, ch.receiveOrClosedWithin(Duration.ofMillis(50), "timeout"));
+    }
+
+    @Test
+    @Timeout(2)
+    void testReceiveWithin_shouldReceiveAValueSentLater()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    var f = fork(scope, () -> ch.receiveWithin(Duration.ofSeconds(1)));
+
+                    // when
+                    Thread.sleep(50);
+                    ch.send("a");
+
+                    // then
+                    assertEquals("a", f.get());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void testSendWithin_shouldSendAValueOrTimeOut() throws InterruptedException, TimeoutException {
+        // given
+        Channel<String> ch = Channel.newBufferedChannel(1);
+
+        // when/then
+        ch.sendWithin("a", Duration.ofMillis(50));
+        assertThrows(TimeoutException.class, () -> ch.sendWithin("b", Duration.ofMillis(50)));
+        assertEquals("timeout", ch.sendOrClosedWithin("c", Duration.ofMillis(50), "timeout"));
+        // the timed-out sends are withdrawn
+        assertEquals("a", ch.receive());
+        assertNull(ch.tryReceive());
+        ch.done();
+        assertThrows(ChannelDoneException.class, () -> ch.sendWithin("d", Duration.ofMillis(50)));
+    }
+
+    @Test
+    @Timeout(2)
+    void testReceiveWithin_shouldWorkWithRingBufferChannels()
+            throws InterruptedException, TimeoutException {
+        // given
+        RingChannel<String> ch = Channel.newSpscChannel(4);
+
+        // when/then
+        assertThrows(TimeoutException.class, () -> ch.receiveWithin(Duration.ofMillis(50)));
+        ch.sendWithin("a", Duration.ofMillis(50));
+        assertEquals("a", ch.receiveWithin(Duration.ofMillis(50)));
+    }
 }
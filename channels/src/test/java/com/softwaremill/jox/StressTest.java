@@ -8,18 +8,47 @@ import java.util.*;
 import java.util.concurrent.*;
 
 import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 
 public class StressTest {
     @TestWithCapacities
     @Timeout(600)
     void testMultipleOperationsDirect(int capacity) throws Exception {
-        testAndVerify(capacity, true);
+        testAndVerify(capacity, Mode.DIRECT);
     }
 
     @TestWithCapacities
     @Timeout(600)
     void testMultipleOperationsSelect(int capacity) throws Exception {
-        testAndVerify(capacity, false);
+        testAndVerify(capacity, Mode.SELECT);
+    }
+
+    @TestWithCapacities
+    @Timeout(600)
+    void testMultipleOperationsAsync(int capacity) throws Exception {
+        testAndVerify(capacity, Mode.ASYNC);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1,0", "1,10", "1,-1", "256,0", "256,1000", "256,-1"})
+    @Timeout(600)
+    void testMultipleOperationsDirectWithSegmentSize(int segmentSize, int capacity)
+            throws Exception {
+        testAndVerify(capacity, Mode.DIRECT, segmentSize);
+    }
+
+    /** How the send/receive operations are performed. */
+    private enum Mode {
+        /** Blocking operations, interrupted by interrupting the thread. */
+        DIRECT,
+        /** Blocking selects from many channels, interrupted by interrupting the thread. */
+        SELECT,
+        /**
+         * Asynchronous operations, withdrawn by cancelling the future, or by completing it
+         * externally (normally or exceptionally).
+         */
+        ASYNC
     }
 
     /**
@@ -29,20 +58,35 @@ public class StressTest {
      * <p>Verifies that messages are not duplicated and sent/received properly, as well as the
      * channel's internal state is correct.
      */
-    private void testAndVerify(int capacity, boolean direct) throws Exception {
+    private void testAndVerify(int capacity, Mode mode) throws Exception {
+        testAndVerify(capacity, mode, Segment.SEGMENT_SIZE);
+    }
+
+    private void testAndVerify(int capacity, Mode mode, int segmentSize) throws Exception {
         boolean ci = System.getenv("CI") != null;
         System.out.println(
-                "Running in ci: " + ci + "; capacity: " + capacity + "; direct: " + direct);
+                "Running in ci: "
+                        + ci
+                        + "; capacity: "
+                        + capacity
+                        + "; mode: "
+                        + mode
+                        + "; segment size: "
+                        + segmentSize);
 
         int numberOfRepetitions = ci ? 20 : 5;
         int numberOfThreads = 8;
         int numberOfIterations = ci ? 2000 : 100;
-        int numberOfChannels = direct ? 1 : 10;
+        int numberOfChannels = mode == Mode.SELECT ? 10 : 1;
 
         for (int r = 0; r < numberOfRepetitions; r++) {
             var chs = new ArrayList<Channel<String>>();
             for (int i = 0; i < numberOfChannels; i++) {
-                chs.add(Channel.newBufferedChannel(capacity));
+                var builder = Channel.<String>builder().segmentSize(segmentSize);
+                chs.add(
+                        capacity == Channel.UNLIMITED_CAPACITY
+                                ? builder.unlimited().build()
+                                : builder.capacity(capacity).build());
             }
             try {
                 scoped(
@@ -64,7 +108,7 @@ public class StressTest {
                                                                     new ArrayList<>(chs),
                                                                     new Random(),
                                                                     finalI,
-                                                                    direct,
+                                                                    mode,
                                                                     new ArrayList<>(),
                                                                     new ArrayList<>(),
                                                                     new ArrayList<>(),
@@ -158,8 +202,7 @@ public class StressTest {
                                 var maxSegments =
                                         numberOfThreads
                                                 + capacity
-                                                + Math.ceil(
-                                                        (double) capacity / Segment.SEGMENT_SIZE)
+                                                + Math.ceil((double) capacity / segmentSize)
                                                 + (capacity > 0 ? 1 : 0)
                                                 + 1;
                                 assertTrue(
@@ -174,6 +217,7 @@ public class StressTest {
                         });
             } catch (Exception e) {
                 System.out.println("\nFailed!");
+                throw e;
             } finally {
                 System.out.println("\nChannel state:");
                 for (var ch : chs) {
@@ -191,7 +235,7 @@ public class StressTest {
             List<Channel<String>> chs,
             Random random,
             int threadId,
-            boolean direct,
+            Mode mode,
             List<String> sent,
             List<String> received,
             List<String> sendInterrupted,
@@ -206,8 +250,10 @@ public class StressTest {
                 var shouldCancel = data.random.nextInt(4) == 0;
 
                 Fork<Object> f;
-                if (data.direct) {
+                if (data.mode == Mode.DIRECT) {
                     f = forkCancelable(data.scope, () -> data.chs.get(0).sendOrClosed(msg));
+                } else if (data.mode == Mode.ASYNC) {
+                    f = asyncFork(data.chs.get(0).sendAsync(msg), data.random);
                 } else {
                     var channels = data.chs;
                     Collections.shuffle(channels);
@@ -247,8 +293,10 @@ public class StressTest {
                 var shouldCancel = data.random.nextInt(4) == 0;
 
                 Fork<Object> f;
-                if (data.direct) {
+                if (data.mode == Mode.DIRECT) {
                     f = forkCancelable(data.scope, data.chs.get(0)::receiveOrClosed);
+                } else if (data.mode == Mode.ASYNC) {
+                    f = asyncFork(data.chs.get(0).receiveAsync(), data.random);
                 } else {
                     var channels = data.chs;
                     Collections.shuffle(channels);
@@ -286,6 +334,49 @@ public class StressTest {
         }
     }
 
+    /**
+     * Cancelling the returned fork withdraws the asynchronous operation, using a randomly chosen
+     * method of completing the future externally; if that fails, the operation must have completed.
+     * Closing the channel, which completes the future exceptionally, yields the exception.
+     */
+    private static Fork<Object> asyncFork(CompletableFuture<?> future, Random random) {
+        return new Fork<>() {
+            @Override
+            public Object get() throws InterruptedException {
+                try {
+                    return future.get();
+                } catch (ExecutionException e) {
+                    return e.getCause();
+                }
+            }
+
+            @Override
+            public Object get(long timeout, TimeUnit unit)
+                    throws InterruptedException, TimeoutException {
+                try {
+                    return future.get(timeout, unit);
+                } catch (ExecutionException e) {
+                    return e.getCause();
+                }
+            }
+
+            @Override
+            public Object cancel() throws InterruptedException {
+                var withdrawn =
+                        switch (random.nextInt(3)) {
+                            case 0 -> future.cancel(false);
+                            case 1 -> future.complete(null);
+                            default -> future.completeExceptionally(new TimeoutException());
+                        };
+                if (withdrawn) {
+                    // counted as interrupted, whatever the future is completed with
+                    return new CancellationException();
+                }
+                return get();
+            }
+        };
+    }
+
     // utilities
 
     private static class Counter {
@@ -15,7 +15,9 @@ public class TestUtil {
                                 () -> {
                                     try {
                                         f.accept(scope);
-                                    } catch (Exception e) {
+                                    } catch (Throwable e) {
+                                        // including assertion errors, which would otherwise only
+                                        // end the virtual thread
                                         scope.completeExceptionally(e);
                                     }
                                 });
@@ -30,7 +32,7 @@ public class TestUtil {
                         () -> {
                             try {
                                 f.complete(c.call());
-                            } catch (Exception ex) {
+                            } catch (Throwable ex) {
                                 f.completeExceptionally(ex);
                             }
                         });
@@ -98,13 +100,13 @@ public class TestUtil {
     // Once StructuredTaskScope is stabilized, we'll use that
     public static class VirtualThreadScope {
         private final List<CompletableFuture<?>> futures = new ArrayList<>();
-        private volatile Exception exception;
+        private volatile Throwable exception;
 
         public synchronized void addThread(CompletableFuture<?> future) {
             futures.add(future);
         }
 
-        public void completeExceptionally(Exception e) {
+        public void completeExceptionally(Throwable e) {
             this.exception = e;
         }
 
@@ -119,7 +121,7 @@ public class TestUtil {
                         future.get();
                     } catch (ExecutionException e) {
                         if (exception == null) {
-                            exception = (Exception) e.getCause();
+                            exception = e.getCause();
                         }
                     }
                 }
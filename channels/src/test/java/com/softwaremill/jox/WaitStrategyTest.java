@@ -0,0 +1,188 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class WaitStrategyTest {
+    static Stream<WaitStrategy> strategies() {
+        return Stream.of(
+                WaitStrategy.parkImmediately(),
+                WaitStrategy.spinThenPark(100),
+                WaitStrategy.spinYieldThenPark(100, 10),
+                WaitStrategy.adaptive(),
+                WaitStrategy.adaptive(10, 100));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(10)
+    void rendezvous_shouldExchangeAllValues(WaitStrategy waitStrategy)
+            throws InterruptedException, ExecutionException {
+        testExchangeAllValues(Channel.newRendezvousChannel(waitStrategy));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(10)
+    void buffered_shouldExchangeAllValues(WaitStrategy waitStrategy)
+            throws InterruptedException, ExecutionException {
+        testExchangeAllValues(Channel.newBufferedChannel(4, waitStrategy));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(10)
+    void unlimited_shouldExchangeAllValues(WaitStrategy waitStrategy)
+            throws InterruptedException, ExecutionException {
+        testExchangeAllValues(Channel.newUnlimitedChannel(waitStrategy));
+    }
+
+    private void testExchangeAllValues(Channel<Integer> ch)
+            throws InterruptedException, ExecutionException {
+        scoped(
+                scope -> {
+                    // given
+                    var senders = new ArrayList<Future<Void>>();
+                    for (int t = 0; t < 4; t++) {
+                        senders.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            for (int i = 0; i < 1000; i++) {
+                                                ch.send(i);
+                                            }
+                                        }));
+                    }
+
+                    // when
+                    var sum = 0L;
+                    for (int i = 0; i < 4000; i++) {
+                        sum += ch.receive();
+                    }
+
+                    // then
+                    for (var f : senders) {
+                        f.get();
+                    }
+                    assertEquals(4 * (999 * 1000 / 2), sum);
+                });
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    @Timeout(2)
+    void shouldInterruptWaitingReceiver(WaitStrategy waitStrategy)
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<String> ch = Channel.newRendezvousChannel(waitStrategy);
+
+        scoped(
+                scope -> {
+                    var f = forkCancelable(scope, ch::receive);
+                    Thread.sleep(100); // making sure receive suspends
+
+                    // when
+                    var result = f.cancel();
+
+                    // then
+                    assertInstanceOf(InterruptedException.class, result);
+                    // the channel should still be usable
+                    forkVoid(scope, () -> ch.send("x"));
+                    assertEquals("x", ch.receive());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void select_shouldWorkWithSharedAndDifferentStrategies()
+            throws InterruptedException, ExecutionException {
+        // given
+        var shared = WaitStrategy.spinYieldThenPark(100, 10);
+        Channel<String> ch1 = Channel.newRendezvousChannel(shared);
+        Channel<String> ch2 = Channel.newRendezvousChannel(shared);
+        Channel<String> ch3 = Channel.newBufferedChannel(1, WaitStrategy.adaptive());
+
+        scoped(
+                scope -> {
+                    // when
+                    var f1 = fork(scope, () -> select(ch1.receiveClause(), ch2.receiveClause()));
+                    var f2 = fork(scope, () -> select(ch2.receiveClause(), ch3.receiveClause()));
+                    Thread.sleep(100); // making sure the selects suspend
+                    ch1.send("a");
+                    ch3.send("b");
+
+                    // then
+                    assertEquals("a", f1.get());
+                    assertEquals("b", f2.get());
+                });
+    }
+
+    @Test
+    void adaptive_shouldStopSpinningWhenHandOffsAreSlow() {
+        // given
+        var waitStrategy = WaitStrategy.adaptive(0, 100);
+        assertEquals(100, waitStrategy.spinIterations());
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            waitStrategy.afterWait(waitStrategy.spinIterations(), true);
+        }
+
+        // then
+        assertTrue(waitStrategy.spinIterations() < 100);
+    }
+
+    @Test
+    void adaptive_shouldSpinForTwiceTheObservedLatency() {
+        // given
+        var waitStrategy = WaitStrategy.adaptive(0, 1000);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            waitStrategy.afterWait(20, false);
+        }
+
+        // then
+        var spins = waitStrategy.spinIterations();
+        assertTrue(spins >= 38 && spins <= 42, "spins: " + spins);
+    }
+
+    @Test
+    void adaptive_shouldIncreaseSpinsWhenParkingAfterFewSpins() {
+        // given
+        var waitStrategy = WaitStrategy.adaptive(0, 1000);
+        for (int i = 0; i < 100; i++) {
+            waitStrategy.afterWait(1, false);
+        }
+        var initialSpins = waitStrategy.spinIterations();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            waitStrategy.afterWait(waitStrategy.spinIterations(), true);
+        }
+
+        // then
+        assertTrue(waitStrategy.spinIterations() > initialSpins);
+    }
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.spinThenPark(-1));
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.spinYieldThenPark(1, -1));
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.adaptive(10, 5));
+        assertThrows(
+                NullPointerException.class,
+                () -> Channel.newRendezvousChannel((WaitStrategy) null));
+    }
+}
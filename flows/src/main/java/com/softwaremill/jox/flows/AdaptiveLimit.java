@@ -0,0 +1,179 @@
+package com.softwaremill.jox.flows;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.softwaremill.jox.structured.ThrowingFunction;
+
+/**
+ * A concurrency limit, which is adjusted at runtime, depending on the observed latencies and
+ * failures of the calls it limits. Used by {@link Flow#mapParUnordered(AdaptiveLimit,
+ * ThrowingFunction)}.
+ *
+ * <p>The limit is adjusted using AIMD (additive increase, multiplicative decrease), between {@code
+ * minLimit} and {@code maxLimit}, starting from {@code minLimit}:
+ *
+ * <ul>
+ *   <li>when a call succeeds while the limit is fully used, the limit is increased by 1;
+ *   <li>when a call fails, or takes longer than {@code latencyTolerance} times the baseline
+ *       latency, the limit is multiplied by {@code backoffRatio}.
+ * </ul>
+ *
+ * <p>The baseline latency is the lowest latency observed. When calls are slow even though the limit
+ * is at its minimum, the baseline drifts towards the observed latencies, so that the limit adapts
+ * when the latency of the underlying service permanently increases. After a decrease, the calls
+ * which started before that decrease don't adjust the limit (neither increase, nor decrease it
+ * again), as their latencies reflect the previous limit.
+ *
+ * <p>The limit can be shared by multiple flows (or runs of a flow), which call the same service:
+ * the number of calls in flight is then limited in total. Use {@link #currentLimit()} and {@link
+ * #inFlight()} for monitoring.
+ */
+public final class AdaptiveLimit {
+    /**
+     * How quickly the baseline latency drifts towards the observed latencies, when they're higher,
+     * and the limit is at its minimum.
+     */
+    private static final double BASELINE_DRIFT = 0.05;
+
+    /**
+     * Latencies are compared to a baseline of at least this value, so that calls which are too
+     * short to be reliably measured don't decrease the limit.
+     */
+    private static final double MIN_BASELINE_NANOS = 1_000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when a call completes, or the limit increases. */
+    private final Condition available = lock.newCondition();
+
+    private volatile int limit;
+    private volatile int inFlight;
+    private double baselineLatencyNanos = Double.NaN;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    /**
+     * Creates a limit with a backoff ratio of {@code 0.9}, and a latency tolerance of {@code 2}.
+     *
+     * @param minLimit The lower bound of the limit, and its initial value.
+     * @param maxLimit The upper bound of the limit.
+     */
+    public AdaptiveLimit(int minLimit, int maxLimit) {
+        this(minLimit, maxLimit, 0.9, 2.0);
+    }
+
+    /**
+     * @param minLimit The lower bound of the limit, and its initial value.
+     * @param maxLimit The upper bound of the limit.
+     * @param backoffRatio The factor by which the limit is multiplied, when it's decreased; between
+     *     0 and 1 (exclusive).
+     * @param latencyTolerance How many times the latency of a call might exceed the baseline
+     *     latency, before the limit is decreased; greater than 1.
+     */
+    public AdaptiveLimit(int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(
+                    "The minimum limit must be positive, and not greater than the maximum one.");
+        }
+        if (!(backoffRatio > 0 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        if (!(latencyTolerance > 1)) {
+            throw new IllegalArgumentException("latencyTolerance must be > 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = minLimit;
+    }
+
+    /** The current number of calls, which can be in flight at the same time. */
+    public int currentLimit() {
+        return limit;
+    }
+
+    /** The current number of calls in flight. */
+    public int inFlight() {
+        return inFlight;
+    }
+
+    /** Waits until the number of calls in flight is below the limit, and starts a call. */
+    void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= limit) {
+                available.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes a call, adjusting the limit.
+     *
+     * @param startNanos The {@link System#nanoTime()}, at which the call started.
+     * @param endNanos The {@link System#nanoTime()}, at which the call completed.
+     * @param failed Whether the call failed.
+     */
+    void release(long startNanos, long endNanos, boolean failed) {
+        lock.lock();
+        try {
+            var saturated = inFlight >= limit;
+            inFlight--;
+            var latency = (double) (endNanos - startNanos);
+            // calls which started before the last decrease reflect the previous limit
+            if (startNanos > lastDecreaseNanos) {
+                if (failed || isSlow(latency)) {
+                    limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                    lastDecreaseNanos = endNanos;
+                } else if (saturated && limit < maxLimit) {
+                    limit++;
+                }
+            }
+            if (!failed) {
+                updateBaseline(latency);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Completes a call, which was cancelled (e.g. interrupted), without adjusting the limit. */
+    void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isSlow(double latency) {
+        return !Double.isNaN(baselineLatencyNanos)
+                && latency > latencyTolerance * Math.max(baselineLatencyNanos, MIN_BASELINE_NANOS);
+    }
+
+    private void updateBaseline(double latency) {
+        if (Double.isNaN(baselineLatencyNanos) || latency < baselineLatencyNanos) {
+            baselineLatencyNanos = latency;
+        } else if (limit == minLimit) {
+            // the latencies stay high, even though the limit can't be decreased any further
+            baselineLatencyNanos += (latency - baselineLatencyNanos) * BASELINE_DRIFT;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveLimit{limit=" + limit + ", inFlight=" + inFlight + "}";
+    }
+}
@@ -5,6 +5,7 @@ import static com.softwaremill.jox.Select.selectOrClosed;
 import static com.softwaremill.jox.flows.Flows.usingEmit;
 import static com.softwaremill.jox.structured.Scopes.supervised;
 import static java.lang.Thread.sleep;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -19,6 +20,8 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Flow.Publisher;
 import java.util.concurrent.Semaphore;
@@ -293,13 +296,24 @@ public class Flow<T> {
     public Flow<T> buffer(int bufferCapacity) {
         return usingEmit(
                 emit -> {
-                    Channel<T> ch = Channel.newBufferedChannel(bufferCapacity);
-                    supervised(
-                            scope -> {
-                                runLastToChannelAsync(scope, ch);
-                                FlowEmit.channelToEmit(ch, emit);
-                                return null;
-                            });
+                    // only written to by the forked pipeline, and read by the emit loop, so a
+                    // single-producer, single-consumer channel can be used, unless it's a
+                    // rendezvous
+                    if (bufferCapacity > 0) {
+                        bufferThrough(Channel.newSpscChannel(bufferCapacity), emit);
+                    } else {
+                        bufferThrough(Channel.newBufferedChannel(bufferCapacity), emit);
+                    }
+                });
+    }
+
+    private <C extends Source<T> & Sink<T>> void bufferThrough(C ch, FlowEmit<T> emit)
+            throws Exception {
+        supervised(
+                scope -> {
+                    runLastToChannelAsync(scope, ch);
+                    FlowEmit.channelToEmit(ch, emit);
+                    return null;
                 });
     }
 
@@ -1083,7 +1097,7 @@ public class Flow<T> {
                                         if (!buffer.isEmpty()) outputChannel.send(buffer);
                                         outputChannel.done();
                                         yield false;
-                                    case ChannelError(Throwable cause, Channel<?> _):
+                                    case ChannelError(Throwable cause, var _):
                                         // source returned error, propagate it and finish
                                         if (timeoutFork != null) timeoutFork.cancelNow();
                                         outputChannel.error(cause);
@@ -1263,7 +1277,7 @@ public class Flow<T> {
                                     output.done();
                                     shouldRun = false;
                                 }
-                                case ChannelError(Throwable cause, Channel<?> _) -> {
+                                case ChannelError(Throwable cause, var _) -> {
                                     output.error(cause);
                                     shouldRun = false;
                                 }
@@ -1280,7 +1294,7 @@ public class Flow<T> {
                                     output.sendClause(agg, () -> SENT_MARKER), c.receiveClause())) {
                                 // upstream done; still have agg to send
                                 case ChannelDone _ -> upstreamDone = true;
-                                case ChannelError(Throwable cause, Channel<?> _) -> {
+                                case ChannelError(Throwable cause, var _) -> {
                                     output.error(cause);
                                     shouldRun = false;
                                 }
@@ -1423,7 +1437,7 @@ public class Flow<T> {
                                     output.done();
                                     shouldRun = false;
                                 }
-                                case ChannelError(Throwable cause, Channel<?> _) -> {
+                                case ChannelError(Throwable cause, var _) -> {
                                     output.error(cause);
                                     shouldRun = false;
                                 }
@@ -1441,7 +1455,7 @@ public class Flow<T> {
                                     upstreamDone = true;
                                     output.send(next);
                                 }
-                                case ChannelError(Throwable cause, Channel<?> _) -> {
+                                case ChannelError(Throwable cause, var _) -> {
                                     output.error(cause);
                                     shouldRun = false;
                                 }
@@ -2002,88 +2016,96 @@ public class Flow<T> {
      * <p>Wraps exceptions from `f` and upstream in {@link ChannelErrorException} and {@link
      * JoxScopeExecutionException} when flow is run.
      *
-     * <p>
+     * <p>The elements are mapped by `parallelism` workers, which are started once when the flow is
+     * run, instead of starting a fork for each element. At most `2 * parallelism` elements are in
+     * progress at any time: being mapped, or waiting for the preceding elements to be mapped.
      *
-     * @param parallelism An upper bound on the number of forks that run in parallel. Each fork runs
-     *     the function `f` on a single element from the flow.
+     * @param parallelism The number of workers that run in parallel. Each worker runs the function
+     *     `f` on a single element from the flow at a time.
      * @param f The mapping function.
      */
     public <U> Flow<U> mapPar(int parallelism, ThrowingFunction<T, U> f) {
         return usingEmit(
                 emit -> {
-                    Semaphore semaphore = new Semaphore(parallelism);
-                    Channel<Fork<Optional<U>>> inProgress = Channel.newBufferedChannel(parallelism);
+                    // the number of elements that can be in progress: either being mapped, or
+                    // waiting in the reorder buffer for the results of the preceding elements
+                    int window = 2 * parallelism;
+                    Semaphore semaphore = new Semaphore(window);
+                    Channel<Sequenced<T>> work = Channel.newBufferedChannel(parallelism);
+                    ReorderBuffer<U> reorder = new ReorderBuffer<>(window);
                     Channel<U> results = newChannelWithBufferSizeFromScope();
 
-                    // creating a nested scope, so that in case of errors, we can clean up any
-                    // mapping forks in a "local" fashion,
-                    // that is without closing the main scope; any error management must be done in
-                    // the forks, as the scope is
-                    // unsupervised
+                    // creating a nested scope, so that in case of errors, we can clean up the
+                    // workers in a "local" fashion, that is without closing the main scope; any
+                    // error management must be done in the forks, as the scope is unsupervised
                     supervised(
                             scope -> {
-                                // a fork which runs the `last` pipeline, and for each emitted
-                                // element creates a fork
-                                // notifying only the `results` channels, as it will cause the scope
-                                // to end, and any other forks to be
-                                // interrupted, including the inProgress-fork, which might be
-                                // waiting on a join()
+                                // a fork which runs the `last` pipeline, and assigns sequence
+                                // numbers to the emitted elements, before passing them to the
+                                // workers
                                 forkPropagate(
                                         scope,
                                         results,
                                         () -> {
+                                            long[] sequence = {0};
                                             last.run(
                                                     value -> {
                                                         semaphore.acquire();
-                                                        inProgress.sendOrClosed(
-                                                                forkMapping(
-                                                                        scope, f, semaphore, value,
-                                                                        results));
+                                                        work.send(
+                                                                new Sequenced<>(
+                                                                        sequence[0]++, value));
                                                     });
-                                            inProgress.doneOrClosed();
+                                            work.done();
+                                            reorder.finish(sequence[0]);
                                             return null;
                                         });
 
-                                // a fork in which we wait for the created forks to finish (in
-                                // sequence), and forward the mapped values to `results`
-                                // this extra step is needed so that if there's an error in any of
-                                // the mapping forks, it's discovered as quickly as
-                                // possible in the main body
-                                scope.forkUnsupervised(
-                                        (Callable<T>)
-                                                () -> {
-                                                    while (true) {
-                                                        switch (inProgress.receiveOrClosed()) {
-                                                            // in the fork's result is a `None`, the
-                                                            // error is already propagated to the
-                                                            // `results` channel
-                                                            case ChannelDone ignored -> {
-                                                                results.done();
-                                                                return null;
-                                                            }
-                                                            case ChannelError(
-                                                                            Throwable e,
-                                                                            Channel<?> _) ->
-                                                                    throw new IllegalStateException(
-                                                                            "inProgress should"
-                                                                                + " never be closed"
-                                                                                + " with an error",
-                                                                            e);
-                                                            case Object fork -> {
-                                                                //noinspection unchecked
-                                                                Optional<U> result =
-                                                                        ((Fork<Optional<U>>) fork)
-                                                                                .join();
-                                                                if (result.isPresent()) {
-                                                                    results.sendOrClosed(
-                                                                            result.get());
-                                                                } else {
-                                                                    return null;
-                                                                }
-                                                            }
-                                                        }
+                                // long-lived workers, which map the elements, and put the results
+                                // in the reorder buffer; instead of starting a fork per element
+                                for (int i = 0; i < parallelism; i++) {
+                                    scope.forkUnsupervised(
+                                            () -> {
+                                                while (true) {
+                                                    if (!(work.receiveOrClosed()
+                                                            instanceof Sequenced<?> s)) {
+                                                        // done, as work is never closed with an
+                                                        // error
+                                                        return null;
                                                     }
-                                                });
+                                                    //noinspection unchecked
+                                                    var element = (Sequenced<T>) s;
+                                                    try {
+                                                        reorder.put(
+                                                                element.sequence(),
+                                                                f.apply(element.value()));
+                                                    } catch (Throwable t) {
+                                                        // same as in `forkPropagate`, catching
+                                                        // all exceptions; no point in mapping
+                                                        // subsequent elements
+                                                        results.errorOrClosed(t);
+                                                        return null;
+                                                    }
+                                                }
+                                            });
+                                }
+
+                                // a fork in which we take the results (in sequence), and forward
+                                // them to `results`; if there's an error in any of the workers,
+                                // it's discovered as quickly as possible in the main body, as
+                                // the workers propagate it directly to `results`
+                                scope.forkUnsupervised(
+                                        () -> {
+                                            U result;
+                                            while ((result = reorder.take()) != null) {
+                                                semaphore.release();
+                                                if (results.sendOrClosed(result)
+                                                        instanceof ChannelClosed) {
+                                                    return null;
+                                                }
+                                            }
+                                            results.doneOrClosed();
+                                            return null;
+                                        });
 
                                 // in the main body, we call the `emit` methods using the
                                 // (sequentially received) results; when an error occurs,
@@ -2094,6 +2116,8 @@ public class Flow<T> {
                 });
     }
 
+    private record Sequenced<T>(long sequence, T value) {}
+
     /**
      * Applies the given mapping function `f` to each element emitted by this flow. At most
      * `parallelism` invocations of `f` are run in parallel.
@@ -2114,59 +2138,485 @@ public class Flow<T> {
      * @param f The mapping function.
      */
     public <U> Flow<U> mapParUnordered(int parallelism, ThrowingFunction<T, U> f) {
+        Semaphore s = new Semaphore(parallelism);
+        return mapParUnordered(
+                new Permits() {
+                    @Override
+                    public void acquire() throws InterruptedException {
+                        s.acquire();
+                    }
+
+                    @Override
+                    public void completed(long startNanos, long endNanos) {
+                        s.release();
+                    }
+
+                    @Override
+                    public void failed(long startNanos, long endNanos, Throwable cause) {
+                        // not releasing, so that no new forks are started, as the flow fails
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        // the semaphore isn't used after the flow completes
+                    }
+                },
+                f);
+    }
+
+    /**
+     * Applies the given mapping function `f` to each element emitted by this flow. The number of
+     * invocations of `f` which run in parallel is bounded by the given limit, which is adjusted at
+     * runtime, depending on the observed latencies and failures of `f`. See {@link AdaptiveLimit}.
+     *
+     * <p>The mapped results **might** be emitted out-of-order, depending on the order in which the
+     * mapping function completes.
+     *
+     * <p>The size of the output buffer is determined by the {@link Flow#CHANNEL_BUFFER_SIZE} that
+     * is in scope, or default value {@link Channel#DEFAULT_BUFFER_SIZE} is chosen if not specified.
+     *
+     * <p>Wraps exceptions from `f` and upstream in {@link ChannelErrorException} and {@link
+     * JoxScopeExecutionException} when flow is run. An exception thrown by `f` fails the flow, but
+     * also decreases the limit, which matters if the limit is shared, or the flow is retried.
+     *
+     * @param limit The limit on the number of forks that run in parallel. Each fork runs the
+     *     function `f` on a single element from the flow. The limit might be shared with other
+     *     flows, and monitored using {@link AdaptiveLimit#currentLimit()}.
+     * @param f The mapping function.
+     */
+    public <U> Flow<U> mapParUnordered(AdaptiveLimit limit, ThrowingFunction<T, U> f) {
+        return mapParUnordered(
+                new Permits() {
+                    @Override
+                    public void acquire() throws InterruptedException {
+                        limit.acquire();
+                    }
+
+                    @Override
+                    public void completed(long startNanos, long endNanos) {
+                        limit.release(startNanos, endNanos, false);
+                    }
+
+                    @Override
+                    public void failed(long startNanos, long endNanos, Throwable cause) {
+                        if (cause instanceof InterruptedException) {
+                            limit.cancel();
+                        } else {
+                            limit.release(startNanos, endNanos, true);
+                        }
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        limit.cancel();
+                    }
+                },
+                f);
+    }
+
+    /** Bounds the number of forks running the mapping function in {@link #mapParUnordered}. */
+    private interface Permits {
+        void acquire() throws InterruptedException;
+
+        /** Called once the result is sent downstream. */
+        void completed(long startNanos, long endNanos);
+
+        /** Called when the mapping function, or sending the result, fails. */
+        void failed(long startNanos, long endNanos, Throwable cause);
+
+        /** Called when the fork, for which a permit was acquired, didn't run, as the flow ended. */
+        void cancelled();
+    }
+
+    private <U> Flow<U> mapParUnordered(Permits permits, ThrowingFunction<T, U> f) {
+        return usingEmit(
+                emit -> {
+                    Channel<U> results = newChannelWithBufferSizeFromScope();
+                    // the number of permits acquired for forks which didn't yet complete
+                    AtomicInteger outstanding = new AtomicInteger();
+                    try {
+                        // the outer scope, used for the fork which runs the `last` pipeline
+                        supervised(
+                                unsupervisedScope -> {
+                                    forkPropagate(
+                                            unsupervisedScope,
+                                            results,
+                                            () -> {
+                                                // the inner scope, in which user forks are
+                                                // created, and which is used to wait for all
+                                                // to complete when done
+                                                supervised(
+                                                        scope -> {
+                                                            try {
+                                                                last.run(
+                                                                        t -> {
+                                                                            permits.acquire();
+                                                                            outstanding
+                                                                                    .incrementAndGet();
+                                                                            scope.forkUser(
+                                                                                    () -> {
+                                                                                        mapUnordered(
+                                                                                                permits,
+                                                                                                outstanding,
+                                                                                                f,
+                                                                                                t,
+                                                                                                results);
+                                                                                        return null;
+                                                                                    });
+                                                                        });
+                                                            } catch (Exception e) {
+                                                                results.errorOrClosed(e);
+                                                            }
+                                                            return null;
+                                                        });
+                                                results.doneOrClosed();
+                                                return null;
+                                            });
+                                    FlowEmit.channelToEmit(results, emit);
+                                    return null;
+                                });
+                    } finally {
+                        // once the scope completes, all forks which were started did complete,
+                        // but some might have never run, when the scope ended abruptly
+                        for (int i = outstanding.get(); i > 0; i--) {
+                            permits.cancelled();
+                        }
+                    }
+                });
+    }
+
+    private static <T, U> void mapUnordered(
+            Permits permits,
+            AtomicInteger outstanding,
+            ThrowingFunction<T, U> f,
+            T t,
+            Channel<U> results) {
+        long start = System.nanoTime();
+        try {
+            U u = f.apply(t);
+            long end = System.nanoTime();
+            results.sendOrClosed(u);
+            outstanding.decrementAndGet();
+            permits.completed(start, end);
+        } catch (Throwable cause) {
+            outstanding.decrementAndGet();
+            permits.failed(start, System.nanoTime(), cause);
+            results.errorOrClosed(cause);
+        }
+    }
+
+    /**
+     * Applies the given mapping function `f` to each element emitted by this flow, processing the
+     * elements with the same key (as determined by `keyFunction`) sequentially, and the elements
+     * with different keys in parallel. At most `parallelism` invocations of `f` are run in
+     * parallel.
+     *
+     * <p>The mapped results of elements with the same key are emitted in the same order, in which
+     * the inputs are received. Results of elements with different keys **might** be emitted
+     * out-of-order, depending on the order in which the mapping function completes. Hence, a slow
+     * element only delays the subsequent elements with the same key.
+     *
+     * <p>At most {@code 4 * parallelism} keys can have elements in progress, with at most {@link
+     * Channel#DEFAULT_BUFFER_SIZE} elements queued for each key. When the limits are reached, the
+     * upstream is backpressured. See {@link #mapParByKey(int, int, int, ThrowingFunction,
+     * ThrowingFunction)} to configure the limits.
+     *
+     * <p>The size of the output buffer is determined by the {@link Flow#CHANNEL_BUFFER_SIZE} that
+     * is in scope, or default value {@link Channel#DEFAULT_BUFFER_SIZE} is chosen if not specified.
+     *
+     * <p>Wraps exceptions from `keyFunction`, `f` and upstream in {@link ChannelErrorException} and
+     * {@link JoxScopeExecutionException} when flow is run.
+     *
+     * @param parallelism The number of workers that run in parallel. Each worker runs the function
+     *     `f` on a single element from the flow at a time.
+     * @param keyFunction Function used to determine the key of an element.
+     * @param f The mapping function.
+     */
+    public <K, U> Flow<U> mapParByKey(
+            int parallelism, ThrowingFunction<T, K> keyFunction, ThrowingFunction<T, U> f) {
+        return mapParByKey(
+                parallelism, 4 * parallelism, Channel.DEFAULT_BUFFER_SIZE, keyFunction, f);
+    }
+
+    /**
+     * Applies the given mapping function `f` to each element emitted by this flow, processing the
+     * elements with the same key (as determined by `keyFunction`) sequentially, and the elements
+     * with different keys in parallel. At most `parallelism` invocations of `f` are run in
+     * parallel.
+     *
+     * <p>The mapped results of elements with the same key are emitted in the same order, in which
+     * the inputs are received. Results of elements with different keys **might** be emitted
+     * out-of-order, depending on the order in which the mapping function completes. Hence, a slow
+     * element only delays the subsequent elements with the same key.
+     *
+     * <p>A key is in flight, when an element with that key is being mapped, or is waiting for the
+     * preceding elements with the same key to be mapped. At most `maxKeys` keys can be in flight,
+     * with at most `perKeyBufferSize` elements (including the one being mapped) for each key. When
+     * either limit is reached, the upstream is backpressured until an element is mapped.
+     *
+     * <p>The size of the output buffer is determined by the {@link Flow#CHANNEL_BUFFER_SIZE} that
+     * is in scope, or default value {@link Channel#DEFAULT_BUFFER_SIZE} is chosen if not specified.
+     *
+     * <p>Wraps exceptions from `keyFunction`, `f` and upstream in {@link ChannelErrorException} and
+     * {@link JoxScopeExecutionException} when flow is run.
+     *
+     * @param parallelism The number of workers that run in parallel. Each worker runs the function
+     *     `f` on a single element from the flow at a time.
+     * @param maxKeys The maximum number of keys in flight. Should be at least `parallelism`, so
+     *     that all workers can be busy.
+     * @param perKeyBufferSize The maximum number of elements in flight for a single key.
+     * @param keyFunction Function used to determine the key of an element.
+     * @param f The mapping function.
+     */
+    public <K, U> Flow<U> mapParByKey(
+            int parallelism,
+            int maxKeys,
+            int perKeyBufferSize,
+            ThrowingFunction<T, K> keyFunction,
+            ThrowingFunction<T, U> f) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        if (maxKeys <= 0) throw new IllegalArgumentException("maxKeys must be > 0");
+        if (perKeyBufferSize <= 0)
+            throw new IllegalArgumentException("perKeyBufferSize must be > 0");
+
         return usingEmit(
                 emit -> {
+                    KeyedQueues<K, T> queues = new KeyedQueues<>(maxKeys, perKeyBufferSize);
+                    // each in-flight key has a single lane, which is either in this channel, or
+                    // being processed by a worker; hence, sending never blocks
+                    Channel<KeyedQueues.Lane<K, T>> ready = Channel.newBufferedChannel(maxKeys);
                     Channel<U> results = newChannelWithBufferSizeFromScope();
-                    Semaphore s = new Semaphore(parallelism);
+
                     supervised(
-                            unsupervisedScope -> { // the outer scope, used for the fork which runs
-                                // the `last` pipeline
+                            scope -> {
+                                // a fork which runs the `last` pipeline, and queues the elements
+                                // by key; a lane is handed over to the workers when its key
+                                // becomes in flight
                                 forkPropagate(
-                                        unsupervisedScope,
+                                        scope,
                                         results,
                                         () -> {
-                                            supervised(
-                                                    scope -> { // the inner scope, in which user
-                                                        // forks are created, and which is
-                                                        // used to wait for all to complete
-                                                        // when done
-                                                        try {
-                                                            last.run(
-                                                                    t -> {
-                                                                        s.acquire();
-                                                                        scope.forkUser(
-                                                                                () -> {
-                                                                                    try {
-                                                                                        results
-                                                                                                .sendOrClosed(
-                                                                                                        f
-                                                                                                                .apply(
-                                                                                                                        t));
-                                                                                        s.release();
-                                                                                    } catch (
-                                                                                            Throwable
-                                                                                                    cause) {
-                                                                                        results
-                                                                                                .errorOrClosed(
-                                                                                                        cause);
-                                                                                    }
-                                                                                    return null;
-                                                                                });
-                                                                    });
-                                                        } catch (Exception e) {
-                                                            results.errorOrClosed(e);
+                                            last.run(
+                                                    value -> {
+                                                        var lane =
+                                                                queues.add(
+                                                                        keyFunction.apply(value),
+                                                                        value);
+                                                        if (lane != null) {
+                                                            ready.send(lane);
                                                         }
-                                                        return null;
                                                     });
+                                            // results are sent before the lanes complete, so once
+                                            // no key is in flight, all results have been sent
+                                            queues.awaitEmpty();
+                                            ready.done();
                                             results.doneOrClosed();
                                             return null;
                                         });
+
+                                // long-lived workers, which map the head element of a lane; if
+                                // there are more elements in the lane, it's handed over again,
+                                // so that other keys are processed in the meantime
+                                for (int i = 0; i < parallelism; i++) {
+                                    scope.forkUnsupervised(
+                                            () -> {
+                                                while (true) {
+                                                    if (!(ready.receiveOrClosed()
+                                                            instanceof KeyedQueues.Lane<?, ?> l)) {
+                                                        return null;
+                                                    }
+                                                    //noinspection unchecked
+                                                    var lane = (KeyedQueues.Lane<K, T>) l;
+                                                    try {
+                                                        if (results.sendOrClosed(
+                                                                        f.apply(queues.head(lane)))
+                                                                instanceof ChannelClosed) {
+                                                            return null;
+                                                        }
+                                                    } catch (Throwable t) {
+                                                        results.errorOrClosed(t);
+                                                        return null;
+                                                    }
+                                                    if (queues.complete(lane)) {
+                                                        ready.send(lane);
+                                                    }
+                                                }
+                                            });
+                                }
+
                                 FlowEmit.channelToEmit(results, emit);
                                 return null;
                             });
                 });
     }
 
+    /**
+     * Applies the given mapping function `f` to each element emitted by this flow, starting
+     * duplicate (hedged) attempts for elements which take long to map. At most `parallelism`
+     * elements are mapped in parallel.
+     *
+     * <p>If an attempt for an element hasn't completed after the delay determined by `hedging`, a
+     * hedged attempt is started in a new fork, up to `maxHedges` times for each element. The result
+     * of the first attempt to complete successfully is used, and the other attempts are cancelled
+     * (interrupted). Hence, `f` should be idempotent. This reduces the tail latency, when the
+     * latency of `f` varies, at the cost of additional invocations of `f`. The number of hedged
+     * attempts, and how many of them completed first is counted by `hedging`.
+     *
+     * <p>The mapped results are emitted in the same order, in which inputs are received. In other
+     * words, ordering is preserved.
+     *
+     * <p>The size of the output buffer is determined by the {@link Flow#CHANNEL_BUFFER_SIZE} that
+     * is in scope, or default value {@link Channel#DEFAULT_BUFFER_SIZE} is chosen if not specified.
+     *
+     * <p>Wraps exceptions from `f` and upstream in {@link ChannelErrorException} and {@link
+     * JoxScopeExecutionException} when flow is run. An element fails only when all of its attempts
+     * fail (with the exception thrown by the first failed attempt); no new attempts are started
+     * after a failure.
+     *
+     * @param parallelism The number of elements that are mapped in parallel. Each element might be
+     *     mapped by up to `1 + maxHedges` attempts.
+     * @param hedging Determines the delay, after which a hedged attempt is started, and counts the
+     *     hedged attempts. See {@link Hedging}.
+     * @param maxHedges The maximum number of hedged attempts for a single element.
+     * @param f The mapping function.
+     */
+    public <U> Flow<U> mapParHedged(
+            int parallelism, Hedging hedging, int maxHedges, ThrowingFunction<T, U> f) {
+        if (hedging == null) throw new NullPointerException("hedging");
+        if (maxHedges < 0) throw new IllegalArgumentException("maxHedges must be >= 0");
+        return mapPar(parallelism, t -> mapHedged(hedging, maxHedges, f, t));
+    }
+
+    private static <T, U> U mapHedged(Hedging hedging, int maxHedges, ThrowingFunction<T, U> f, T t)
+            throws Exception {
+        var winner =
+                supervised(
+                        scope -> {
+                            long start = System.nanoTime();
+                            var completed = new ArrayBlockingQueue<Attempt<U>>(maxHedges + 1);
+                            var attempts = new ArrayList<CancellableFork<Void>>(maxHedges + 1);
+                            attempts.add(forkAttempt(scope, 0, f, t, completed));
+                            int running = 1;
+                            Attempt<U> firstFailed = null;
+                            while (true) {
+                                Attempt<U> a =
+                                        attempts.size() <= maxHedges && firstFailed == null
+                                                ? completed.poll(hedging.delayNanos(), NANOSECONDS)
+                                                : completed.take();
+                                if (a == null) {
+                                    // the delay elapsed: starting a hedged attempt
+                                    attempts.add(
+                                            forkAttempt(scope, attempts.size(), f, t, completed));
+                                    hedging.hedgeIssued();
+                                    running++;
+                                } else if (a.failure() == null) {
+                                    // the latency of the first attempt; if a hedged attempt
+                                    // completed first, the first one would have taken longer, so
+                                    // that's a lower bound of its latency
+                                    hedging.recordLatency(System.nanoTime() - start);
+                                    if (a.number() > 0) {
+                                        hedging.hedgeWon();
+                                    }
+                                    // the scope would interrupt the losers as well, but cancelling
+                                    // them explicitly doesn't depend on the order of shutdown
+                                    attempts.forEach(CancellableFork::cancelNow);
+                                    return a;
+                                } else {
+                                    if (firstFailed == null) {
+                                        firstFailed = a;
+                                    }
+                                    if (--running == 0) {
+                                        return firstFailed;
+                                    }
+                                }
+                            }
+                        });
+        if (winner.failure() instanceof Exception e) {
+            throw e;
+        } else if (winner.failure() != null) {
+            throw (Error) winner.failure();
+        }
+        return winner.result();
+    }
+
+    private static <T, U> CancellableFork<Void> forkAttempt(
+            Scope scope,
+            int number,
+            ThrowingFunction<T, U> f,
+            T t,
+            BlockingQueue<Attempt<U>> completed)
+            throws InterruptedException {
+        return scope.forkCancellable(
+                () -> {
+                    Attempt<U> attempt;
+                    try {
+                        attempt = new Attempt<>(number, f.apply(t), null);
+                    } catch (InterruptedException e) {
+                        // cancelled, as another attempt completed first
+                        throw e;
+                    } catch (Throwable e) {
+                        attempt = new Attempt<>(number, null, e);
+                    }
+                    completed.add(attempt);
+                    return null;
+                });
+    }
+
+    private record Attempt<U>(int number, U result, Throwable failure) {}
+
+    /**
+     * Maps the elements emitted by this flow in batches, using a function which looks up the values
+     * for multiple keys at once (e.g. a multi-get on a data store). The elements of this flow are
+     * the keys.
+     *
+     * <p>Consecutive elements are grouped into batches of at most `maxBatch` elements, within a
+     * time window of `maxDelay`, whichever happens first (see {@link #groupedWithin(int,
+     * Duration)}). Repeated keys are removed from each batch, before it's passed to `f`. At most
+     * `parallelism` invocations of `f` are run in parallel.
+     *
+     * <p>The values are emitted in the same order, in which the keys are received, once for each
+     * key (including the repeated ones). In other words, ordering is preserved, and the returned
+     * flow emits the same number of elements as this one.
+     *
+     * <p>The size of the output buffer is determined by the {@link Flow#CHANNEL_BUFFER_SIZE} that
+     * is in scope, or default value {@link Channel#DEFAULT_BUFFER_SIZE} is chosen if not specified.
+     *
+     * <p>Wraps exceptions from `f` and upstream in {@link ChannelErrorException} and {@link
+     * JoxScopeExecutionException} when flow is run.
+     *
+     * @param maxBatch The maximum number of elements in a batch.
+     * @param maxDelay The time window in which the elements are batched.
+     * @param parallelism An upper bound on the number of invocations of `f` that run in parallel.
+     * @param f The lookup function, which receives distinct keys, and should return a map
+     *     containing a non-null value for each of them.
+     * @throws JoxScopeExecutionException with cause {@link IllegalStateException} When `f` doesn't
+     *     return a value for a key.
+     */
+    public <U> Flow<U> mapBatched(
+            int maxBatch,
+            Duration maxDelay,
+            int parallelism,
+            ThrowingFunction<List<T>, Map<T, U>> f) {
+        return groupedWithin(maxBatch, maxDelay)
+                .mapPar(parallelism, batch -> lookupBatch(batch, f))
+                .mapConcat(values -> values);
+    }
+
+    private static <T, U> List<U> lookupBatch(List<T> batch, ThrowingFunction<List<T>, Map<T, U>> f)
+            throws Exception {
+        var keys = new ArrayList<>(new LinkedHashSet<>(batch));
+        var found = f.apply(Collections.unmodifiableList(keys));
+        var values = new ArrayList<U>(batch.size());
+        for (T key : batch) {
+            var value = found.get(key);
+            if (value == null) {
+                throw new IllegalStateException("No value returned for key: " + key);
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
     /**
      * Creates sliding windows of elements from this flow. The window slides by `step` elements. The
      * last window may be smaller due to flow being completed.
@@ -2758,26 +3208,7 @@ public class Flow<T> {
                 });
     }
 
-    private <U> Fork<Optional<U>> forkMapping(
-            Scope scope, ThrowingFunction<T, U> f, Semaphore s, T value, Sink<U> results)
-            throws InterruptedException {
-        return scope.forkUnsupervised(
-                () -> {
-                    try {
-                        U u = f.apply(value);
-                        s.release(); // not in finally, as in case of an exception, no point
-                        // in starting subsequent forks
-                        return Optional.of(u);
-                    } catch (Throwable throwable) { // same as in `forkPropagate`, catching all
-                        // exceptions
-                        results.errorOrClosed(throwable);
-                        return Optional.empty();
-                    }
-                });
-    }
-
-    private void runLastToChannelAsync(Scope scope, Channel<T> channel)
-            throws InterruptedException {
+    private void runLastToChannelAsync(Scope scope, Sink<T> channel) throws InterruptedException {
         scope.forkUnsupervised(
                 () -> {
                     try {
@@ -553,87 +553,104 @@ public final class Flows {
         } else {
             return usingEmit(
                     emit -> {
-                        Channel<T> results = Channel.newBufferedChannel(bufferCapacity);
-                        supervised(
-                                scope -> {
-                                    scope.forkUnsupervised(
-                                            () -> {
-                                                List<Source<T>> availableSources =
-                                                        new ArrayList<>();
-                                                for (Flow<T> flow : flows) {
-                                                    availableSources.add(flow.runToChannel(scope));
-                                                }
-                                                int currentSourceIndex = 0;
-                                                int elementsRead = 0;
-
-                                                while (true) {
-                                                    var received =
-                                                            availableSources
-                                                                    .get(currentSourceIndex)
-                                                                    .receiveOrClosed();
-                                                    if (received instanceof ChannelDone) {
-                                                        //  channel is done, remove it from the
-                                                        // list of available sources
-                                                        availableSources.remove(currentSourceIndex);
-                                                        currentSourceIndex =
-                                                                currentSourceIndex == 0
-                                                                        ? availableSources.size()
-                                                                                - 1
-                                                                        : currentSourceIndex - 1;
-
-                                                        // if all sources are done, or eagerComplete
-                                                        // break the loop
-                                                        if (eagerComplete
-                                                                || availableSources.isEmpty()) {
-                                                            results.doneOrClosed();
-                                                            break;
-                                                        } else {
-                                                            // switch to the next source
-                                                            currentSourceIndex =
-                                                                    (currentSourceIndex + 1)
-                                                                            % availableSources
-                                                                                    .size();
-                                                            elementsRead = 0;
-                                                        }
-                                                    } else if (received
-                                                            instanceof
-                                                            ChannelError(
-                                                                    Throwable cause,
-                                                                    Channel<?> _)) {
-                                                        // if any source fails, propagate the error
-                                                        results.errorOrClosed(cause);
-                                                        break;
-                                                    } else {
-                                                        elementsRead++;
-
-                                                        // switch to the next source when
-                                                        // segmentSize is reached and there are more
-                                                        // sources available
-                                                        if (elementsRead == segmentSize
-                                                                && availableSources.size() > 1) {
-                                                            currentSourceIndex =
-                                                                    (currentSourceIndex + 1)
-                                                                            % availableSources
-                                                                                    .size();
-                                                            elementsRead = 0;
-                                                        }
-                                                        //noinspection unchecked
-                                                        Object result =
-                                                                results.sendOrClosed((T) received);
-                                                        if (result instanceof ChannelClosed) {
-                                                            break;
-                                                        }
-                                                    }
-                                                }
-                                                return null;
-                                            });
-                                    FlowEmit.channelToEmit(results, emit);
-                                    return null;
-                                });
+                        // written to only by the interleaving fork, read by the emit loop, so a
+                        // single-producer, single-consumer channel can be used, unless it's a
+                        // rendezvous
+                        if (bufferCapacity > 0) {
+                            interleave(
+                                    flows,
+                                    segmentSize,
+                                    eagerComplete,
+                                    Channel.newSpscChannel(bufferCapacity),
+                                    emit);
+                        } else {
+                            interleave(
+                                    flows,
+                                    segmentSize,
+                                    eagerComplete,
+                                    Channel.newBufferedChannel(bufferCapacity),
+                                    emit);
+                        }
                     });
         }
     }
 
+    private static <T, C extends Source<T> & Sink<T>> void interleave(
+            List<Flow<T>> flows,
+            int segmentSize,
+            boolean eagerComplete,
+            C results,
+            FlowEmit<T> emit)
+            throws Exception {
+        supervised(
+                scope -> {
+                    scope.forkUnsupervised(
+                            () -> {
+                                List<Source<T>> availableSources = new ArrayList<>();
+                                for (Flow<T> flow : flows) {
+                                    availableSources.add(flow.runToChannel(scope));
+                                }
+                                int currentSourceIndex = 0;
+                                int elementsRead = 0;
+
+                                while (true) {
+                                    var received =
+                                            availableSources
+                                                    .get(currentSourceIndex)
+                                                    .receiveOrClosed();
+                                    if (received instanceof ChannelDone) {
+                                        //  channel is done, remove it from the
+                                        // list of available sources
+                                        availableSources.remove(currentSourceIndex);
+                                        currentSourceIndex =
+                                                currentSourceIndex == 0
+                                                        ? availableSources.size() - 1
+                                                        : currentSourceIndex - 1;
+
+                                        // if all sources are done, or eagerComplete
+                                        // break the loop
+                                        if (eagerComplete || availableSources.isEmpty()) {
+                                            results.doneOrClosed();
+                                            break;
+                                        } else {
+                                            // switch to the next source
+                                            currentSourceIndex =
+                                                    (currentSourceIndex + 1)
+                                                            % availableSources.size();
+                                            elementsRead = 0;
+                                        }
+                                    } else if (received
+                                            instanceof ChannelError(Throwable cause, var _)) {
+                                        // if any source fails, propagate the error
+                                        results.errorOrClosed(cause);
+                                        break;
+                                    } else {
+                                        elementsRead++;
+
+                                        // switch to the next source when
+                                        // segmentSize is reached and there are more
+                                        // sources available
+                                        if (elementsRead == segmentSize
+                                                && availableSources.size() > 1) {
+                                            currentSourceIndex =
+                                                    (currentSourceIndex + 1)
+                                                            % availableSources.size();
+                                            elementsRead = 0;
+                                        }
+                                        //noinspection unchecked
+                                        Object result = results.sendOrClosed((T) received);
+                                        if (result instanceof ChannelClosed) {
+                                            break;
+                                        }
+                                    }
+                                }
+                                return null;
+                            });
+                    FlowEmit.channelToEmit(results, emit);
+                    return null;
+                });
+    }
+
     /**
      * Converts a {@link java.io.InputStream} into {@link ByteFlow} using the default chunk size.
      *
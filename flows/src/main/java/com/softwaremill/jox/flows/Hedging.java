@@ -0,0 +1,139 @@
+package com.softwaremill.jox.flows;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.softwaremill.jox.structured.ThrowingFunction;
+
+/**
+ * Determines when {@link Flow#mapParHedged(int, Hedging, int, ThrowingFunction)} starts a hedged
+ * (duplicate) attempt for an element, which hasn't been mapped yet, and counts the hedged attempts.
+ *
+ * <p>The delay is either {@linkplain #after(Duration) fixed}, or {@linkplain
+ * #afterPercentile(double, Duration) derived} from a percentile of the recently observed latencies.
+ *
+ * <p>The counters are cumulative, and can be used for monitoring: {@link #hedgesIssued()} is the
+ * number of hedged attempts started, and {@link #hedgesWon()} is the number of elements, for which
+ * a hedged attempt completed before the original one. An instance might be shared by multiple
+ * flows, and runs of a flow; the latencies and counters are then shared as well.
+ */
+public final class Hedging {
+    /** The number of most recent latencies, from which the percentile is computed. */
+    static final int WINDOW = 512;
+
+    /** How often (in terms of recorded latencies) the percentile is recomputed. */
+    static final int RECOMPUTE_EVERY = 64;
+
+    private final double percentile;
+    private final AtomicLong hedgesIssued = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    // only used when the delay is derived from a percentile
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] latencies;
+    private long recorded;
+
+    private volatile long delayNanos;
+
+    private Hedging(double percentile, long delayNanos) {
+        this.percentile = percentile;
+        this.latencies = Double.isNaN(percentile) ? null : new long[WINDOW];
+        this.delayNanos = delayNanos;
+    }
+
+    /** Start a hedged attempt, if an attempt hasn't completed within the given, fixed delay. */
+    public static Hedging after(Duration delay) {
+        return new Hedging(Double.NaN, validDelay(delay));
+    }
+
+    /**
+     * Start a hedged attempt, if an attempt hasn't completed within the given percentile of the
+     * recently observed latencies (e.g. {@code 95}: hedge the 5% of slowest attempts). The
+     * latencies of the first attempts for the most recent {@value #WINDOW} successfully mapped
+     * elements are taken into account. When a hedged attempt completes first, the time from the
+     * start of the first attempt until then is used instead, as the first attempt would have taken
+     * at least that long.
+     *
+     * @param percentile The percentile, between 0 and 100 (exclusive).
+     * @param initialDelay The delay used until enough latencies are observed.
+     */
+    public static Hedging afterPercentile(double percentile, Duration initialDelay) {
+        if (!(percentile > 0 && percentile < 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        return new Hedging(percentile, validDelay(initialDelay));
+    }
+
+    private static long validDelay(Duration delay) {
+        if (delay == null) {
+            throw new NullPointerException("delay");
+        }
+        if (delay.isNegative()) {
+            throw new IllegalArgumentException("delay must be >= 0");
+        }
+        return delay.toNanos();
+    }
+
+    /** The number of hedged attempts started so far. */
+    public long hedgesIssued() {
+        return hedgesIssued.get();
+    }
+
+    /** The number of elements, for which a hedged attempt completed first. */
+    public long hedgesWon() {
+        return hedgesWon.get();
+    }
+
+    /** The current delay, after which a hedged attempt is started. */
+    public Duration currentDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    long delayNanos() {
+        return delayNanos;
+    }
+
+    void hedgeIssued() {
+        hedgesIssued.incrementAndGet();
+    }
+
+    void hedgeWon() {
+        hedgesWon.incrementAndGet();
+    }
+
+    /**
+     * Records the latency of the first attempt for an element, which was mapped successfully (or a
+     * lower bound of it, if a hedged attempt completed first).
+     */
+    void recordLatency(long nanos) {
+        if (latencies == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            latencies[(int) (recorded % WINDOW)] = nanos;
+            recorded++;
+            if (recorded % RECOMPUTE_EVERY == 0) {
+                var sorted = Arrays.copyOf(latencies, (int) Math.min(recorded, WINDOW));
+                Arrays.sort(sorted);
+                var index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+                delayNanos = sorted[Math.max(0, index)];
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Hedging{delay="
+                + currentDelay()
+                + ", hedgesIssued="
+                + hedgesIssued()
+                + ", hedgesWon="
+                + hedgesWon()
+                + "}";
+    }
+}
@@ -0,0 +1,121 @@
+package com.softwaremill.jox.flows;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.softwaremill.jox.structured.ThrowingFunction;
+
+/**
+ * Per-key queues of elements, used by {@link Flow#mapParByKey(int, int, int, ThrowingFunction,
+ * ThrowingFunction)} to process the elements with the same key sequentially, while elements with
+ * different keys are processed in parallel.
+ *
+ * <p>A key is <em>active</em>, if there's an element with that key which is either being processed,
+ * or waiting in the key's queue. The head of an active key's queue is the element that is being
+ * processed, or which will be processed next. Each active key has a single {@link Lane}, which is
+ * handed over to a worker (through a channel) when the key becomes active, and after the head
+ * element is processed, if there are more elements in the queue. Hence, at any time, at most one
+ * worker processes the elements of a given key.
+ *
+ * <p>Both the number of active keys, and the size of each queue are bounded: {@link #add} blocks,
+ * until there's room for the element.
+ */
+class KeyedQueues<K, T> {
+    private final int maxKeys;
+    private final int perKeyCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when an element is removed from a queue, or when a key stops being active. */
+    private final Condition changed = lock.newCondition();
+
+    private final Map<K, Lane<K, T>> active = new HashMap<>();
+
+    KeyedQueues(int maxKeys, int perKeyCapacity) {
+        this.maxKeys = maxKeys;
+        this.perKeyCapacity = perKeyCapacity;
+    }
+
+    /**
+     * Adds the element to the queue of the given key, waiting until there's room in the queue, or
+     * if the key isn't active, until the number of active keys drops below the limit.
+     *
+     * @return The key's lane, if the key has just become active (it should then be handed over to a
+     *     worker), or {@code null} otherwise.
+     */
+    Lane<K, T> add(K key, T value) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                var lane = active.get(key);
+                if (lane == null && active.size() < maxKeys) {
+                    lane = new Lane<>(key);
+                    lane.queue.add(value);
+                    active.put(key, lane);
+                    return lane;
+                } else if (lane != null && lane.queue.size() < perKeyCapacity) {
+                    lane.queue.add(value);
+                    return null;
+                }
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The element that should be processed next for the given (active) lane. */
+    T head(Lane<K, T> lane) {
+        lock.lock();
+        try {
+            return lane.queue.peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the head element of the given lane, once it's processed.
+     *
+     * @return {@code true}, if there are more elements in the lane (it should then be handed over
+     *     to a worker again), or {@code false}, if the key is no longer active.
+     */
+    boolean complete(Lane<K, T> lane) {
+        lock.lock();
+        try {
+            lane.queue.removeFirst();
+            var more = !lane.queue.isEmpty();
+            if (!more) {
+                active.remove(lane.key);
+            }
+            changed.signalAll();
+            return more;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Waits until all elements are processed, that is until no key is active. */
+    void awaitEmpty() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!active.isEmpty()) {
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static final class Lane<K, T> {
+        private final K key;
+        private final ArrayDeque<T> queue = new ArrayDeque<>();
+
+        private Lane(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.softwaremill.jox.flows;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A ring of results, indexed by sequence numbers, used by {@link Flow#mapPar(int,
+ * ThrowingFunction)} to restore the order of the elements processed by the workers.
+ *
+ * <p>Results can be put by any number of threads, while a single thread takes them, in order of
+ * their sequence numbers. The caller must ensure that there are at most {@code capacity} results
+ * with sequence numbers at or after the one which is taken next; in other words, the result with
+ * sequence number {@code n + capacity} can only be put after the result {@code n} is taken.
+ *
+ * <p>When the next result isn't available, the taking thread parks. A thread which puts the result
+ * with the next sequence number unparks it. As both sides first write (the result, or the next
+ * sequence number), and then read what the other side wrote, using volatile accesses, either the
+ * taking thread sees the result, or the putting thread sees that it should unpark.
+ */
+class ReorderBuffer<U> {
+    private final AtomicReferenceArray<U> slots;
+
+    /** The sequence number of the result, which will be taken next. */
+    private volatile long next = 0;
+
+    /** The total number of results, or {@link Long#MAX_VALUE}, if not yet known. */
+    private volatile long total = Long.MAX_VALUE;
+
+    private volatile Thread taker;
+
+    ReorderBuffer(int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /** Puts the (non-null) result with the given sequence number. */
+    void put(long sequence, U result) {
+        if (result == null) {
+            throw new NullPointerException("result");
+        }
+        slots.set(index(sequence), result);
+        if (next == sequence) {
+            unparkTaker();
+        }
+    }
+
+    /** Marks that there will be no more results than {@code total}. */
+    void finish(long total) {
+        this.total = total;
+        unparkTaker();
+    }
+
+    /**
+     * Takes the result with the next sequence number, waiting until it's available.
+     *
+     * @return The result, or {@code null}, if all results have been taken.
+     */
+    U take() throws InterruptedException {
+        if (taker == null) {
+            taker = Thread.currentThread();
+        }
+        var n = next;
+        var i = index(n);
+        while (true) {
+            var result = slots.get(i);
+            if (result != null) {
+                slots.set(i, null);
+                next = n + 1;
+                return result;
+            }
+            if (n == total) {
+                return null;
+            }
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private void unparkTaker() {
+        var t = taker;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % slots.length());
+    }
+}
@@ -0,0 +1,203 @@
+package com.softwaremill.jox.flows;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class AdaptiveLimitTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shouldStartWithTheMinimumLimit() {
+        var limit = new AdaptiveLimit(3, 10);
+
+        assertEquals(3, limit.currentLimit());
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    void shouldIncreaseTheLimitWhenSaturated() throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(2, 10);
+
+        // when
+        limit.acquire();
+        limit.acquire();
+        limit.release(0, 10 * MS, false);
+
+        // then
+        assertEquals(3, limit.currentLimit());
+        assertEquals(1, limit.inFlight());
+    }
+
+    @Test
+    void shouldNotIncreaseTheLimitWhenNotSaturated() throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(2, 10);
+
+        // when
+        limit.acquire();
+        limit.release(0, 10 * MS, false);
+
+        // then
+        assertEquals(2, limit.currentLimit());
+    }
+
+    @Test
+    void shouldNotIncreaseTheLimitAboveTheMaximum() throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(1, 3);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            saturate(limit);
+        }
+
+        // then
+        assertEquals(3, limit.currentLimit());
+    }
+
+    @Test
+    void shouldDecreaseTheLimitWhenACallIsSlow() throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(1, 100);
+        for (int i = 0; i < 19; i++) {
+            saturate(limit);
+        }
+        assertEquals(20, limit.currentLimit());
+
+        // when
+        limit.acquire();
+        limit.release(100 * MS, 130 * MS, false);
+
+        // then
+        assertEquals(18, limit.currentLimit());
+    }
+
+    @Test
+    void shouldDecreaseTheLimitWhenACallFails() throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(1, 100);
+        for (int i = 0; i < 19; i++) {
+            saturate(limit);
+        }
+
+        // when
+        limit.acquire();
+        limit.release(100 * MS, 101 * MS, true);
+
+        // then
+        assertEquals(18, limit.currentLimit());
+    }
+
+    @Test
+    void shouldNotDecreaseTheLimitAgainBecauseOfCallsStartedBeforeADecrease()
+            throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(1, 100);
+        for (int i = 0; i < 19; i++) {
+            saturate(limit);
+        }
+
+        // when
+        limit.acquire();
+        limit.acquire();
+        limit.release(100 * MS, 130 * MS, false);
+        limit.release(101 * MS, 131 * MS, false);
+
+        // then
+        assertEquals(18, limit.currentLimit());
+
+        // when
+        limit.acquire();
+        limit.release(140 * MS, 170 * MS, false);
+
+        // then
+        assertEquals(16, limit.currentLimit());
+    }
+
+    @Test
+    void shouldNotDecreaseTheLimitBelowTheMinimum() throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(2, 10);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            limit.acquire();
+            limit.release(i * 10 * MS, i * 10 * MS + 1, true);
+        }
+
+        // then
+        assertEquals(2, limit.currentLimit());
+    }
+
+    @Test
+    void shouldNotAdjustTheLimitWhenACallIsCancelled() throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(1, 10);
+
+        // when
+        limit.acquire();
+        limit.cancel();
+
+        // then
+        assertEquals(1, limit.currentLimit());
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldBlockWhenTheLimitIsReached() throws InterruptedException {
+        // given
+        var limit = new AdaptiveLimit(1, 10);
+        limit.acquire();
+        var acquired = new AtomicBoolean();
+
+        // when
+        var t =
+                Thread.ofVirtual()
+                        .start(
+                                () -> {
+                                    try {
+                                        limit.acquire();
+                                        acquired.set(true);
+                                    } catch (InterruptedException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                });
+        Thread.sleep(100);
+
+        // then
+        assertFalse(acquired.get());
+
+        // when
+        limit.release(0, MS, false);
+        t.join();
+
+        // then
+        assertTrue(acquired.get());
+    }
+
+    @Test
+    void shouldRejectInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit(5, 4));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit(1, 4, 1.5, 2));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit(1, 4, 0.9, 1));
+    }
+
+    /** Runs as many fast calls, as the current limit allows, increasing it by 1. */
+    private static void saturate(AdaptiveLimit limit) throws InterruptedException {
+        var n = limit.currentLimit();
+        for (int i = 0; i < n; i++) {
+            limit.acquire();
+        }
+        for (int i = 0; i < n; i++) {
+            limit.release(0, 10 * MS, false);
+        }
+    }
+}
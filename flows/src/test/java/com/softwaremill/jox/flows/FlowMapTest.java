@@ -4,17 +4,20 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
-import com.softwaremill.jox.Channel;
 import com.softwaremill.jox.ChannelError;
 import com.softwaremill.jox.Source;
 import com.softwaremill.jox.structured.JoxScopeExecutionException;
@@ -151,7 +154,7 @@ public class FlowMapTest {
                     assertEquals("b", s.receive());
                     assertEquals("c", s.receive());
                     var result = s.receiveOrClosed();
-                    if (result instanceof ChannelError(Throwable error, Channel<?> _)) {
+                    if (result instanceof ChannelError(Throwable error, var _)) {
                         assertEquals(boom, error);
                     }
                     return null;
@@ -303,6 +306,41 @@ public class FlowMapTest {
         }
     }
 
+    @Test
+    void mapPar_shouldPreserveOrderWhenLaterElementsCompleteFirst() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 1000, 1);
+
+        // when
+        List<Integer> result =
+                flow.mapPar(
+                                8,
+                                (Integer i) -> {
+                                    // elements which come earlier take longer
+                                    if (i % 8 == 1) {
+                                        Thread.sleep(1);
+                                    }
+                                    return i * 2;
+                                })
+                        .runToList();
+
+        // then
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            expected.add(i * 2);
+        }
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void mapPar_shouldFailWhenTheMappingFunctionReturnsNull() {
+        // given
+        Flow<Integer> flow = Flows.fromValues(1, 2, 3);
+
+        // when & then
+        assertThrows(JoxScopeExecutionException.class, () -> flow.mapPar(2, _ -> null).runToList());
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
     void testMapParUnorderedWithParallelism(int parallelism) throws InterruptedException {
@@ -545,6 +583,495 @@ public class FlowMapTest {
         assertEquals(delays.keySet(), new HashSet<>(result));
     }
 
+    @Test
+    void mapParUnordered_shouldAdaptTheLimitToTheObservedLatency() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 300, 1);
+        AdaptiveLimit limit = new AdaptiveLimit(1, 64);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // when
+        List<Integer> result =
+                flow.mapParUnordered(
+                                limit,
+                                i -> {
+                                    // a service which handles 4 calls at a time, the latency
+                                    // grows with the number of calls above that
+                                    var r = running.incrementAndGet();
+                                    maxRunning.accumulateAndGet(r, Math::max);
+                                    TimeUnit.MILLISECONDS.sleep(5L * Math.max(1, r - 3));
+                                    running.decrementAndGet();
+                                    return i;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(
+                IntStream.rangeClosed(1, 300).boxed().collect(Collectors.toSet()),
+                new HashSet<>(result));
+        assertThat(maxRunning.get(), allOf(greaterThan(1), lessThan(32)));
+        assertThat(limit.currentLimit(), lessThan(32));
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    void mapParUnordered_shouldDecreaseTheAdaptiveLimitWhenTheMappingFunctionFails()
+            throws Exception {
+        // given
+        AdaptiveLimit limit = new AdaptiveLimit(1, 20);
+        Flows.range(1, 100, 1).mapParUnordered(limit, i -> i).runDrain();
+        int limitBefore = limit.currentLimit();
+        RuntimeException boom = new RuntimeException("boom");
+
+        // when
+        Flow<Integer> flow =
+                Flows.range(1, 100, 1)
+                        .mapParUnordered(
+                                limit,
+                                i -> {
+                                    if (i == 1) {
+                                        throw boom;
+                                    }
+                                    // interrupted, when the flow fails
+                                    TimeUnit.SECONDS.sleep(1);
+                                    return i;
+                                });
+
+        // then
+        var exception = assertThrows(JoxScopeExecutionException.class, flow::runToList);
+        assertEquals(boom, exception.getCause().getCause());
+        assertThat(limitBefore, greaterThan(1));
+        assertThat(limit.currentLimit(), lessThan(limitBefore));
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    void mapParByKey_shouldPreserveOrderWithinKeys() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 1000, 1);
+        Random random = new Random();
+
+        // when
+        List<Integer> result =
+                flow.mapParByKey(
+                                8,
+                                i -> i % 10,
+                                i -> {
+                                    if (random.nextInt(10) == 0) {
+                                        TimeUnit.MILLISECONDS.sleep(1);
+                                    }
+                                    return i;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(1000, result.size());
+        for (int key = 0; key < 10; key++) {
+            final int k = key;
+            List<Integer> forKey = result.stream().filter(i -> i % 10 == k).toList();
+            assertEquals(forKey.stream().sorted().toList(), forKey);
+        }
+    }
+
+    @Test
+    void mapParByKey_shouldNotDelayOtherKeysWhenAnElementIsSlow() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 5, 1);
+
+        // when
+        List<Integer> result =
+                flow.mapParByKey(
+                                2,
+                                i -> i % 2,
+                                i -> {
+                                    if (i == 1) {
+                                        TimeUnit.MILLISECONDS.sleep(300);
+                                    }
+                                    return i;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(List.of(2, 4, 1, 3, 5), result);
+    }
+
+    @Test
+    void mapParByKey_shouldNotRunElementsWithTheSameKeyConcurrently() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 100, 1);
+        Map<Integer, AtomicInteger> runningPerKey = new HashMap<>();
+        for (int key = 0; key < 3; key++) {
+            runningPerKey.put(key, new AtomicInteger());
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger maxRunningPerKey = new AtomicInteger();
+
+        // when
+        List<Integer> result =
+                flow.mapParByKey(
+                                10,
+                                i -> i % 3,
+                                i -> {
+                                    var forKey = runningPerKey.get(i % 3).incrementAndGet();
+                                    maxRunningPerKey.accumulateAndGet(forKey, Math::max);
+                                    maxRunning.accumulateAndGet(
+                                            running.incrementAndGet(), Math::max);
+                                    TimeUnit.MILLISECONDS.sleep(2);
+                                    running.decrementAndGet();
+                                    runningPerKey.get(i % 3).decrementAndGet();
+                                    return i;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(100, result.size());
+        assertEquals(1, maxRunningPerKey.get());
+        assertThat(maxRunning.get(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    void mapParByKey_shouldLimitTheNumberOfKeysInFlight() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 20, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // when
+        List<Integer> result =
+                flow.mapParByKey(
+                                4,
+                                2,
+                                1,
+                                i -> i,
+                                i -> {
+                                    maxRunning.accumulateAndGet(
+                                            running.incrementAndGet(), Math::max);
+                                    TimeUnit.MILLISECONDS.sleep(10);
+                                    running.decrementAndGet();
+                                    return i;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(
+                IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toSet()),
+                new HashSet<>(result));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void mapParByKey_shouldPropagateErrors() {
+        // given
+        Flow<Integer> flow = Flows.iterate(1, i -> i + 1).take(10);
+        RuntimeException boom = new RuntimeException("boom");
+
+        // when
+        Flow<Integer> flow2 =
+                flow.mapParByKey(
+                        3,
+                        i -> i % 3,
+                        i -> {
+                            if (i == 5) {
+                                throw boom;
+                            }
+                            return i * 2;
+                        });
+
+        // then
+        var exception = assertThrows(JoxScopeExecutionException.class, flow2::runToList);
+        assertEquals(boom, exception.getCause().getCause());
+    }
+
+    @Test
+    void mapParByKey_shouldPropagateErrorsInKeyFunction() {
+        // given
+        Flow<Integer> flow = Flows.iterate(1, i -> i + 1).take(10);
+        RuntimeException boom = new RuntimeException("boom");
+
+        // when
+        Flow<Integer> flow2 =
+                flow.mapParByKey(
+                        3,
+                        i -> {
+                            if (i == 5) {
+                                throw boom;
+                            }
+                            return i % 3;
+                        },
+                        i -> i * 2);
+
+        // then
+        var exception = assertThrows(JoxScopeExecutionException.class, flow2::runToList);
+        assertEquals(boom, exception.getCause().getCause());
+    }
+
+    @Test
+    void mapParHedged_shouldNotHedgeFastCalls() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 100, 1);
+        Hedging hedging = Hedging.after(Duration.ofSeconds(1));
+
+        // when
+        List<Integer> result = flow.mapParHedged(4, hedging, 1, i -> i * 2).runToList();
+
+        // then
+        assertEquals(IntStream.rangeClosed(1, 100).map(i -> i * 2).boxed().toList(), result);
+        assertEquals(0, hedging.hedgesIssued());
+        assertEquals(0, hedging.hedgesWon());
+    }
+
+    @Test
+    void mapParHedged_shouldUseTheResultOfTheHedgedAttemptAndCancelTheSlowOne() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 5, 1);
+        Hedging hedging = Hedging.after(Duration.ofMillis(50));
+        Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        AtomicInteger cancelled = new AtomicInteger();
+
+        // when
+        long start = System.nanoTime();
+        List<Integer> result =
+                flow.mapParHedged(
+                                5,
+                                hedging,
+                                1,
+                                i -> {
+                                    var attempt =
+                                            attempts.computeIfAbsent(i, k -> new AtomicInteger())
+                                                    .incrementAndGet();
+                                    if (attempt == 1) {
+                                        try {
+                                            TimeUnit.SECONDS.sleep(5);
+                                        } catch (InterruptedException e) {
+                                            cancelled.incrementAndGet();
+                                            throw e;
+                                        }
+                                    }
+                                    return i * 2;
+                                })
+                        .runToList();
+        long took = System.nanoTime() - start;
+
+        // then
+        assertEquals(List.of(2, 4, 6, 8, 10), result);
+        assertThat(took, lessThan(TimeUnit.SECONDS.toNanos(2)));
+        assertEquals(5, hedging.hedgesIssued());
+        assertEquals(5, hedging.hedgesWon());
+        assertEquals(5, cancelled.get());
+    }
+
+    @Test
+    void mapParHedged_shouldStartAtMostMaxHedgesAttempts() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 3, 1);
+        Hedging hedging = Hedging.after(Duration.ofMillis(10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        List<Integer> result =
+                flow.mapParHedged(
+                                3,
+                                hedging,
+                                2,
+                                i -> {
+                                    attempts.incrementAndGet();
+                                    TimeUnit.MILLISECONDS.sleep(200);
+                                    return i;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(List.of(1, 2, 3), result);
+        assertEquals(9, attempts.get());
+        assertEquals(6, hedging.hedgesIssued());
+        assertEquals(0, hedging.hedgesWon());
+    }
+
+    @Test
+    void mapParHedged_shouldPropagateErrorsWhenAllAttemptsFail() {
+        // given
+        Flow<Integer> flow = Flows.range(1, 10, 1);
+        RuntimeException boom = new RuntimeException("boom");
+
+        // when
+        Flow<Integer> flow2 =
+                flow.mapParHedged(
+                        3,
+                        Hedging.after(Duration.ofMillis(10)),
+                        1,
+                        i -> {
+                            if (i == 5) {
+                                throw boom;
+                            }
+                            return i;
+                        });
+
+        // then
+        var exception = assertThrows(JoxScopeExecutionException.class, flow2::runToList);
+        assertEquals(boom, exception.getCause().getCause());
+    }
+
+    @Test
+    void mapParHedged_shouldUseTheResultOfAHedgedAttemptWhenTheOriginalOneFails() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.fromValues(1);
+        Hedging hedging = Hedging.after(Duration.ofMillis(10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        List<Integer> result =
+                flow.mapParHedged(
+                                1,
+                                hedging,
+                                1,
+                                i -> {
+                                    if (attempts.incrementAndGet() == 1) {
+                                        TimeUnit.MILLISECONDS.sleep(100);
+                                        throw new RuntimeException("boom");
+                                    }
+                                    TimeUnit.MILLISECONDS.sleep(200);
+                                    return i;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(List.of(1), result);
+        assertEquals(1, hedging.hedgesWon());
+    }
+
+    @Test
+    void mapParHedged_shouldKeepTheHedgeRateNearThePercentileWithASlowTail() throws Exception {
+        // given
+        // the first attempts for every 5th element are slow (a stable 20% tail), the other
+        // attempts take between 1 and 20ms; hedging at the 80th percentile should then hedge
+        // mostly the slow ones
+        var elements = 2000;
+        Flow<Integer> flow = Flows.range(1, elements, 1);
+        Hedging hedging = Hedging.afterPercentile(80, Duration.ofMillis(30));
+        Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+        // when
+        flow.mapParHedged(
+                        64,
+                        hedging,
+                        1,
+                        i -> {
+                            var attempt =
+                                    attempts.computeIfAbsent(i, k -> new AtomicInteger())
+                                            .incrementAndGet();
+                            if (attempt == 1 && i % 5 == 0) {
+                                TimeUnit.MILLISECONDS.sleep(100);
+                            } else {
+                                TimeUnit.MILLISECONDS.sleep(1 + (i * 7 + attempt) % 20);
+                            }
+                            return i;
+                        })
+                .runDrain();
+
+        // then
+        // if only the winners' latencies were recorded, the slow tail would never be taken into
+        // account, and the delay would drift towards the 80th percentile of the fast attempts,
+        // hedging about 36% of the elements
+        var hedgeRate = (double) hedging.hedgesIssued() / elements;
+        assertThat(hedgeRate, allOf(greaterThan(0.15), lessThan(0.28)));
+    }
+
+    @Test
+    void mapBatched_shouldLookUpKeysInBatchesAndPreserveOrder() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.range(1, 10, 1);
+        Queue<List<Integer>> batches = new ConcurrentLinkedQueue<>();
+
+        // when
+        List<String> result =
+                flow.mapBatched(
+                                3,
+                                Duration.ofSeconds(1),
+                                2,
+                                keys -> {
+                                    batches.add(keys);
+                                    Map<Integer, String> values = new HashMap<>();
+                                    for (Integer key : keys) {
+                                        values.put(key, "v" + key);
+                                    }
+                                    return values;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(IntStream.rangeClosed(1, 10).mapToObj(i -> "v" + i).toList(), result);
+        assertEquals(
+                Set.of(List.of(1, 2, 3), List.of(4, 5, 6), List.of(7, 8, 9), List.of(10)),
+                new HashSet<>(batches));
+    }
+
+    @Test
+    void mapBatched_shouldDeduplicateKeysWithinABatch() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.fromValues(1, 2, 1, 3, 2, 1);
+        Queue<List<Integer>> batches = new ConcurrentLinkedQueue<>();
+
+        // when
+        List<Integer> result =
+                flow.mapBatched(
+                                10,
+                                Duration.ofSeconds(1),
+                                1,
+                                keys -> {
+                                    batches.add(keys);
+                                    Map<Integer, Integer> values = new HashMap<>();
+                                    for (Integer key : keys) {
+                                        values.put(key, key * 10);
+                                    }
+                                    return values;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(List.of(10, 20, 10, 30, 20, 10), result);
+        assertEquals(List.of(List.of(1, 2, 3)), new ArrayList<>(batches));
+    }
+
+    @Test
+    void mapBatched_shouldFailWhenAValueIsMissing() {
+        // given
+        Flow<Integer> flow = Flows.fromValues(1, 2, 3);
+
+        // when
+        Flow<Integer> flow2 =
+                flow.mapBatched(10, Duration.ofSeconds(1), 1, keys -> Map.of(1, 10, 3, 30));
+
+        // then
+        var exception = assertThrows(JoxScopeExecutionException.class, flow2::runToList);
+        assertInstanceOf(IllegalStateException.class, exception.getCause().getCause());
+    }
+
+    @Test
+    void mapBatched_shouldPropagateErrorsFromTheLookupFunction() {
+        // given
+        Flow<Integer> flow = Flows.range(1, 10, 1);
+        RuntimeException boom = new RuntimeException("boom");
+
+        // when
+        Flow<Integer> flow2 =
+                flow.mapBatched(
+                        2,
+                        Duration.ofSeconds(1),
+                        2,
+                        keys -> {
+                            if (keys.contains(5)) {
+                                throw boom;
+                            }
+                            return Map.of(keys.getFirst(), 0, keys.getLast(), 0);
+                        });
+
+        // then
+        var exception = assertThrows(JoxScopeExecutionException.class, flow2::runToList);
+        assertEquals(boom, exception.getCause().getCause());
+    }
+
     @Test
     void mapStatefulConcat_shouldDeduplicate() throws Exception {
         // given
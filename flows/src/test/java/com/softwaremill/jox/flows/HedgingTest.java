@@ -0,0 +1,77 @@
+package com.softwaremill.jox.flows;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class HedgingTest {
+    @Test
+    void shouldUseTheFixedDelay() {
+        // given
+        var hedging = Hedging.after(Duration.ofMillis(100));
+
+        // when
+        for (int i = 0; i < Hedging.WINDOW; i++) {
+            hedging.recordLatency(1_000);
+        }
+
+        // then
+        assertEquals(Duration.ofMillis(100), hedging.currentDelay());
+    }
+
+    @Test
+    void shouldUseTheInitialDelayUntilEnoughLatenciesAreRecorded() {
+        // given
+        var hedging = Hedging.afterPercentile(90, Duration.ofMillis(100));
+
+        // when
+        for (int i = 0; i < Hedging.RECOMPUTE_EVERY - 1; i++) {
+            hedging.recordLatency(1_000);
+        }
+
+        // then
+        assertEquals(Duration.ofMillis(100), hedging.currentDelay());
+    }
+
+    @Test
+    void shouldDeriveTheDelayFromThePercentileOfRecordedLatencies() {
+        // given
+        var hedging = Hedging.afterPercentile(90, Duration.ofMillis(100));
+
+        // when
+        for (int i = 1; i <= Hedging.WINDOW; i++) {
+            hedging.recordLatency(i);
+        }
+
+        // then
+        assertEquals(Duration.ofNanos(461), hedging.currentDelay());
+    }
+
+    @Test
+    void shouldOnlyTakeIntoAccountTheMostRecentLatencies() {
+        // given
+        var hedging = Hedging.afterPercentile(50, Duration.ofMillis(100));
+        for (int i = 0; i < Hedging.WINDOW; i++) {
+            hedging.recordLatency(1_000_000);
+        }
+
+        // when
+        for (int i = 0; i < Hedging.WINDOW; i++) {
+            hedging.recordLatency(1_000);
+        }
+
+        // then
+        assertEquals(Duration.ofNanos(1_000), hedging.currentDelay());
+    }
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> Hedging.after(Duration.ofMillis(-1)));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> Hedging.afterPercentile(100, Duration.ofMillis(1)));
+        assertThrows(NullPointerException.class, () -> Hedging.after(null));
+    }
+}
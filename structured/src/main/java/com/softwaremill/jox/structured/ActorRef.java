@@ -2,11 +2,13 @@ package com.softwaremill.jox.structured;
 
 import static com.softwaremill.jox.structured.Util.uninterruptible;
 
+import java.util.ArrayList;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
 import com.softwaremill.jox.Channel;
+import com.softwaremill.jox.RingChannel;
 import com.softwaremill.jox.Sink;
 
 public class ActorRef<T> {
@@ -79,22 +81,27 @@ public class ActorRef<T> {
      * scope.
      *
      * <p>The actor's mailbox (incoming channel) will have a capacity of {@link
-     * Channel#DEFAULT_BUFFER_SIZE}.
+     * Channel#DEFAULT_BUFFER_SIZE}. As the mailbox has a single consumer, it's a {@link
+     * Channel#newMpscChannel(int)} channel; pending invocations are received in batches.
      */
     public static <T> ActorRef<T> create(Scope scope, T logic, Consumer<T> close)
             throws InterruptedException {
-        Channel<ThrowingConsumer<T>> c = Channel.newBufferedDefaultChannel();
+        RingChannel<ThrowingConsumer<T>> c = Channel.newMpscChannel(Channel.DEFAULT_BUFFER_SIZE);
         ActorRef<T> ref = new ActorRef<>(c);
         scope.fork(
                 () -> {
+                    var batch = new ArrayList<ThrowingConsumer<T>>(Channel.DEFAULT_BUFFER_SIZE);
                     try {
                         while (true) {
-                            ThrowingConsumer<T> m = c.receive();
-                            try {
-                                m.accept(logic);
-                            } catch (Throwable t) {
-                                c.error(t);
-                                throw t;
+                            batch.clear();
+                            c.receiveAtMost(Channel.DEFAULT_BUFFER_SIZE, batch);
+                            for (ThrowingConsumer<T> m : batch) {
+                                try {
+                                    m.accept(logic);
+                                } catch (Throwable t) {
+                                    c.error(t);
+                                    throw t;
+                                }
                             }
                         }
                     } finally {
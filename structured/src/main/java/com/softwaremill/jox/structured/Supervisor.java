@@ -7,13 +7,16 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.softwaremill.jox.Channel;
+import com.softwaremill.jox.RingChannel;
 
 final class Supervisor {
     private final AtomicInteger runningUserForks = new AtomicInteger(0);
     // used a single-complete cell to record the first exception (or success)
     private final CompletableFuture<Object> result = new CompletableFuture<>();
     private final Set<Throwable> otherExceptions = ConcurrentHashMap.newKeySet();
-    private final Channel<SupervisorCommand> commands = Channel.newBufferedDefaultChannel();
+    // the commands are only received by the scope's thread
+    private final RingChannel<SupervisorCommand> commands =
+            Channel.newMpscChannel(Channel.DEFAULT_BUFFER_SIZE);
 
     void forkUserStarts() {
         runningUserForks.incrementAndGet();
@@ -44,7 +47,7 @@ final class Supervisor {
         }
     }
 
-    Channel<SupervisorCommand> getCommands() {
+    RingChannel<SupervisorCommand> getCommands() {
         return commands;
     }
 }